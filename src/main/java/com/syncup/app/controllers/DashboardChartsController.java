@@ -1,9 +1,9 @@
 package com.syncup.app.controllers;
 
 import com.syncup.app.Main;
+import com.syncup.app.logic.AgregadosPorPeriodo;
 import com.syncup.app.logic.DataStore;
 import com.syncup.app.logic.HistorialManager;
-import com.syncup.app.model.Cancion;
 
 import javafx.fxml.FXML;
 import javafx.scene.Scene;
@@ -14,7 +14,6 @@ import javafx.fxml.FXMLLoader;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * <h2>Controlador del Dashboard de Métricas</h2>
@@ -60,25 +59,18 @@ public class DashboardChartsController {
 
     private final HistorialManager historial = DataStore.getInstance().getHistorial();
 
-    // Cached sin filtros
-    private List<String[]> historialOriginal;
-
     @FXML
     private void initialize() {
 
-        historialOriginal = historial.obtenerHistorial();
-
         cargarUsuarios();
         cargarGeneros();
-        refrescarGraficos(historialOriginal);
+        refrescarGraficos(historial.resumirReproducciones(null, null, (LocalDate) null, null), false);
     }
 
     // CARGA DE LISTAS
 
     private void cargarUsuarios() {
-        Set<String> usuarios = historialOriginal.stream()
-                .map(r -> r[0])
-                .collect(Collectors.toSet());
+        Set<String> usuarios = historial.getReproduccionesPorUsuario().keySet();
 
         comboUsuarios.getItems().clear();
         comboUsuarios.getItems().add("Todos");
@@ -87,9 +79,7 @@ public class DashboardChartsController {
     }
 
     private void cargarGeneros() {
-        Set<String> generos = historialOriginal.stream()
-                .map(r -> r[3])
-                .collect(Collectors.toSet());
+        Set<String> generos = historial.getReproduccionesPorGenero().keySet();
 
         comboGeneros.getItems().clear();
         comboGeneros.getItems().add("Todos");
@@ -101,41 +91,15 @@ public class DashboardChartsController {
 
     @FXML
     private void handleAplicarFiltros() {
-        List<String[]> filtrado = new ArrayList<>(historialOriginal);
-
-        // Filtrar por usuario
+        // Los filtros se resuelven sumando los agregados diarios del historial
         String usuario = comboUsuarios.getValue();
-        if (!usuario.equals("Todos")) {
-            filtrado = filtrado.stream()
-                    .filter(r -> r[0].equals(usuario))
-                    .collect(Collectors.toList());
-        }
-
-        // Filtrar por género
         String genero = comboGeneros.getValue();
-        if (!genero.equals("Todos")) {
-            filtrado = filtrado.stream()
-                    .filter(r -> r[3].equals(genero))
-                    .collect(Collectors.toList());
-        }
-
-        // Filtrar por fechas
-        LocalDate dDesde = dateDesde.getValue();
-        LocalDate dHasta = dateHasta.getValue();
 
-        if (dDesde != null) {
-            filtrado = filtrado.stream()
-                    .filter(r -> LocalDate.parse(r[1].split(" ")[0]).compareTo(dDesde) >= 0)
-                    .collect(Collectors.toList());
-        }
-
-        if (dHasta != null) {
-            filtrado = filtrado.stream()
-                    .filter(r -> LocalDate.parse(r[1].split(" ")[0]).compareTo(dHasta) <= 0)
-                    .collect(Collectors.toList());
-        }
-
-        refrescarGraficos(filtrado);
+        refrescarGraficos(historial.resumirReproducciones(
+                usuario.equals("Todos") ? null : usuario,
+                genero.equals("Todos") ? null : genero,
+                dateDesde.getValue(),
+                dateHasta.getValue()), true);
     }
 
     @FXML
@@ -145,54 +109,49 @@ public class DashboardChartsController {
         dateDesde.setValue(null);
         dateHasta.setValue(null);
 
-        refrescarGraficos(historialOriginal);
+        refrescarGraficos(historial.resumirReproducciones(null, null, (LocalDate) null, null), false);
     }
 
     // GRÁFICOS
 
-    private void refrescarGraficos(List<String[]> registros) {
+    private void refrescarGraficos(AgregadosPorPeriodo.Resumen resumen, boolean filtrado) {
 
-        cargarPieChart(registros);
-        cargarBarChart(registros);
-        cargarTopCanciones(registros);
+        cargarPieChart(resumen);
+        cargarBarChart(resumen);
+        cargarTopCanciones(resumen, filtrado);
     }
 
-    private void cargarPieChart(List<String[]> registros) {
+    private void cargarPieChart(AgregadosPorPeriodo.Resumen resumen) {
         chartGeneros.getData().clear();
 
-        Map<String, Long> mapa = registros.stream()
-                .collect(Collectors.groupingBy(r -> r[3], Collectors.counting()));
-
-        mapa.forEach((gen, count) -> chartGeneros.getData().add(new PieChart.Data(gen, count)));
+        resumen.getPorGenero().forEach((gen, count) -> chartGeneros.getData().add(new PieChart.Data(gen, count)));
     }
 
-    private void cargarBarChart(List<String[]> registros) {
+    private void cargarBarChart(AgregadosPorPeriodo.Resumen resumen) {
         chartArtistas.getData().clear();
 
-        Map<String, Long> mapa = registros.stream()
-                .map(r -> DataStore.getInstance()
-                        .getBiblioteca().buscarPorTitulo(r[2]))
-                .filter(Objects::nonNull)
-                .collect(Collectors.groupingBy(Cancion::getArtista, Collectors.counting()));
-
         XYChart.Series<String, Number> serie = new XYChart.Series<>();
         serie.setName("Reproducciones por Artista");
 
-        mapa.forEach((artista, count) -> {
+        resumen.getPorArtista().forEach((artista, count) -> {
             serie.getData().add(new XYChart.Data<>(artista, count));
         });
 
         chartArtistas.getData().add(serie);
     }
 
-    private void cargarTopCanciones(List<String[]> registros) {
+    private void cargarTopCanciones(AgregadosPorPeriodo.Resumen resumen, boolean filtrado) {
         listaTopCanciones.getItems().clear();
 
-        Map<String, Long> mapa = registros.stream()
-                .collect(Collectors.groupingBy(r -> r[2], Collectors.counting()));
+        if (!filtrado) {
+            // Sin filtros: top mantenido por el historial, sin ordenar todos los conteos
+            historial.obtenerTopCanciones(10).forEach(e -> listaTopCanciones.getItems()
+                    .add(e.getClave() + " — " + e.getConteo() + " reproducciones"));
+            return;
+        }
 
-        mapa.entrySet().stream()
-                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+        resumen.getPorCancion().entrySet().stream()
+                .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
                 .limit(10)
                 .forEach(e -> listaTopCanciones.getItems()
                         .add(e.getKey() + " — " + e.getValue() + " reproducciones"));
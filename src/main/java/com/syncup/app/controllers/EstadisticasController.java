@@ -66,7 +66,7 @@ public class EstadisticasController {
             listaMetricas.add(new Metrica("👤 Usuario", usuario));
             listaMetricas.add(new Metrica("Rol", rol));
 
-            int totalUsuario = manager.obtenerHistorialUsuario(usuario).size();
+            int totalUsuario = manager.obtenerTotalReproduccionesUsuario(usuario);
             listaMetricas.add(new Metrica("Total de canciones reproducidas",
                     String.valueOf(totalUsuario)));
 
@@ -1,6 +1,7 @@
 package com.syncup.app.controllers;
 
 import com.syncup.app.Main;
+import com.syncup.app.logic.AnaliticaHistorial;
 import com.syncup.app.logic.DataStore;
 import com.syncup.app.logic.HistorialManager;
 import javafx.collections.FXCollections;
@@ -62,36 +63,29 @@ public class EstadisticasGlobalesController {
         listaMetricas.add(new Metrica("────────────", "────────────"));
 
         // ✅ Reproducciones por usuario
-        Map<String, List<String[]>> agrupado = manager.obtenerHistorialAgrupadoPorUsuario();
-        listaMetricas.add(new Metrica("👤 Usuarios con actividad", String.valueOf(agrupado.size())));
+        List<Map.Entry<String, Integer>> porUsuario = manager.consultar(
+                AnaliticaHistorial.Consulta.agruparPor(AnaliticaHistorial.Campo.USUARIO));
+        listaMetricas.add(new Metrica("👤 Usuarios con actividad", String.valueOf(porUsuario.size())));
 
-        for (Map.Entry<String, List<String[]>> entry : agrupado.entrySet()) {
+        for (Map.Entry<String, Integer> entry : porUsuario) {
             String usuario = entry.getKey();
-            int total = entry.getValue().size();
+            int total = entry.getValue();
             listaMetricas.add(new Metrica(" - " + usuario, total + " reproducciones"));
         }
 
         listaMetricas.add(new Metrica("────────────", "────────────"));
 
         // ✅ Canciones más escuchadas (top 3)
-        Map<String, Long> conteoCanciones = manager.conteoPorCancion();
         listaMetricas.add(new Metrica("🎶 Top 3 Canciones más reproducidas", ""));
-        conteoCanciones.entrySet().stream()
-                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
-                .limit(3)
-                .forEach(e -> listaMetricas.add(
-                        new Metrica(" - " + e.getKey(), e.getValue() + " veces")));
+        manager.obtenerTopCanciones(3).forEach(e -> listaMetricas.add(
+                new Metrica(" - " + e.getClave(), e.getConteo() + " veces")));
 
         listaMetricas.add(new Metrica("────────────", "────────────"));
 
         // ✅ Géneros más escuchados (top 3)
-        Map<String, Long> conteoGeneros = manager.conteoPorGenero();
         listaMetricas.add(new Metrica("🎼 Top 3 Géneros más reproducidos", ""));
-        conteoGeneros.entrySet().stream()
-                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
-                .limit(3)
-                .forEach(e -> listaMetricas.add(
-                        new Metrica(" - " + e.getKey(), e.getValue() + " veces")));
+        manager.obtenerTopGeneros(3).forEach(e -> listaMetricas.add(
+                new Metrica(" - " + e.getClave(), e.getConteo() + " veces")));
     }
 
     @FXML
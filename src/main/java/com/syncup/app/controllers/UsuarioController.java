@@ -62,6 +62,11 @@ import java.util.Collections;
  */
 public class UsuarioController {
 
+    /** Número máximo de sugerencias mostradas mientras se escribe */
+    private static final int MAX_SUGERENCIAS = 8;
+    /** Número máximo de canciones mostradas por una búsqueda */
+    private static final int MAX_RESULTADOS_BUSQUEDA = 200;
+
     @FXML
     private TableView<Cancion> tablaCanciones;
     @FXML
@@ -135,7 +140,6 @@ public class UsuarioController {
         colGenero.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("genero"));
 
         cargarCanciones();
-        biblioteca.reconstruirTrie();
 
         sliderProgreso.valueProperty().addListener((obs, oldVal, newVal) -> {
             if (sliderProgreso.isValueChanging() && mediaPlayer != null) {
@@ -229,16 +233,9 @@ public class UsuarioController {
             return;
         }
 
-        // Sugerencias desde el TRIE
-        List<String> titulos = biblioteca.autocompletar(filtro);
-
-        ObservableList<Cancion> filtradas = FXCollections.observableArrayList();
-
-        for (Cancion c : biblioteca.obtenerTodas()) {
-            if (titulos.contains(c.getTitulo())) { // 🔥 ahora coincide correctamente
-                filtradas.add(c);
-            }
-        }
+        // Índice invertido (BM25) + BK-Trees (errores tipográficos), ya ordenado por relevancia
+        ObservableList<Cancion> filtradas = FXCollections.observableArrayList(
+                biblioteca.buscar(filtro, MAX_RESULTADOS_BUSQUEDA));
 
         tablaCanciones.setItems(filtradas);
 
@@ -259,7 +256,10 @@ public class UsuarioController {
         }
 
         Cancion nueva = new Cancion(titulo, artista, genero);
-        biblioteca.agregarCancion(nueva);
+        if (!biblioteca.agregarCancion(nueva)) {
+            mostrarAlerta("Error", "Ya existe una canción con ese título.");
+            return;
+        }
         cargarCanciones();
 
         if (txtTituloNuevo != null)
@@ -1007,15 +1007,9 @@ public class UsuarioController {
         }
 
         String filtro = prefijo.trim().toLowerCase();
-        var sugerencias = FXCollections.<String>observableArrayList();
 
-        // Por ahora usamos la biblioteca directamente; luego se puede enchufar al TRIE.
-        for (Cancion c : biblioteca.obtenerTodas()) {
-            String titulo = c.getTitulo() != null ? c.getTitulo() : "";
-            if (titulo.toLowerCase().startsWith(filtro)) {
-                sugerencias.add(titulo);
-            }
-        }
+        // TRIE: las más reproducidas primero
+        var sugerencias = FXCollections.observableArrayList(biblioteca.sugerir(filtro, MAX_SUGERENCIAS));
 
         if (sugerencias.isEmpty()) {
             listaSugerenciasBusqueda.setVisible(false);
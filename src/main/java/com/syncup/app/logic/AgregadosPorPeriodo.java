@@ -0,0 +1,565 @@
+package com.syncup.app.logic;
+
+import com.syncup.app.model.estructuras.DiccionarioCadenas;
+import com.syncup.app.model.estructuras.HistorialColumnar;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <h2>Agregados por Periodo</h2>
+ * Conteos de reproducciones acumulados por hora y por día, para filtrar por rango
+ * de fechas sin recorrer el historial.
+ *
+ * <p>
+ * Cada periodo (una hora, un día o un mes, en hora local) guarda cuántas veces se
+ * dio cada combinación {canción, género, artista}. Hay dos juegos de periodos:
+ * </p>
+ * <ul>
+ *     <li>Globales, sin usuario: responden los filtros sin usuario (solo género o ninguno).
+ *     Tienen una entrada por canción distinta del periodo, no por oyente</li>
+ *     <li>Por usuario, uno por oyente: responden los filtros con usuario (con o sin
+ *     género) recorriendo solo los periodos de ese usuario</li>
+ * </ul>
+ * <p>
+ * Un filtro por fechas se responde sumando los periodos del rango:
+ * </p>
+ * <ul>
+ *     <li>Los meses completos se toman de los agregados mensuales (solo globales)</li>
+ *     <li>Los días completos restantes, de los agregados diarios</li>
+ *     <li>Las horas sueltas de los extremos, de los agregados por hora</li>
+ * </ul>
+ * <p>
+ * Los agregados por hora solo se conservan para los últimos días
+ * ({@value #DIAS_CON_HORAS} por defecto, contados desde la reproducción más
+ * reciente); los más viejos se descartan a medida que avanza el historial. Si un
+ * extremo del rango cae en un día anterior, ese día se suma completo desde los
+ * agregados diarios: fuera de la ventana la precisión es de un día.
+ * </p>
+ * <p>
+ * El costo depende de la cantidad de periodos y combinaciones distintas del rango,
+ * no de la cantidad de reproducciones: un año sin usuario son 12 meses más a lo
+ * sumo 60 días sueltos, cada uno con a lo sumo una entrada por canción. El artista sale de la fila del historial,
+ * sin consultar el catálogo.
+ * </p>
+ *
+ * <h3>Claves:</h3>
+ * <p>
+ * La tupla {canción, género, artista} se codifica como un entero denso. Los periodos
+ * se guardan en arreglos ordenados de {@code long} y los conteos de cada periodo en
+ * una tabla hash de direccionamiento abierto sobre {@code long[]}/{@code int[]}, sin
+ * objetos por entrada; la misma tabla asigna los códigos de tupla.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class AgregadosPorPeriodo {
+
+    /** Días para los que se conservan los agregados por hora */
+    public static final int DIAS_CON_HORAS = 35;
+
+    /** Hora local (horas desde 1970) → tupla → reproducciones, solo la ventana reciente */
+    private final Periodos porHora = new Periodos();
+    /** Día local (días desde 1970) → tupla → reproducciones */
+    private final Periodos porDia = new Periodos();
+    /** Mes local (meses desde enero de 1970) → tupla → reproducciones */
+    private final Periodos porMes = new Periodos();
+    /** Código de usuario → sus horas de la ventana reciente, null si no tiene */
+    private Periodos[] horasPorUsuario = new Periodos[16];
+    /** Código de usuario → sus días, null si no tiene */
+    private Periodos[] diasPorUsuario = new Periodos[16];
+
+    private final int diasConHoras;
+    /** Día de la reproducción más reciente, o {@code Long.MIN_VALUE} si no hay ninguna */
+    private long diaMasReciente = Long.MIN_VALUE;
+
+    /** Día y mes de la última reproducción sumada, para no recalcular el mes en cada fila */
+    private long ultimoDia = Long.MIN_VALUE;
+    private long ultimoMes;
+
+    /** (canción << 32 | género) → código de par */
+    private final Conteos pares = new Conteos();
+    /** (par << 32 | artista + 1) → código de tupla */
+    private final Conteos tuplas = new Conteos();
+    private int[] cancionDeTupla = new int[16];
+    private int[] generoDeTupla = new int[16];
+    /** Código de artista de cada tupla, -1 si no se conoce */
+    private int[] artistaDeTupla = new int[16];
+
+    /**
+     * Conteos de un filtro, ya con los nombres decodificados.
+     */
+    public static class Resumen {
+        private final Map<String, Integer> porCancion;
+        private final Map<String, Integer> porGenero;
+        private final Map<String, Integer> porArtista;
+        private final int total;
+
+        Resumen(Map<String, Integer> porCancion, Map<String, Integer> porGenero,
+                Map<String, Integer> porArtista, int total) {
+            this.porCancion = porCancion;
+            this.porGenero = porGenero;
+            this.porArtista = porArtista;
+            this.total = total;
+        }
+
+        /** @return título → reproducciones */
+        public Map<String, Integer> getPorCancion() { return porCancion; }
+
+        /** @return género → reproducciones */
+        public Map<String, Integer> getPorGenero() { return porGenero; }
+
+        /** @return artista → reproducciones (sin las canciones que ya no están en la biblioteca) */
+        public Map<String, Integer> getPorArtista() { return porArtista; }
+
+        /** @return total de reproducciones que cumplen el filtro */
+        public int getTotal() { return total; }
+    }
+
+    public AgregadosPorPeriodo() {
+        this(DIAS_CON_HORAS);
+    }
+
+    /**
+     * @param diasConHoras días recientes (al menos 1) para los que se guardan agregados por hora
+     */
+    public AgregadosPorPeriodo(int diasConHoras) {
+        this.diasConHoras = Math.max(1, diasConHoras);
+    }
+
+    // ========================
+    // ACTUALIZACIÓN
+    // ========================
+
+    /**
+     * Suma una reproducción ya agregada al historial.
+     *
+     * @param historial historial que contiene la fila
+     * @param fila fila recién agregada
+     */
+    public void sumar(HistorialColumnar historial, int fila) {
+        int usuario = historial.getCodigoUsuario(fila);
+        long clave = tupla(historial.getCodigoCancion(fila), historial.getCodigoGenero(fila),
+                historial.getCodigoArtista(fila));
+        long hora = historial.getHora(fila);
+        long dia = Math.floorDiv(hora, 24L);
+        if (dia != ultimoDia) {
+            ultimoDia = dia;
+            ultimoMes = mesDe(dia);
+        }
+        porMes.conteos(ultimoMes).sumar(clave);
+        porDia.conteos(dia).sumar(clave);
+        if (usuario >= diasPorUsuario.length) {
+            int capacidad = Math.max(usuario + 1, diasPorUsuario.length * 2);
+            diasPorUsuario = Arrays.copyOf(diasPorUsuario, capacidad);
+            horasPorUsuario = Arrays.copyOf(horasPorUsuario, capacidad);
+        }
+        if (diasPorUsuario[usuario] == null) {
+            diasPorUsuario[usuario] = new Periodos();
+        }
+        diasPorUsuario[usuario].conteos(dia).sumar(clave);
+
+        if (dia > diaMasReciente) {
+            diaMasReciente = dia;
+            long primeraHora = primerDiaConHoras() * 24;
+            porHora.descartarAntesDe(primeraHora);
+            for (Periodos horas : horasPorUsuario) {
+                if (horas != null) horas.descartarAntesDe(primeraHora);
+            }
+        }
+        if (dia >= primerDiaConHoras()) {
+            porHora.conteos(hora).sumar(clave);
+            if (horasPorUsuario[usuario] == null) {
+                horasPorUsuario[usuario] = new Periodos();
+            }
+            horasPorUsuario[usuario].conteos(hora).sumar(clave);
+        }
+    }
+
+    /** @return primer día cuyas horas siguen guardadas */
+    private long primerDiaConHoras() {
+        return diaMasReciente == Long.MIN_VALUE ? Long.MIN_VALUE : diaMasReciente - diasConHoras + 1;
+    }
+
+    /** @return cantidad de horas con agregados guardados */
+    public int getHorasGuardadas() {
+        return porHora.tamaño;
+    }
+
+    /**
+     * Vuelve a calcular todos los periodos con un recorrido del historial.
+     *
+     * @param historial historial completo
+     */
+    public void reconstruir(HistorialColumnar historial) {
+        porHora.limpiar();
+        porDia.limpiar();
+        porMes.limpiar();
+        Arrays.fill(horasPorUsuario, null);
+        Arrays.fill(diasPorUsuario, null);
+        diaMasReciente = Long.MIN_VALUE;
+        ultimoDia = Long.MIN_VALUE;
+        int n = historial.getTamaño();
+        for (int fila = 0; fila < n; fila++) {
+            sumar(historial, fila);
+        }
+    }
+
+    private int tupla(int cancion, int genero, int artista) {
+        long clavePar = ((long) cancion << 32) | (genero & 0xFFFFFFFFL);
+        int par = pares.obtener(clavePar);
+        if (par < 0) {
+            par = pares.tamaño();
+            pares.poner(clavePar, par);
+        }
+        long clave = ((long) par << 32) | ((artista + 1) & 0xFFFFFFFFL);
+        int codigo = tuplas.obtener(clave);
+        if (codigo >= 0)
+            return codigo;
+
+        int nuevo = tuplas.tamaño();
+        if (nuevo == cancionDeTupla.length) {
+            cancionDeTupla = Arrays.copyOf(cancionDeTupla, nuevo * 2);
+            generoDeTupla = Arrays.copyOf(generoDeTupla, nuevo * 2);
+            artistaDeTupla = Arrays.copyOf(artistaDeTupla, nuevo * 2);
+        }
+        cancionDeTupla[nuevo] = cancion;
+        generoDeTupla[nuevo] = genero;
+        artistaDeTupla[nuevo] = artista;
+        tuplas.poner(clave, nuevo);
+        return nuevo;
+    }
+
+    /** @return meses desde enero de 1970 del día indicado */
+    private static long mesDe(long dia) {
+        LocalDate fecha = LocalDate.ofEpochDay(dia);
+        return (fecha.getYear() - 1970L) * 12 + fecha.getMonthValue() - 1;
+    }
+
+    /** @return primer día (días desde 1970) del mes indicado */
+    private static long primerDiaDelMes(long mes) {
+        return LocalDate.of((int) (1970 + Math.floorDiv(mes, 12L)), (int) Math.floorMod(mes, 12L) + 1, 1)
+                .toEpochDay();
+    }
+
+    // ========================
+    // CONSULTAS
+    // ========================
+
+    /**
+     * Resume las reproducciones de un rango de días.
+     *
+     * @param historial historial de donde salen los diccionarios
+     * @param usuario usuario exacto, o null para todos
+     * @param genero género exacto, o null para todos
+     * @param desde primer día (inclusive), o null para no limitar
+     * @param hasta último día (inclusive), o null para no limitar
+     * @return conteos del filtro
+     */
+    public Resumen resumir(HistorialColumnar historial, String usuario, String genero,
+                           LocalDate desde, LocalDate hasta) {
+        long diaDesde = desde != null ? desde.toEpochDay() : Long.MIN_VALUE;
+        long diaHasta = hasta != null ? hasta.toEpochDay() : Long.MAX_VALUE;
+        Acumulador acc = new Acumulador(historial, usuario, genero);
+        sumarDias(acc, diaDesde, diaHasta);
+        return acc.resumen(historial);
+    }
+
+    /**
+     * Resume las reproducciones de un rango de fechas con precisión de una hora:
+     * se incluyen las horas cuyo inicio cae en [desde truncado a la hora, hasta].
+     *
+     * @param historial historial de donde salen los diccionarios
+     * @param usuario usuario exacto, o null para todos
+     * @param genero género exacto, o null para todos
+     * @param desde inicio del rango (inclusive), o null para no limitar
+     * @param hasta fin del rango (inclusive), o null para no limitar
+     * @return conteos del filtro
+     */
+    public Resumen resumir(HistorialColumnar historial, String usuario, String genero,
+                           LocalDateTime desde, LocalDateTime hasta) {
+        long horaDesde = desde != null ? Math.floorDiv(desde.toEpochSecond(ZoneOffset.UTC), 3_600L) : Long.MIN_VALUE;
+        long horaHasta = hasta != null ? Math.floorDiv(hasta.toEpochSecond(ZoneOffset.UTC), 3_600L) : Long.MAX_VALUE;
+        Acumulador acc = new Acumulador(historial, usuario, genero);
+        if (horaDesde > horaHasta)
+            return acc.resumen(historial);
+
+        // Días completos dentro del rango: [primerDia, ultimoDia]
+        long primerDia = horaDesde == Long.MIN_VALUE ? Long.MIN_VALUE : Math.floorDiv(horaDesde + 23, 24L);
+        long ultimoDia = horaHasta == Long.MAX_VALUE ? Long.MAX_VALUE : Math.floorDiv(horaHasta + 1, 24L) - 1;
+
+        if (primerDia <= ultimoDia) {
+            sumarDias(acc, primerDia, ultimoDia);
+            if (primerDia != Long.MIN_VALUE && horaDesde < primerDia * 24) {
+                sumarHoras(acc, horaDesde, primerDia * 24 - 1);
+            }
+            if (ultimoDia != Long.MAX_VALUE && (ultimoDia + 1) * 24 <= horaHasta) {
+                sumarHoras(acc, (ultimoDia + 1) * 24, horaHasta);
+            }
+        } else {
+            sumarHoras(acc, horaDesde, horaHasta);
+        }
+        return acc.resumen(historial);
+    }
+
+    /**
+     * Suma los días completos de {@code [diaDesde, diaHasta]}. Sin usuario, los meses
+     * completos del rango salen de los agregados mensuales y solo los días de los
+     * extremos se suman uno por uno.
+     */
+    private void sumarDias(Acumulador acc, long diaDesde, long diaHasta) {
+        if (diaDesde > diaHasta || acc.vacio)
+            return;
+        if (acc.usuario >= 0) {
+            acc.sumar(diasDe(acc.usuario), diaDesde, diaHasta);
+            return;
+        }
+
+        // Meses completos dentro del rango: [mesDesde, mesHasta]
+        long mesDesde = Long.MIN_VALUE;
+        if (diaDesde != Long.MIN_VALUE) {
+            mesDesde = mesDe(diaDesde);
+            if (primerDiaDelMes(mesDesde) != diaDesde) mesDesde++;
+        }
+        long mesHasta = Long.MAX_VALUE;
+        if (diaHasta != Long.MAX_VALUE) {
+            mesHasta = mesDe(diaHasta);
+            if (primerDiaDelMes(mesHasta + 1) - 1 != diaHasta) mesHasta--;
+        }
+        if (mesDesde > mesHasta) {
+            acc.sumar(porDia, diaDesde, diaHasta);
+            return;
+        }
+        acc.sumar(porMes, mesDesde, mesHasta);
+        if (mesDesde != Long.MIN_VALUE && diaDesde < primerDiaDelMes(mesDesde)) {
+            acc.sumar(porDia, diaDesde, primerDiaDelMes(mesDesde) - 1);
+        }
+        if (mesHasta != Long.MAX_VALUE && primerDiaDelMes(mesHasta + 1) <= diaHasta) {
+            acc.sumar(porDia, primerDiaDelMes(mesHasta + 1), diaHasta);
+        }
+    }
+
+    /**
+     * Suma un tramo acotado de horas sueltas (dentro de uno o dos días). Las de un
+     * día fuera de la ventana por hora se reemplazan por ese día completo.
+     */
+    private void sumarHoras(Acumulador acc, long horaDesde, long horaHasta) {
+        if (acc.vacio)
+            return;
+        Periodos horas = acc.usuario >= 0 ? horasDe(acc.usuario) : porHora;
+        Periodos dias = acc.usuario >= 0 ? diasDe(acc.usuario) : porDia;
+        long limite = primerDiaConHoras();
+        for (long dia = Math.floorDiv(horaDesde, 24L); dia <= Math.floorDiv(horaHasta, 24L); dia++) {
+            if (dia >= limite) {
+                acc.sumar(horas, Math.max(horaDesde, dia * 24), Math.min(horaHasta, dia * 24 + 23));
+            } else {
+                acc.sumar(dias, dia, dia);
+            }
+        }
+    }
+
+    private Periodos diasDe(int usuario) {
+        return usuario < diasPorUsuario.length ? diasPorUsuario[usuario] : null;
+    }
+
+    private Periodos horasDe(int usuario) {
+        return usuario < horasPorUsuario.length ? horasPorUsuario[usuario] : null;
+    }
+
+    /** Suma los periodos que cumplen el filtro por código */
+    private class Acumulador {
+        private final int usuario;
+        private final int genero;
+        private final boolean vacio;
+        private final int[] porCancion;
+        private final int[] porGenero;
+        private final int[] porArtista;
+        private int total = 0;
+
+        Acumulador(HistorialColumnar historial, String usuario, String genero) {
+            this.usuario = usuario != null ? historial.getUsuarios().buscarCodigo(usuario) : -1;
+            this.genero = genero != null ? historial.getGeneros().buscarCodigo(genero) : -1;
+            this.vacio = (usuario != null && this.usuario < 0) || (genero != null && this.genero < 0);
+            this.porCancion = new int[historial.getCanciones().getTamaño()];
+            this.porGenero = new int[historial.getGeneros().getTamaño()];
+            this.porArtista = new int[historial.getArtistas().getTamaño()];
+        }
+
+        /** Suma los periodos de {@code [desde, hasta]}; {@code periodos} puede ser null (usuario sin datos) */
+        void sumar(Periodos periodos, long desde, long hasta) {
+            if (vacio || periodos == null)
+                return;
+            for (int i = periodos.primeroDesde(desde); i < periodos.tamaño && periodos.claves[i] <= hasta; i++) {
+                Conteos periodo = periodos.valores[i];
+                for (int j = 0; j < periodo.claves.length; j++) {
+                    long clave = periodo.claves[j];
+                    if (clave == Conteos.VACIA) continue;
+                    int t = (int) clave;
+                    if (genero >= 0 && generoDeTupla[t] != genero) continue;
+                    int n = periodo.conteos[j];
+                    porCancion[cancionDeTupla[t]] += n;
+                    porGenero[generoDeTupla[t]] += n;
+                    if (artistaDeTupla[t] >= 0) porArtista[artistaDeTupla[t]] += n;
+                    total += n;
+                }
+            }
+        }
+
+        Resumen resumen(HistorialColumnar historial) {
+            return new Resumen(aMapa(historial.getCanciones(), porCancion),
+                    aMapa(historial.getGeneros(), porGenero),
+                    aMapa(historial.getArtistas(), porArtista),
+                    total);
+        }
+    }
+
+    private static Map<String, Integer> aMapa(DiccionarioCadenas diccionario, int[] conteo) {
+        Map<String, Integer> mapa = new HashMap<>();
+        for (int c = 0; c < conteo.length; c++) {
+            if (conteo[c] > 0) mapa.put(diccionario.decodificar(c), conteo[c]);
+        }
+        return mapa;
+    }
+
+    // ========================
+    // ALMACENAMIENTO
+    // ========================
+
+    /**
+     * Periodos ordenados (hora o día) con sus conteos, en arreglos paralelos.
+     * Las reproducciones llegan casi siempre en orden, así que agregar un periodo
+     * nuevo suele ser anexar al final.
+     */
+    private static class Periodos {
+        private long[] claves = new long[16];
+        private Conteos[] valores = new Conteos[16];
+        private int tamaño = 0;
+
+        /** @return conteos del periodo, creándolo si no existe */
+        Conteos conteos(long periodo) {
+            int i = primeroDesde(periodo);
+            if (i < tamaño && claves[i] == periodo)
+                return valores[i];
+
+            if (tamaño == claves.length) {
+                claves = Arrays.copyOf(claves, tamaño * 2);
+                valores = Arrays.copyOf(valores, tamaño * 2);
+            }
+            System.arraycopy(claves, i, claves, i + 1, tamaño - i);
+            System.arraycopy(valores, i, valores, i + 1, tamaño - i);
+            claves[i] = periodo;
+            valores[i] = new Conteos();
+            tamaño++;
+            return valores[i];
+        }
+
+        /** @return posición del primer periodo {@code >= periodo} */
+        int primeroDesde(long periodo) {
+            int bajo = 0, alto = tamaño;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (claves[medio] < periodo) bajo = medio + 1;
+                else alto = medio;
+            }
+            return bajo;
+        }
+
+        /** Quita los periodos anteriores al indicado */
+        void descartarAntesDe(long periodo) {
+            int n = primeroDesde(periodo);
+            if (n == 0)
+                return;
+            System.arraycopy(claves, n, claves, 0, tamaño - n);
+            System.arraycopy(valores, n, valores, 0, tamaño - n);
+            Arrays.fill(valores, tamaño - n, tamaño, null);
+            tamaño -= n;
+        }
+
+        void limpiar() {
+            Arrays.fill(valores, 0, tamaño, null);
+            tamaño = 0;
+        }
+    }
+
+    /**
+     * Tabla hash {@code long → int} con direccionamiento abierto (sondeo lineal):
+     * tupla → reproducciones en los periodos y clave → código en {@link #pares} y
+     * {@link #tuplas}. Las claves nunca son negativas, así que -1 marca un hueco.
+     */
+    private static class Conteos {
+        static final long VACIA = -1L;
+
+        private long[] claves = nuevasClaves(8);
+        private int[] conteos = new int[8];
+        private int usadas = 0;
+
+        void sumar(long clave) {
+            // ranura puede crecer la tabla: se lee conteos después
+            int i = ranura(clave);
+            conteos[i]++;
+        }
+
+        /** @return valor guardado para la clave, o -1 si no está */
+        int obtener(long clave) {
+            int i = posicion(claves, clave);
+            return claves[i] == VACIA ? -1 : conteos[i];
+        }
+
+        /** Guarda el valor de la clave, reemplazando el anterior */
+        void poner(long clave, int valor) {
+            int i = ranura(clave);
+            conteos[i] = valor;
+        }
+
+        int tamaño() {
+            return usadas;
+        }
+
+        /** @return posición de la clave, insertándola (con valor 0) si no estaba */
+        private int ranura(long clave) {
+            if ((usadas + 1) * 4 > claves.length * 3) {
+                crecer();
+            }
+            int i = posicion(claves, clave);
+            if (claves[i] == VACIA) {
+                claves[i] = clave;
+                usadas++;
+            }
+            return i;
+        }
+
+        private void crecer() {
+            long[] viejasClaves = claves;
+            int[] viejosConteos = conteos;
+            claves = nuevasClaves(viejasClaves.length * 2);
+            conteos = new int[claves.length];
+            for (int j = 0; j < viejasClaves.length; j++) {
+                if (viejasClaves[j] == VACIA) continue;
+                int i = posicion(claves, viejasClaves[j]);
+                claves[i] = viejasClaves[j];
+                conteos[i] = viejosConteos[j];
+            }
+        }
+
+        /** @return posición de la clave, o del hueco donde iría */
+        private static int posicion(long[] claves, long clave) {
+            int mascara = claves.length - 1;
+            int i = Long.hashCode(clave * 0x9E3779B97F4A7C15L) & mascara;
+            while (claves[i] != VACIA && claves[i] != clave) {
+                i = (i + 1) & mascara;
+            }
+            return i;
+        }
+
+        private static long[] nuevasClaves(int capacidad) {
+            long[] claves = new long[capacidad];
+            Arrays.fill(claves, VACIA);
+            return claves;
+        }
+    }
+}
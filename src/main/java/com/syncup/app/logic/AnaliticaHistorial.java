@@ -0,0 +1,554 @@
+package com.syncup.app.logic;
+
+import com.syncup.app.model.estructuras.DiccionarioCadenas;
+import com.syncup.app.model.estructuras.HistorialColumnar;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <h2>Analítica del Historial</h2>
+ * Motor de consultas de agrupación sobre el historial (agrupar por un campo,
+ * filtrar, contar y quedarse con los K mayores), ejecutadas en paralelo por
+ * particiones.
+ *
+ * <p>
+ * Las filas de {@link HistorialColumnar} se reparten por día local con cada
+ * reproducción, y una consulta sin filtro de usuario recorre solo los días de su
+ * rango de fechas. Una consulta con filtro de usuario recorre solo las filas de ese
+ * usuario en el rango, tomadas del {@link IndiceUsuariosHistorial} si se indicó uno
+ * (O(reproducciones del usuario)); sin índice, se usa un particionado propio por
+ * hash del usuario.
+ * </p>
+ *
+ * <h3>Ejecución:</h3>
+ * <ul>
+ *     <li>Las filas de las particiones elegidas se dividen en tantos tramos como hilos
+ *         tenga el {@link ForkJoinPool} (con un mínimo de filas por tramo)</li>
+ *     <li>Cada tramo cuenta en su propio arreglo indexado por código (sin sincronización),
+ *         así que hay un arreglo por hilo y no uno por cada pedazo chico</li>
+ *     <li>Los arreglos se suman al unir los tramos y se ordena el resultado; con límite
+ *         solo se conservan los K mayores</li>
+ *     <li>Si hay muchas menos filas que grupos posibles (por ejemplo, las canciones de un
+ *         usuario contra todo el catálogo), se cuentan en un solo hilo ordenando sus
+ *         códigos, sin reservar un arreglo del tamaño del diccionario</li>
+ * </ul>
+ * <p>
+ * No se copian registros ni se arman cadenas, salvo los nombres del resultado.
+ * Las consultas se hacen desde el mismo hilo que registra reproducciones, así que
+ * el historial no cambia mientras se ejecutan.
+ * </p>
+ *
+ * <h3>Ejemplo:</h3>
+ * <pre>
+ *     analitica.ejecutar(historial, Consulta.agruparPor(Campo.CANCION)
+ *             .usuario("ana").genero("Rock").limite(10));
+ * </pre>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class AnaliticaHistorial {
+
+    /** Campo por el que se agrupan las reproducciones */
+    public enum Campo { USUARIO, CANCION, GENERO, ARTISTA, DIA }
+
+    /**
+     * Consulta de agrupación: campo, filtros opcionales y límite.
+     * Los filtros que no se indican no restringen.
+     */
+    public static class Consulta {
+        private final Campo campo;
+        private String usuario;
+        private String cancion;
+        private String genero;
+        private String artista;
+        private LocalDateTime desde;
+        private LocalDateTime hasta;
+        private int limite = 0;
+
+        private Consulta(Campo campo) {
+            this.campo = campo;
+        }
+
+        /**
+         * @param campo campo de agrupación
+         * @return consulta sin filtros ni límite
+         */
+        public static Consulta agruparPor(Campo campo) {
+            if (campo == null)
+                throw new IllegalArgumentException("El campo de agrupación es obligatorio");
+            return new Consulta(campo);
+        }
+
+        /**
+         * @param usuario usuario (sin distinguir mayúsculas)
+         * @return esta consulta
+         */
+        public Consulta usuario(String usuario) {
+            this.usuario = usuario;
+            return this;
+        }
+
+        /**
+         * @param cancion título exacto
+         * @return esta consulta
+         */
+        public Consulta cancion(String cancion) {
+            this.cancion = cancion;
+            return this;
+        }
+
+        /**
+         * @param genero género exacto
+         * @return esta consulta
+         */
+        public Consulta genero(String genero) {
+            this.genero = genero;
+            return this;
+        }
+
+        /**
+         * @param artista artista exacto
+         * @return esta consulta
+         */
+        public Consulta artista(String artista) {
+            this.artista = artista;
+            return this;
+        }
+
+        /**
+         * @param desde inicio (inclusive), o null para no limitar
+         * @param hasta fin (inclusive), o null para no limitar
+         * @return esta consulta
+         */
+        public Consulta rango(LocalDateTime desde, LocalDateTime hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+            return this;
+        }
+
+        /**
+         * @param limite cantidad máxima de grupos (0 para sin límite)
+         * @return esta consulta
+         */
+        public Consulta limite(int limite) {
+            this.limite = Math.max(0, limite);
+            return this;
+        }
+    }
+
+    /** Particiones por hash de usuario */
+    private static final int PARTICIONES_USUARIO = 64;
+    /** Filas mínimas de un tramo que se cuenta sin dividirlo más */
+    private static final int TAMAÑO_MINIMO_TRAMO = 16 * 1024;
+    /** Código de un filtro que no coincide con ningún valor */
+    private static final int SIN_COINCIDENCIAS = -2;
+    /** Nombre del grupo de las canciones sin artista conocido */
+    private static final String SIN_ARTISTA = "Desconocido";
+    /** Con menos de una fila por cada tantos grupos, el conteo es disperso */
+    private static final int GRUPOS_POR_FILA_DISPERSO = 8;
+
+    /** Filas de una partición, en el orden del historial */
+    private static class Filas {
+        int[] filas = new int[8];
+        int cantidad = 0;
+
+        void agregar(int fila) {
+            if (cantidad == filas.length) {
+                filas = Arrays.copyOf(filas, cantidad * 2);
+            }
+            filas[cantidad++] = fila;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    /** Filas por usuario para las consultas filtradas por usuario; null para usar {@link #porUsuario} */
+    private final IndiceUsuariosHistorial indiceUsuarios;
+
+    /** Día local (días desde 1970) → filas de ese día */
+    private final TreeMap<Long, Filas> porDia = new TreeMap<>();
+    /** Hash del usuario en minúsculas → filas de esos usuarios (solo sin índice de usuarios) */
+    private final Filas[] porUsuario = new Filas[PARTICIONES_USUARIO];
+    /** Código de usuario → su partición (evita normalizar el nombre por fila), -1 si aún no se calculó */
+    private int[] particionDeCodigo = new int[0];
+
+    /**
+     * Crea un motor que usa el pool común de fork-join.
+     */
+    public AnaliticaHistorial() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool donde se cuentan los tramos
+     */
+    public AnaliticaHistorial(ForkJoinPool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * @param pool pool donde se cuentan los tramos
+     * @param indiceUsuarios índice que se mantiene junto con este motor (se actualiza
+     *                       antes que él); las consultas por usuario recorren sus filas
+     */
+    public AnaliticaHistorial(ForkJoinPool pool, IndiceUsuariosHistorial indiceUsuarios) {
+        this.pool = pool;
+        this.indiceUsuarios = indiceUsuarios;
+        limpiarParticiones();
+    }
+
+    // ========================
+    // ACTUALIZACIÓN
+    // ========================
+
+    /**
+     * Agrega a sus particiones una fila recién insertada en el historial.
+     *
+     * @param historial historial que contiene la fila
+     * @param fila número de fila
+     */
+    public void sumar(HistorialColumnar historial, int fila) {
+        porDia.computeIfAbsent(historial.getDia(fila), d -> new Filas()).agregar(fila);
+        if (indiceUsuarios == null) {
+            porUsuario[particion(historial, historial.getCodigoUsuario(fila))].agregar(fila);
+        }
+    }
+
+    /**
+     * Vuelve a repartir todas las filas (los números de fila cambian al eliminar registros).
+     *
+     * @param historial historial completo
+     */
+    public void reconstruir(HistorialColumnar historial) {
+        limpiarParticiones();
+        int n = historial.getTamaño();
+        for (int fila = 0; fila < n; fila++) {
+            sumar(historial, fila);
+        }
+    }
+
+    private void limpiarParticiones() {
+        porDia.clear();
+        Arrays.setAll(porUsuario, p -> new Filas());
+        particionDeCodigo = new int[0];
+    }
+
+    private int particion(HistorialColumnar historial, int codigoUsuario) {
+        if (codigoUsuario >= particionDeCodigo.length) {
+            int anterior = particionDeCodigo.length;
+            particionDeCodigo = Arrays.copyOf(particionDeCodigo, Math.max(codigoUsuario + 1, anterior * 2));
+            Arrays.fill(particionDeCodigo, anterior, particionDeCodigo.length, -1);
+        }
+        if (particionDeCodigo[codigoUsuario] < 0) {
+            particionDeCodigo[codigoUsuario] = particion(historial.getUsuarios().decodificar(codigoUsuario));
+        }
+        return particionDeCodigo[codigoUsuario];
+    }
+
+    private static int particion(String usuario) {
+        return Math.floorMod(usuario.toLowerCase(Locale.ROOT).hashCode(), PARTICIONES_USUARIO);
+    }
+
+    // ========================
+    // CONSULTAS
+    // ========================
+
+    /**
+     * Ejecuta una consulta de agrupación.
+     *
+     * @param historial historial particionado
+     * @param consulta campo, filtros y límite
+     * @return grupo → reproducciones, de mayor a menor (a igual conteo, por nombre)
+     */
+    public List<Map.Entry<String, Integer>> ejecutar(HistorialColumnar historial, Consulta consulta) {
+        Plan plan = planificar(historial, consulta);
+        if (plan == null)
+            return new ArrayList<>();
+
+        if (plan.total == 0)
+            return new ArrayList<>();
+        if ((long) plan.total * GRUPOS_POR_FILA_DISPERSO < plan.grupos)
+            return plan.contarDisperso(consulta.limite);
+
+        int porTramo = Math.max(TAMAÑO_MINIMO_TRAMO,
+                (plan.total + pool.getParallelism() - 1) / pool.getParallelism());
+        int[] conteo = pool.invoke(new Tramo(plan, 0, plan.total, porTramo));
+        return ordenar(plan, null, conteo, conteo.length, consulta.limite);
+    }
+
+    /**
+     * Elige las particiones y resuelve los filtros a códigos.
+     *
+     * @return plan de ejecución, o null si algún filtro no coincide con nada
+     */
+    private Plan planificar(HistorialColumnar historial, Consulta c) {
+        Plan plan = new Plan(historial, c.campo);
+
+        if (c.usuario != null && indiceUsuarios == null) {
+            plan.usuarios = historial.getUsuarios().coincidenciasIgnorandoMayusculas(c.usuario);
+            if (!contieneAlguno(plan.usuarios))
+                return null;
+        }
+        plan.cancion = codigoFiltro(historial.getCanciones(), c.cancion);
+        plan.genero = codigoFiltro(historial.getGeneros(), c.genero);
+        plan.artista = codigoFiltro(historial.getArtistas(), c.artista);
+        if (plan.cancion == SIN_COINCIDENCIAS || plan.genero == SIN_COINCIDENCIAS || plan.artista == SIN_COINCIDENCIAS)
+            return null;
+
+        plan.segundosDesde = c.desde != null ? HistorialColumnar.segundosDesdeFecha(c.desde) : Long.MIN_VALUE;
+        plan.segundosHasta = c.hasta != null ? HistorialColumnar.segundosDesdeFecha(c.hasta) : Long.MAX_VALUE;
+        if (plan.segundosDesde > plan.segundosHasta)
+            return null;
+
+        // Grupos por día: índices relativos al primer día del historial
+        if (c.campo == Campo.DIA) {
+            plan.diaBase = porDia.isEmpty() ? 0 : porDia.firstKey();
+            plan.grupos = porDia.isEmpty() ? 0 : (int) (porDia.lastKey() - plan.diaBase + 1);
+        }
+
+        List<Filas> elegidas = new ArrayList<>();
+        if (c.usuario != null && indiceUsuarios != null) {
+            // Ya filtradas por usuario (sin distinguir mayúsculas) y por rango de fechas
+            Filas delUsuario = new Filas();
+            delUsuario.filas = indiceUsuarios.filas(historial, c.usuario, plan.segundosDesde, plan.segundosHasta);
+            delUsuario.cantidad = delUsuario.filas.length;
+            elegidas.add(delUsuario);
+        } else if (c.usuario != null) {
+            elegidas.add(porUsuario[particion(c.usuario)]);
+        } else {
+            long diaDesde = c.desde != null ? c.desde.toLocalDate().toEpochDay() : Long.MIN_VALUE;
+            long diaHasta = c.hasta != null ? c.hasta.toLocalDate().toEpochDay() : Long.MAX_VALUE;
+            elegidas.addAll(porDia.subMap(diaDesde, true, diaHasta, true).values());
+        }
+
+        plan.particiones = new int[elegidas.size()][];
+        plan.inicio = new int[elegidas.size() + 1];
+        for (int p = 0; p < elegidas.size(); p++) {
+            plan.particiones[p] = elegidas.get(p).filas;
+            plan.inicio[p + 1] = plan.inicio[p] + elegidas.get(p).cantidad;
+        }
+        plan.total = plan.inicio[elegidas.size()];
+        return plan;
+    }
+
+    /** Código del filtro, -1 si no se indicó o {@link #SIN_COINCIDENCIAS} si no existe */
+    private static int codigoFiltro(DiccionarioCadenas diccionario, String valor) {
+        if (valor == null) return -1;
+        int codigo = diccionario.buscarCodigo(valor);
+        return codigo >= 0 ? codigo : SIN_COINCIDENCIAS;
+    }
+
+    private static boolean contieneAlguno(boolean[] marcas) {
+        for (boolean m : marcas) {
+            if (m) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ordena los grupos con reproducciones y aplica el límite.
+     *
+     * @param codigos código de cada posición de {@code conteo}, o null si la posición es el código
+     * @param n posiciones usadas de {@code conteo}
+     */
+    private static List<Map.Entry<String, Integer>> ordenar(Plan plan, int[] codigos, int[] conteo, int n,
+                                                            int limite) {
+        Comparator<Map.Entry<String, Integer>> orden = (a, b) -> !a.getValue().equals(b.getValue())
+                ? Integer.compare(b.getValue(), a.getValue())
+                : a.getKey().compareTo(b.getKey());
+
+        if (limite <= 0) {
+            List<Map.Entry<String, Integer>> todos = new ArrayList<>();
+            for (int g = 0; g < n; g++) {
+                if (conteo[g] > 0) todos.add(new AbstractMap.SimpleImmutableEntry<>(
+                        plan.nombre(codigos != null ? codigos[g] : g), conteo[g]));
+            }
+            todos.sort(orden);
+            return todos;
+        }
+
+        // Min-heap de tamaño K: el peor de los K mejores queda arriba
+        PriorityQueue<Map.Entry<String, Integer>> mejores = new PriorityQueue<>(limite + 1, orden.reversed());
+        for (int g = 0; g < n; g++) {
+            if (conteo[g] == 0) continue;
+            if (mejores.size() == limite && conteo[g] < mejores.peek().getValue()) continue;
+            mejores.add(new AbstractMap.SimpleImmutableEntry<>(
+                    plan.nombre(codigos != null ? codigos[g] : g), conteo[g]));
+            if (mejores.size() > limite) mejores.poll();
+        }
+        List<Map.Entry<String, Integer>> top = new ArrayList<>(mejores);
+        top.sort(orden);
+        return top;
+    }
+
+    // ========================
+    // EJECUCIÓN
+    // ========================
+
+    /** Filtros ya resueltos a códigos y filas elegidas, vistas como un único rango [0, total) */
+    private static class Plan {
+        /** Solo para los diccionarios (nombres de los grupos) */
+        final HistorialColumnar historial;
+        /** Filas que leen los hilos del pool: no cambian aunque se registren reproducciones */
+        final HistorialColumnar.Instantanea filas;
+        final Campo campo;
+        int grupos;
+        long diaBase;
+
+        boolean[] usuarios;          // null: cualquiera
+        int cancion = -1;            // -1: cualquiera
+        int genero = -1;
+        int artista = -1;
+        long segundosDesde;
+        long segundosHasta;
+
+        int[][] particiones;
+        int[] inicio;                // posición de cada partición en el rango total
+        int total;
+
+        Plan(HistorialColumnar historial, Campo campo) {
+            this.historial = historial;
+            this.filas = historial.instantanea();
+            this.campo = campo;
+            switch (campo) {
+                case USUARIO: grupos = historial.getUsuarios().getTamaño(); break;
+                case CANCION: grupos = historial.getCanciones().getTamaño(); break;
+                case GENERO: grupos = historial.getGeneros().getTamaño(); break;
+                case ARTISTA: grupos = historial.getArtistas().getTamaño() + 1; break; // último: sin artista
+                default: grupos = 0;
+            }
+        }
+
+        /** Cuenta las filas [desde, hasta) del rango total en un arreglo propio */
+        int[] contar(int desde, int hasta) {
+            int[] conteo = new int[grupos];
+            int p = primeraParticion(desde);
+            for (int i = desde; i < hasta; i++) {
+                while (i >= inicio[p + 1]) p++;
+                int g = grupoSiCoincide(particiones[p][i - inicio[p]]);
+                if (g >= 0) conteo[g]++;
+            }
+            return conteo;
+        }
+
+        /**
+         * Cuenta todo el rango juntando los códigos de las filas que coinciden y
+         * ordenándolos: memoria proporcional a las filas, no a los grupos.
+         */
+        List<Map.Entry<String, Integer>> contarDisperso(int limite) {
+            int[] codigos = new int[total];
+            int n = 0;
+            int p = primeraParticion(0);
+            for (int i = 0; i < total; i++) {
+                while (i >= inicio[p + 1]) p++;
+                int g = grupoSiCoincide(particiones[p][i - inicio[p]]);
+                if (g >= 0) codigos[n++] = g;
+            }
+            Arrays.sort(codigos, 0, n);
+
+            // Códigos iguales quedan juntos: se compactan en (código, cantidad)
+            int[] conteo = new int[n];
+            int distintos = 0;
+            for (int i = 0; i < n; i++) {
+                if (distintos > 0 && codigos[distintos - 1] == codigos[i]) {
+                    conteo[distintos - 1]++;
+                } else {
+                    codigos[distintos] = codigos[i];
+                    conteo[distintos++] = 1;
+                }
+            }
+            return ordenar(this, codigos, conteo, distintos, limite);
+        }
+
+        /** Partición que contiene la posición dada del rango total */
+        private int primeraParticion(int posicion) {
+            int p = Arrays.binarySearch(inicio, posicion);
+            p = p >= 0 ? p : -p - 2;
+            while (p + 1 < inicio.length && inicio[p + 1] <= posicion) p++; // particiones vacías
+            return p;
+        }
+
+        /** @return grupo de la fila, o -1 si no cumple los filtros */
+        private int grupoSiCoincide(int fila) {
+            if (fila >= filas.getTamaño()) return -1; // agregada después de planificar
+            if (usuarios != null && !usuarios[filas.getCodigoUsuario(fila)]) return -1;
+            if (cancion >= 0 && filas.getCodigoCancion(fila) != cancion) return -1;
+            if (genero >= 0 && filas.getCodigoGenero(fila) != genero) return -1;
+            if (artista >= 0 && filas.getCodigoArtista(fila) != artista) return -1;
+            long segundos = filas.getSegundos(fila);
+            if (segundos < segundosDesde || segundos > segundosHasta) return -1;
+            return grupo(fila);
+        }
+
+        private int grupo(int fila) {
+            switch (campo) {
+                case USUARIO: return filas.getCodigoUsuario(fila);
+                case CANCION: return filas.getCodigoCancion(fila);
+                case GENERO: return filas.getCodigoGenero(fila);
+                case ARTISTA:
+                    int a = filas.getCodigoArtista(fila);
+                    return a >= 0 ? a : grupos - 1;
+                default: return (int) (filas.getDia(fila) - diaBase);
+            }
+        }
+
+        String nombre(int grupo) {
+            switch (campo) {
+                case USUARIO: return historial.getUsuarios().decodificar(grupo);
+                case CANCION: return historial.getCanciones().decodificar(grupo);
+                case GENERO: return historial.getGeneros().decodificar(grupo);
+                case ARTISTA: return grupo < grupos - 1 ? historial.getArtistas().decodificar(grupo) : SIN_ARTISTA;
+                default: return LocalDate.ofEpochDay(diaBase + grupo).toString();
+            }
+        }
+    }
+
+    /**
+     * Tramo del rango total: se divide a la mitad hasta no superar {@code porTramo}
+     * filas y se cuenta sin compartir estado.
+     */
+    private static class Tramo extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        /** Las tareas nunca se serializan; el plan no necesita serie */
+        private final transient Plan plan;
+        private final int desde;
+        private final int hasta;
+        private final int porTramo;
+
+        Tramo(Plan plan, int desde, int hasta, int porTramo) {
+            this.plan = plan;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.porTramo = porTramo;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (hasta - desde <= porTramo)
+                return plan.contar(desde, hasta);
+
+            int medio = (desde + hasta) >>> 1;
+            Tramo izquierda = new Tramo(plan, desde, medio, porTramo);
+            izquierda.fork();
+            int[] conteo = new Tramo(plan, medio, hasta, porTramo).compute();
+            int[] otro = izquierda.join();
+            for (int g = 0; g < conteo.length; g++) {
+                conteo[g] += otro[g];
+            }
+            return conteo;
+        }
+    }
+}
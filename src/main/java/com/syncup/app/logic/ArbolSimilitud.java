@@ -3,6 +3,7 @@ package com.syncup.app.logic;
 import com.syncup.app.model.Cancion;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * <h2>Árbol de Similitud</h2>
@@ -19,6 +20,10 @@ import java.util.*;
  * basándose primero en el mismo artista, luego en el mismo género.
  * </p>
  * <p>
+ * Las hojas guardan solo títulos (las mismas cadenas del catálogo, sin copias ni
+ * objetos Cancion); las canciones se piden al catálogo al recomendar.
+ * </p>
+ * <p>
  * Ejemplo:
  * </p>
  * <pre>
@@ -62,8 +67,8 @@ public class ArbolSimilitud {
     private static class NodoArtista {
         /** Nombre del artista */
         String artista;
-        /** Lista de canciones del artista */
-        List<Cancion> canciones = new ArrayList<>();
+        /** Títulos de las canciones, en orden de inserción (quitar uno es O(1)) */
+        Set<String> titulos = new LinkedHashSet<>();
 
         /**
          * Crea un nodo de artista.
@@ -90,7 +95,7 @@ public class ArbolSimilitud {
         NodoGenero nodoGenero = generos.computeIfAbsent(genero, g -> new NodoGenero(g));
         NodoArtista nodoArtista = nodoGenero.artistas.computeIfAbsent(artista, a -> new NodoArtista(a));
 
-        nodoArtista.canciones.add(c);
+        nodoArtista.titulos.add(c.getTitulo());
     }
 
     /**
@@ -105,9 +110,10 @@ public class ArbolSimilitud {
      * 
      * @param base canción base para buscar similares
      * @param limite número máximo de recomendaciones
+     * @param catalogo título → canción (el árbol solo guarda títulos)
      * @return lista de canciones similares
      */
-    public List<Cancion> recomendar(Cancion base, int limite) {
+    public List<Cancion> recomendar(Cancion base, int limite, Function<String, Cancion> catalogo) {
         List<Cancion> resultado = new ArrayList<>();
 
         if (base == null) return resultado;
@@ -120,22 +126,18 @@ public class ArbolSimilitud {
             NodoGenero nodoG = generos.get(g);
 
             if (nodoG.artistas.containsKey(a)) {
-                for (Cancion c : nodoG.artistas.get(a).canciones) {
-                    if (!c.getTitulo().equalsIgnoreCase(base.getTitulo())) {
-                        resultado.add(c);
-                        if (resultado.size() >= limite) return resultado;
-                    }
+                for (String titulo : nodoG.artistas.get(a).titulos) {
+                    if (agregar(resultado, titulo, base, catalogo) && resultado.size() >= limite)
+                        return resultado;
                 }
             }
 
             // 2️⃣ Si faltan, canciones del mismo género (otros artistas)
             for (NodoArtista nodoA : nodoG.artistas.values()) {
                 if (nodoA.artista.equalsIgnoreCase(a)) continue;
-                for (Cancion c : nodoA.canciones) {
-                    if (!c.getTitulo().equalsIgnoreCase(base.getTitulo())) {
-                        resultado.add(c);
-                        if (resultado.size() >= limite) return resultado;
-                    }
+                for (String titulo : nodoA.titulos) {
+                    if (agregar(resultado, titulo, base, catalogo) && resultado.size() >= limite)
+                        return resultado;
                 }
             }
         }
@@ -143,4 +145,43 @@ public class ArbolSimilitud {
         return resultado;
     }
 
+    /** Agrega la canción del título si no es la base; @return true si se agregó */
+    private static boolean agregar(List<Cancion> resultado, String titulo, Cancion base,
+                                   Function<String, Cancion> catalogo) {
+        if (titulo.equalsIgnoreCase(base.getTitulo()))
+            return false;
+        Cancion c = catalogo.apply(titulo);
+        return c != null && resultado.add(c);
+    }
+
+    /**
+     * Elimina una canción del árbol de similitud.
+     * Se busca por título dentro de su artista (O(1)); los nodos que quedan vacíos se eliminan.
+     *
+     * @param c canción a eliminar
+     * @return true si la canción estaba en el árbol
+     */
+    public boolean eliminar(Cancion c) {
+        if (c == null || c.getTitulo() == null || c.getGenero() == null || c.getArtista() == null)
+            return false;
+
+        String genero = c.getGenero().toLowerCase();
+        String artista = c.getArtista().toLowerCase();
+
+        NodoGenero nodoGenero = generos.get(genero);
+        if (nodoGenero == null) return false;
+        NodoArtista nodoArtista = nodoGenero.artistas.get(artista);
+        if (nodoArtista == null) return false;
+
+        boolean eliminada = nodoArtista.titulos.remove(c.getTitulo());
+
+        if (nodoArtista.titulos.isEmpty()) {
+            nodoGenero.artistas.remove(artista);
+            if (nodoGenero.artistas.isEmpty()) {
+                generos.remove(genero);
+            }
+        }
+        return eliminada;
+    }
+
 }
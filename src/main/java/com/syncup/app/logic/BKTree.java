@@ -1,5 +1,8 @@
 package com.syncup.app.logic;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
@@ -20,6 +23,25 @@ import java.util.*;
  *     <li>Estructura de árbol balanceado</li>
  *     <li>Eficiente para búsquedas fuzzy</li>
  * </ul>
+ *
+ * <h3>Cálculo de distancias en la búsqueda:</h3>
+ * <p>
+ * La búsqueda no necesita la distancia exacta de cada nodo: solo necesita saber si
+ * es menor o igual que {@code maxDistancia} y, para podar, compararla con las
+ * aristas de sus hijos. Por eso usa {@link #distanciaAcotada(String, String, int)}:
+ * programación dinámica con dos filas, limitada a la banda diagonal del umbral y con
+ * salida temprana cuando toda una fila supera el límite. Las filas se reutilizan
+ * durante toda la consulta, sin reservar una matriz por comparación.
+ * </p>
+ *
+ * <h3>Eliminación:</h3>
+ * <p>
+ * Un nodo no puede quitarse sin reordenar su subárbol, así que
+ * {@link #eliminar(String, String)} solo le quita la referencia; el nodo sin
+ * referencias queda como lápida (sigue sirviendo para navegar pero nunca aparece en
+ * los resultados). Cuando las lápidas superan la mitad de los nodos, el árbol se
+ * reconstruye con las claves vivas.
+ * </p>
  * 
  * <h3>Ejemplo de uso:</h3>
  * <pre>
@@ -47,6 +69,8 @@ public class BKTree {
         List<String> referencias = new ArrayList<>();
         /** Hijos del nodo, indexados por distancia Levenshtein */
         Map<Integer, Nodo> hijos = new HashMap<>();
+        /** Mayor distancia de arista hacia un hijo (0 si no tiene hijos) */
+        int maxHijo = 0;
 
         /**
          * Crea un nodo del árbol.
@@ -59,8 +83,35 @@ public class BKTree {
         }
     }
 
+    /**
+     * Resultado de una búsqueda: referencia encontrada y su distancia a la consulta.
+     */
+    public static class Coincidencia {
+        private final String referencia;
+        private final int distancia;
+
+        /**
+         * @param referencia referencia encontrada
+         * @param distancia distancia de Levenshtein a la consulta
+         */
+        public Coincidencia(String referencia, int distancia) {
+            this.referencia = referencia;
+            this.distancia = distancia;
+        }
+
+        /** @return referencia encontrada (ej: título de canción) */
+        public String getReferencia() { return referencia; }
+
+        /** @return distancia de Levenshtein a la consulta */
+        public int getDistancia() { return distancia; }
+    }
+
     /** Raíz del árbol BK */
     private Nodo raiz = null;
+    /** Total de nodos del árbol */
+    private int numNodos = 0;
+    /** Nodos sin referencias (lápidas) */
+    private int numLapidas = 0;
 
     // ========================
     // INSERCIÓN
@@ -81,6 +132,7 @@ public class BKTree {
 
         if (raiz == null) {
             raiz = new Nodo(clave, referencia);
+            numNodos = 1;
             return;
         }
 
@@ -92,6 +144,9 @@ public class BKTree {
 
             if (dist == 0) {
                 // misma clave: solo agregamos la referencia si no está
+                if (actual.referencias.isEmpty()) {
+                    numLapidas--;
+                }
                 if (!actual.referencias.contains(referencia)) {
                     actual.referencias.add(referencia);
                 }
@@ -103,11 +158,74 @@ public class BKTree {
                 actual = hijo;
             } else {
                 actual.hijos.put(dist, new Nodo(clave, referencia));
+                actual.maxHijo = Math.max(actual.maxHijo, dist);
+                numNodos++;
                 return;
             }
         }
     }
 
+    // ========================
+    // ELIMINACIÓN
+    // ========================
+
+    /**
+     * Quita una referencia de la clave indicada.
+     * Solo calcula distancias a lo largo del camino de la clave, igual que la inserción.
+     *
+     * @param clave clave con la que se insertó la referencia
+     * @param referencia referencia a quitar
+     * @return true si la referencia estaba en el árbol
+     */
+    public boolean eliminar(String clave, String referencia) {
+        if (raiz == null || clave == null || clave.isEmpty() || referencia == null)
+            return false;
+
+        clave = clave.toLowerCase();
+        Nodo actual = raiz;
+        while (actual != null) {
+            int dist = distanciaLevenshtein(clave, actual.clave);
+            if (dist == 0) {
+                if (!actual.referencias.remove(referencia))
+                    return false;
+                if (actual.referencias.isEmpty()) {
+                    numLapidas++;
+                    if (numLapidas * 2 > numNodos) {
+                        compactar();
+                    }
+                }
+                return true;
+            }
+            actual = actual.hijos.get(dist);
+        }
+        return false;
+    }
+
+    /**
+     * Reconstruye el árbol solo con los nodos que conservan referencias,
+     * descartando las lápidas.
+     */
+    public void compactar() {
+        if (raiz == null || numLapidas == 0)
+            return;
+
+        List<Nodo> vivos = new ArrayList<>();
+        Deque<Nodo> pila = new ArrayDeque<>();
+        pila.push(raiz);
+        while (!pila.isEmpty()) {
+            Nodo n = pila.pop();
+            if (!n.referencias.isEmpty()) vivos.add(n);
+            n.hijos.values().forEach(pila::push);
+        }
+
+        limpiar();
+        for (Nodo n : vivos) {
+            for (String ref : n.referencias) {
+                insertar(n.clave, ref);
+            }
+        }
+    }
+
     // ========================
     // BÚSQUEDA DE SIMILARES
     // ========================
@@ -121,11 +239,28 @@ public class BKTree {
      */
     public List<String> buscarSimilares(String consulta, int maxDistancia) {
         List<String> resultados = new ArrayList<>();
-        if (raiz == null || consulta == null || consulta.isEmpty())
+        for (Coincidencia c : buscarConDistancia(consulta, maxDistancia)) {
+            resultados.add(c.getReferencia());
+        }
+        return resultados;
+    }
+
+    /**
+     * Igual que {@link #buscarSimilares(String, int)}, pero conserva la distancia de
+     * cada referencia encontrada para poder ordenar los resultados.
+     *
+     * @param consulta cadena a buscar
+     * @param maxDistancia distancia máxima permitida (Levenshtein)
+     * @return coincidencias encontradas (sin orden particular)
+     */
+    public List<Coincidencia> buscarConDistancia(String consulta, int maxDistancia) {
+        List<Coincidencia> resultados = new ArrayList<>();
+        if (raiz == null || consulta == null || consulta.isEmpty() || maxDistancia < 0)
             return resultados;
 
         consulta = consulta.toLowerCase();
-        buscarRec(raiz, consulta, maxDistancia, resultados);
+        int[][] filas = { new int[consulta.length() + 1], new int[consulta.length() + 1] };
+        buscarRec(raiz, consulta, maxDistancia, resultados, filas);
         return resultados;
     }
 
@@ -136,12 +271,20 @@ public class BKTree {
      * @param consulta cadena a buscar
      * @param maxDist distancia máxima permitida
      * @param resultados lista acumulativa de resultados
+     * @param filas buffers reutilizables para el cálculo de distancias
      */
-    private void buscarRec(Nodo nodo, String consulta, int maxDist, List<String> resultados) {
-        int dist = distanciaLevenshtein(consulta, nodo.clave);
+    private void buscarRec(Nodo nodo, String consulta, int maxDist, List<Coincidencia> resultados, int[][] filas) {
+        // Más allá de maxDist + maxHijo ningún hijo puede estar en rango: basta con la cota
+        int limite = maxDist + nodo.maxHijo;
+        int dist = distanciaAcotada(nodo.clave, consulta, limite, filas[0], filas[1]);
 
         if (dist <= maxDist) {
-            resultados.addAll(nodo.referencias);
+            for (String ref : nodo.referencias) {
+                resultados.add(new Coincidencia(ref, dist));
+            }
+        }
+        if (dist > limite) {
+            return;
         }
 
         int from = dist - maxDist;
@@ -150,7 +293,7 @@ public class BKTree {
         for (Map.Entry<Integer, Nodo> entry : nodo.hijos.entrySet()) {
             int d = entry.getKey();
             if (d >= from && d <= to) {
-                buscarRec(entry.getValue(), consulta, maxDist, resultados);
+                buscarRec(entry.getValue(), consulta, maxDist, resultados, filas);
             }
         }
     }
@@ -171,32 +314,167 @@ public class BKTree {
      * @param b segunda cadena
      * @return distancia de Levenshtein
      */
-    private int distanciaLevenshtein(String a, String b) {
+    public static int distanciaLevenshtein(String a, String b) {
         int n = a.length();
         int m = b.length();
 
         if (n == 0) return m;
         if (m == 0) return n;
 
-        int[][] dp = new int[n + 1][m + 1];
-
-        for (int i = 0; i <= n; i++) dp[i][0] = i;
-        for (int j = 0; j <= m; j++) dp[0][j] = j;
+        // Solo se necesitan la fila anterior y la actual
+        int[] anterior = new int[m + 1];
+        int[] actual = new int[m + 1];
+        for (int j = 0; j <= m; j++) anterior[j] = j;
 
         for (int i = 1; i <= n; i++) {
             char ca = a.charAt(i - 1);
+            actual[0] = i;
             for (int j = 1; j <= m; j++) {
-                char cb = b.charAt(j - 1);
-                int costo = (ca == cb) ? 0 : 1;
+                int costo = (ca == b.charAt(j - 1)) ? 0 : 1;
 
-                dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j] + 1,      // eliminación
-                                 dp[i][j - 1] + 1),     // inserción
-                        dp[i - 1][j - 1] + costo        // sustitución
+                actual[j] = Math.min(
+                        Math.min(anterior[j] + 1,       // eliminación
+                                 actual[j - 1] + 1),    // inserción
+                        anterior[j - 1] + costo         // sustitución
                 );
             }
+            int[] tmp = anterior;
+            anterior = actual;
+            actual = tmp;
+        }
+        return anterior[m];
+    }
+
+    /**
+     * Calcula la distancia de Levenshtein solo si no supera un límite.
+     *
+     * <p>
+     * Devuelve la distancia exacta cuando es {@code <= limite} y {@code limite + 1}
+     * en caso contrario. Solo evalúa la banda diagonal de ancho {@code limite} y
+     * termina en cuanto una fila completa supera el límite, por lo que su costo es
+     * O(min(n, m) · limite) en lugar de O(n · m).
+     * </p>
+     *
+     * @param a primera cadena
+     * @param b segunda cadena
+     * @param limite distancia máxima de interés (no negativa)
+     * @return distancia exacta, o {@code limite + 1} si es mayor que el límite
+     */
+    public static int distanciaAcotada(String a, String b, int limite) {
+        return distanciaAcotada(a, b, limite, new int[b.length() + 1], new int[b.length() + 1]);
+    }
+
+    /**
+     * Versión de {@link #distanciaAcotada(String, String, int)} que reutiliza las
+     * filas recibidas (de longitud al menos {@code b.length() + 1}).
+     */
+    private static int distanciaAcotada(String a, String b, int limite, int[] anterior, int[] actual) {
+        int n = a.length();
+        int m = b.length();
+        int infinito = limite + 1;
+
+        if (Math.abs(n - m) > limite) return infinito;
+        if (n == 0) return m;
+        if (m == 0) return n;
+
+        int hasta = Math.min(m, limite);
+        for (int j = 0; j <= m; j++) {
+            anterior[j] = j <= hasta ? j : infinito;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            int desde = Math.max(1, i - limite);
+            hasta = Math.min(m, i + limite);
+            char ca = a.charAt(i - 1);
+
+            actual[0] = i <= limite ? i : infinito;
+            actual[desde - 1] = desde > 1 ? infinito : actual[0];
+            int minFila = desde == 1 ? actual[0] : infinito;
+
+            for (int j = desde; j <= hasta; j++) {
+                int costo = (ca == b.charAt(j - 1)) ? 0 : 1;
+                int v = Math.min(
+                        Math.min(anterior[j] + 1, actual[j - 1] + 1),
+                        anterior[j - 1] + costo);
+                actual[j] = v;
+                if (v < minFila) minFila = v;
+            }
+            if (hasta < m) {
+                actual[hasta + 1] = infinito;
+            }
+
+            // Salida temprana: la distancia nunca baja de un mínimo de fila
+            if (minFila > limite) return infinito;
+
+            int[] tmp = anterior;
+            anterior = actual;
+            actual = tmp;
+        }
+        return Math.min(anterior[m], infinito);
+    }
+
+    // ========================
+    // SNAPSHOT
+    // ========================
+
+    /**
+     * Escribe el árbol en preorden (clave, referencias, hijos con su distancia) para
+     * poder restaurarlo sin recalcular distancias. Las lápidas se omiten: el árbol
+     * se compacta antes de escribirse.
+     *
+     * @param out destino
+     * @throws IOException si falla la escritura
+     */
+    void escribir(DataOutputStream out) throws IOException {
+        compactar();
+        out.writeBoolean(raiz != null);
+        if (raiz != null) {
+            escribirNodo(raiz, out);
+        }
+    }
+
+    private void escribirNodo(Nodo nodo, DataOutputStream out) throws IOException {
+        SnapshotCatalogo.escribirTexto(out, nodo.clave);
+        out.writeInt(nodo.referencias.size());
+        for (String ref : nodo.referencias) {
+            SnapshotCatalogo.escribirTexto(out, ref);
+        }
+        out.writeInt(nodo.hijos.size());
+        for (Map.Entry<Integer, Nodo> e : nodo.hijos.entrySet()) {
+            out.writeInt(e.getKey());
+            escribirNodo(e.getValue(), out);
+        }
+    }
+
+    /**
+     * Restaura un árbol escrito con {@link #escribir(DataOutputStream)}.
+     *
+     * @param in datos del snapshot, posicionados al inicio del árbol
+     * @return árbol restaurado
+     */
+    static BKTree leer(ByteBuffer in) {
+        BKTree arbol = new BKTree();
+        if (in.get() != 0) {
+            arbol.raiz = arbol.leerNodo(in);
+        }
+        return arbol;
+    }
+
+    private Nodo leerNodo(ByteBuffer in) {
+        String clave = SnapshotCatalogo.leerTexto(in);
+        int numRefs = in.getInt();
+        Nodo nodo = new Nodo(clave, SnapshotCatalogo.leerTexto(in));
+        for (int i = 1; i < numRefs; i++) {
+            nodo.referencias.add(SnapshotCatalogo.leerTexto(in));
+        }
+        numNodos++;
+        int numHijos = in.getInt();
+        for (int i = 0; i < numHijos; i++) {
+            int dist = in.getInt();
+            nodo.hijos.put(dist, leerNodo(in));
+            nodo.maxHijo = Math.max(nodo.maxHijo, dist);
         }
-        return dp[n][m];
+        return nodo;
     }
 
     /**
@@ -204,5 +482,7 @@ public class BKTree {
      */
     public void limpiar() {
         raiz = null;
+        numNodos = 0;
+        numLapidas = 0;
     }
 }
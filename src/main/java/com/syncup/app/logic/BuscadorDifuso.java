@@ -0,0 +1,299 @@
+package com.syncup.app.logic;
+
+import com.syncup.app.model.Cancion;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * <h2>Buscador Difuso por Tokens</h2>
+ * Búsqueda tolerante a errores tipográficos palabra por palabra.
+ *
+ * <p>
+ * En lugar de un único BK-Tree con la clave "título artista género", mantiene un
+ * BK-Tree por campo cuyas claves son las <b>palabras distintas</b> del campo. Cada
+ * palabra apunta al conjunto de títulos que la contienen (quitar uno es O(1)). Así:
+ * </p>
+ * <ul>
+ *     <li>Un error en un nombre corto de artista no queda diluido por la distancia
+ *         contra toda la cadena concatenada</li>
+ *     <li>Los árboles solo contienen claves cortas y únicas, por lo que cada consulta
+ *         verifica muchos menos candidatos</li>
+ * </ul>
+ *
+ * <h3>Planificación de la consulta:</h3>
+ * <ol>
+ *     <li>La consulta se divide en palabras</li>
+ *     <li>Cada palabra se busca en cada campo con una tolerancia según su longitud
+ *         ({@link #tolerancia(int)})</li>
+ *     <li>Para cada título se suma la mejor distancia de cada palabra de la consulta</li>
+ *     <li>Se ordena primero por palabras cubiertas (intersección) y luego por distancia total</li>
+ * </ol>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class BuscadorDifuso {
+
+    /** Campos de la canción indexados por palabras */
+    public enum Campo { TITULO, ARTISTA, GENERO }
+
+    /**
+     * Título encontrado junto con la calidad de la coincidencia.
+     */
+    public static class Resultado {
+        private final String titulo;
+        private final int palabrasCubiertas;
+        private final int palabrasConsulta;
+        private final int distancia;
+
+        Resultado(String titulo, int palabrasCubiertas, int palabrasConsulta, int distancia) {
+            this.titulo = titulo;
+            this.palabrasCubiertas = palabrasCubiertas;
+            this.palabrasConsulta = palabrasConsulta;
+            this.distancia = distancia;
+        }
+
+        /** @return título de la canción */
+        public String getTitulo() { return titulo; }
+
+        /** @return cuántas palabras de la consulta coincidieron con la canción */
+        public int getPalabrasCubiertas() { return palabrasCubiertas; }
+
+        /** @return cuántas palabras de la consulta no coincidieron con la canción */
+        public int getPalabrasFaltantes() { return palabrasConsulta - palabrasCubiertas; }
+
+        /** @return suma de las mejores distancias de las palabras cubiertas */
+        public int getDistancia() { return distancia; }
+    }
+
+    /** BK-Tree de palabras distintas por campo */
+    private final Map<Campo, BKTree> arboles = new EnumMap<>(Campo.class);
+    /** Palabra → títulos que la contienen, por campo */
+    private final Map<Campo, Map<String, Set<String>>> titulosPorPalabra = new EnumMap<>(Campo.class);
+
+    public BuscadorDifuso() {
+        for (Campo campo : Campo.values()) {
+            arboles.put(campo, new BKTree());
+            titulosPorPalabra.put(campo, new HashMap<>());
+        }
+    }
+
+    /**
+     * Indexa las palabras de título, artista y género de una canción.
+     *
+     * @param c canción a indexar
+     */
+    public void indexar(Cancion c) {
+        if (c == null || c.getTitulo() == null)
+            return;
+        indexarCampo(Campo.TITULO, c.getTitulo(), c.getTitulo());
+        indexarCampo(Campo.ARTISTA, c.getArtista(), c.getTitulo());
+        indexarCampo(Campo.GENERO, c.getGenero(), c.getTitulo());
+    }
+
+    private void indexarCampo(Campo campo, String texto, String titulo) {
+        Map<String, Set<String>> postings = titulosPorPalabra.get(campo);
+        for (String palabra : new LinkedHashSet<>(tokenizar(texto))) {
+            Set<String> titulos = postings.get(palabra);
+            if (titulos == null) {
+                titulos = new HashSet<>();
+                postings.put(palabra, titulos);
+                arboles.get(campo).insertar(palabra, palabra);
+            }
+            titulos.add(titulo);
+        }
+    }
+
+    /**
+     * Quita una canción del índice. Las palabras que se quedan sin títulos se
+     * eliminan también de su BK-Tree.
+     *
+     * @param c canción a eliminar (con el título, artista y género indexados)
+     */
+    public void eliminar(Cancion c) {
+        if (c == null || c.getTitulo() == null)
+            return;
+        eliminarCampo(Campo.TITULO, c.getTitulo(), c.getTitulo());
+        eliminarCampo(Campo.ARTISTA, c.getArtista(), c.getTitulo());
+        eliminarCampo(Campo.GENERO, c.getGenero(), c.getTitulo());
+    }
+
+    private void eliminarCampo(Campo campo, String texto, String titulo) {
+        Map<String, Set<String>> postings = titulosPorPalabra.get(campo);
+        for (String palabra : new LinkedHashSet<>(tokenizar(texto))) {
+            Set<String> titulos = postings.get(palabra);
+            if (titulos == null || !titulos.remove(titulo))
+                continue;
+            if (titulos.isEmpty()) {
+                postings.remove(palabra);
+                arboles.get(campo).eliminar(palabra, palabra);
+            }
+        }
+    }
+
+    /**
+     * Busca canciones cuyas palabras se parecen a las de la consulta.
+     *
+     * @param consulta texto escrito por el usuario
+     * @param limite número máximo de resultados
+     * @return resultados ordenados por palabras cubiertas y distancia
+     */
+    public List<Resultado> buscar(String consulta, int limite) {
+        return buscar(consulta, limite, Comparator.naturalOrder());
+    }
+
+    /**
+     * Igual que {@link #buscar(String, int)}, pero los empates se resuelven con el
+     * comparador de títulos recibido (ej: por popularidad), antes de aplicar el límite.
+     *
+     * @param consulta texto escrito por el usuario
+     * @param limite número máximo de resultados
+     * @param desempate orden entre títulos con la misma relevancia
+     * @return resultados ordenados por palabras cubiertas y distancia
+     */
+    public List<Resultado> buscar(String consulta, int limite, Comparator<String> desempate) {
+        List<String> palabras = tokenizar(consulta);
+        if (palabras.isEmpty() || limite <= 0)
+            return List.of();
+
+        // título → mejor distancia por palabra de la consulta (-1 = no cubierta)
+        Map<String, int[]> mejores = new HashMap<>();
+
+        for (int i = 0; i < palabras.size(); i++) {
+            String palabra = palabras.get(i);
+            int maxDist = tolerancia(palabra.length());
+
+            for (Campo campo : Campo.values()) {
+                for (BKTree.Coincidencia m : arboles.get(campo).buscarConDistancia(palabra, maxDist)) {
+                    for (String titulo : titulosPorPalabra.get(campo).get(m.getReferencia())) {
+                        int[] dist = mejores.computeIfAbsent(titulo, t -> nuevasDistancias(palabras.size()));
+                        if (dist[i] < 0 || m.getDistancia() < dist[i]) {
+                            dist[i] = m.getDistancia();
+                        }
+                    }
+                }
+            }
+        }
+
+        Comparator<Resultado> orden = Comparator
+                .comparingInt(Resultado::getPalabrasCubiertas).reversed()
+                .thenComparingInt(Resultado::getDistancia)
+                .thenComparing(Resultado::getTitulo, desempate);
+
+        // Montículo con los 'limite' mejores: la raíz es el peor de ellos
+        PriorityQueue<Resultado> seleccion = new PriorityQueue<>(Math.min(limite, mejores.size()) + 1,
+                orden.reversed());
+        for (Map.Entry<String, int[]> e : mejores.entrySet()) {
+            int cubiertas = 0;
+            int total = 0;
+            for (int d : e.getValue()) {
+                if (d >= 0) {
+                    cubiertas++;
+                    total += d;
+                }
+            }
+            Resultado r = new Resultado(e.getKey(), cubiertas, palabras.size(), total);
+            if (seleccion.size() < limite) {
+                seleccion.add(r);
+            } else if (orden.compare(r, seleccion.peek()) < 0) {
+                seleccion.poll();
+                seleccion.add(r);
+            }
+        }
+
+        List<Resultado> resultados = new ArrayList<>(seleccion);
+        resultados.sort(orden);
+        return resultados;
+    }
+
+    // ========================
+    // SNAPSHOT
+    // ========================
+
+    /**
+     * Escribe, por campo, las palabras con las filas de sus títulos y el BK-Tree de
+     * palabras ya construido.
+     *
+     * @param out destino
+     * @param filaPorTitulo posición de cada título en el catálogo del snapshot
+     * @throws IOException si falla la escritura
+     */
+    void escribir(DataOutputStream out, Map<String, Integer> filaPorTitulo) throws IOException {
+        for (Campo campo : Campo.values()) {
+            Map<String, Set<String>> postings = titulosPorPalabra.get(campo);
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Set<String>> e : postings.entrySet()) {
+                SnapshotCatalogo.escribirTexto(out, e.getKey());
+                out.writeInt(e.getValue().size());
+                for (String titulo : e.getValue()) {
+                    out.writeInt(filaPorTitulo.get(titulo));
+                }
+            }
+            arboles.get(campo).escribir(out);
+        }
+    }
+
+    /**
+     * Restaura un buscador escrito con {@link #escribir(DataOutputStream, Map)}.
+     *
+     * @param in datos del snapshot, posicionados al inicio del buscador
+     * @param titulos títulos del catálogo del snapshot, por fila
+     * @return buscador restaurado
+     */
+    static BuscadorDifuso leer(ByteBuffer in, String[] titulos) {
+        BuscadorDifuso buscador = new BuscadorDifuso();
+        for (Campo campo : Campo.values()) {
+            Map<String, Set<String>> postings = buscador.titulosPorPalabra.get(campo);
+            int palabras = in.getInt();
+            for (int i = 0; i < palabras; i++) {
+                String palabra = SnapshotCatalogo.leerTexto(in);
+                int n = in.getInt();
+                Set<String> lista = new HashSet<>(Math.max(4, n * 4 / 3 + 1));
+                for (int j = 0; j < n; j++) {
+                    lista.add(titulos[in.getInt()]);
+                }
+                postings.put(palabra, lista);
+            }
+            buscador.arboles.put(campo, BKTree.leer(in));
+        }
+        return buscador;
+    }
+
+    /**
+     * Distancia de edición tolerada para una palabra según su longitud:
+     * 0 hasta 3 letras, 1 hasta 6 letras y 2 para palabras más largas.
+     *
+     * @param largo longitud de la palabra
+     * @return distancia máxima permitida
+     */
+    public static int tolerancia(int largo) {
+        if (largo <= 3) return 0;
+        if (largo <= 6) return 1;
+        return 2;
+    }
+
+    /**
+     * Divide un texto en palabras en minúsculas (letras y dígitos).
+     *
+     * @param texto texto a dividir
+     * @return lista de palabras, vacía si el texto es null
+     */
+    static List<String> tokenizar(String texto) {
+        List<String> palabras = new ArrayList<>();
+        if (texto == null)
+            return palabras;
+        for (String p : texto.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!p.isEmpty()) palabras.add(p);
+        }
+        return palabras;
+    }
+
+    private static int[] nuevasDistancias(int n) {
+        int[] d = new int[n];
+        Arrays.fill(d, -1);
+        return d;
+    }
+}
@@ -0,0 +1,173 @@
+package com.syncup.app.logic;
+
+import com.syncup.app.model.estructuras.HistorialColumnar;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <h2>Cardinalidad del Historial</h2>
+ * Cantidades aproximadas de canciones, géneros y oyentes distintos, mantenidas
+ * con resúmenes {@link HyperLogLog} de memoria constante.
+ *
+ * <p>
+ * Se guardan resúmenes globales, uno de canciones por usuario y dos por día local
+ * (oyentes y canciones). Cada reproducción nueva los actualiza en O(1) con
+ * {@link #sumar}; para un rango de días se combinan los resúmenes diarios del
+ * rango. Canciones y géneros se identifican por su código de {@link HistorialColumnar},
+ * así que no se dispersan cadenas; los oyentes, por un número propio de su nombre
+ * en minúsculas ("ana" y "Ana" son el mismo oyente, como en el resto del
+ * historial). Solo se reconstruyen al cargar el historial o al eliminar registros.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class CardinalidadHistorial {
+
+    /** Precisión de los resúmenes globales (~1.6 % de error, 4 KB cada uno) */
+    private static final int PRECISION_GLOBAL = 12;
+    /** Precisión de los resúmenes por usuario y por día (~3.3 % de error, 1 KB cada uno) */
+    private static final int PRECISION_DETALLE = 10;
+
+    private HyperLogLog canciones = new HyperLogLog(PRECISION_GLOBAL);
+    private HyperLogLog generos = new HyperLogLog(PRECISION_GLOBAL);
+    private HyperLogLog oyentes = new HyperLogLog(PRECISION_GLOBAL);
+
+    /** Usuario (en minúsculas) → canciones distintas que escuchó */
+    private final Map<String, HyperLogLog> cancionesPorUsuario = new HashMap<>();
+    /** Código de usuario → su resumen en {@link #cancionesPorUsuario} (evita normalizar el nombre por fila) */
+    private HyperLogLog[] cancionesDeCodigo = new HyperLogLog[0];
+
+    /** Usuario (en minúsculas) → número de oyente que se agrega a los resúmenes */
+    private final Map<String, Integer> numeroDeOyente = new HashMap<>();
+    /** Código de usuario → número de oyente + 1 (0: aún sin resolver) */
+    private int[] oyenteDeCodigo = new int[0];
+
+    /** Día local (días desde 1970) → oyentes distintos */
+    private final TreeMap<Long, HyperLogLog> oyentesPorDia = new TreeMap<>();
+    /** Día local (días desde 1970) → canciones distintas */
+    private final TreeMap<Long, HyperLogLog> cancionesPorDia = new TreeMap<>();
+
+    // ========================
+    // ACTUALIZACIÓN
+    // ========================
+
+    /**
+     * Suma una reproducción ya agregada al historial.
+     *
+     * @param historial historial que contiene la fila
+     * @param fila fila recién agregada
+     */
+    public void sumar(HistorialColumnar historial, int fila) {
+        int usuario = historial.getCodigoUsuario(fila);
+        int cancion = historial.getCodigoCancion(fila);
+        canciones.agregar(cancion);
+        generos.agregar(historial.getCodigoGenero(fila));
+
+        if (usuario >= cancionesDeCodigo.length) {
+            int largo = Math.max(usuario + 1, cancionesDeCodigo.length * 2);
+            cancionesDeCodigo = Arrays.copyOf(cancionesDeCodigo, largo);
+            oyenteDeCodigo = Arrays.copyOf(oyenteDeCodigo, largo);
+        }
+        if (cancionesDeCodigo[usuario] == null) {
+            String nombre = normalizar(historial.getUsuario(fila));
+            cancionesDeCodigo[usuario] = cancionesPorUsuario.computeIfAbsent(
+                    nombre, u -> new HyperLogLog(PRECISION_DETALLE));
+            oyenteDeCodigo[usuario] = numeroDeOyente.computeIfAbsent(nombre, u -> numeroDeOyente.size()) + 1;
+        }
+        cancionesDeCodigo[usuario].agregar(cancion);
+        int oyente = oyenteDeCodigo[usuario] - 1;
+        oyentes.agregar(oyente);
+
+        long dia = historial.getDia(fila);
+        oyentesPorDia.computeIfAbsent(dia, d -> new HyperLogLog(PRECISION_DETALLE)).agregar(oyente);
+        cancionesPorDia.computeIfAbsent(dia, d -> new HyperLogLog(PRECISION_DETALLE)).agregar(cancion);
+    }
+
+    /**
+     * Vuelve a calcular todos los resúmenes con un recorrido del historial.
+     *
+     * @param historial historial completo
+     */
+    public void reconstruir(HistorialColumnar historial) {
+        canciones = new HyperLogLog(PRECISION_GLOBAL);
+        generos = new HyperLogLog(PRECISION_GLOBAL);
+        oyentes = new HyperLogLog(PRECISION_GLOBAL);
+        cancionesPorUsuario.clear();
+        cancionesDeCodigo = new HyperLogLog[historial.getUsuarios().getTamaño()];
+        numeroDeOyente.clear();
+        oyenteDeCodigo = new int[cancionesDeCodigo.length];
+        oyentesPorDia.clear();
+        cancionesPorDia.clear();
+
+        int n = historial.getTamaño();
+        for (int fila = 0; fila < n; fila++) {
+            sumar(historial, fila);
+        }
+    }
+
+    // ========================
+    // CONSULTAS
+    // ========================
+
+    /** @return canciones distintas reproducidas (aproximado) */
+    public long getCancionesDistintas() { return canciones.estimar(); }
+
+    /** @return géneros distintos reproducidos (aproximado) */
+    public long getGenerosDistintos() { return generos.estimar(); }
+
+    /** @return usuarios distintos (sin distinguir mayúsculas) que reprodujeron algo (aproximado) */
+    public long getOyentesDistintos() { return oyentes.estimar(); }
+
+    /**
+     * @param usuario nombre de usuario (sin distinguir mayúsculas)
+     * @return canciones distintas que escuchó el usuario (aproximado), 0 si no tiene reproducciones
+     */
+    public long getCancionesDistintasUsuario(String usuario) {
+        HyperLogLog resumen = cancionesPorUsuario.get(normalizar(usuario));
+        return resumen != null ? resumen.estimar() : 0;
+    }
+
+    /**
+     * @param desde primer día (inclusive), o null para no limitar
+     * @param hasta último día (inclusive), o null para no limitar
+     * @return usuarios distintos que reprodujeron algo en el rango (aproximado)
+     */
+    public long getOyentesDistintos(LocalDate desde, LocalDate hasta) {
+        return combinarRango(oyentesPorDia, desde, hasta);
+    }
+
+    /**
+     * @param desde primer día (inclusive), o null para no limitar
+     * @param hasta último día (inclusive), o null para no limitar
+     * @return canciones distintas reproducidas en el rango (aproximado)
+     */
+    public long getCancionesDistintas(LocalDate desde, LocalDate hasta) {
+        return combinarRango(cancionesPorDia, desde, hasta);
+    }
+
+    // ========================
+    // UTILIDADES
+    // ========================
+
+    private static long combinarRango(TreeMap<Long, HyperLogLog> porDia, LocalDate desde, LocalDate hasta) {
+        long diaDesde = desde != null ? desde.toEpochDay() : Long.MIN_VALUE;
+        long diaHasta = hasta != null ? hasta.toEpochDay() : Long.MAX_VALUE;
+        if (diaDesde > diaHasta)
+            return 0;
+        HyperLogLog union = new HyperLogLog(PRECISION_DETALLE);
+        for (HyperLogLog dia : porDia.subMap(diaDesde, true, diaHasta, true).values()) {
+            union.combinar(dia);
+        }
+        return union.estimar();
+    }
+
+    private static String normalizar(String usuario) {
+        return usuario == null ? "" : usuario.toLowerCase(Locale.ROOT);
+    }
+}
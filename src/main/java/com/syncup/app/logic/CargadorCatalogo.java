@@ -0,0 +1,194 @@
+package com.syncup.app.logic;
+
+import com.syncup.app.model.Cancion;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * <h2>Cargador Paralelo del Catálogo</h2>
+ * Lee {@code canciones.csv} usando todos los núcleos disponibles.
+ *
+ * <p>
+ * El archivo se mapea en memoria ({@link FileChannel#map}) y se divide en bloques
+ * de tamaño parecido; cada límite se corre hasta el siguiente salto de línea para
+ * que ninguna fila quede partida. Los bloques se analizan en paralelo en un
+ * {@link ForkJoinPool} y los resultados se concatenan en el orden del archivo.
+ * </p>
+ *
+ * <p>
+ * El análisis trabaja directamente sobre bytes: la coma (0x2C) nunca forma parte
+ * de una secuencia multibyte UTF-8, así que los campos se separan sin decodificar
+ * la línea completa y solo se crea un String por campo.
+ * </p>
+ *
+ * <h3>Formato esperado:</h3>
+ * <pre>
+ *   titulo,artista,genero
+ *   Cancion animal,Soda Stereo,Rock
+ * </pre>
+ * <p>
+ * Igual que el cargador secuencial: se salta el encabezado, se recortan los
+ * espacios y se descartan las filas con menos de tres campos.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class CargadorCatalogo {
+
+    /** Bloques por hilo, para repartir mejor el trabajo si hay filas de distinto largo */
+    private static final int BLOQUES_POR_HILO = 4;
+    /** Por debajo de este tamaño no vale la pena paralelizar */
+    private static final int TAMAÑO_MINIMO_BLOQUE = 64 * 1024;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea un cargador que usa el pool común de fork-join.
+     */
+    public CargadorCatalogo() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool donde se analizan los bloques
+     */
+    public CargadorCatalogo(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Lee todas las canciones del CSV, en el orden del archivo.
+     *
+     * @param csv ruta del archivo de canciones
+     * @return canciones leídas
+     * @throws IOException si no se puede leer el archivo
+     */
+    public List<Cancion> leer(Path csv) throws IOException {
+        try (FileChannel canal = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long tamaño = canal.size();
+            if (tamaño == 0)
+                return new ArrayList<>();
+            if (tamaño > Integer.MAX_VALUE) {
+                // Un único mapeo no puede superar 2 GB: se lee de forma secuencial
+                return leerSecuencial(csv);
+            }
+
+            MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamaño);
+            int fin = (int) tamaño;
+            int inicio = saltarLinea(datos, 0, fin); // encabezado
+
+            int[] limites = calcularLimites(datos, inicio, fin);
+            int bloques = limites.length - 1;
+
+            // Cada bloque escribe solo su posición (set no cambia la estructura de la lista)
+            List<List<Cancion>> partes = new ArrayList<>(Collections.nCopies(bloques, null));
+            pool.submit(() -> IntStream.range(0, bloques).parallel()
+                    .forEach(b -> partes.set(b, analizarBloque(datos, limites[b], limites[b + 1]))))
+                    .join();
+
+            int total = 0;
+            for (List<Cancion> p : partes) total += p.size();
+            List<Cancion> canciones = new ArrayList<>(total);
+            for (List<Cancion> p : partes) canciones.addAll(p);
+            return canciones;
+        }
+    }
+
+    /**
+     * Divide el rango [inicio, fin) en bloques que empiezan siempre al principio de una línea.
+     */
+    private int[] calcularLimites(MappedByteBuffer datos, int inicio, int fin) {
+        int hilos = Math.max(1, pool.getParallelism());
+        int bloques = Math.max(1, Math.min(hilos * BLOQUES_POR_HILO, (fin - inicio) / TAMAÑO_MINIMO_BLOQUE));
+        long paso = Math.max(1, (fin - inicio) / bloques);
+
+        List<Integer> limites = new ArrayList<>(bloques + 1);
+        limites.add(inicio);
+        for (int b = 1; b < bloques; b++) {
+            int candidato = saltarLinea(datos, (int) Math.min(fin, inicio + b * paso), fin);
+            if (candidato > limites.get(limites.size() - 1) && candidato < fin) {
+                limites.add(candidato);
+            }
+        }
+        limites.add(fin);
+        return limites.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Analiza las líneas completas de un bloque. Cada hilo lee el buffer con
+     * acceso absoluto, sin modificar su posición.
+     */
+    private static List<Cancion> analizarBloque(MappedByteBuffer datos, int desde, int hasta) {
+        List<Cancion> canciones = new ArrayList<>(Math.max(16, (hasta - desde) / 40));
+        byte[] linea = new byte[256];
+        int[] comas = new int[2];
+        int pos = desde;
+
+        while (pos < hasta) {
+            int largo = 0;
+            int numComas = 0;
+            while (pos < hasta) {
+                byte b = datos.get(pos++);
+                if (b == '\n') break;
+                if (largo == linea.length) {
+                    linea = Arrays.copyOf(linea, largo * 2);
+                }
+                if (b == ',' && numComas < 2) {
+                    comas[numComas++] = largo;
+                }
+                linea[largo++] = b;
+            }
+            if (largo > 0 && linea[largo - 1] == '\r') largo--;
+            if (numComas < 2) continue; // menos de tres campos
+
+            int finGenero = largo;
+            for (int i = comas[1] + 1; i < largo; i++) {
+                if (linea[i] == ',') { finGenero = i; break; }
+            }
+            canciones.add(new Cancion(
+                    campo(linea, 0, comas[0]),
+                    campo(linea, comas[0] + 1, comas[1]),
+                    campo(linea, comas[1] + 1, finGenero)));
+        }
+        return canciones;
+    }
+
+    /** Decodifica un campo recortando espacios en blanco en los extremos */
+    private static String campo(byte[] linea, int desde, int hasta) {
+        while (desde < hasta && linea[desde] <= ' ' && linea[desde] >= 0) desde++;
+        while (hasta > desde && linea[hasta - 1] <= ' ' && linea[hasta - 1] >= 0) hasta--;
+        return new String(linea, desde, hasta - desde, StandardCharsets.UTF_8);
+    }
+
+    /** Devuelve la posición siguiente al próximo salto de línea (o fin) */
+    private static int saltarLinea(MappedByteBuffer datos, int pos, int fin) {
+        while (pos < fin && datos.get(pos) != '\n') pos++;
+        return Math.min(fin, pos + 1);
+    }
+
+    private static List<Cancion> leerSecuencial(Path csv) throws IOException {
+        List<Cancion> canciones = new ArrayList<>();
+        try (var lineas = Files.lines(csv, StandardCharsets.UTF_8)) {
+            lineas.skip(1).forEach(linea -> {
+                String[] partes = linea.split(",", -1);
+                if (partes.length >= 3) {
+                    canciones.add(new Cancion(partes[0].trim(), partes[1].trim(), partes[2].trim()));
+                }
+            });
+        }
+        return canciones;
+    }
+}
@@ -0,0 +1,156 @@
+package com.syncup.app.logic;
+
+import com.syncup.app.model.estructuras.HistorialColumnar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <h2>Contadores del Historial</h2>
+ * Conteos de reproducciones ya agregados, para responder las estadísticas sin
+ * recorrer el historial.
+ *
+ * <p>
+ * Se mantienen por canción, género, usuario y artista (indexados por el código de
+ * {@link HistorialColumnar}) y por día local. El artista viene en la propia fila
+ * del historial, así que nunca se consulta el catálogo. Cada reproducción nueva
+ * los actualiza en O(1) con {@link #sumar}; la canción y el género más reproducidos
+ * se siguen en el mismo paso. Solo se reconstruyen por completo al cargar el
+ * historial o al eliminar registros.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class ContadoresHistorial {
+
+    private int[] porUsuario = new int[0];
+    private int[] porCancion = new int[0];
+    private int[] porGenero = new int[0];
+    private int[] porArtista = new int[0];
+    /** Reproducciones de canciones sin artista conocido */
+    private int sinArtista = 0;
+    private final Map<Long, Integer> porDia = new HashMap<>();
+
+    /** Código de la canción / género con más reproducciones, -1 si no hay */
+    private int topCancion = -1;
+    private int topGenero = -1;
+
+    // ========================
+    // ACTUALIZACIÓN
+    // ========================
+
+    /**
+     * Suma una reproducción ya agregada al historial.
+     *
+     * @param historial historial que contiene la fila
+     * @param fila fila recién agregada
+     */
+    public void sumar(HistorialColumnar historial, int fila) {
+        porUsuario = incrementar(porUsuario, historial.getCodigoUsuario(fila), 1);
+
+        int cancion = historial.getCodigoCancion(fila);
+        porCancion = incrementar(porCancion, cancion, 1);
+        if (topCancion < 0 || porCancion[cancion] > porCancion[topCancion]) topCancion = cancion;
+
+        int genero = historial.getCodigoGenero(fila);
+        porGenero = incrementar(porGenero, genero, 1);
+        if (topGenero < 0 || porGenero[genero] > porGenero[topGenero]) topGenero = genero;
+
+        int artista = historial.getCodigoArtista(fila);
+        if (artista >= 0) porArtista = incrementar(porArtista, artista, 1);
+        else sinArtista++;
+
+        porDia.merge(historial.getDia(fila), 1, Integer::sum);
+    }
+
+    /**
+     * Vuelve a calcular todos los conteos con un recorrido del historial.
+     *
+     * @param historial historial completo
+     */
+    public void reconstruir(HistorialColumnar historial) {
+        porUsuario = new int[historial.getUsuarios().getTamaño()];
+        porCancion = new int[historial.getCanciones().getTamaño()];
+        porGenero = new int[historial.getGeneros().getTamaño()];
+        porArtista = new int[historial.getArtistas().getTamaño()];
+        sinArtista = 0;
+        porDia.clear();
+
+        int n = historial.getTamaño();
+        for (int fila = 0; fila < n; fila++) {
+            porUsuario[historial.getCodigoUsuario(fila)]++;
+            porCancion[historial.getCodigoCancion(fila)]++;
+            porGenero[historial.getCodigoGenero(fila)]++;
+            int artista = historial.getCodigoArtista(fila);
+            if (artista >= 0) porArtista[artista]++;
+            else sinArtista++;
+            porDia.merge(historial.getDia(fila), 1, Integer::sum);
+        }
+        topCancion = maximo(porCancion);
+        topGenero = maximo(porGenero);
+    }
+
+    // ========================
+    // CONSULTAS
+    // ========================
+
+    /** @return código de la canción más reproducida, -1 si no hay reproducciones */
+    public int getTopCancion() { return topCancion; }
+
+    /** @return código del género más reproducido, -1 si no hay reproducciones */
+    public int getTopGenero() { return topGenero; }
+
+    /** @return reproducciones de la canción con ese código */
+    public int getPorCancion(int codigo) { return valor(porCancion, codigo); }
+
+    /** @return reproducciones del género con ese código */
+    public int getPorGenero(int codigo) { return valor(porGenero, codigo); }
+
+    /** @return reproducciones del usuario con ese código */
+    public int getPorUsuario(int codigo) { return valor(porUsuario, codigo); }
+
+    /**
+     * @param historial historial de donde sale el diccionario de artistas
+     * @return artista → reproducciones; las canciones sin artista cuentan como "Desconocido"
+     */
+    public Map<String, Integer> getPorArtista(HistorialColumnar historial) {
+        Map<String, Integer> mapa = new HashMap<>();
+        for (int a = 0; a < porArtista.length; a++) {
+            if (porArtista[a] > 0) mapa.merge(historial.getArtistas().decodificar(a), porArtista[a], Integer::sum);
+        }
+        if (sinArtista > 0) mapa.merge("Desconocido", sinArtista, Integer::sum);
+        return mapa;
+    }
+
+    /** @return cantidad de días distintos con reproducciones */
+    public int getDiasConReproducciones() { return porDia.size(); }
+
+    /** @return copia del conteo por día (días desde 1970-01-01, hora local) */
+    public Map<Long, Integer> getPorDia() { return new HashMap<>(porDia); }
+
+    // ========================
+    // UTILIDADES
+    // ========================
+
+    private static int[] incrementar(int[] conteo, int codigo, int cantidad) {
+        if (codigo >= conteo.length) {
+            conteo = Arrays.copyOf(conteo, Math.max(codigo + 1, conteo.length * 2));
+        }
+        conteo[codigo] += cantidad;
+        return conteo;
+    }
+
+    private static int valor(int[] conteo, int codigo) {
+        return codigo >= 0 && codigo < conteo.length ? conteo[codigo] : 0;
+    }
+
+    private static int maximo(int[] conteo) {
+        int mejor = -1;
+        for (int c = 0; c < conteo.length; c++) {
+            if (conteo[c] > 0 && (mejor < 0 || conteo[c] > conteo[mejor])) mejor = c;
+        }
+        return mejor;
+    }
+}
@@ -1,6 +1,7 @@
 package com.syncup.app.logic;
 
 import com.syncup.app.model.BibliotecaMusical;
+import com.syncup.app.model.Cancion;
 import com.syncup.app.model.Usuario;
 
 /**
@@ -65,6 +66,14 @@ public class DataStore {
         recomendador = new Recomendador(biblioteca, favoritosManager);
         grafoSocial = new GrafoSocial();
 
+        // Sugerencias de búsqueda ordenadas por reproducciones
+        biblioteca.cargarPopularidad(historialManager.getReproduccionesPorCancion());
+        historialManager.agregarOyente(r -> biblioteca.registrarReproduccion(r[2], 1));
+        historialManager.setResolverArtista(titulo -> {
+            Cancion c = biblioteca.buscarPorTitulo(titulo);
+            return c != null ? c.getArtista() : null;
+        });
+
         usuarioActivo = null;
 
         System.out.println("📁 DataStore inicializado correctamente.");
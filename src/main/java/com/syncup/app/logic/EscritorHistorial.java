@@ -0,0 +1,300 @@
+package com.syncup.app.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <h2>Escritor del Historial</h2>
+ * Escribe las reproducciones en disco en segundo plano, agrupadas en lotes.
+ *
+ * <p>
+ * Antes, cada reproducción abría, anexaba y cerraba {@code historial.csv} en el hilo
+ * de JavaFX. Ahora {@link #escribir(String)} solo deja la línea en una cola sin
+ * bloqueos ({@link ConcurrentLinkedQueue}) y un hilo daemon la escribe junto con
+ * las demás pendientes:
+ * </p>
+ * <ul>
+ *     <li><b>Group commit</b>: se escribe un lote cada {@code loteMaximo} líneas o cada
+ *         {@code esperaMaximaMs} milisegundos, lo que ocurra primero</li>
+ *     <li>El archivo activo se mantiene abierto en un {@link FileChannel} en modo
+ *         anexar; cada lote es una única escritura</li>
+ *     <li>{@link #redirigir(Path)} cambia el archivo de destino sin crear otro hilo;
+ *         {@link SegmentosHistorial} lo usa al pasar de un mes al siguiente</li>
+ * </ul>
+ *
+ * <h3>Durabilidad:</h3>
+ * <ul>
+ *     <li>{@link Durabilidad#FSYNC_POR_LOTE}: cada lote se fuerza a disco
+ *         ({@link FileChannel#force(boolean)}) antes de aceptar el siguiente</li>
+ *     <li>{@link Durabilidad#BUFFER_SO}: se confía en la caché del sistema operativo;
+ *         más rápido, pero un corte de luz puede perder los últimos lotes</li>
+ * </ul>
+ *
+ * <p>
+ * Si un lote no se puede escribir, sus líneas no se pierden: se reintentan antes
+ * que las nuevas en el siguiente lote, y {@link #vaciar()} informa el fallo a quien
+ * lo llama. Al cerrar la JVM un shutdown hook escribe lo que quede en la cola;
+ * {@link #cerrar()} lo quita para que un escritor cerrado no quede retenido.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public final class EscritorHistorial {
+
+    /** Modo de durabilidad de los lotes escritos */
+    public enum Durabilidad { FSYNC_POR_LOTE, BUFFER_SO }
+
+    /** Archivo de destino (solo se cambia bajo el monitor de esta instancia) */
+    private Path activo;
+    private final String encabezado;
+    private final int loteMaximo;
+    private final long esperaMaximaMs;
+    private volatile Durabilidad durabilidad;
+
+    /** Líneas pendientes de escribir */
+    private final ConcurrentLinkedQueue<String> cola = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger enCola = new AtomicInteger();
+    /** Líneas de un lote que falló; van antes que la cola (solo bajo el monitor) */
+    private final List<String> reintentos = new ArrayList<>();
+    private volatile boolean hayReintentos = false;
+
+    /** Canal del archivo activo (solo se usa bajo el monitor de esta instancia) */
+    private FileChannel canal;
+    private final Thread hilo;
+    private final Thread cierre;
+    private volatile boolean cerrado = false;
+
+    /**
+     * Crea el escritor y arranca su hilo de fondo.
+     *
+     * @param activo archivo activo del historial (se crea con encabezado si no existe)
+     * @param encabezado primera línea de cada archivo
+     * @param durabilidad modo de durabilidad inicial
+     * @param loteMaximo líneas que disparan la escritura inmediata de un lote
+     * @param esperaMaximaMs tiempo máximo que una línea espera en la cola
+     */
+    public EscritorHistorial(Path activo, String encabezado, Durabilidad durabilidad,
+                             int loteMaximo, long esperaMaximaMs) {
+        this.activo = activo;
+        this.encabezado = encabezado;
+        this.durabilidad = durabilidad;
+        this.loteMaximo = Math.max(1, loteMaximo);
+        this.esperaMaximaMs = Math.max(1, esperaMaximaMs);
+
+        this.hilo = new Thread(this::ejecutar, "escritor-historial");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+        this.cierre = new Thread(this::cerrar, "cierre-historial");
+        Runtime.getRuntime().addShutdownHook(cierre);
+    }
+
+    // ========================
+    // API
+    // ========================
+
+    /**
+     * Encola una línea para escribirla en el próximo lote. No bloquea.
+     *
+     * @param linea línea sin salto de línea final
+     */
+    public void escribir(String linea) {
+        cola.offer(linea);
+        if (enCola.incrementAndGet() >= loteMaximo) {
+            LockSupport.unpark(hilo);
+        }
+    }
+
+    /**
+     * Escribe de inmediato todo lo que está en la cola (en el hilo que llama).
+     *
+     * @return true si todo quedó escrito; false si falló la escritura (las líneas
+     *         siguen pendientes y se reintentan en el próximo lote)
+     */
+    public synchronized boolean vaciar() {
+        return escribirLote();
+    }
+
+    /**
+     * Escribe lo pendiente en el archivo actual, lo cierra y dirige los lotes
+     * siguientes a otro archivo (que se abre, y se crea con encabezado si hace
+     * falta, con el próximo lote). Con el mismo archivo sirve para soltarlo, por
+     * ejemplo antes de reemplazarlo en disco.
+     *
+     * <p>
+     * Si lo pendiente no se pudo escribir, no se descarta: se escribirá en el
+     * nuevo archivo.
+     * </p>
+     *
+     * @param destino nuevo archivo de destino
+     * @return true si lo pendiente quedó escrito en el archivo anterior
+     */
+    public synchronized boolean redirigir(Path destino) {
+        boolean escrito = escribirLote();
+        try {
+            cerrarCanal();
+        } catch (IOException e) {
+            canal = null;
+        }
+        activo = destino;
+        return escrito;
+    }
+
+    /**
+     * Cambia el modo de durabilidad; aplica desde el siguiente lote.
+     *
+     * @param durabilidad nuevo modo
+     */
+    public void setDurabilidad(Durabilidad durabilidad) {
+        if (durabilidad != null) {
+            this.durabilidad = durabilidad;
+        }
+    }
+
+    /**
+     * @return modo de durabilidad actual
+     */
+    public Durabilidad getDurabilidad() {
+        return durabilidad;
+    }
+
+    /**
+     * Escribe lo pendiente, detiene el hilo de fondo y cierra el archivo.
+     */
+    public void cerrar() {
+        if (cerrado)
+            return;
+        cerrado = true;
+        LockSupport.unpark(hilo);
+        synchronized (this) {
+            if (!escribirLote()) {
+                System.out.println("❌ Reproducciones sin guardar al cerrar el historial: " + reintentos.size());
+            }
+            try {
+                cerrarCanal();
+            } catch (IOException e) {
+                System.out.println("❌ Error al cerrar historial: " + e.getMessage());
+            }
+        }
+        if (Thread.currentThread() != cierre) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(cierre);
+            } catch (IllegalStateException e) {
+                // la JVM ya se está cerrando: el hook se ejecutará y no hará nada
+            }
+        }
+    }
+
+    // ========================
+    // HILO DE FONDO
+    // ========================
+
+    private void ejecutar() {
+        while (!cerrado) {
+            if (enCola.get() < loteMaximo) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs));
+            }
+            if (enCola.get() > 0 || hayReintentos) {
+                synchronized (this) {
+                    if (!cerrado) escribirLote();
+                }
+            }
+        }
+    }
+
+    /**
+     * Escribe en una sola operación los reintentos pendientes y todas las líneas de
+     * la cola. Si falla, las líneas quedan como reintentos (en el mismo orden) y el
+     * archivo se recorta a su largo anterior para no dejar un lote a medias. Debe
+     * llamarse con el monitor de esta instancia tomado.
+     *
+     * @return true si no quedó nada pendiente
+     */
+    private boolean escribirLote() {
+        String linea;
+        int n = 0;
+        while ((linea = cola.poll()) != null) {
+            reintentos.add(linea);
+            n++;
+        }
+        enCola.addAndGet(-n);
+        if (reintentos.isEmpty())
+            return true;
+
+        StringBuilder sb = new StringBuilder();
+        for (String l : reintentos) {
+            sb.append(l).append('\n');
+        }
+
+        long largoPrevio = -1;
+        try {
+            FileChannel c = abrirCanal();
+            largoPrevio = c.size();
+            ByteBuffer datos = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (datos.hasRemaining()) {
+                c.write(datos);
+            }
+            if (durabilidad == Durabilidad.FSYNC_POR_LOTE) {
+                c.force(false);
+            }
+            reintentos.clear();
+            hayReintentos = false;
+            return true;
+        } catch (IOException e) {
+            if (!hayReintentos) {
+                System.out.println("❌ Error al escribir historial (" + reintentos.size()
+                        + " reproducciones pendientes, se reintentará): " + e.getMessage());
+            }
+            hayReintentos = true;
+            recortar(largoPrevio);
+            return false;
+        }
+    }
+
+    /** Deshace una escritura parcial; si no se puede, el próximo intento cerrará el canal */
+    private void recortar(long largo) {
+        try {
+            if (canal != null && largo >= 0 && canal.size() > largo) {
+                canal.truncate(largo);
+            }
+        } catch (IOException e) {
+            // se reintenta con el canal reabierto
+        }
+        try {
+            cerrarCanal();
+        } catch (IOException e) {
+            canal = null;
+        }
+    }
+
+    // ========================
+    // ARCHIVO
+    // ========================
+
+    private FileChannel abrirCanal() throws IOException {
+        if (canal == null || !canal.isOpen()) {
+            if (!Files.exists(activo)) {
+                if (activo.getParent() != null) Files.createDirectories(activo.getParent());
+                Files.writeString(activo, encabezado + "\n", StandardCharsets.UTF_8);
+            }
+            canal = FileChannel.open(activo, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return canal;
+    }
+
+    private void cerrarCanal() throws IOException {
+        if (canal != null) {
+            canal.close();
+            canal = null;
+        }
+    }
+}
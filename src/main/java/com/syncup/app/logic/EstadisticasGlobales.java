@@ -1,10 +1,18 @@
 package com.syncup.app.logic;
 
+import com.syncup.app.logic.AnaliticaHistorial.Campo;
+import com.syncup.app.logic.AnaliticaHistorial.Consulta;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
 /**
  * <h2>EstadisticasGlobales</h2>
  * Calcula estadísticas globales del sistema basadas en el historial de reproducciones.
+ * Los conteos se leen de las estructuras que el historial mantiene al registrar
+ * cada reproducción, y los rankings se resuelven con las consultas de
+ * {@link AnaliticaHistorial}; no se recorre ni se copia el historial.
  * <p>
  * Proporciona métodos para obtener información agregada sobre:
  * </p>
@@ -13,6 +21,7 @@ import java.util.*;
  *     <li>Géneros más escuchados</li>
  *     <li>Conteos por canción y género</li>
  *     <li>Porcentajes de distribución</li>
+ *     <li>Canciones, géneros y oyentes distintos (aproximados, globales, por usuario o por rango de días)</li>
  * </ul>
  * <p>
  * <b>Formato de datos del HistorialManager:</b>
@@ -47,15 +56,7 @@ public class EstadisticasGlobales {
      * @return mapa género → cantidad de reproducciones
      */
     public Map<String, Integer> obtenerReproduccionesPorGenero() {
-        Map<String, Integer> conteo = new HashMap<>();
-
-        for (String[] r : historialManager.obtenerHistorial()) {
-            if (r.length < 4) continue;
-            String genero = r[3] != null ? r[3].trim() : "Desconocido";
-
-            conteo.put(genero, conteo.getOrDefault(genero, 0) + 1);
-        }
-        return conteo;
+        return historialManager.getReproduccionesPorGenero();
     }
 
     /**
@@ -64,15 +65,7 @@ public class EstadisticasGlobales {
      * @return mapa título de canción → cantidad de reproducciones
      */
     public Map<String, Integer> obtenerReproduccionesPorCancion() {
-        Map<String, Integer> conteo = new HashMap<>();
-
-        for (String[] r : historialManager.obtenerHistorial()) {
-            if (r.length < 3) continue;
-            String titulo = r[2] != null ? r[2].trim() : "Sin título";
-
-            conteo.put(titulo, conteo.getOrDefault(titulo, 0) + 1);
-        }
-        return conteo;
+        return historialManager.getReproduccionesPorCancion();
     }
 
     /**
@@ -82,15 +75,7 @@ public class EstadisticasGlobales {
      * @return lista ordenada de pares (canción, cantidad)
      */
     public List<Map.Entry<String, Integer>> obtenerTopCanciones(int limite) {
-        Map<String, Integer> conteo = obtenerReproduccionesPorCancion();
-        List<Map.Entry<String, Integer>> lista = new ArrayList<>(conteo.entrySet());
-
-        lista.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
-
-        if (limite > 0 && lista.size() > limite) {
-            return lista.subList(0, limite);
-        }
-        return lista;
+        return historialManager.consultar(Consulta.agruparPor(Campo.CANCION).limite(limite));
     }
 
     /**
@@ -100,45 +85,88 @@ public class EstadisticasGlobales {
      * @return lista ordenada de pares (género, cantidad)
      */
     public List<Map.Entry<String, Integer>> obtenerTopGeneros(int limite) {
-        Map<String, Integer> conteo = obtenerReproduccionesPorGenero();
-        List<Map.Entry<String, Integer>> lista = new ArrayList<>(conteo.entrySet());
-
-        lista.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        return historialManager.consultar(Consulta.agruparPor(Campo.GENERO).limite(limite));
+    }
 
-        if (limite > 0 && lista.size() > limite) {
-            return lista.subList(0, limite);
-        }
-        return lista;
+    /**
+     * Obtiene el top N de cualquier agrupación, con filtros opcionales de usuario,
+     * género y rango de fechas.
+     * 
+     * @param campo campo por el que se agrupa
+     * @param usuario usuario (sin distinguir mayúsculas), o null para todos
+     * @param genero género exacto, o null para todos
+     * @param desde inicio del rango (inclusive), o null para no limitar
+     * @param hasta fin del rango (inclusive), o null para no limitar
+     * @param limite número máximo de resultados (0 para sin límite)
+     * @return lista ordenada de pares (valor, cantidad)
+     */
+    public List<Map.Entry<String, Integer>> obtenerTop(Campo campo, String usuario, String genero,
+                                                       LocalDateTime desde, LocalDateTime hasta, int limite) {
+        return historialManager.consultar(Consulta.agruparPor(campo)
+                .usuario(usuario).genero(genero).rango(desde, hasta).limite(limite));
     }
 
     /**
      * Obtiene el número total de canciones distintas reproducidas.
+     * Es una estimación (HyperLogLog) que el historial mantiene con cada reproducción.
      * 
-     * @return cantidad de canciones únicas en el historial
+     * @return cantidad aproximada de canciones únicas en el historial
      */
     public int obtenerCantidadCancionesDistintas() {
-        Set<String> canciones = new HashSet<>();
-        for (String[] r : historialManager.obtenerHistorial()) {
-            if (r.length < 3) continue;
-            String titulo = r[2] != null ? r[2].trim() : "Sin título";
-            canciones.add(titulo);
-        }
-        return canciones.size();
+        return (int) historialManager.obtenerCancionesDistintas();
     }
 
     /**
      * Obtiene el número total de géneros distintos reproducidos.
+     * Es una estimación (HyperLogLog) que el historial mantiene con cada reproducción.
      * 
-     * @return cantidad de géneros únicos en el historial
+     * @return cantidad aproximada de géneros únicos en el historial
      */
     public int obtenerCantidadGenerosDistintos() {
-        Set<String> generos = new HashSet<>();
-        for (String[] r : historialManager.obtenerHistorial()) {
-            if (r.length < 4) continue;
-            String genero = r[3] != null ? r[3].trim() : "Desconocido";
-            generos.add(genero);
-        }
-        return generos.size();
+        return (int) historialManager.obtenerGenerosDistintos();
+    }
+
+    /**
+     * Obtiene el número de usuarios distintos que reprodujeron alguna canción.
+     * 
+     * @return cantidad aproximada de oyentes únicos
+     */
+    public int obtenerCantidadOyentesDistintos() {
+        return (int) historialManager.obtenerOyentesDistintos();
+    }
+
+    /**
+     * Obtiene el número de usuarios distintos que reprodujeron algo en un rango de días.
+     * Combina los resúmenes diarios del rango.
+     * 
+     * @param desde primer día (inclusive), o null para no limitar
+     * @param hasta último día (inclusive), o null para no limitar
+     * @return cantidad aproximada de oyentes únicos del rango
+     */
+    public int obtenerCantidadOyentesDistintos(LocalDate desde, LocalDate hasta) {
+        return (int) historialManager.obtenerOyentesDistintos(desde, hasta);
+    }
+
+    /**
+     * Obtiene el número de canciones distintas reproducidas en un rango de días.
+     * Combina los resúmenes diarios del rango.
+     * 
+     * @param desde primer día (inclusive), o null para no limitar
+     * @param hasta último día (inclusive), o null para no limitar
+     * @return cantidad aproximada de canciones únicas del rango
+     */
+    public int obtenerCantidadCancionesDistintas(LocalDate desde, LocalDate hasta) {
+        return (int) historialManager.obtenerCancionesDistintas(desde, hasta);
+    }
+
+    /**
+     * Obtiene el número de canciones distintas que escuchó un usuario.
+     * 
+     * @param usuario nombre de usuario (sin distinguir mayúsculas)
+     * @return cantidad aproximada de canciones únicas del usuario
+     */
+    public int obtenerCantidadCancionesDistintasUsuario(String usuario) {
+        return (int) historialManager.obtenerCancionesDistintasUsuario(usuario);
     }
 
     /**
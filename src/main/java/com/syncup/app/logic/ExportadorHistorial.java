@@ -0,0 +1,324 @@
+package com.syncup.app.logic;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <h2>Exportador del Historial</h2>
+ * Escribe un archivo CSV por usuario ({@code historial_<usuario>.csv}) a partir de un
+ * único recorrido del historial, sin agruparlo antes en memoria.
+ *
+ * <p>
+ * El hilo que recorre reparte los registros en lotes según el usuario; cada lote va
+ * a la cola acotada de un trabajador, y todos los registros de un usuario los
+ * escribe siempre el mismo trabajador, así que conservan su orden. Si los
+ * trabajadores se atrasan, el recorrido espera (la memoria no crece con el tamaño
+ * del historial).
+ * </p>
+ *
+ * <h3>Memoria acotada:</h3>
+ * <ul>
+ *     <li>Cada cola admite {@value #LOTES_EN_COLA} lotes de {@value #TAMAÑO_LOTE} registros</li>
+ *     <li>Cada trabajador mantiene abiertos como mucho {@value #ARCHIVOS_ABIERTOS} archivos;
+ *         al superar el límite cierra el usado hace más tiempo y, si vuelve a necesitarlo,
+ *         lo reabre para anexar</li>
+ * </ul>
+ *
+ * <p>
+ * Con compresión cada archivo se escribe como {@code .csv.gz}. Un archivo reabierto
+ * queda con varios miembros gzip seguidos, que los lectores gzip leen como uno solo.
+ * </p>
+ * <p>
+ * En el nombre del archivo, todo carácter del usuario que no sea letra o dígito
+ * ASCII, {@code -}, {@code _} o {@code .} se escribe como {@code %XX} (bytes UTF-8),
+ * así que un nombre con {@code /}, {@code :}, acentos o similares no sale de la
+ * carpeta, no depende de la codificación del sistema de archivos ni choca con el
+ * de otro usuario.
+ * </p>
+ * <p>
+ * Un fallo de un trabajador (de E/S o cualquier otro) se guarda como error de la
+ * exportación y el trabajador sigue vaciando su cola; si aun así termina antes de
+ * tiempo, el recorrido deja de esperarlo en lugar de bloquearse.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class ExportadorHistorial {
+
+    /**
+     * Recorrido del historial que entrega cada registro {usuario, fecha, titulo, genero}.
+     */
+    public interface Fuente {
+        void recorrer(Consumer<String[]> destino) throws IOException;
+    }
+
+    private static final int TAMAÑO_LOTE = 1024;
+    private static final int LOTES_EN_COLA = 4;
+    private static final int ARCHIVOS_ABIERTOS = 32;
+    /** Registros entre dos avisos de progreso */
+    private static final long INTERVALO_PROGRESO = 65_536;
+    /** Espera máxima de una entrega antes de revisar si el trabajador sigue vivo */
+    private static final long ESPERA_ENTREGA_MS = 100;
+    /** Lote vacío que indica a un trabajador que no hay más registros */
+    private static final List<String[]> FIN = Collections.emptyList();
+
+    private final Path carpeta;
+    private final String encabezado;
+    private int hilos = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private boolean comprimir;
+    private LongConsumer progreso;
+
+    /** Primer error de escritura de cualquier trabajador */
+    private final AtomicReference<IOException> error = new AtomicReference<>();
+
+    /**
+     * @param carpeta carpeta de destino (se crea si no existe)
+     * @param encabezado primera línea de cada archivo
+     */
+    public ExportadorHistorial(Path carpeta, String encabezado) {
+        this.carpeta = carpeta;
+        this.encabezado = encabezado;
+    }
+
+    // ========================
+    // CONFIGURACIÓN
+    // ========================
+
+    /**
+     * @param hilos trabajadores que escriben archivos (al menos 1)
+     * @return este exportador
+     */
+    public ExportadorHistorial hilos(int hilos) {
+        this.hilos = Math.max(1, hilos);
+        return this;
+    }
+
+    /**
+     * @param comprimir true para escribir {@code .csv.gz}
+     * @return este exportador
+     */
+    public ExportadorHistorial comprimir(boolean comprimir) {
+        this.comprimir = comprimir;
+        return this;
+    }
+
+    /**
+     * @param progreso recibe los registros leídos hasta el momento, cada cierto
+     *                 intervalo y una última vez con el total al terminar (puede ser null)
+     * @return este exportador
+     */
+    public ExportadorHistorial progreso(LongConsumer progreso) {
+        this.progreso = progreso;
+        return this;
+    }
+
+    // ========================
+    // EXPORTACIÓN
+    // ========================
+
+    /**
+     * Recorre la fuente una vez y escribe los archivos por usuario. Los archivos de
+     * los usuarios exportados se reemplazan.
+     *
+     * @param fuente recorrido del historial
+     * @return registros exportados
+     * @throws IOException si falla el recorrido o la escritura de algún archivo
+     */
+    public long exportar(Fuente fuente) throws IOException {
+        Files.createDirectories(carpeta);
+        error.set(null);
+
+        AtomicInteger numero = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(hilos, r -> {
+            Thread t = new Thread(r, "exportador-historial-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Trabajador[] trabajadores = new Trabajador[hilos];
+        for (int i = 0; i < hilos; i++) {
+            trabajadores[i] = new Trabajador();
+            pool.execute(trabajadores[i]);
+        }
+
+        List<List<String[]>> lotes = new ArrayList<>(hilos);
+        for (int i = 0; i < hilos; i++) {
+            lotes.add(new ArrayList<>(TAMAÑO_LOTE));
+        }
+        long[] leidos = { 0 };
+        try {
+            fuente.recorrer(registro -> {
+                int i = Math.floorMod(registro[0].hashCode(), hilos);
+                List<String[]> lote = lotes.get(i);
+                lote.add(registro);
+                if (lote.size() == TAMAÑO_LOTE) {
+                    trabajadores[i].entregar(lote);
+                    lotes.set(i, new ArrayList<>(TAMAÑO_LOTE));
+                }
+                if (++leidos[0] % INTERVALO_PROGRESO == 0 && progreso != null) {
+                    progreso.accept(leidos[0]);
+                }
+            });
+            for (int i = 0; i < hilos; i++) {
+                if (!lotes.get(i).isEmpty()) trabajadores[i].entregar(lotes.get(i));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            // Los trabajadores siempre consumen su cola hasta FIN, así que esto no se bloquea
+            for (Trabajador t : trabajadores) {
+                t.entregar(FIN);
+            }
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (error.get() != null)
+            throw error.get();
+        if (progreso != null) {
+            progreso.accept(leidos[0]);
+        }
+        return leidos[0];
+    }
+
+    /**
+     * Escribe los lotes de su cola en los archivos de sus usuarios.
+     */
+    private class Trabajador implements Runnable {
+
+        private final BlockingQueue<List<String[]>> cola = new ArrayBlockingQueue<>(LOTES_EN_COLA);
+        /** Usuario → archivo abierto, del usado hace más tiempo al más reciente */
+        private final LinkedHashMap<String, BufferedWriter> abiertos = new LinkedHashMap<>(16, 0.75f, true);
+        /** Usuarios cuyo archivo ya se creó en esta exportación (se reabren para anexar) */
+        private final Set<String> iniciados = new HashSet<>();
+
+        /** Terminó run (normalmente o no): ya nadie vacía la cola */
+        private volatile boolean terminado = false;
+
+        /**
+         * Encola el lote esperando si la cola está llena. Si el trabajador ya terminó
+         * el lote se descarta: su error ya quedó registrado.
+         */
+        void entregar(List<String[]> lote) {
+            try {
+                while (!cola.offer(lote, ESPERA_ENTREGA_MS, TimeUnit.MILLISECONDS)) {
+                    if (terminado)
+                        return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Exportación interrumpida"));
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean completo = false;
+            try {
+                List<String[]> lote;
+                while ((lote = cola.take()) != FIN) {
+                    if (error.get() != null)
+                        continue; // se descarta el resto, pero se sigue vaciando la cola
+                    try {
+                        for (String[] registro : lote) {
+                            escribir(registro);
+                        }
+                    } catch (IOException e) {
+                        error.compareAndSet(null, e);
+                    } catch (RuntimeException e) {
+                        error.compareAndSet(null, new IOException("Error exportando el historial: " + e, e));
+                    }
+                }
+                completo = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                terminado = true;
+                if (!completo) {
+                    error.compareAndSet(null, new IOException("Un trabajador de la exportación terminó antes de tiempo"));
+                }
+                cerrarTodos();
+            }
+        }
+
+        private void escribir(String[] registro) throws IOException {
+            BufferedWriter writer = abiertos.get(registro[0]);
+            if (writer == null) {
+                writer = abrir(registro[0]);
+                abiertos.put(registro[0], writer);
+                if (abiertos.size() > ARCHIVOS_ABIERTOS) {
+                    Iterator<BufferedWriter> masViejo = abiertos.values().iterator();
+                    BufferedWriter cerrar = masViejo.next();
+                    masViejo.remove();
+                    cerrar.close();
+                }
+            }
+            writer.write(String.join(",", registro));
+            writer.newLine();
+        }
+
+        private BufferedWriter abrir(String usuario) throws IOException {
+            Path archivo = carpeta.resolve(nombreArchivo(usuario) + (comprimir ? ".gz" : ""));
+            boolean nuevo = iniciados.add(usuario);
+            OutputStream salida = nuevo
+                    ? Files.newOutputStream(archivo, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+                    : Files.newOutputStream(archivo, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (comprimir) {
+                salida = new GZIPOutputStream(salida, 8192);
+            }
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+            if (nuevo) {
+                writer.write(encabezado);
+                writer.newLine();
+            }
+            return writer;
+        }
+
+        private void cerrarTodos() {
+            for (BufferedWriter writer : abiertos.values()) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    error.compareAndSet(null, e);
+                }
+            }
+            abiertos.clear();
+        }
+    }
+
+    /**
+     * @param usuario nombre del usuario, tal cual
+     * @return {@code historial_<usuario>.csv} con los caracteres no seguros escapados
+     */
+    public static String nombreArchivo(String usuario) {
+        StringBuilder sb = new StringBuilder("historial_");
+        for (int i = 0; i < usuario.length(); ) {
+            int c = usuario.codePointAt(i);
+            int fin = i + Character.charCount(c);
+            if ((c < 128 && Character.isLetterOrDigit(c)) || c == '-' || c == '_' || c == '.') {
+                sb.appendCodePoint(c);
+            } else {
+                for (byte b : usuario.substring(i, fin).getBytes(StandardCharsets.UTF_8)) {
+                    sb.append('%').append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                }
+            }
+            i = fin;
+        }
+        return sb.append(".csv").toString();
+    }
+}
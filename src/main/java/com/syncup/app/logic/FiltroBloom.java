@@ -0,0 +1,180 @@
+package com.syncup.app.logic;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * <h2>Filtro de Bloom</h2>
+ * Conjunto aproximado de cadenas (por ejemplo, los usuarios de un segmento del
+ * historial) que responde "seguro que no está" o "puede estar".
+ *
+ * <p>
+ * Cada cadena marca {@code funciones} bits de un arreglo de {@code bits} bits,
+ * elegidos por doble dispersión ({@code h1 + i·h2}) a partir de un único hash de
+ * 64 bits. Nunca da falsos negativos; la tasa de falsos positivos depende de
+ * cuántas cadenas se agreguen respecto del tamaño con que se creó.
+ * </p>
+ *
+ * <p>
+ * Las cadenas se comparan sin distinguir mayúsculas, igual que los nombres de
+ * usuario en el resto del historial.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class FiltroBloom {
+
+    private final long[] bits;
+    private final int cantidadBits;
+    private final int funciones;
+
+    /**
+     * Crea un filtro dimensionado para una cantidad esperada de elementos.
+     *
+     * @param esperados cantidad de elementos esperada
+     * @param tasaFalsosPositivos tasa objetivo de falsos positivos, entre 0 y 1
+     */
+    public FiltroBloom(int esperados, double tasaFalsosPositivos) {
+        int n = Math.max(1, esperados);
+        double p = Math.min(0.5, Math.max(1e-9, tasaFalsosPositivos));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.cantidadBits = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, m));
+        this.funciones = Math.max(1, (int) Math.round((double) cantidadBits / n * Math.log(2)));
+        this.bits = new long[(cantidadBits + 63) >>> 6];
+    }
+
+    private FiltroBloom(long[] bits, int cantidadBits, int funciones) {
+        this.bits = bits;
+        this.cantidadBits = cantidadBits;
+        this.funciones = funciones;
+    }
+
+    // ========================
+    // OPERACIONES
+    // ========================
+
+    /**
+     * Agrega una cadena al filtro.
+     *
+     * @param valor cadena (null se ignora)
+     */
+    public void agregar(String valor) {
+        if (valor == null)
+            return;
+        long hash = dispersar(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < funciones; i++) {
+            int bit = Math.floorMod(h1 + i * h2, cantidadBits);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @param valor cadena a consultar
+     * @return false si seguro no se agregó; true si pudo haberse agregado
+     */
+    public boolean puedeContener(String valor) {
+        if (valor == null)
+            return false;
+        long hash = dispersar(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < funciones; i++) {
+            int bit = Math.floorMod(h1 + i * h2, cantidadBits);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return tasa de falsos positivos con los bits marcados hasta ahora:
+     *         (marcados / bits)<sup>funciones</sup>
+     */
+    public double tasaFalsosPositivos() {
+        return Math.pow((double) bitsMarcados() / cantidadBits, funciones);
+    }
+
+    /**
+     * Estima cuántas cadenas distintas se agregaron a partir de los bits marcados
+     * ({@code -bits/funciones · ln(1 - marcados/bits)}). Con el filtro saturado la
+     * estimación solo es una cota inferior.
+     *
+     * @return elementos distintos estimados
+     */
+    public long estimarElementos() {
+        int marcados = bitsMarcados();
+        if (marcados >= cantidadBits)
+            return cantidadBits;
+        return Math.round(-(double) cantidadBits / funciones * Math.log(1 - (double) marcados / cantidadBits));
+    }
+
+    private int bitsMarcados() {
+        int marcados = 0;
+        for (long palabra : bits) {
+            marcados += Long.bitCount(palabra);
+        }
+        return marcados;
+    }
+
+    // ========================
+    // SERIALIZACIÓN
+    // ========================
+
+    /**
+     * Escribe el filtro en binario.
+     *
+     * @param out destino
+     * @throws IOException si falla la escritura
+     */
+    public void escribir(DataOutputStream out) throws IOException {
+        out.writeInt(cantidadBits);
+        out.writeInt(funciones);
+        for (long palabra : bits) {
+            out.writeLong(palabra);
+        }
+    }
+
+    /**
+     * Lee un filtro escrito con {@link #escribir}.
+     *
+     * @param in origen
+     * @return filtro leído
+     * @throws IOException si falla la lectura o los datos no son válidos
+     */
+    public static FiltroBloom leer(DataInputStream in) throws IOException {
+        int cantidadBits = in.readInt();
+        int funciones = in.readInt();
+        if (cantidadBits < 64 || funciones < 1)
+            throw new IOException("Filtro de Bloom inválido");
+        long[] bits = new long[(cantidadBits + 63) >>> 6];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+        return new FiltroBloom(bits, cantidadBits, funciones);
+    }
+
+    // ========================
+    // UTILIDADES
+    // ========================
+
+    /** FNV-1a de 64 bits sobre la cadena en minúsculas, con mezcla final de MurmurHash3 */
+    static long dispersar(String valor) {
+        String v = valor.toLowerCase(Locale.ROOT);
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < v.length(); i++) {
+            h ^= v.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,12 +1,20 @@
 package com.syncup.app.logic;
 
+import com.syncup.app.model.estructuras.HistorialColumnar;
+
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Period;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.UnaryOperator;
 
 /**
  * <h2>HistorialManager</h2>
@@ -16,14 +24,31 @@ import java.util.stream.Collectors;
  * Mantiene un historial global en memoria y lo persiste en un archivo CSV.
  * El historial registra: usuario, fecha/hora, título de canción y género.
  * </p>
+ * <p>
+ * En memoria los registros se guardan en un {@link HistorialColumnar} (códigos
+ * enteros y segundos desde 1970); las estadísticas cuentan por código y los
+ * métodos que devuelven {@code String[]} entregan vistas que arman cada registro
+ * al pedirlo.
+ * </p>
+ * <p>
+ * Las estadísticas globales (por canción, género, artista, día y usuario) se leen
+ * de {@link ContadoresHistorial}, que se actualiza con cada reproducción y solo se
+ * reconstruye al cargar o al eliminar registros. Las consultas por usuario usan
+ * {@link IndiceUsuariosHistorial} y solo recorren las reproducciones de ese usuario;
+ * los filtros por rango de fechas suman los periodos de {@link AgregadosPorPeriodo}.
+ * Las agrupaciones arbitrarias (con filtros y top-K) se ejecutan en paralelo con
+ * {@link AnaliticaHistorial} mediante {@link #consultar}.
+ * </p>
  * 
  * <h3>Funcionalidades:</h3>
  * <ul>
  *     <li>Registrar reproducciones de canciones</li>
  *     <li>Obtener historial por usuario o global</li>
  *     <li>Calcular estadísticas (canción/género más reproducido)</li>
- *     <li>Exportar historial en archivos CSV separados por usuario</li>
- *     <li>Persistencia automática en disco</li>
+ *     <li>Exportar historial en archivos CSV separados por usuario (en paralelo, opcionalmente con gzip)</li>
+ *     <li>Persistencia automática en disco, en lotes y en segundo plano ({@link EscritorHistorial})</li>
+ *     <li>Un archivo por mes con retención configurable ({@link SegmentosHistorial}); opcionalmente
+ *         solo se cargan en memoria los meses recientes</li>
  * </ul>
  * 
  * <h3>Formato del CSV:</h3>
@@ -37,83 +62,174 @@ import java.util.stream.Collectors;
  */
 public class HistorialManager {
 
-    /** Ruta del archivo de historial global */
-    private static final String HISTORIAL_PATH = "src/main/resources/data/historial.csv";
-    /** Formato para mostrar fecha y hora */
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /** Carpeta de los segmentos mensuales del historial */
+    private static final String HISTORIAL_DIR = "src/main/resources/data/historial";
+    /** Archivo único de versiones anteriores; se reparte en segmentos al iniciar */
+    private static final String HISTORIAL_HEREDADO = "src/main/resources/data/historial.csv";
+    /** Encabezado de cada archivo de historial */
+    private static final String ENCABEZADO = "usuario,fecha,titulo,genero";
+    /** Carpeta de las exportaciones por usuario */
+    private static final String EXPORTS_DIR = "src/main/resources/exports";
+    /** Reproducciones que disparan la escritura inmediata de un lote */
+    private static final int LOTE_MAXIMO = 64;
+    /** Tiempo máximo que una reproducción espera antes de escribirse */
+    private static final long ESPERA_MAXIMA_MS = 200;
+    /** Contadores de cada resumen de "más escuchados" (modo aproximado) */
+    private static final int CAPACIDAD_TOP = 1000;
+    /** Los "más escuchados" recientes se agrupan por hora... */
+    private static final long SEGUNDOS_PERIODO_TOP = 3_600;
+    /** ...y se conservan los de la última semana */
+    private static final int PERIODOS_TOP = 24 * 7;
 
-    // Cada registro: [usuario, fecha, titulo, genero]
     /** Almacenamiento en memoria de todos los registros de historial */
-    private final List<String[]> historial = new ArrayList<>();
+    private final HistorialColumnar historial = new HistorialColumnar();
+
+    /** Conteos agregados del historial */
+    private final ContadoresHistorial contadores = new ContadoresHistorial();
+
+    /** Filas de cada usuario ordenadas por fecha */
+    private final IndiceUsuariosHistorial indiceUsuarios = new IndiceUsuariosHistorial();
+
+    /** Conteos por hora y por día para los filtros de fecha */
+    private final AgregadosPorPeriodo agregados = new AgregadosPorPeriodo();
+
+    /** Canciones, géneros y oyentes distintos (HyperLogLog) */
+    private final CardinalidadHistorial cardinalidad = new CardinalidadHistorial();
+
+    /** Particiones por día para las consultas de agrupación en paralelo; por usuario usa indiceUsuarios */
+    private final AnaliticaHistorial analitica = new AnaliticaHistorial(ForkJoinPool.commonPool(), indiceUsuarios);
+
+    /** Canciones, artistas y géneros más escuchados (Space-Saving) */
+    private TopReproducciones top = new TopReproducciones(CAPACIDAD_TOP, SEGUNDOS_PERIODO_TOP, PERIODOS_TOP);
+
+    /** Título → artista; lo configura DataStore */
+    private UnaryOperator<String> resolverArtista;
+
+    /** Módulos que se actualizan con cada nueva reproducción */
+    private final List<Consumer<String[]>> oyentes = new ArrayList<>();
+
+    /** Segmentos mensuales en disco; escriben por lotes, fuera del hilo de JavaFX */
+    private final SegmentosHistorial segmentos;
+
+    /** Meses recientes que se cargan en memoria, o null para cargar todo */
+    private Period ventanaEnMemoria;
+    /** Inicio de lo cargado en memoria (segundos desde 1970); lo anterior queda solo en disco */
+    private long inicioVentana = Long.MIN_VALUE;
 
     /**
      * Constructor por defecto.
-     * Inicializa el archivo de historial si no existe y carga todos los registros.
+     * Abre los segmentos del historial (migrando el archivo anterior si existe) y
+     * carga todos los registros.
      */
     public HistorialManager() {
-        inicializarArchivo();
+        segmentos = new SegmentosHistorial(Paths.get(HISTORIAL_DIR), ENCABEZADO,
+                SegmentosHistorial.Granularidad.MENSUAL, EscritorHistorial.Durabilidad.FSYNC_POR_LOTE,
+                LOTE_MAXIMO, ESPERA_MAXIMA_MS);
+        segmentos.abrir(Paths.get(HISTORIAL_HEREDADO));
         cargarHistorialCSV();
     }
 
     /**
-     * Inicializa el archivo de historial en disco si no existe.
+     * Cambia la durabilidad de la escritura del historial.
+     *
+     * @param durabilidad {@code FSYNC_POR_LOTE} (por defecto) o {@code BUFFER_SO}
      */
-    private void inicializarArchivo() {
-        try {
-            Path path = Paths.get(HISTORIAL_PATH);
-            if (!Files.exists(path)) {
-                Files.createDirectories(path.getParent());
-                try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
-                        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
-                    writer.write("usuario,fecha,titulo,genero");
-                    writer.newLine();
-                }
-                System.out.println("✅ Archivo historial.csv creado correctamente.");
+    public void configurarDurabilidad(EscritorHistorial.Durabilidad durabilidad) {
+        segmentos.setDurabilidad(durabilidad);
+    }
+
+    /**
+     * Define cuánto tiempo se conservan las reproducciones. Se eliminan de disco los
+     * meses que quedaron fuera del plazo y de memoria las reproducciones anteriores
+     * a la fecha de corte.
+     *
+     * @param retencion plazo (por ejemplo, {@code Period.ofYears(1)}), o null para conservar todo (por defecto)
+     */
+    public void configurarRetencion(Period retencion) {
+        long corte = segmentos.setRetencion(retencion);
+        if (corte != Long.MIN_VALUE) {
+            int antes = historial.getTamaño();
+            historial.eliminarSi(fila -> historial.getSegundos(fila) < corte);
+            if (historial.getTamaño() != antes) {
+                reconstruirDerivados();
             }
-        } catch (IOException e) {
-            System.out.println("❌ Error al crear historial.csv: " + e.getMessage());
         }
     }
 
     /**
-     * Carga todos los registros del historial desde el archivo CSV.
+     * Limita el historial en memoria (y por lo tanto las estadísticas) a los meses
+     * recientes; los anteriores siguen en disco y solo se leen si una consulta
+     * paginada los pide. Recarga el historial.
+     *
+     * @param ventana periodo hacia atrás desde hoy, o null para cargar todo (por defecto)
+     */
+    public void configurarVentanaEnMemoria(Period ventana) {
+        this.ventanaEnMemoria = ventana;
+        cargarHistorialCSV();
+    }
+
+    /**
+     * Define cómo obtener el artista de una canción a partir de su título. Lo
+     * configura DataStore una vez creada la biblioteca: el artista se asigna a las
+     * reproducciones ya cargadas (una consulta por canción distinta) y luego a cada
+     * reproducción nueva al registrarla.
+     *
+     * @param resolverArtista título → artista (null si la canción no existe)
+     */
+    public void setResolverArtista(UnaryOperator<String> resolverArtista) {
+        this.resolverArtista = resolverArtista;
+        if (resolverArtista != null) {
+            historial.asignarArtistas(resolverArtista);
+        }
+        // Solo cambian los artistas: el resto de las estructuras derivadas sigue valiendo
+        contadores.reconstruir(historial);
+        agregados.reconstruir(historial);
+        reconstruirTop();
+    }
+
+    /**
+     * Elige entre "más escuchados" exactos (sin límite de contadores, adecuado para
+     * instalaciones pequeñas) o aproximados con memoria acotada (por defecto).
+     *
+     * @param exacto true para conteos exactos
+     */
+    public void configurarTopExacto(boolean exacto) {
+        top = new TopReproducciones(exacto ? TopFrecuentes.SIN_LIMITE : CAPACIDAD_TOP,
+                SEGUNDOS_PERIODO_TOP, PERIODOS_TOP);
+        reconstruirTop();
+    }
+
+    /**
+     * Carga los registros del historial desde los segmentos en disco. Si hay una
+     * ventana en memoria configurada, solo se leen los meses que la tocan.
      */
     public void cargarHistorialCSV() {
-        historial.clear();
-        Path path = Paths.get(HISTORIAL_PATH);
-        if (!Files.exists(path))
-            return;
-
-        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            reader.readLine(); // cabecera
-            String linea;
-            while ((linea = reader.readLine()) != null) {
-                String[] partes = linea.split(",", 4);
-                if (partes.length == 4) {
-                    historial.add(new String[] { partes[0], partes[1], partes[2], partes[3] });
-                }
-            }
-            System.out.println("📜 Historial cargado: " + historial.size() + " registros.");
-        } catch (IOException e) {
-            System.out.println("❌ Error leyendo historial CSV: " + e.getMessage());
+        historial.limpiar();
+        inicioVentana = ventanaEnMemoria != null
+                ? HistorialColumnar.segundosDesdeFecha(LocalDate.now().minus(ventanaEnMemoria).atStartOfDay())
+                : Long.MIN_VALUE;
+
+        int descartados = segmentos.leer(inicioVentana, Long.MAX_VALUE, null,
+                (r, segundos) -> historial.agregar(r[0], segundos, r[2], r[3]));
+        if (resolverArtista != null) {
+            historial.asignarArtistas(resolverArtista);
+        }
+        reconstruirDerivados();
+        if (descartados > 0) {
+            System.out.println("⚠️ Registros de historial con fecha inválida descartados: " + descartados);
         }
+        System.out.println("📜 Historial cargado: " + historial.getTamaño() + " registros.");
     }
 
     /**
-     * Guarda todos los registros del historial en el archivo CSV.
+     * Asegura que todos los registros del historial estén escritos en disco.
+     * Las reproducciones ya se anexan en lotes, así que solo se vacía la cola pendiente.
      */
     public void guardarHistorialCSV() {
-        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(HISTORIAL_PATH),
-                StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
-            writer.write("usuario,fecha,titulo,genero");
-            writer.newLine();
-            for (String[] r : historial) {
-                writer.write(String.join(",", r));
-                writer.newLine();
-            }
+        if (segmentos.vaciar()) {
             System.out.println("💾 Historial guardado correctamente.");
-        } catch (IOException e) {
-            System.out.println("❌ Error al guardar historial: " + e.getMessage());
+        } else {
+            System.out.println("❌ No se pudo guardar el historial; se reintentará en segundo plano.");
         }
     }
 
@@ -134,21 +250,64 @@ public class HistorialManager {
             }
         }
 
-        String fecha = LocalDateTime.now().format(FORMATTER);
-        String[] registro = { usuario, fecha, limpiar(titulo), limpiar(genero) };
-        historial.add(registro);
-
-        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(HISTORIAL_PATH),
-                StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
-            writer.write(String.join(",", registro));
-            writer.newLine();
-        } catch (IOException e) {
-            System.out.println("❌ Error al escribir historial: " + e.getMessage());
+        long segundos = Instant.now().getEpochSecond();
+        String limpio = limpiar(titulo);
+        int fila = historial.agregar(usuario, segundos, limpio, limpiar(genero), artistaDe(limpio));
+        contadores.sumar(historial, fila);
+        indiceUsuarios.agregar(historial, fila);
+        agregados.sumar(historial, fila);
+        cardinalidad.sumar(historial, fila);
+        analitica.sumar(historial, fila);
+        top.sumar(historial.getTitulo(fila), historial.getArtista(fila), historial.getGenero(fila), segundos);
+        String[] registro = historial.registro(fila);
+        segmentos.escribir(registro, segundos);
+
+        for (Consumer<String[]> oyente : oyentes) {
+            oyente.accept(registro);
         }
 
         System.out.println("🎧 Registro agregado: [" + usuario + "] " + titulo);
     }
 
+    /**
+     * Vuelve a calcular todas las estructuras derivadas del historial
+     * (contadores, índice por usuario, agregados por periodo, cardinalidades,
+     * particiones de la analítica y "más escuchados").
+     */
+    private void reconstruirDerivados() {
+        contadores.reconstruir(historial);
+        indiceUsuarios.reconstruir(historial);
+        agregados.reconstruir(historial);
+        cardinalidad.reconstruir(historial);
+        analitica.reconstruir(historial);
+        reconstruirTop();
+    }
+
+    private void reconstruirTop() {
+        top.limpiar();
+        int n = historial.getTamaño();
+        for (int fila = 0; fila < n; fila++) {
+            top.sumar(historial.getTitulo(fila), historial.getArtista(fila), historial.getGenero(fila),
+                    historial.getSegundos(fila));
+        }
+    }
+
+    private String artistaDe(String titulo) {
+        return resolverArtista != null ? resolverArtista.apply(titulo) : null;
+    }
+
+    /**
+     * Registra un módulo que será notificado con cada nueva reproducción.
+     * El oyente recibe el registro {usuario, fecha, titulo, genero} recién agregado.
+     *
+     * @param oyente acción a ejecutar por cada reproducción
+     */
+    public void agregarOyente(Consumer<String[]> oyente) {
+        if (oyente != null) {
+            oyentes.add(oyente);
+        }
+    }
+
     /**
      * Limpia una cadena de texto eliminando comas y saltos de línea.
      * 
@@ -167,15 +326,29 @@ public class HistorialManager {
 
     /**
      * Obtiene el historial completo (todos los registros).
+     * La lista es de solo lectura y no cambia con reproducciones posteriores; no
+     * copia el historial, cada registro se arma al pedirlo.
      * 
      * @return lista de registros del historial
      */
     public List<String[]> obtenerHistorial() {
-        return new ArrayList<>(historial);
+        return historial.vista();
     }
 
     /**
-     * Obtiene solo los registros de reproducciones de un usuario específico.
+     * Obtiene el estado actual del historial para recorrerlo por código (sin armar
+     * cadenas ni copiar registros). Sigue siendo válido, y no cambia, aunque se
+     * registren reproducciones nuevas.
+     *
+     * @return instantánea del historial
+     */
+    public HistorialColumnar.Instantanea obtenerInstantanea() {
+        return historial.instantanea();
+    }
+
+    /**
+     * Obtiene solo los registros de reproducciones de un usuario específico,
+     * ordenados por fecha.
      * 
      * @param usuario nombre de usuario
      * @return lista de registros del usuario, lista vacía si no hay registros
@@ -183,9 +356,145 @@ public class HistorialManager {
     public List<String[]> obtenerHistorialUsuario(String usuario) {
         if (usuario == null || usuario.isEmpty())
             return Collections.emptyList();
-        return historial.stream()
-                .filter(r -> r[0].equalsIgnoreCase(usuario))
-                .collect(Collectors.toList());
+        int[] filas = indiceUsuarios.filas(usuario);
+        return historial.vista(filas, filas.length);
+    }
+
+    /**
+     * Obtiene una página del historial de un usuario dentro de un rango de fechas,
+     * ordenada por fecha. Pensado para historiales largos: solo se arman los
+     * registros de la página pedida. Si el rango empieza antes de la ventana en
+     * memoria, la parte anterior se lee de los segmentos en disco que contienen
+     * al usuario, en orden cronológico y solo hasta completar la página.
+     *
+     * @param usuario nombre de usuario
+     * @param desde fecha mínima (inclusive), o null para no limitar
+     * @param hasta fecha máxima (inclusive), o null para no limitar
+     * @param pagina número de página, empezando en 0
+     * @param tamañoPagina registros por página
+     * @return registros de la página, lista vacía si no hay más
+     */
+    public List<String[]> obtenerHistorialUsuario(String usuario, LocalDateTime desde, LocalDateTime hasta,
+                                                  int pagina, int tamañoPagina) {
+        if (usuario == null || usuario.isEmpty() || pagina < 0 || tamañoPagina <= 0)
+            return Collections.emptyList();
+        long inicio = desde != null ? HistorialColumnar.segundosDesdeFecha(desde) : 0;
+        long fin = hasta != null ? HistorialColumnar.segundosDesdeFecha(hasta) : Long.MAX_VALUE;
+
+        long desplazamiento = (long) pagina * tamañoPagina;
+        PaginaArchivada archivada = new PaginaArchivada(desplazamiento, tamañoPagina);
+        if (inicio < inicioVentana) {
+            segmentos.leer(inicio, Math.min(fin, inicioVentana - 1), usuario, archivada);
+        }
+        List<String[]> resultado = archivada.pagina;
+        if (resultado.size() == tamañoPagina)
+            return resultado;
+
+        // Se leyó todo lo archivado: el resto de la página sale de la ventana en memoria
+        int[] filas = indiceUsuarios.filas(historial, usuario, inicio, fin);
+        long desdeFilas = Math.max(0, desplazamiento - archivada.vistas);
+        int hastaFilas = (int) Math.min(filas.length, desdeFilas + tamañoPagina - resultado.size());
+        if (hastaFilas > desdeFilas) {
+            int[] pag = Arrays.copyOfRange(filas, (int) desdeFilas, hastaFilas);
+            resultado.addAll(historial.vista(pag, pag.length));
+        }
+        return resultado;
+    }
+
+    /**
+     * Junta una página de las reproducciones archivadas de un usuario. Las filas de
+     * cada segmento se ordenan por fecha (solo si no llegaron ya en orden); las
+     * anteriores a la página se cuentan y se descartan, y la lectura se corta en
+     * cuanto la página está completa.
+     */
+    private static class PaginaArchivada implements SegmentosHistorial.Lector {
+        private final long desplazamiento;
+        private final int tamañoPagina;
+        private final List<String[]> segmento = new ArrayList<>();
+        private boolean enOrden = true;
+        /** Filas archivadas ya ordenadas, incluidas las descartadas antes de la página */
+        long vistas = 0;
+        final List<String[]> pagina = new ArrayList<>();
+
+        PaginaArchivada(long desplazamiento, int tamañoPagina) {
+            this.desplazamiento = desplazamiento;
+            this.tamañoPagina = tamañoPagina;
+        }
+
+        @Override
+        public void aceptar(String[] registro, long segundos) {
+            if (!segmento.isEmpty() && segmento.get(segmento.size() - 1)[1].compareTo(registro[1]) > 0) {
+                enOrden = false;
+            }
+            segmento.add(registro);
+        }
+
+        @Override
+        public boolean finSegmento() {
+            if (!enOrden) {
+                segmento.sort(Comparator.comparing(r -> r[1]));
+            }
+            for (String[] r : segmento) {
+                if (vistas >= desplazamiento && pagina.size() < tamañoPagina) {
+                    pagina.add(r);
+                }
+                vistas++;
+            }
+            segmento.clear();
+            enOrden = true;
+            return pagina.size() < tamañoPagina;
+        }
+    }
+
+    /**
+     * Obtiene las reproducciones de una canción dentro de un rango de fechas,
+     * ordenadas por fecha. La parte anterior a la ventana en memoria se lee solo de
+     * los segmentos en disco cuyo filtro de Bloom puede contener la canción.
+     *
+     * @param titulo título de la canción (sin distinguir mayúsculas)
+     * @param desde fecha mínima (inclusive), o null para no limitar
+     * @param hasta fecha máxima (inclusive), o null para no limitar
+     * @return registros de la canción, lista vacía si no hay
+     */
+    public List<String[]> obtenerHistorialCancion(String titulo, LocalDateTime desde, LocalDateTime hasta) {
+        if (titulo == null || titulo.isEmpty())
+            return Collections.emptyList();
+        long inicio = desde != null ? HistorialColumnar.segundosDesdeFecha(desde) : 0;
+        long fin = hasta != null ? HistorialColumnar.segundosDesdeFecha(hasta) : Long.MAX_VALUE;
+
+        List<String[]> resultado = new ArrayList<>();
+        if (inicio < inicioVentana) {
+            segmentos.leer(inicio, Math.min(fin, inicioVentana - 1), null, titulo,
+                    (r, segundos) -> resultado.add(r));
+            resultado.sort(Comparator.comparing(r -> r[1]));
+        }
+
+        HistorialColumnar.Instantanea instantanea = historial.instantanea();
+        boolean[] esCancion = historial.getCanciones().coincidenciasIgnorandoMayusculas(titulo);
+        int n = instantanea.getTamaño();
+        int[] filas = new int[n];
+        int cantidad = 0;
+        for (int fila = 0; fila < n; fila++) {
+            int codigo = instantanea.getCodigoCancion(fila);
+            long segundos = instantanea.getSegundos(fila);
+            if (codigo < esCancion.length && esCancion[codigo] && segundos >= inicio && segundos <= fin) {
+                filas[cantidad++] = fila;
+            }
+        }
+        resultado.addAll(historial.vista(filas, cantidad));
+        return resultado;
+    }
+
+    /**
+     * Métricas de los filtros de Bloom de los segmentos en disco: qué fracción de
+     * segmentos se saltó en las búsquedas por usuario o canción y la tasa de falsos
+     * positivos observada.
+     *
+     * @param filtro {@code USUARIO} o {@code CANCION}
+     * @return contadores acumulados desde que se abrió el historial
+     */
+    public SegmentosHistorial.MetricasFiltro obtenerMetricasFiltro(SegmentosHistorial.Filtro filtro) {
+        return segmentos.getMetricas(filtro);
     }
 
     /**
@@ -194,8 +503,31 @@ public class HistorialManager {
      * @return mapa usuario → lista de registros del usuario
      */
     public Map<String, List<String[]>> obtenerHistorialAgrupadoPorUsuario() {
-        return historial.stream()
-                .collect(Collectors.groupingBy(r -> r[0]));
+        int n = historial.getTamaño();
+        int[] porUsuario = new int[historial.getUsuarios().getTamaño()];
+        for (int u = 0; u < porUsuario.length; u++) {
+            porUsuario[u] = contadores.getPorUsuario(u);
+        }
+
+        // Filas agrupadas por código de usuario, conservando el orden
+        int[] inicio = new int[porUsuario.length + 1];
+        for (int u = 0; u < porUsuario.length; u++) {
+            inicio[u + 1] = inicio[u] + porUsuario[u];
+        }
+        int[] filas = new int[n];
+        int[] siguiente = Arrays.copyOf(inicio, porUsuario.length);
+        for (int fila = 0; fila < n; fila++) {
+            filas[siguiente[historial.getCodigoUsuario(fila)]++] = fila;
+        }
+
+        Map<String, List<String[]>> agrupado = new HashMap<>();
+        for (int u = 0; u < porUsuario.length; u++) {
+            if (porUsuario[u] > 0) {
+                agrupado.put(historial.getUsuarios().decodificar(u),
+                        historial.vista(Arrays.copyOfRange(filas, inicio[u], inicio[u + 1]), porUsuario[u]));
+            }
+        }
+        return agrupado;
     }
 
     /**
@@ -204,7 +536,7 @@ public class HistorialManager {
      * @return cantidad de reproducciones
      */
     public int obtenerTotalReproducciones() {
-        return historial.size();
+        return historial.getTamaño();
     }
 
     /**
@@ -213,14 +545,8 @@ public class HistorialManager {
      * @return título de la canción más reproducida
      */
     public String obtenerCancionMasReproducida() {
-        if (historial.isEmpty())
-            return "Sin datos";
-        return historial.stream()
-                .collect(Collectors.groupingBy(r -> r[2], Collectors.counting()))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("Sin datos");
+        int top = contadores.getTopCancion();
+        return top >= 0 ? historial.getCanciones().decodificar(top) : "Sin datos";
     }
 
     /**
@@ -229,14 +555,8 @@ public class HistorialManager {
      * @return género más reproducido
      */
     public String obtenerGeneroMasReproducido() {
-        if (historial.isEmpty())
-            return "Sin datos";
-        return historial.stream()
-                .collect(Collectors.groupingBy(r -> r[3], Collectors.counting()))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("Sin datos");
+        int top = contadores.getTopGenero();
+        return top >= 0 ? historial.getGeneros().decodificar(top) : "Sin datos";
     }
 
     /**
@@ -245,18 +565,192 @@ public class HistorialManager {
      * @return promedio de reproducciones diarias
      */
     public double obtenerPromedioReproduccionesPorDia() {
-        if (historial.isEmpty())
+        int dias = contadores.getDiasConReproducciones();
+        if (dias == 0)
             return 0.0;
-        Map<String, Long> porDia = historial.stream()
-                .map(r -> r[1].split(" ")[0])
-                .collect(Collectors.groupingBy(f -> f, Collectors.counting()));
-        return (double) historial.size() / porDia.size();
+        return (double) historial.getTamaño() / dias;
+    }
+
+    /**
+     * Devuelve el número de reproducciones de un usuario.
+     *
+     * @param usuario nombre de usuario (sin distinguir mayúsculas)
+     * @return cantidad de reproducciones del usuario
+     */
+    public int obtenerTotalReproduccionesUsuario(String usuario) {
+        if (usuario == null || usuario.isEmpty())
+            return 0;
+        return indiceUsuarios.cantidad(usuario);
+    }
+
+    /**
+     * Devuelve un mapa de reproducciones agrupadas por usuario.
+     *
+     * @return mapa usuario → cantidad de reproducciones
+     */
+    public Map<String, Integer> getReproduccionesPorUsuario() {
+        Map<String, Integer> mapa = new HashMap<>();
+        for (int u = 0; u < historial.getUsuarios().getTamaño(); u++) {
+            int total = contadores.getPorUsuario(u);
+            if (total > 0) mapa.put(historial.getUsuarios().decodificar(u), total);
+        }
+        return mapa;
+    }
+
+    /**
+     * Resume las reproducciones que cumplen un filtro de usuario, género y días,
+     * sumando los agregados diarios en lugar de recorrer el historial.
+     *
+     * @param usuario usuario exacto, o null para todos
+     * @param genero género exacto, o null para todos
+     * @param desde primer día (inclusive), o null para no limitar
+     * @param hasta último día (inclusive), o null para no limitar
+     * @return conteos por canción, género y artista
+     */
+    public AgregadosPorPeriodo.Resumen resumirReproducciones(String usuario, String genero,
+                                                             LocalDate desde, LocalDate hasta) {
+        return agregados.resumir(historial, usuario, genero, desde, hasta);
+    }
+
+    /**
+     * Igual que {@link #resumirReproducciones(String, String, LocalDate, LocalDate)}
+     * pero con precisión de una hora.
+     *
+     * @param usuario usuario exacto, o null para todos
+     * @param genero género exacto, o null para todos
+     * @param desde inicio del rango (inclusive), o null para no limitar
+     * @param hasta fin del rango (inclusive), o null para no limitar
+     * @return conteos por canción, género y artista
+     */
+    public AgregadosPorPeriodo.Resumen resumirReproducciones(String usuario, String genero,
+                                                             LocalDateTime desde, LocalDateTime hasta) {
+        return agregados.resumir(historial, usuario, genero, desde, hasta);
+    }
+
+    /**
+     * Ejecuta una consulta de agrupación (por usuario, canción, género, artista o
+     * día) con filtros opcionales, en paralelo sobre las particiones del historial.
+     *
+     * <pre>
+     *     consultar(Consulta.agruparPor(Campo.GENERO).usuario("ana").limite(3));
+     * </pre>
+     *
+     * @param consulta campo, filtros y límite
+     * @return grupo → reproducciones, de mayor a menor
+     */
+    public List<Map.Entry<String, Integer>> consultar(AnaliticaHistorial.Consulta consulta) {
+        return analitica.ejecutar(historial, consulta);
+    }
+
+    /**
+     * Canciones más escuchadas de todo el historial.
+     *
+     * @param k cantidad de canciones
+     * @return top-K, de mayor a menor
+     */
+    public List<TopFrecuentes.Entrada> obtenerTopCanciones(int k) {
+        return top.top(TopReproducciones.Dimension.CANCION, k);
+    }
+
+    /**
+     * Artistas más escuchados de todo el historial.
+     *
+     * @param k cantidad de artistas
+     * @return top-K, de mayor a menor
+     */
+    public List<TopFrecuentes.Entrada> obtenerTopArtistas(int k) {
+        return top.top(TopReproducciones.Dimension.ARTISTA, k);
+    }
+
+    /**
+     * Géneros más escuchados de todo el historial.
+     *
+     * @param k cantidad de géneros
+     * @return top-K, de mayor a menor
+     */
+    public List<TopFrecuentes.Entrada> obtenerTopGeneros(int k) {
+        return top.top(TopReproducciones.Dimension.GENERO, k);
+    }
+
+    /**
+     * Más escuchados de una ventana reciente (como mucho la última semana, en
+     * periodos de una hora).
+     *
+     * @param dimension canciones, artistas o géneros
+     * @param k cantidad de elementos
+     * @param ventana duración de la ventana hacia atrás desde ahora
+     * @return top-K de la ventana, de mayor a menor
+     */
+    public List<TopFrecuentes.Entrada> obtenerTopReciente(TopReproducciones.Dimension dimension, int k,
+                                                          Duration ventana) {
+        return top.top(dimension, k, Instant.now().getEpochSecond() - ventana.getSeconds());
+    }
+
+    /**
+     * Cantidad aproximada de canciones distintas reproducidas.
+     *
+     * @return canciones distintas (error típico ~1.6 %)
+     */
+    public long obtenerCancionesDistintas() {
+        return cardinalidad.getCancionesDistintas();
+    }
+
+    /**
+     * Cantidad aproximada de canciones distintas reproducidas en un rango de días.
+     *
+     * @param desde primer día (inclusive), o null para no limitar
+     * @param hasta último día (inclusive), o null para no limitar
+     * @return canciones distintas del rango (error típico ~3.3 %)
+     */
+    public long obtenerCancionesDistintas(LocalDate desde, LocalDate hasta) {
+        return cardinalidad.getCancionesDistintas(desde, hasta);
+    }
+
+    /**
+     * Cantidad aproximada de géneros distintos reproducidos.
+     *
+     * @return géneros distintos
+     */
+    public long obtenerGenerosDistintos() {
+        return cardinalidad.getGenerosDistintos();
+    }
+
+    /**
+     * Cantidad aproximada de usuarios distintos que reprodujeron algo.
+     *
+     * @return oyentes distintos (error típico ~1.6 %)
+     */
+    public long obtenerOyentesDistintos() {
+        return cardinalidad.getOyentesDistintos();
+    }
+
+    /**
+     * Cantidad aproximada de usuarios distintos que reprodujeron algo en un rango de días.
+     *
+     * @param desde primer día (inclusive), o null para no limitar
+     * @param hasta último día (inclusive), o null para no limitar
+     * @return oyentes distintos del rango (error típico ~3.3 %)
+     */
+    public long obtenerOyentesDistintos(LocalDate desde, LocalDate hasta) {
+        return cardinalidad.getOyentesDistintos(desde, hasta);
     }
 
     // =====================================================
     // MÉTRICAS POR USUARIO
     // =====================================================
 
+    /**
+     * Cantidad aproximada de canciones distintas que escuchó un usuario.
+     *
+     * @param usuario nombre de usuario (sin distinguir mayúsculas)
+     * @return canciones distintas del usuario (error típico ~3.3 %)
+     */
+    public long obtenerCancionesDistintasUsuario(String usuario) {
+        if (usuario == null || usuario.isEmpty())
+            return 0;
+        return cardinalidad.getCancionesDistintasUsuario(usuario);
+    }
+
     /**
      * Obtiene la canción más reproducida por un usuario específico.
      * 
@@ -264,15 +758,9 @@ public class HistorialManager {
      * @return título de la canción más reproducida por el usuario
      */
     public String obtenerCancionMasReproducidaUsuario(String usuario) {
-        List<String[]> lista = obtenerHistorialUsuario(usuario);
-        if (lista.isEmpty())
+        if (usuario == null || usuario.isEmpty())
             return "Sin datos";
-        return lista.stream()
-                .collect(Collectors.groupingBy(r -> r[2], Collectors.counting()))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("Sin datos");
+        return masFrecuenteUsuario(AnaliticaHistorial.Campo.CANCION, usuario);
     }
 
     /**
@@ -282,15 +770,9 @@ public class HistorialManager {
      * @return género más reproducido por el usuario
      */
     public String obtenerGeneroMasReproducidoUsuario(String usuario) {
-        List<String[]> lista = obtenerHistorialUsuario(usuario);
-        if (lista.isEmpty())
+        if (usuario == null || usuario.isEmpty())
             return "Sin datos";
-        return lista.stream()
-                .collect(Collectors.groupingBy(r -> r[3], Collectors.counting()))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("Sin datos");
+        return masFrecuenteUsuario(AnaliticaHistorial.Campo.GENERO, usuario);
     }
 
     /**
@@ -299,8 +781,9 @@ public class HistorialManager {
      * @return mapa canción → cantidad de reproducciones
      */
     public Map<String, Long> conteoPorCancion() {
-        return historial.stream()
-                .collect(Collectors.groupingBy(r -> r[2], Collectors.counting()));
+        Map<String, Long> conteo = new HashMap<>();
+        getReproduccionesPorCancion().forEach((titulo, n) -> conteo.put(titulo, (long) n));
+        return conteo;
     }
 
     /**
@@ -309,26 +792,31 @@ public class HistorialManager {
      * @return mapa género → cantidad de reproducciones
      */
     public Map<String, Long> conteoPorGenero() {
-        return historial.stream()
-                .collect(Collectors.groupingBy(r -> r[3], Collectors.counting()));
+        Map<String, Long> conteo = new HashMap<>();
+        getReproduccionesPorGenero().forEach((genero, n) -> conteo.put(genero, (long) n));
+        return conteo;
     }
 
     /**
      * Elimina todos los registros de un usuario específico del historial.
+     * En disco solo se marcan como borrados; los segmentos se reescriben en segundo plano.
      * 
      * @param usuario nombre de usuario
      */
     public void eliminarHistorialUsuario(String usuario) {
-        historial.removeIf(r -> r[0].equalsIgnoreCase(usuario));
-        guardarHistorialCSV();
+        boolean[] esUsuario = historial.getUsuarios().coincidenciasIgnorandoMayusculas(usuario);
+        historial.eliminarSi(fila -> esUsuario[historial.getCodigoUsuario(fila)]);
+        reconstruirDerivados();
+        segmentos.borrarUsuario(usuario);
     }
 
     /**
      * Limpia completamente el historial global.
      */
     public void limpiarHistorialGlobal() {
-        historial.clear();
-        guardarHistorialCSV();
+        historial.limpiar();
+        reconstruirDerivados();
+        segmentos.limpiar();
     }
 
     /**
@@ -336,32 +824,48 @@ public class HistorialManager {
      * Crea la carpeta /exports si no existe.
      */
     public void exportarHistorialPorUsuario() {
-        Map<String, List<String[]>> agrupado = obtenerHistorialAgrupadoPorUsuario();
+        exportarHistorialPorUsuario(null, null, false, null);
+    }
 
-        Path carpeta = Paths.get("src/main/resources/exports/");
+    /**
+     * Exporta el historial en un archivo CSV por usuario, recorriéndolo una sola vez
+     * y escribiendo en paralelo con memoria acotada ({@link ExportadorHistorial}).
+     * Incluye los meses que solo están en disco si el rango los abarca.
+     *
+     * @param desde fecha mínima (inclusive), o null para no limitar
+     * @param hasta fecha máxima (inclusive), o null para no limitar
+     * @param comprimir true para generar {@code .csv.gz}
+     * @param progreso recibe los registros exportados hasta el momento (puede ser null)
+     * @return registros exportados, o -1 si hubo un error
+     */
+    public long exportarHistorialPorUsuario(LocalDateTime desde, LocalDateTime hasta, boolean comprimir,
+                                            LongConsumer progreso) {
+        long inicio = desde != null ? HistorialColumnar.segundosDesdeFecha(desde) : Long.MIN_VALUE;
+        long fin = hasta != null ? HistorialColumnar.segundosDesdeFecha(hasta) : Long.MAX_VALUE;
+
+        ExportadorHistorial exportador = new ExportadorHistorial(Paths.get(EXPORTS_DIR), ENCABEZADO)
+                .comprimir(comprimir)
+                .progreso(progreso);
         try {
-            if (!Files.exists(carpeta)) {
-                Files.createDirectories(carpeta);
-            }
-
-            for (Map.Entry<String, List<String[]>> entry : agrupado.entrySet()) {
-                String usuario = entry.getKey();
-                List<String[]> registros = entry.getValue();
-
-                Path archivo = carpeta.resolve("historial_" + usuario + ".csv");
-                try (BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
-                    writer.write("usuario,fecha,titulo,genero");
-                    writer.newLine();
-                    for (String[] r : registros) {
-                        writer.write(String.join(",", r));
-                        writer.newLine();
+            long exportados = exportador.exportar(destino -> {
+                if (inicio < inicioVentana) {
+                    segmentos.leer(inicio, Math.min(fin, inicioVentana - 1), null,
+                            (r, segundos) -> destino.accept(r));
+                }
+                HistorialColumnar.Instantanea instantanea = historial.instantanea();
+                int n = instantanea.getTamaño();
+                for (int fila = 0; fila < n; fila++) {
+                    long segundos = instantanea.getSegundos(fila);
+                    if (segundos >= inicio && segundos <= fin) {
+                        destino.accept(instantanea.registro(fila));
                     }
                 }
-            }
-
-            System.out.println("📤 Exportación completada. Archivos generados en /exports/");
+            });
+            System.out.println("📤 Exportación completada: " + exportados + " registros. Archivos generados en /exports/");
+            return exportados;
         } catch (IOException e) {
             System.out.println("❌ Error exportando historial: " + e.getMessage());
+            return -1;
         }
     }
 
@@ -371,11 +875,12 @@ public class HistorialManager {
      * @return mapa género → cantidad de reproducciones
      */
     public Map<String, Integer> getReproduccionesPorGenero() {
-        return historial.stream()
-                .collect(Collectors.toMap(
-                        r -> r[3], // genero
-                        r -> 1,
-                        Integer::sum));
+        Map<String, Integer> mapa = new HashMap<>();
+        for (int g = 0; g < historial.getGeneros().getTamaño(); g++) {
+            int total = contadores.getPorGenero(g);
+            if (total > 0) mapa.put(historial.getGeneros().decodificar(g), total);
+        }
+        return mapa;
     }
 
     /**
@@ -384,29 +889,29 @@ public class HistorialManager {
      * @return mapa canción → cantidad de reproducciones
      */
     public Map<String, Integer> getReproduccionesPorCancion() {
-        return historial.stream()
-                .collect(Collectors.toMap(
-                        r -> r[2], // título
-                        r -> 1,
-                        Integer::sum));
+        Map<String, Integer> mapa = new HashMap<>();
+        for (int c = 0; c < historial.getCanciones().getTamaño(); c++) {
+            int total = contadores.getPorCancion(c);
+            if (total > 0) mapa.put(historial.getCanciones().decodificar(c), total);
+        }
+        return mapa;
     }
 
     /**
      * Devuelve un mapa de reproducciones agrupadas por artista.
+     * Las canciones que no están en la biblioteca cuentan como "Desconocido".
      * 
      * @return mapa artista → cantidad de reproducciones
      */
     public Map<String, Integer> getReproduccionesPorArtista() {
-        return historial.stream()
-                .map(r -> r[2]) // título
-                .map(titulo -> {
-                    var cancion = DataStore.getInstance().getBiblioteca().buscarPorTitulo(titulo);
-                    return (cancion != null) ? cancion.getArtista() : "Desconocido";
-                })
-                .collect(Collectors.toMap(
-                        artista -> artista,
-                        artista -> 1,
-                        Integer::sum));
+        return contadores.getPorArtista(historial);
+    }
+
+    /** Valor del campo con más reproducciones del usuario, o "Sin datos" */
+    private String masFrecuenteUsuario(AnaliticaHistorial.Campo campo, String usuario) {
+        List<Map.Entry<String, Integer>> top = consultar(AnaliticaHistorial.Consulta.agruparPor(campo)
+                .usuario(usuario).limite(1));
+        return top.isEmpty() ? "Sin datos" : top.get(0).getKey();
     }
 
 }
@@ -0,0 +1,472 @@
+package com.syncup.app.logic;
+
+import com.syncup.app.model.Cancion;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * <h2>Índice Invertido con BM25</h2>
+ * Motor de búsqueda de texto completo sobre el catálogo de canciones.
+ *
+ * <p>
+ * Cada canción recibe un identificador interno creciente (docId). Para cada campo
+ * (título, artista, género) se guarda, por cada palabra, la lista de documentos que
+ * la contienen junto con su frecuencia. Las consultas se puntúan con <b>BM25</b> y
+ * cada campo aporta con un peso distinto ({@link Campo#getPeso()}).
+ * </p>
+ *
+ * <h3>Normalización:</h3>
+ * <p>
+ * Las palabras se pasan a minúsculas y se les quitan las tildes ("Canción" y
+ * "cancion" son la misma palabra), algo habitual en un catálogo en español.
+ * </p>
+ *
+ * <h3>Listas de postings comprimidas:</h3>
+ * <p>
+ * Como los docId solo crecen, cada lista guarda la <b>diferencia</b> con el docId
+ * anterior y la frecuencia, ambas codificadas como enteros de longitud variable
+ * (7 bits por byte) en un {@code byte[]}. La mayoría de entradas ocupan 2 bytes.
+ * </p>
+ *
+ * <h3>Actualizaciones incrementales:</h3>
+ * <ul>
+ *     <li>{@link #indexar(Cancion)} agrega al final de las listas afectadas</li>
+ *     <li>{@link #eliminar(Cancion)} marca el documento como borrado (tombstone) y
+ *         descuenta sus estadísticas; cuando los borrados superan la mitad de los
+ *         documentos se compacta: los documentos vivos se renumeran y se descartan
+ *         los borrados de las listas, títulos, textos y longitudes</li>
+ * </ul>
+ *
+ * <h3>Ejemplo de uso:</h3>
+ * <pre>
+ *   IndiceInvertido indice = new IndiceInvertido();
+ *   indice.indexar(new Cancion("Canción Animal", "Soda Stereo", "Rock"));
+ *   List&lt;IndiceInvertido.Resultado&gt; r = indice.buscar("cancion soda", 10);
+ * </pre>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class IndiceInvertido {
+
+    /** Campos indexados y su peso en la puntuación */
+    public enum Campo {
+        TITULO(3.0), ARTISTA(2.0), GENERO(1.0);
+
+        private final double peso;
+
+        Campo(double peso) {
+            this.peso = peso;
+        }
+
+        /** @return multiplicador de la puntuación BM25 del campo */
+        public double getPeso() { return peso; }
+    }
+
+    /** Parámetro de saturación de frecuencia de BM25 */
+    private static final double K1 = 1.2;
+    /** Parámetro de normalización por longitud de BM25 */
+    private static final double B = 0.75;
+    /** Máximo de palabras del diccionario en que se expande el prefijo final */
+    private static final int MAX_EXPANSION_PREFIJO = 50;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Canción encontrada con su puntuación.
+     */
+    public static class Resultado {
+        private final String titulo;
+        private final double puntaje;
+        private final int palabrasFaltantes;
+
+        Resultado(String titulo, double puntaje, int palabrasFaltantes) {
+            this.titulo = titulo;
+            this.puntaje = puntaje;
+            this.palabrasFaltantes = palabrasFaltantes;
+        }
+
+        /** @return título de la canción */
+        public String getTitulo() { return titulo; }
+
+        /** @return puntuación BM25 ponderada por campo */
+        public double getPuntaje() { return puntaje; }
+
+        /** @return palabras de la consulta que la canción no contiene */
+        public int getPalabrasFaltantes() { return palabrasFaltantes; }
+    }
+
+    /**
+     * Lista de postings de una palabra: pares (delta docId, frecuencia) en varint.
+     */
+    private static class ListaPostings {
+        byte[] datos = new byte[8];
+        int bytes = 0;
+        int ultimoDoc = -1;
+        /** Documentos vivos que contienen la palabra */
+        int df = 0;
+
+        void agregar(int doc, int frecuencia) {
+            escribirVarint(doc - ultimoDoc);
+            escribirVarint(frecuencia);
+            ultimoDoc = doc;
+            df++;
+        }
+
+        private void escribirVarint(int v) {
+            if (bytes + 5 > datos.length) {
+                datos = Arrays.copyOf(datos, datos.length * 2);
+            }
+            while ((v & ~0x7F) != 0) {
+                datos[bytes++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            datos[bytes++] = (byte) v;
+        }
+    }
+
+    /** Palabra → postings, por campo (ordenado para expandir prefijos) */
+    private final Map<Campo, TreeMap<String, ListaPostings>> postings = new EnumMap<>(Campo.class);
+    /** Longitud en palabras de cada documento, por campo */
+    private final Map<Campo, int[]> longitudes = new EnumMap<>(Campo.class);
+    /** Suma de longitudes de documentos vivos, por campo */
+    private final Map<Campo, Long> longitudTotal = new EnumMap<>(Campo.class);
+
+    /** docId → título */
+    private final ArrayList<String> titulos = new ArrayList<>();
+    /** docId → texto original del campo (para descontar sus palabras al eliminar) */
+    private final Map<Campo, List<String>> textos = new EnumMap<>(Campo.class);
+    /** título en minúsculas → docId vivo */
+    private final Map<String, Integer> docPorTitulo = new HashMap<>();
+    /** Documentos eliminados pendientes de compactar */
+    private final BitSet eliminados = new BitSet();
+    private int numEliminados = 0;
+
+    public IndiceInvertido() {
+        for (Campo campo : Campo.values()) {
+            postings.put(campo, new TreeMap<>());
+            longitudes.put(campo, new int[16]);
+            longitudTotal.put(campo, 0L);
+            textos.put(campo, new ArrayList<>());
+        }
+    }
+
+    // ========================
+    // ACTUALIZACIÓN
+    // ========================
+
+    /**
+     * Indexa una canción. Si ya existía una con el mismo título, se reemplaza.
+     *
+     * @param c canción a indexar
+     */
+    public void indexar(Cancion c) {
+        if (c == null || c.getTitulo() == null)
+            return;
+        eliminar(c.getTitulo());
+
+        int doc = titulos.size();
+        titulos.add(c.getTitulo());
+        docPorTitulo.put(c.getTitulo().toLowerCase(), doc);
+
+        indexarCampo(Campo.TITULO, c.getTitulo(), doc);
+        indexarCampo(Campo.ARTISTA, c.getArtista(), doc);
+        indexarCampo(Campo.GENERO, c.getGenero(), doc);
+    }
+
+    private void indexarCampo(Campo campo, String texto, int doc) {
+        List<String> palabras = tokenizar(texto);
+        textos.get(campo).add(texto);
+
+        int[] lon = longitudes.get(campo);
+        if (doc >= lon.length) {
+            lon = Arrays.copyOf(lon, Math.max(doc + 1, lon.length * 2));
+            longitudes.put(campo, lon);
+        }
+        lon[doc] = palabras.size();
+        longitudTotal.merge(campo, (long) palabras.size(), Long::sum);
+
+        Map<String, Integer> frecuencias = new LinkedHashMap<>();
+        for (String p : palabras) {
+            frecuencias.merge(p, 1, Integer::sum);
+        }
+        TreeMap<String, ListaPostings> dic = postings.get(campo);
+        frecuencias.forEach((p, tf) -> dic.computeIfAbsent(p, k -> new ListaPostings()).agregar(doc, tf));
+    }
+
+    /**
+     * Elimina una canción del índice.
+     *
+     * @param c canción a eliminar
+     */
+    public void eliminar(Cancion c) {
+        if (c != null)
+            eliminar(c.getTitulo());
+    }
+
+    /**
+     * Elimina del índice la canción con ese título (sin distinguir mayúsculas).
+     * El documento queda marcado como borrado y deja de aparecer en las búsquedas
+     * de inmediato; sus bytes se liberan en la siguiente compactación.
+     *
+     * @param titulo título de la canción
+     */
+    public void eliminar(String titulo) {
+        if (titulo == null)
+            return;
+        Integer doc = docPorTitulo.remove(titulo.toLowerCase());
+        if (doc == null)
+            return;
+
+        eliminados.set(doc);
+        numEliminados++;
+
+        for (Campo campo : Campo.values()) {
+            longitudTotal.merge(campo, (long) -longitudes.get(campo)[doc], Long::sum);
+            TreeMap<String, ListaPostings> dic = postings.get(campo);
+            for (String p : new HashSet<>(tokenizar(textos.get(campo).get(doc)))) {
+                ListaPostings lista = dic.get(p);
+                if (lista != null) lista.df--;
+            }
+        }
+
+        if (numEliminados * 2 > titulos.size()) {
+            compactar();
+        }
+    }
+
+    /**
+     * Descarta los documentos eliminados: los vivos se renumeran en orden (así las
+     * listas siguen crecientes), se reescriben las listas de postings con los
+     * docId nuevos, se quitan las palabras que quedaron sin documentos y se
+     * achican títulos, textos y longitudes.
+     */
+    public void compactar() {
+        if (numEliminados == 0)
+            return;
+        int total = titulos.size();
+        int[] nuevoDoc = new int[total];
+        int vivos = 0;
+        for (int doc = 0; doc < total; doc++) {
+            nuevoDoc[doc] = eliminados.get(doc) ? -1 : vivos++;
+        }
+
+        for (TreeMap<String, ListaPostings> dic : postings.values()) {
+            Iterator<ListaPostings> it = dic.values().iterator();
+            while (it.hasNext()) {
+                ListaPostings vieja = it.next();
+                if (vieja.df == 0) {
+                    it.remove();
+                    continue;
+                }
+                ListaPostings nueva = new ListaPostings();
+                recorrer(vieja, (doc, tf) -> nueva.agregar(nuevoDoc[doc], tf));
+                vieja.datos = Arrays.copyOf(nueva.datos, nueva.bytes);
+                vieja.bytes = nueva.bytes;
+                vieja.ultimoDoc = nueva.ultimoDoc;
+            }
+        }
+        for (Campo campo : Campo.values()) {
+            int[] lon = longitudes.get(campo);
+            int[] nuevas = new int[Math.max(16, vivos)];
+            List<String> viejos = textos.get(campo);
+            List<String> nuevos = new ArrayList<>(vivos);
+            for (int doc = 0; doc < total; doc++) {
+                if (nuevoDoc[doc] < 0) continue;
+                nuevas[nuevoDoc[doc]] = lon[doc];
+                nuevos.add(viejos.get(doc));
+            }
+            longitudes.put(campo, nuevas);
+            textos.put(campo, nuevos);
+        }
+        List<String> vivosPorDoc = new ArrayList<>(vivos);
+        for (int doc = 0; doc < total; doc++) {
+            if (nuevoDoc[doc] >= 0) vivosPorDoc.add(titulos.get(doc));
+        }
+        titulos.clear();
+        titulos.addAll(vivosPorDoc);
+        titulos.trimToSize();
+        docPorTitulo.replaceAll((titulo, doc) -> nuevoDoc[doc]);
+        eliminados.clear();
+        numEliminados = 0;
+    }
+
+    // ========================
+    // BÚSQUEDA
+    // ========================
+
+    /**
+     * Busca canciones que contengan las palabras de la consulta.
+     *
+     * <p>
+     * Cada palabra suma su puntuación BM25 en cada campo, multiplicada por el peso
+     * del campo. La última palabra se trata también como prefijo (para resultados
+     * mientras se escribe). Los resultados se ordenan por palabras faltantes y
+     * luego por puntuación descendente.
+     * </p>
+     *
+     * @param consulta texto escrito por el usuario
+     * @param limite número máximo de resultados
+     * @return resultados ordenados por relevancia
+     */
+    public List<Resultado> buscar(String consulta, int limite) {
+        return buscar(consulta, limite, Comparator.naturalOrder());
+    }
+
+    /**
+     * Igual que {@link #buscar(String, int)}, pero los empates de puntuación se
+     * resuelven con el comparador de títulos recibido (ej: por popularidad), antes
+     * de aplicar el límite.
+     *
+     * @param consulta texto escrito por el usuario
+     * @param limite número máximo de resultados
+     * @param desempate orden entre títulos con la misma relevancia
+     * @return resultados ordenados por relevancia
+     */
+    public List<Resultado> buscar(String consulta, int limite, Comparator<String> desempate) {
+        List<String> palabras = tokenizar(consulta);
+        int vivos = getTamaño();
+        if (palabras.isEmpty() || limite <= 0 || vivos == 0)
+            return List.of();
+
+        Map<Integer, double[]> acumulado = new HashMap<>();   // doc → puntaje
+        Map<Integer, BitSet> cubiertas = new HashMap<>();     // doc → palabras cubiertas
+
+        for (int i = 0; i < palabras.size(); i++) {
+            boolean ultima = i == palabras.size() - 1;
+            final int indice = i;
+            for (Campo campo : Campo.values()) {
+                double promedio = Math.max(1.0, (double) longitudTotal.get(campo) / vivos);
+                int[] lon = longitudes.get(campo);
+
+                for (ListaPostings lista : terminos(campo, palabras.get(i), ultima)) {
+                    if (lista.df <= 0) continue;
+                    double idf = Math.log(1 + (vivos - lista.df + 0.5) / (lista.df + 0.5));
+                    recorrer(lista, (doc, tf) -> {
+                        double norm = tf + K1 * (1 - B + B * lon[doc] / promedio);
+                        double s = campo.getPeso() * idf * tf * (K1 + 1) / norm;
+                        acumulado.computeIfAbsent(doc, d -> new double[1])[0] += s;
+                        cubiertas.computeIfAbsent(doc, d -> new BitSet()).set(indice);
+                    });
+                }
+            }
+        }
+
+        Comparator<Resultado> orden = Comparator
+                .comparingInt(Resultado::getPalabrasFaltantes)
+                .thenComparing(Comparator.comparingDouble(Resultado::getPuntaje).reversed())
+                .thenComparing(Resultado::getTitulo, desempate);
+
+        // Montículo con los 'limite' mejores: la raíz es el peor de ellos
+        PriorityQueue<Resultado> mejores = new PriorityQueue<>(Math.min(limite, acumulado.size()) + 1,
+                orden.reversed());
+        acumulado.forEach((doc, s) -> {
+            Resultado r = new Resultado(titulos.get(doc), s[0], palabras.size() - cubiertas.get(doc).cardinality());
+            if (mejores.size() < limite) {
+                mejores.add(r);
+            } else if (orden.compare(r, mejores.peek()) < 0) {
+                mejores.poll();
+                mejores.add(r);
+            }
+        });
+
+        List<Resultado> resultados = new ArrayList<>(mejores);
+        resultados.sort(orden);
+        return resultados;
+    }
+
+    /**
+     * Listas de postings para una palabra: la palabra exacta y, si es la última de
+     * la consulta, las palabras del diccionario que empiezan por ella.
+     */
+    private List<ListaPostings> terminos(Campo campo, String palabra, boolean comoPrefijo) {
+        TreeMap<String, ListaPostings> dic = postings.get(campo);
+        if (!comoPrefijo) {
+            ListaPostings exacta = dic.get(palabra);
+            return exacta == null ? List.of() : List.of(exacta);
+        }
+        List<ListaPostings> listas = new ArrayList<>();
+        for (ListaPostings l : dic.subMap(palabra, true, palabra + Character.MAX_VALUE, false).values()) {
+            listas.add(l);
+            if (listas.size() >= MAX_EXPANSION_PREFIJO) break;
+        }
+        return listas;
+    }
+
+    /**
+     * Decodifica una lista de postings, saltando los documentos eliminados.
+     */
+    private void recorrer(ListaPostings lista, ConsumidorPosting accion) {
+        byte[] d = lista.datos;
+        int pos = 0;
+        int doc = -1;
+        while (pos < lista.bytes) {
+            int delta = 0;
+            int desplazamiento = 0;
+            byte b;
+            do {
+                b = d[pos++];
+                delta |= (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while (b < 0);
+
+            int tf = 0;
+            desplazamiento = 0;
+            do {
+                b = d[pos++];
+                tf |= (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while (b < 0);
+
+            doc += delta;
+            if (!eliminados.get(doc)) {
+                accion.aceptar(doc, tf);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConsumidorPosting {
+        void aceptar(int doc, int frecuencia);
+    }
+
+    // ========================
+    // UTILIDADES
+    // ========================
+
+    /**
+     * Número de canciones vivas en el índice.
+     *
+     * @return documentos indexados menos los eliminados
+     */
+    public int getTamaño() {
+        return docPorTitulo.size();
+    }
+
+    /**
+     * @return documentos guardados, vivos o eliminados sin compactar todavía
+     */
+    public int getDocumentosGuardados() {
+        return titulos.size();
+    }
+
+    /**
+     * Pasa un texto a minúsculas, le quita las tildes y lo divide en palabras.
+     *
+     * @param texto texto a normalizar
+     * @return palabras normalizadas (vacía si el texto es null)
+     */
+    public static List<String> tokenizar(String texto) {
+        List<String> palabras = new ArrayList<>();
+        if (texto == null || texto.isEmpty())
+            return palabras;
+        String plano = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        for (String p : SEPARADORES.split(plano.toLowerCase())) {
+            if (!p.isEmpty()) palabras.add(p);
+        }
+        return palabras;
+    }
+}
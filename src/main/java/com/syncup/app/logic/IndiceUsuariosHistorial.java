@@ -0,0 +1,135 @@
+package com.syncup.app.logic;
+
+import com.syncup.app.model.estructuras.HistorialColumnar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <h2>Índice de Historial por Usuario</h2>
+ * Índice secundario del historial: usuario → filas de sus reproducciones,
+ * ordenadas por fecha.
+ *
+ * <p>
+ * La clave es el nombre de usuario en minúsculas, de modo que "Juan" y "juan"
+ * comparten entrada (igual que el {@code equalsIgnoreCase} de las consultas
+ * anteriores). Las filas de cada usuario se guardan en un {@code int[]} que crece
+ * por duplicación.
+ * </p>
+ *
+ * <h3>Complejidad:</h3>
+ * <ul>
+ *     <li>Agregar reproducción: O(1) amortizado (las reproducciones llegan en orden)</li>
+ *     <li>Filas de un usuario: O(1) para obtenerlas, O(reproducciones del usuario) para recorrerlas</li>
+ *     <li>Rango de fechas: O(log reproducciones del usuario) por búsqueda binaria</li>
+ * </ul>
+ *
+ * <p>
+ * Los números de fila cambian al eliminar registros del historial, así que en ese
+ * caso el índice se reconstruye con {@link #reconstruir}.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class IndiceUsuariosHistorial {
+
+    /** Filas de un usuario, ordenadas por fecha */
+    private static class Filas {
+        int[] filas = new int[8];
+        int cantidad = 0;
+    }
+
+    private final Map<String, Filas> porUsuario = new HashMap<>();
+
+    /**
+     * Agrega una fila recién insertada en el historial.
+     *
+     * @param historial historial que contiene la fila
+     * @param fila número de fila
+     */
+    public void agregar(HistorialColumnar historial, int fila) {
+        Filas f = porUsuario.computeIfAbsent(clave(historial.getUsuario(fila)), k -> new Filas());
+        if (f.cantidad == f.filas.length) {
+            f.filas = Arrays.copyOf(f.filas, f.cantidad * 2);
+        }
+
+        // Normalmente llega al final; si el reloj retrocedió se inserta en su lugar
+        long segundos = historial.getSegundos(fila);
+        int pos = f.cantidad;
+        while (pos > 0 && historial.getSegundos(f.filas[pos - 1]) > segundos) {
+            f.filas[pos] = f.filas[pos - 1];
+            pos--;
+        }
+        f.filas[pos] = fila;
+        f.cantidad++;
+    }
+
+    /**
+     * Vuelve a construir el índice completo a partir del historial.
+     *
+     * @param historial historial completo
+     */
+    public void reconstruir(HistorialColumnar historial) {
+        porUsuario.clear();
+        int n = historial.getTamaño();
+        for (int fila = 0; fila < n; fila++) {
+            agregar(historial, fila);
+        }
+    }
+
+    /**
+     * Filas de un usuario ordenadas por fecha.
+     *
+     * @param usuario nombre de usuario (sin distinguir mayúsculas)
+     * @return copia de las filas, arreglo vacío si no tiene reproducciones
+     */
+    public int[] filas(String usuario) {
+        Filas f = porUsuario.get(clave(usuario));
+        return f != null ? Arrays.copyOf(f.filas, f.cantidad) : new int[0];
+    }
+
+    /**
+     * Filas de un usuario cuya fecha está en [desde, hasta], ordenadas por fecha.
+     *
+     * @param historial historial indexado
+     * @param usuario nombre de usuario (sin distinguir mayúsculas)
+     * @param desde segundos desde 1970, inclusive
+     * @param hasta segundos desde 1970, inclusive
+     * @return copia de las filas del rango
+     */
+    public int[] filas(HistorialColumnar historial, String usuario, long desde, long hasta) {
+        Filas f = porUsuario.get(clave(usuario));
+        if (f == null || desde > hasta)
+            return new int[0];
+        int inicio = primeraNoMenor(historial, f, desde);
+        int fin = primeraNoMenor(historial, f, hasta == Long.MAX_VALUE ? hasta : hasta + 1);
+        return Arrays.copyOfRange(f.filas, inicio, Math.max(inicio, fin));
+    }
+
+    /**
+     * @param usuario nombre de usuario (sin distinguir mayúsculas)
+     * @return cantidad de reproducciones del usuario
+     */
+    public int cantidad(String usuario) {
+        Filas f = porUsuario.get(clave(usuario));
+        return f != null ? f.cantidad : 0;
+    }
+
+    /** Primera posición cuya fecha es mayor o igual a la dada */
+    private static int primeraNoMenor(HistorialColumnar historial, Filas f, long segundos) {
+        int lo = 0, hi = f.cantidad;
+        while (lo < hi) {
+            int medio = (lo + hi) >>> 1;
+            if (historial.getSegundos(f.filas[medio]) < segundos) lo = medio + 1;
+            else hi = medio;
+        }
+        return lo;
+    }
+
+    private static String clave(String usuario) {
+        return usuario == null ? "" : usuario.toLowerCase(Locale.ROOT);
+    }
+}
@@ -79,9 +79,7 @@ public class RecomendadorMusical {
         if (generoFav == null) return obtenerRecomendacionesGenerales();
 
         // Buscar canciones del género favorito
-        List<Cancion> todas = biblioteca.obtenerTodas();
-        List<Cancion> recomendadas = todas.stream()
-                .filter(c -> c.getGenero().equalsIgnoreCase(generoFav))
+        List<Cancion> recomendadas = biblioteca.obtenerPorGenero(generoFav).stream()
                 .limit(5)
                 .collect(Collectors.toList());
 
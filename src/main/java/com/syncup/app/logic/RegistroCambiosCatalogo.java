@@ -0,0 +1,151 @@
+package com.syncup.app.logic;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h2>Registro de Cambios del Catálogo</h2>
+ * Archivo de solo anexado con las altas y bajas de canciones posteriores al CSV base.
+ *
+ * <p>
+ * Agregar o eliminar una canción cuesta una única escritura secuencial de una línea
+ * en lugar de reescribir todo {@code canciones.csv}. Al arrancar, las entradas se
+ * vuelven a aplicar sobre el catálogo base; periódicamente la biblioteca compacta
+ * el registro escribiendo un CSV base nuevo y descartando las entradas ya incluidas
+ * ({@link #descartarPrimeras(int)}).
+ * </p>
+ *
+ * <h3>Formato (una entrada por línea):</h3>
+ * <pre>
+ *   +,titulo,artista,genero
+ *   -,titulo
+ * </pre>
+ *
+ * <p>
+ * Todos los métodos están sincronizados: la compactación corre en segundo plano
+ * mientras la interfaz sigue anexando entradas.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class RegistroCambiosCatalogo {
+
+    /** Prefijo de una entrada de alta */
+    public static final String ALTA = "+";
+    /** Prefijo de una entrada de baja */
+    public static final String BAJA = "-";
+
+    private final Path archivo;
+    /** Líneas escritas en el archivo */
+    private int pendientes;
+
+    /**
+     * Abre (sin crear) el registro de la ruta indicada y cuenta sus líneas.
+     *
+     * @param archivo ruta del registro
+     */
+    public RegistroCambiosCatalogo(Path archivo) {
+        this.archivo = archivo;
+        if (Files.exists(archivo)) {
+            try (var lineas = Files.lines(archivo, StandardCharsets.UTF_8)) {
+                this.pendientes = (int) lineas.count();
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("⚠️ No se pudo leer el registro de cambios: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Anexa el alta de una canción.
+     *
+     * @param titulo título de la canción
+     * @param artista artista de la canción
+     * @param genero género de la canción
+     */
+    public synchronized void registrarAlta(String titulo, String artista, String genero) {
+        anexar(ALTA + "," + titulo + "," + artista + "," + genero);
+    }
+
+    /**
+     * Anexa la baja de una canción.
+     *
+     * @param titulo título de la canción eliminada
+     */
+    public synchronized void registrarBaja(String titulo) {
+        anexar(BAJA + "," + titulo);
+    }
+
+    private void anexar(String linea) {
+        try (BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(linea);
+            writer.newLine();
+            pendientes++;
+        } catch (IOException e) {
+            System.out.println("❌ Error al escribir el registro de cambios: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lee todas las entradas en orden.
+     * Cada entrada es {@code {"+", titulo, artista, genero}} o {@code {"-", titulo}};
+     * las líneas mal formadas (por ejemplo, una última línea cortada) se ignoran.
+     *
+     * @return entradas del registro, vacía si no existe
+     */
+    public synchronized List<String[]> leer() {
+        List<String[]> entradas = new ArrayList<>();
+        if (!Files.exists(archivo))
+            return entradas;
+
+        try (BufferedReader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.startsWith(ALTA + ",")) {
+                    String[] p = linea.split(",", -1);
+                    if (p.length >= 4) entradas.add(new String[] { ALTA, p[1], p[2], p[3] });
+                } else if (linea.startsWith(BAJA + ",")) {
+                    entradas.add(new String[] { BAJA, linea.substring(2) });
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ No se pudo leer el registro de cambios: " + e.getMessage());
+        }
+        return entradas;
+    }
+
+    /**
+     * Descarta las primeras {@code n} líneas (ya incluidas en un CSV base nuevo) y
+     * conserva las anexadas después.
+     *
+     * @param n líneas a descartar, normalmente {@link #getPendientes()} al copiar el catálogo
+     */
+    public synchronized void descartarPrimeras(int n) {
+        if (n <= 0 || !Files.exists(archivo))
+            return;
+        try {
+            List<String> lineas = Files.readAllLines(archivo, StandardCharsets.UTF_8);
+            List<String> resto = lineas.subList(Math.min(n, lineas.size()), lineas.size());
+            Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            Files.write(temporal, resto, StandardCharsets.UTF_8);
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+            pendientes = resto.size();
+        } catch (IOException e) {
+            System.out.println("❌ Error al compactar el registro de cambios: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return líneas escritas y aún no compactadas
+     */
+    public synchronized int getPendientes() {
+        return pendientes;
+    }
+}
@@ -0,0 +1,998 @@
+package com.syncup.app.logic;
+
+import com.syncup.app.model.estructuras.HistorialColumnar;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * <h2>Segmentos del Historial</h2>
+ * Guarda el historial en un archivo CSV por mes (o por día) en lugar de un único
+ * {@code historial.csv} que crece para siempre.
+ *
+ * <p>
+ * Cada segmento {@code historial-AAAA-MM.csv} tiene el encabezado de siempre y sus
+ * reproducciones en orden de llegada. Junto a él se guardan:
+ * </p>
+ * <ul>
+ *     <li><b>{@code .meta}</b>: cantidad de filas, fechas mínima y máxima y un
+ *         {@link FiltroBloom} de usuarios y otro de canciones. Permite saltar segmentos
+ *         enteros al leer un rango de fechas, un usuario o una canción sin abrirlos. Se
+ *         regenera si falta o si el archivo de datos cambió de tamaño (por ejemplo,
+ *         tras un cierre abrupto). Los filtros de un segmento nuevo parten del tamaño
+ *         del segmento anterior (y como mínimo del de la granularidad); si al sellarlo
+ *         quedaron chicos, se rehacen con sus valores distintos reales.</li>
+ *     <li><b>{@code .borrados}</b>: lápidas {@code usuario,filas}; las filas del usuario
+ *         anteriores a esa posición se consideran eliminadas. Borrar un usuario solo
+ *         anexa una línea en los segmentos donde puede aparecer; un hilo de fondo
+ *         reescribe después esos segmentos sin sus filas (compactación).</li>
+ * </ul>
+ *
+ * <p>
+ * Solo el segmento del periodo actual recibe escrituras, a través de un único
+ * {@link EscritorHistorial}; al cambiar de periodo se sella el segmento y el mismo
+ * escritor pasa a escribir el siguiente.
+ * La retención opcional elimina los segmentos más viejos que el plazo configurado.
+ * Un {@code historial.csv} de versiones anteriores se reparte en segmentos al abrir.
+ * </p>
+ *
+ * <p>
+ * {@link #getMetricas} informa, por filtro, cuántos segmentos se saltaron y la
+ * tasa de falsos positivos observada (segmentos abiertos sin ninguna fila buscada).
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class SegmentosHistorial {
+
+    /** Filtros de Bloom de cada segmento */
+    public enum Filtro { USUARIO, CANCION }
+
+    /**
+     * Contadores de un filtro de Bloom, acumulados desde que se abrió el historial.
+     * Solo cuentan los segmentos que estaban dentro del rango de fechas pedido.
+     */
+    public static class MetricasFiltro {
+        private final AtomicLong consultados = new AtomicLong();
+        private final AtomicLong saltados = new AtomicLong();
+        private final AtomicLong falsosPositivos = new AtomicLong();
+
+        /** @return segmentos en los que se consultó el filtro */
+        public long getConsultados() { return consultados.get(); }
+
+        /** @return segmentos que el filtro descartó sin abrirlos */
+        public long getSaltados() { return saltados.get(); }
+
+        /** @return segmentos que el filtro dejó pasar y no tenían ninguna fila buscada */
+        public long getFalsosPositivos() { return falsosPositivos.get(); }
+
+        /** @return fracción de los segmentos consultados que se saltó (0 sin consultas) */
+        public double getTasaSalto() {
+            long c = consultados.get();
+            return c == 0 ? 0 : (double) saltados.get() / c;
+        }
+
+        /**
+         * @return fracción de los segmentos sin el valor buscado que el filtro no
+         *         descartó (0 sin consultas)
+         */
+        public double getTasaFalsosPositivos() {
+            long fp = falsosPositivos.get();
+            long negativos = saltados.get() + fp;
+            return negativos == 0 ? 0 : (double) fp / negativos;
+        }
+    }
+
+    /** Periodo que cubre cada segmento */
+    public enum Granularidad {
+        DIARIA(10, 1024, 4096), MENSUAL(7, 8192, 32768);
+
+        /** Caracteres de la fecha "AAAA-MM-DD HH:mm:ss" que forman la clave del segmento */
+        private final int largoClave;
+        /** Usuarios y canciones distintos para los que se dimensionan, como mínimo, los filtros de un segmento */
+        private final int usuariosEsperados;
+        private final int cancionesEsperadas;
+
+        Granularidad(int largoClave, int usuariosEsperados, int cancionesEsperadas) {
+            this.largoClave = largoClave;
+            this.usuariosEsperados = usuariosEsperados;
+            this.cancionesEsperadas = cancionesEsperadas;
+        }
+    }
+
+    /**
+     * Recibe cada reproducción leída de los segmentos.
+     */
+    public interface Lector {
+        /**
+         * @param registro {usuario, fecha, titulo, genero}
+         * @param segundos fecha de la reproducción en segundos desde 1970
+         */
+        void aceptar(String[] registro, long segundos);
+
+        /**
+         * Se llama al terminar cada segmento leído. Los segmentos cubren periodos
+         * sin solapamiento y se leen en orden cronológico, así que basta ordenar las
+         * filas de cada uno para tener el orden global.
+         *
+         * @return false para no leer más segmentos
+         */
+        default boolean finSegmento() {
+            return true;
+        }
+    }
+
+    private static final String PREFIJO = "historial-";
+    private static final String EXT_DATOS = ".csv";
+    private static final String EXT_META = ".meta";
+    private static final String EXT_BORRADOS = ".borrados";
+    private static final Pattern NOMBRE_SEGMENTO =
+            Pattern.compile(Pattern.quote(PREFIJO) + "(\\d{4}-\\d{2}(-\\d{2})?)" + Pattern.quote(EXT_DATOS));
+
+    /** "SHMT": metadatos de segmento del historial */
+    private static final int MAGIA = 0x53484D54;
+    private static final int VERSION = 2;
+
+    private static final double FALSOS_POSITIVOS = 0.01;
+    /** Un filtro cuya tasa real supera este múltiplo de la objetivo se redimensiona al sellar */
+    private static final double FACTOR_SATURACION = 2;
+    /** Margen sobre los valores distintos estimados al dimensionar un filtro */
+    private static final double HOLGURA_FILTRO = 1.25;
+
+    /** Hilo de fondo para compactar; es daemon para no impedir el cierre de la app */
+    private static final ExecutorService COMPACTADOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "compactador-historial");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Metadatos en memoria de un segmento */
+    private static class Segmento {
+        final String clave;
+        final Path datos;
+        long bytes;
+        int filas;
+        long minimo = Long.MAX_VALUE;
+        long maximo = Long.MIN_VALUE;
+        FiltroBloom usuarios;
+        FiltroBloom canciones;
+        /** Usuario en minúsculas → las filas anteriores a esta posición están borradas */
+        final Map<String, Integer> borrados = new HashMap<>();
+
+        Segmento(String clave, Path datos, int usuariosEsperados, int cancionesEsperadas) {
+            this.clave = clave;
+            this.datos = datos;
+            this.usuarios = new FiltroBloom(usuariosEsperados, FALSOS_POSITIVOS);
+            this.canciones = new FiltroBloom(cancionesEsperadas, FALSOS_POSITIVOS);
+        }
+
+        /** @return true si algún filtro ya da bastantes más falsos positivos que los previstos */
+        boolean saturado() {
+            return usuarios.tasaFalsosPositivos() > FALSOS_POSITIVOS * FACTOR_SATURACION
+                    || canciones.tasaFalsosPositivos() > FALSOS_POSITIVOS * FACTOR_SATURACION;
+        }
+
+        void sumar(String usuario, String cancion, long segundos) {
+            filas++;
+            minimo = Math.min(minimo, segundos);
+            maximo = Math.max(maximo, segundos);
+            usuarios.agregar(usuario);
+            canciones.agregar(cancion);
+        }
+    }
+
+    private final Path directorio;
+    private final String encabezado;
+    private final Granularidad granularidad;
+    private final int loteMaximo;
+    private final long esperaMaximaMs;
+    private volatile EscritorHistorial.Durabilidad durabilidad;
+
+    /** Clave (AAAA-MM o AAAA-MM-DD) → segmento; el orden de las claves es cronológico */
+    private final TreeMap<String, Segmento> segmentos = new TreeMap<>();
+    /** Segmento que recibe las escrituras (null hasta la primera y tras sellarlo) */
+    private Segmento activo;
+    /** Escritor de fondo, uno solo para toda la vida del historial (null hasta la primera escritura) */
+    private EscritorHistorial escritor;
+
+    /** Plazo de retención, o null para conservar todo */
+    private Period retencion;
+    /** Evita programar una compactación mientras otra sigue en curso */
+    private final AtomicBoolean compactando = new AtomicBoolean(false);
+
+    private final MetricasFiltro metricasUsuarios = new MetricasFiltro();
+    private final MetricasFiltro metricasCanciones = new MetricasFiltro();
+    /** Serializa las compactaciones (hilo de fondo y llamadas directas) */
+    private final Object bloqueoCompactacion = new Object();
+
+    /**
+     * @param directorio carpeta de los segmentos (se crea si no existe)
+     * @param encabezado primera línea de cada segmento
+     * @param granularidad periodo de cada segmento
+     * @param durabilidad modo de durabilidad inicial del escritor
+     * @param loteMaximo líneas que disparan la escritura de un lote
+     * @param esperaMaximaMs tiempo máximo que una línea espera antes de escribirse
+     */
+    public SegmentosHistorial(Path directorio, String encabezado, Granularidad granularidad,
+                              EscritorHistorial.Durabilidad durabilidad, int loteMaximo, long esperaMaximaMs) {
+        this.directorio = directorio;
+        this.encabezado = encabezado;
+        this.granularidad = granularidad;
+        this.durabilidad = durabilidad;
+        this.loteMaximo = loteMaximo;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    // ========================
+    // APERTURA
+    // ========================
+
+    /**
+     * Lee los metadatos de los segmentos existentes, reparte en segmentos los
+     * archivos de historial de versiones anteriores y aplica la retención.
+     *
+     * @param heredado {@code historial.csv} de versiones anteriores; también se migran
+     *                 sus segmentos sellados ({@code historial.000001.csv}...). Se
+     *                 eliminan tras migrarlos. Puede ser null.
+     */
+    public synchronized void abrir(Path heredado) {
+        try {
+            Files.createDirectories(directorio);
+            if (heredado != null) {
+                migrar(archivosHeredados(heredado));
+            }
+
+            segmentos.clear();
+            try (Stream<Path> archivos = Files.list(directorio)) {
+                archivos.forEach(p -> {
+                    java.util.regex.Matcher m = NOMBRE_SEGMENTO.matcher(p.getFileName().toString());
+                    if (m.matches()) {
+                        segmentos.put(m.group(1), crearSegmento(m.group(1), p, 0, 0));
+                    }
+                });
+            }
+            for (Segmento s : segmentos.values()) {
+                cargarMeta(s);
+                cargarBorrados(s);
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Error abriendo segmentos del historial: " + e.getMessage());
+        }
+        aplicarRetencion();
+        if (hayBorradosPendientes()) {
+            programarCompactacion();
+        }
+    }
+
+    /** Segmentos sellados por {@link EscritorHistorial} y luego el archivo activo anterior */
+    private static List<Path> archivosHeredados(Path heredado) throws IOException {
+        List<Path> archivos = new ArrayList<>();
+        Path dir = heredado.toAbsolutePath().getParent();
+        String nombre = heredado.getFileName().toString();
+        int punto = nombre.lastIndexOf('.');
+        String patron = punto > 0
+                ? Pattern.quote(nombre.substring(0, punto)) + "\\.\\d{6}" + Pattern.quote(nombre.substring(punto))
+                : Pattern.quote(nombre) + "\\.\\d{6}";
+        if (dir != null && Files.isDirectory(dir)) {
+            try (Stream<Path> lista = Files.list(dir)) {
+                lista.filter(p -> p.getFileName().toString().matches(patron))
+                        .sorted()
+                        .forEach(archivos::add);
+            }
+        }
+        archivos.add(heredado);
+        return archivos;
+    }
+
+    /** Reparte las filas de los archivos anteriores en segmentos y los elimina */
+    private void migrar(List<Path> heredados) throws IOException {
+        List<Path> existentes = new ArrayList<>();
+        for (Path p : heredados) {
+            if (Files.exists(p)) existentes.add(p);
+        }
+        if (existentes.isEmpty())
+            return;
+
+        Map<String, BufferedWriter> salidas = new HashMap<>();
+        int migradas = 0;
+        int descartadas = 0;
+        try {
+            for (Path p : existentes) {
+                try (BufferedReader reader = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
+                    reader.readLine(); // cabecera
+                    String linea;
+                    while ((linea = reader.readLine()) != null) {
+                        String[] partes = linea.split(",", 4);
+                        if (partes.length < 4 || partes[1].length() < granularidad.largoClave) {
+                            descartadas++;
+                            continue;
+                        }
+                        String clave = partes[1].substring(0, granularidad.largoClave);
+                        BufferedWriter w = salidas.get(clave);
+                        if (w == null) {
+                            Path destino = rutaDatos(clave);
+                            boolean nuevo = !Files.exists(destino);
+                            w = Files.newBufferedWriter(destino, StandardCharsets.UTF_8,
+                                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                            if (nuevo) {
+                                w.write(encabezado);
+                                w.newLine();
+                            }
+                            salidas.put(clave, w);
+                        }
+                        w.write(linea);
+                        w.newLine();
+                        migradas++;
+                    }
+                }
+            }
+        } finally {
+            for (BufferedWriter w : salidas.values()) {
+                w.close();
+            }
+        }
+        for (Path p : existentes) {
+            Files.delete(p);
+        }
+        System.out.println("🗂️ Historial migrado a " + salidas.size() + " segmentos: " + migradas + " registros"
+                + (descartadas > 0 ? " (" + descartadas + " líneas inválidas descartadas)" : ""));
+    }
+
+    // ========================
+    // ESCRITURA
+    // ========================
+
+    /**
+     * Encola una reproducción en el segmento de su periodo. No bloquea salvo al
+     * cambiar de periodo.
+     *
+     * @param registro {usuario, fecha, titulo, genero}
+     * @param segundos fecha de la reproducción en segundos desde 1970
+     */
+    public synchronized void escribir(String[] registro, long segundos) {
+        String clave = registro[1].substring(0, granularidad.largoClave);
+        if (activo == null || !activo.clave.equals(clave)) {
+            cambiarActivo(clave);
+        }
+        activo.sumar(registro[0], registro[2], segundos);
+        escritor.escribir(String.join(",", registro));
+    }
+
+    /** Sella el segmento activo y abre (o retoma) el del periodo indicado */
+    private void cambiarActivo(String clave) {
+        sellar();
+        activo = segmentos.computeIfAbsent(clave, c -> {
+            // Un periodo nuevo suele parecerse al anterior: sus filtros parten de ese tamaño
+            Map.Entry<String, Segmento> previo = segmentos.lowerEntry(c);
+            return previo == null
+                    ? crearSegmento(c, rutaDatos(c), 0, 0)
+                    : crearSegmento(c, rutaDatos(c), previo.getValue().usuarios.estimarElementos(),
+                            previo.getValue().canciones.estimarElementos());
+        });
+        if (escritor == null) {
+            escritor = new EscritorHistorial(activo.datos, encabezado, durabilidad, loteMaximo, esperaMaximaMs);
+        } else {
+            escritor.redirigir(activo.datos);
+        }
+        aplicarRetencion();
+    }
+
+    /**
+     * Escribe lo pendiente del segmento activo, suelta su archivo (puede
+     * reemplazarse en disco) y guarda sus metadatos. La siguiente escritura lo
+     * vuelve a abrir a través del mismo escritor.
+     */
+    private void sellar() {
+        if (activo == null)
+            return;
+        if (escritor.redirigir(activo.datos)) {
+            if (activo.saturado()) {
+                redimensionarFiltros(activo);
+            }
+            guardarMeta(activo);
+        }
+        activo = null;
+    }
+
+    /**
+     * @param usuarios usuarios distintos estimados (0 si no se sabe)
+     * @param canciones canciones distintas estimadas (0 si no se sabe)
+     * @return segmento vacío con filtros para esa cantidad, y al menos para la de la granularidad
+     */
+    private Segmento crearSegmento(String clave, Path datos, long usuarios, long canciones) {
+        return new Segmento(clave, datos,
+                dimension(usuarios, granularidad.usuariosEsperados),
+                dimension(canciones, granularidad.cancionesEsperadas));
+    }
+
+    private static int dimension(long estimados, int minimo) {
+        return (int) Math.min(Integer.MAX_VALUE / 32, Math.max(minimo, (long) Math.ceil(estimados * HOLGURA_FILTRO)));
+    }
+
+    /**
+     * Escribe en disco lo que esté pendiente y actualiza los metadatos del segmento activo.
+     *
+     * @return true si todo quedó escrito; false si la escritura falló (lo pendiente se reintenta)
+     */
+    public synchronized boolean vaciar() {
+        if (activo == null)
+            return true;
+        // Si falló, los metadatos contarían filas que aún no están en el archivo
+        boolean escrito = escritor.vaciar();
+        if (escrito) {
+            guardarMeta(activo);
+        }
+        return escrito;
+    }
+
+    /**
+     * Cambia la durabilidad del escritor; aplica desde el siguiente lote.
+     *
+     * @param durabilidad nuevo modo
+     */
+    public synchronized void setDurabilidad(EscritorHistorial.Durabilidad durabilidad) {
+        if (durabilidad == null)
+            return;
+        this.durabilidad = durabilidad;
+        if (escritor != null) {
+            escritor.setDurabilidad(durabilidad);
+        }
+    }
+
+    // ========================
+    // LECTURA
+    // ========================
+
+    /**
+     * Lee en orden cronológico de segmentos las reproducciones de un rango de fechas.
+     *
+     * @see #leer(long, long, String, String, Lector)
+     */
+    public int leer(long desde, long hasta, String usuario, Lector lector) {
+        return leer(desde, hasta, usuario, null, lector);
+    }
+
+    /**
+     * Lee en orden cronológico de segmentos las reproducciones de un rango de fechas.
+     * Se saltan sin abrirlos los segmentos fuera del rango y, si se filtra por
+     * usuario o canción, aquellos cuyo filtro de Bloom descarta el valor. Las filas
+     * borradas y las anteriores al plazo de retención no se entregan.
+     *
+     * @param desde segundos desde 1970 (inclusive)
+     * @param hasta segundos desde 1970 (inclusive)
+     * @param usuario usuario (sin distinguir mayúsculas), o null para todos
+     * @param cancion título (sin distinguir mayúsculas), o null para todas
+     * @param lector destino de cada reproducción
+     * @return cantidad de filas descartadas por tener una fecha inválida
+     */
+    public int leer(long desde, long hasta, String usuario, String cancion, Lector lector) {
+        long inicio = Math.max(desde, corteRetencion());
+        int descartadas = 0;
+        for (String clave : claves()) {
+            Segmento s;
+            Map<String, Integer> borrados;
+            long largo;
+            InputStream entrada;
+            synchronized (this) {
+                s = segmentos.get(clave);
+                if (s == null || s.filas == 0 || s.maximo < inicio || s.minimo > hasta)
+                    continue;
+                if (usuario != null && !pasaFiltro(s.usuarios, usuario, metricasUsuarios))
+                    continue;
+                if (cancion != null && !pasaFiltro(s.canciones, cancion, metricasCanciones))
+                    continue;
+                if (s == activo) {
+                    escritor.vaciar();
+                }
+                // Se abre bajo el monitor: una compactación posterior reemplaza el
+                // archivo, pero este flujo sigue leyendo la versión que corresponde
+                // a las lápidas copiadas aquí
+                try {
+                    largo = Files.size(s.datos);
+                    entrada = Files.newInputStream(s.datos);
+                } catch (IOException e) {
+                    System.out.println("❌ Error leyendo segmento " + clave + ": " + e.getMessage());
+                    continue;
+                }
+                borrados = new HashMap<>(s.borrados);
+            }
+            Lectura lectura = leerSegmento(entrada, largo, borrados, inicio, hasta, usuario, cancion, lector);
+            descartadas += lectura.descartadas;
+            if (usuario != null && !lectura.usuarioVisto) metricasUsuarios.falsosPositivos.incrementAndGet();
+            if (cancion != null && !lectura.cancionVista) metricasCanciones.falsosPositivos.incrementAndGet();
+            if (!lector.finSegmento())
+                break;
+        }
+        return descartadas;
+    }
+
+    private static boolean pasaFiltro(FiltroBloom filtro, String valor, MetricasFiltro metricas) {
+        metricas.consultados.incrementAndGet();
+        if (filtro.puedeContener(valor))
+            return true;
+        metricas.saltados.incrementAndGet();
+        return false;
+    }
+
+    /** Resultado de leer un segmento */
+    private static class Lectura {
+        int descartadas;
+        /** Si apareció alguna fila del usuario o la canción buscados (aunque esté borrada o fuera de rango) */
+        boolean usuarioVisto;
+        boolean cancionVista;
+    }
+
+    private Lectura leerSegmento(InputStream entrada, long largo, Map<String, Integer> borrados, long desde,
+                                 long hasta, String usuario, String cancion, Lector lector) {
+        Lectura lectura = new Lectura();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new EntradaLimitada(entrada, largo), StandardCharsets.UTF_8))) {
+            reader.readLine(); // cabecera
+            String linea;
+            int fila = -1;
+            while ((linea = reader.readLine()) != null) {
+                fila++;
+                String[] partes = linea.split(",", 4);
+                if (partes.length != 4)
+                    continue;
+                boolean esUsuario = usuario == null || partes[0].equalsIgnoreCase(usuario);
+                boolean esCancion = cancion == null || partes[2].equalsIgnoreCase(cancion);
+                lectura.usuarioVisto |= usuario != null && esUsuario;
+                lectura.cancionVista |= cancion != null && esCancion;
+                if (!esUsuario || !esCancion)
+                    continue;
+                if (!borrados.isEmpty()) {
+                    Integer borradasHasta = borrados.get(partes[0].toLowerCase(Locale.ROOT));
+                    if (borradasHasta != null && fila < borradasHasta) continue;
+                }
+                long segundos;
+                try {
+                    segundos = HistorialColumnar.segundosDesdeFecha(partes[1]);
+                } catch (DateTimeParseException e) {
+                    lectura.descartadas++;
+                    continue;
+                }
+                if (segundos >= desde && segundos <= hasta) {
+                    lector.aceptar(partes, segundos);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Error leyendo segmento del historial: " + e.getMessage());
+        }
+        return lectura;
+    }
+
+    /**
+     * @param filtro filtro de Bloom
+     * @return contadores de saltos y falsos positivos de ese filtro
+     */
+    public MetricasFiltro getMetricas(Filtro filtro) {
+        return filtro == Filtro.USUARIO ? metricasUsuarios : metricasCanciones;
+    }
+
+    /** @return claves de los segmentos actuales, en orden cronológico */
+    private synchronized List<String> claves() {
+        return new ArrayList<>(segmentos.keySet());
+    }
+
+    /** @return cantidad de segmentos en disco */
+    public synchronized int getCantidadSegmentos() {
+        return segmentos.size();
+    }
+
+    // ========================
+    // BORRADO Y COMPACTACIÓN
+    // ========================
+
+    /**
+     * Marca como eliminadas todas las reproducciones actuales de un usuario. Solo
+     * anexa una lápida en los segmentos donde puede aparecer; la reescritura se
+     * hace en segundo plano.
+     *
+     * @param usuario nombre de usuario (sin distinguir mayúsculas)
+     */
+    public synchronized void borrarUsuario(String usuario) {
+        if (usuario == null || usuario.isEmpty())
+            return;
+        String clave = usuario.toLowerCase(Locale.ROOT);
+        for (Segmento s : segmentos.values()) {
+            if (s.filas == 0 || !s.usuarios.puedeContener(clave))
+                continue;
+            s.borrados.merge(clave, s.filas, Math::max);
+            try {
+                Files.writeString(rutaHermana(s, EXT_BORRADOS), clave + "," + s.filas + "\n", StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.out.println("❌ Error registrando borrado en " + s.clave + ": " + e.getMessage());
+            }
+        }
+        programarCompactacion();
+    }
+
+    private void programarCompactacion() {
+        if (!compactando.compareAndSet(false, true))
+            return;
+        COMPACTADOR.execute(() -> {
+            try {
+                compactar();
+            } finally {
+                compactando.set(false);
+            }
+            if (hayBorradosPendientes()) {
+                programarCompactacion();
+            }
+        });
+    }
+
+    private synchronized boolean hayBorradosPendientes() {
+        for (Segmento s : segmentos.values()) {
+            if (!s.borrados.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reescribe ahora, sin las filas borradas, todos los segmentos con lápidas.
+     * Normalmente lo hace el hilo de fondo.
+     */
+    public void compactar() {
+        synchronized (bloqueoCompactacion) {
+            for (String clave : claves()) {
+                compactarSegmento(clave);
+            }
+        }
+    }
+
+    private void compactarSegmento(String clave) {
+        Segmento s;
+        Map<String, Integer> borrados;
+        Path temporal;
+        synchronized (this) {
+            s = segmentos.get(clave);
+            if (s == null || s.borrados.isEmpty())
+                return;
+            temporal = s.datos.resolveSibling(s.datos.getFileName() + ".tmp");
+            if (s == activo) {
+                // El activo se sella y se compacta bajo el monitor para no perder escrituras
+                // nuevas; la siguiente reproducción lo vuelve a abrir
+                sellar();
+                try {
+                    intercambiar(s, copiarSinBorrados(s, s.borrados, temporal), temporal);
+                } catch (IOException | UncheckedIOException e) {
+                    System.out.println("❌ Error compactando segmento " + clave + ": " + e.getMessage());
+                }
+                return;
+            }
+            borrados = new HashMap<>(s.borrados);
+        }
+
+        // Los segmentos sellados se copian fuera del monitor y solo se intercambian dentro
+        Segmento nuevo;
+        try {
+            nuevo = copiarSinBorrados(s, borrados, temporal);
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("❌ Error compactando segmento " + clave + ": " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            try {
+                if (segmentos.get(clave) != s || s == activo || !s.borrados.equals(borrados)) {
+                    // Hubo borrados o escrituras nuevas: se reintenta después
+                    Files.deleteIfExists(temporal);
+                    return;
+                }
+                intercambiar(s, nuevo, temporal);
+            } catch (IOException e) {
+                System.out.println("❌ Error compactando segmento " + clave + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /** Escribe en un archivo temporal el segmento sin las filas borradas */
+    private Segmento copiarSinBorrados(Segmento s, Map<String, Integer> borrados, Path temporal) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+            w.write(encabezado);
+            w.newLine();
+            return filtrar(s, borrados, linea -> {
+                try {
+                    w.write(linea);
+                    w.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reemplaza el segmento por su copia compactada. El reemplazo es atómico: quien
+     * ya estaba leyendo el archivo anterior lo sigue leyendo completo. Debe llamarse
+     * con el monitor tomado.
+     */
+    private void intercambiar(Segmento s, Segmento nuevo, Path temporal) throws IOException {
+        int eliminadas = s.filas - nuevo.filas;
+        if (nuevo.filas == 0) {
+            Files.deleteIfExists(temporal);
+            eliminarArchivos(s);
+            segmentos.remove(s.clave);
+        } else {
+            Files.move(temporal, s.datos, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            reemplazarMeta(s, nuevo);
+        }
+        System.out.println("🧹 Segmento " + s.clave + " compactado: " + eliminadas + " filas eliminadas");
+    }
+
+    /** Recorre el segmento sin las filas borradas y devuelve los metadatos resultantes */
+    private Segmento filtrar(Segmento s, Map<String, Integer> borrados, java.util.function.Consumer<String> destino) {
+        // Quitar filas no agrega valores: alcanza con el tamaño que ya tenían los filtros
+        return filtrar(s, borrados, destino, crearSegmento(s.clave, s.datos,
+                s.usuarios.estimarElementos(), s.canciones.estimarElementos()));
+    }
+
+    private Segmento filtrar(Segmento s, Map<String, Integer> borrados, java.util.function.Consumer<String> destino,
+                             Segmento nuevo) {
+        try (BufferedReader reader = Files.newBufferedReader(s.datos, StandardCharsets.UTF_8)) {
+            reader.readLine(); // cabecera
+            String linea;
+            int fila = -1;
+            while ((linea = reader.readLine()) != null) {
+                fila++;
+                String[] partes = linea.split(",", 4);
+                if (partes.length == 4) {
+                    Integer hasta = borrados.get(partes[0].toLowerCase(Locale.ROOT));
+                    if (hasta != null && fila < hasta) continue;
+                }
+                destino.accept(linea);
+                sumarLinea(nuevo, partes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return nuevo;
+    }
+
+    /** Copia los metadatos compactados y descarta las lápidas ya aplicadas */
+    private void reemplazarMeta(Segmento s, Segmento nuevo) {
+        s.filas = nuevo.filas;
+        s.minimo = nuevo.minimo;
+        s.maximo = nuevo.maximo;
+        s.usuarios = nuevo.usuarios;
+        s.canciones = nuevo.canciones;
+        s.borrados.clear();
+        try {
+            Files.deleteIfExists(rutaHermana(s, EXT_BORRADOS));
+        } catch (IOException e) {
+            System.out.println("❌ Error eliminando lápidas de " + s.clave + ": " + e.getMessage());
+        }
+        guardarMeta(s);
+    }
+
+    // ========================
+    // RETENCIÓN Y LIMPIEZA
+    // ========================
+
+    /**
+     * Define cuánto tiempo se conservan las reproducciones y elimina los segmentos
+     * que quedaron fuera del plazo.
+     *
+     * @param retencion plazo (por ejemplo, {@code Period.ofMonths(12)}), o null para conservar todo
+     * @return fecha de corte en segundos desde 1970 ({@link Long#MIN_VALUE} sin retención)
+     */
+    public synchronized long setRetencion(Period retencion) {
+        this.retencion = retencion;
+        aplicarRetencion();
+        return corteRetencion();
+    }
+
+    /**
+     * @return segundos desde 1970 antes de los cuales no se conservan reproducciones,
+     *         o {@link Long#MIN_VALUE} si no hay retención
+     */
+    public synchronized long corteRetencion() {
+        if (retencion == null)
+            return Long.MIN_VALUE;
+        return HistorialColumnar.segundosDesdeFecha(LocalDate.now().minus(retencion).atStartOfDay());
+    }
+
+    private void aplicarRetencion() {
+        long corte = corteRetencion();
+        Iterator<Segmento> it = segmentos.values().iterator();
+        while (it.hasNext()) {
+            Segmento s = it.next();
+            if (s != activo && s.filas > 0 && s.maximo < corte) {
+                try {
+                    eliminarArchivos(s);
+                    it.remove();
+                    System.out.println("🗑️ Segmento " + s.clave + " eliminado por retención");
+                } catch (IOException e) {
+                    System.out.println("❌ Error eliminando segmento " + s.clave + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Elimina todos los segmentos.
+     */
+    public synchronized void limpiar() {
+        sellar();
+        for (Segmento s : segmentos.values()) {
+            try {
+                eliminarArchivos(s);
+            } catch (IOException e) {
+                System.out.println("❌ Error eliminando segmento " + s.clave + ": " + e.getMessage());
+            }
+        }
+        segmentos.clear();
+    }
+
+    // ========================
+    // METADATOS
+    // ========================
+
+    private void cargarMeta(Segmento s) throws IOException {
+        Path meta = rutaHermana(s, EXT_META);
+        long bytes = Files.size(s.datos);
+        if (Files.exists(meta)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(meta)))) {
+                if (in.readInt() == MAGIA && in.readInt() == VERSION && in.readLong() == bytes) {
+                    s.bytes = bytes;
+                    s.filas = in.readInt();
+                    s.minimo = in.readLong();
+                    s.maximo = in.readLong();
+                    s.usuarios = FiltroBloom.leer(in);
+                    s.canciones = FiltroBloom.leer(in);
+                    return;
+                }
+            } catch (IOException e) {
+                // Metadatos dañados: se regeneran
+            }
+        }
+        reconstruirMeta(s);
+        guardarMeta(s);
+    }
+
+    /** Recorre el segmento completo para recalcular filas, fechas, usuarios y canciones */
+    private void reconstruirMeta(Segmento s) {
+        Segmento nuevo = filtrar(s, Collections.emptyMap(), linea -> { });
+        s.filas = nuevo.filas;
+        s.minimo = nuevo.minimo;
+        s.maximo = nuevo.maximo;
+        s.usuarios = nuevo.usuarios;
+        s.canciones = nuevo.canciones;
+        if (s.saturado()) {
+            redimensionarFiltros(s);
+        }
+    }
+
+    /**
+     * Rehace los filtros del segmento con el tamaño de sus valores distintos reales:
+     * una pasada los cuenta con {@link HyperLogLog} y otra llena los filtros nuevos.
+     * Solo se usa al sellar o reconstruir un segmento cuyos filtros quedaron chicos.
+     */
+    private void redimensionarFiltros(Segmento s) {
+        HyperLogLog usuarios = new HyperLogLog(12);
+        HyperLogLog canciones = new HyperLogLog(12);
+        try (BufferedReader reader = Files.newBufferedReader(s.datos, StandardCharsets.UTF_8)) {
+            reader.readLine(); // cabecera
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                String[] partes = linea.split(",", 4);
+                usuarios.agregar(FiltroBloom.dispersar(partes[0]));
+                if (partes.length >= 3) canciones.agregar(FiltroBloom.dispersar(partes[2]));
+            }
+            Segmento nuevo = filtrar(s, Collections.emptyMap(), l -> { },
+                    crearSegmento(s.clave, s.datos, usuarios.estimar(), canciones.estimar()));
+            s.usuarios = nuevo.usuarios;
+            s.canciones = nuevo.canciones;
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("❌ Error redimensionando filtros de " + s.clave + ": " + e.getMessage());
+        }
+    }
+
+    private static void sumarLinea(Segmento s, String[] partes) {
+        if (partes.length != 4) {
+            s.filas++; // cuenta igual, para que las posiciones de las lápidas coincidan
+            return;
+        }
+        try {
+            s.sumar(partes[0], partes[2], HistorialColumnar.segundosDesdeFecha(partes[1]));
+        } catch (DateTimeParseException e) {
+            s.filas++;
+            s.usuarios.agregar(partes[0]);
+            s.canciones.agregar(partes[2]);
+        }
+    }
+
+    private void guardarMeta(Segmento s) {
+        Path meta = rutaHermana(s, EXT_META);
+        Path temporal = meta.resolveSibling(meta.getFileName() + ".tmp");
+        try {
+            s.bytes = Files.exists(s.datos) ? Files.size(s.datos) : 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+                out.writeInt(MAGIA);
+                out.writeInt(VERSION);
+                out.writeLong(s.bytes);
+                out.writeInt(s.filas);
+                out.writeLong(s.minimo);
+                out.writeLong(s.maximo);
+                s.usuarios.escribir(out);
+                s.canciones.escribir(out);
+            }
+            Files.move(temporal, meta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("❌ Error guardando metadatos de " + s.clave + ": " + e.getMessage());
+        }
+    }
+
+    private void cargarBorrados(Segmento s) throws IOException {
+        Path archivo = rutaHermana(s, EXT_BORRADOS);
+        if (!Files.exists(archivo))
+            return;
+        for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+            int coma = linea.lastIndexOf(',');
+            if (coma <= 0) continue;
+            try {
+                s.borrados.merge(linea.substring(0, coma), Integer.parseInt(linea.substring(coma + 1).trim()), Math::max);
+            } catch (NumberFormatException e) {
+                // línea incompleta de un cierre abrupto
+            }
+        }
+    }
+
+    // ========================
+    // UTILIDADES
+    // ========================
+
+    private Path rutaDatos(String clave) {
+        return directorio.resolve(PREFIJO + clave + EXT_DATOS);
+    }
+
+    private static Path rutaHermana(Segmento s, String extension) {
+        return s.datos.resolveSibling(PREFIJO + s.clave + extension);
+    }
+
+    private static void eliminarArchivos(Segmento s) throws IOException {
+        Files.deleteIfExists(s.datos);
+        Files.deleteIfExists(rutaHermana(s, EXT_META));
+        Files.deleteIfExists(rutaHermana(s, EXT_BORRADOS));
+    }
+
+    /** Flujo que no lee más allá de un largo fijo (lo escrito al momento de abrirlo) */
+    private static class EntradaLimitada extends FilterInputStream {
+        private long restante;
+
+        EntradaLimitada(InputStream entrada, long largo) {
+            super(entrada);
+            this.restante = largo;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (restante <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) restante--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (restante <= 0) return -1;
+            int n = super.read(b, off, (int) Math.min(len, restante));
+            if (n > 0) restante -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.syncup.app.logic;
+
+import com.syncup.app.model.Cancion;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * <h2>Snapshot Binario del Catálogo</h2>
+ * Copia binaria del catálogo y de sus índices más costosos, para arrancar sin
+ * volver a analizar {@code canciones.csv}.
+ *
+ * <h3>Formato (versión {@value #VERSION}):</h3>
+ * <pre>
+ *   Encabezado (40 bytes)
+ *     int   MAGIA ("SYNC")
+ *     int   VERSION
+ *     long  fecha de modificación del CSV
+ *     long  tamaño del CSV
+ *     long  CRC32 del contenido
+ *     long  tamaño del contenido
+ *   Contenido
+ *     diccionario de artistas y de géneros
+ *     filas: título, código de artista, código de género
+ *     BuscadorDifuso: palabras por campo y sus BK-Trees ya construidos
+ * </pre>
+ *
+ * <p>
+ * Al leer, el archivo se mapea en memoria. Si falta, si la versión no coincide, si
+ * el CSV cambió (fecha o tamaño distintos) o si el CRC no cuadra, {@link #cargar}
+ * devuelve {@code null} y la biblioteca vuelve a leer el CSV.
+ * </p>
+ * <p>
+ * Solo se guardan los BK-Trees porque son lo único caro de reconstruir (cada
+ * inserción calcula distancias de Levenshtein); Trie, índice invertido y árbol de
+ * similitud se rellenan en tiempo lineal a partir de las filas.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class SnapshotCatalogo {
+
+    private static final int MAGIA = 0x53594E43;
+    /** Versión del formato; cambiarla invalida los snapshots existentes */
+    public static final int VERSION = 1;
+    private static final int TAMAÑO_ENCABEZADO = 40;
+
+    /**
+     * Contenido restaurado de un snapshot.
+     */
+    public static class Contenido {
+        private final List<Cancion> canciones;
+        private final BuscadorDifuso buscadorDifuso;
+
+        Contenido(List<Cancion> canciones, BuscadorDifuso buscadorDifuso) {
+            this.canciones = canciones;
+            this.buscadorDifuso = buscadorDifuso;
+        }
+
+        /** @return canciones en el orden del catálogo */
+        public List<Cancion> getCanciones() { return canciones; }
+
+        /** @return buscador difuso con sus BK-Trees ya construidos */
+        public BuscadorDifuso getBuscadorDifuso() { return buscadorDifuso; }
+    }
+
+    private SnapshotCatalogo() {
+    }
+
+    // ========================
+    // ESCRITURA
+    // ========================
+
+    /**
+     * Escribe el snapshot asociado al estado actual del CSV.
+     * Se escribe primero en un archivo temporal y luego se reemplaza, para no dejar
+     * nunca un snapshot a medias.
+     *
+     * @param destino ruta del snapshot
+     * @param csv CSV del que proviene el catálogo (se guarda su fecha y tamaño)
+     * @param canciones canciones en el orden del catálogo
+     * @param buscador buscador difuso construido con esas canciones
+     * @throws IOException si falla la escritura
+     */
+    public static void guardar(Path destino, Path csv, List<Cancion> canciones, BuscadorDifuso buscador)
+            throws IOException {
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            canal.position(TAMAÑO_ENCABEZADO);
+
+            CRC32 crc = new CRC32();
+            ContadorSalida contador = new ContadorSalida(
+                    new BufferedOutputStream(Channels.newOutputStream(canal), 1 << 16));
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(contador, crc));
+            escribirContenido(out, canciones, buscador);
+            out.flush();
+
+            ByteBuffer encabezado = ByteBuffer.allocate(TAMAÑO_ENCABEZADO);
+            encabezado.putInt(MAGIA).putInt(VERSION)
+                    .putLong(Files.getLastModifiedTime(csv).toMillis())
+                    .putLong(Files.size(csv))
+                    .putLong(crc.getValue())
+                    .putLong(contador.bytes)
+                    .flip();
+            canal.write(encabezado, 0);
+            canal.force(false);
+        }
+        try {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void escribirContenido(DataOutputStream out, List<Cancion> canciones, BuscadorDifuso buscador)
+            throws IOException {
+        Map<String, Integer> artistas = new LinkedHashMap<>();
+        Map<String, Integer> generos = new LinkedHashMap<>();
+        int[] codArtista = new int[canciones.size()];
+        int[] codGenero = new int[canciones.size()];
+        for (int i = 0; i < canciones.size(); i++) {
+            Cancion c = canciones.get(i);
+            codArtista[i] = artistas.computeIfAbsent(c.getArtista(), a -> artistas.size());
+            codGenero[i] = generos.computeIfAbsent(c.getGenero(), g -> generos.size());
+        }
+        escribirDiccionario(out, artistas.keySet());
+        escribirDiccionario(out, generos.keySet());
+
+        Map<String, Integer> filaPorTitulo = new HashMap<>(canciones.size() * 2);
+        out.writeInt(canciones.size());
+        for (int i = 0; i < canciones.size(); i++) {
+            String titulo = canciones.get(i).getTitulo();
+            escribirTexto(out, titulo);
+            out.writeInt(codArtista[i]);
+            out.writeInt(codGenero[i]);
+            filaPorTitulo.putIfAbsent(titulo, i);
+        }
+
+        buscador.escribir(out, filaPorTitulo);
+    }
+
+    private static void escribirDiccionario(DataOutputStream out, Collection<String> valores) throws IOException {
+        out.writeInt(valores.size());
+        for (String v : valores) {
+            escribirTexto(out, v);
+        }
+    }
+
+    // ========================
+    // LECTURA
+    // ========================
+
+    /**
+     * Restaura el catálogo desde el snapshot si sigue siendo válido para el CSV.
+     *
+     * @param origen ruta del snapshot
+     * @param csv CSV actual del catálogo
+     * @return contenido restaurado, o null si el snapshot falta, es de otra versión,
+     *         está desactualizado o dañado
+     */
+    public static Contenido cargar(Path origen, Path csv) {
+        if (!Files.exists(origen) || !Files.exists(csv))
+            return null;
+
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            if (canal.size() < TAMAÑO_ENCABEZADO || canal.size() > Integer.MAX_VALUE)
+                return null;
+            MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+
+            if (datos.getInt() != MAGIA || datos.getInt() != VERSION)
+                return null;
+            long fecha = datos.getLong();
+            long tamañoCsv = datos.getLong();
+            long crcEsperado = datos.getLong();
+            long largo = datos.getLong();
+
+            if (fecha != Files.getLastModifiedTime(csv).toMillis() || tamañoCsv != Files.size(csv))
+                return null;
+            if (largo != canal.size() - TAMAÑO_ENCABEZADO)
+                return null;
+
+            CRC32 crc = new CRC32();
+            crc.update(datos.duplicate());
+            if (crc.getValue() != crcEsperado)
+                return null;
+
+            return leerContenido(datos);
+
+        } catch (IOException | RuntimeException e) {
+            System.out.println("⚠️ Snapshot del catálogo no válido: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Contenido leerContenido(ByteBuffer in) {
+        String[] artistas = leerDiccionario(in);
+        String[] generos = leerDiccionario(in);
+
+        int filas = in.getInt();
+        String[] titulos = new String[filas];
+        List<Cancion> canciones = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            titulos[i] = leerTexto(in);
+            canciones.add(new Cancion(titulos[i], artistas[in.getInt()], generos[in.getInt()]));
+        }
+
+        return new Contenido(canciones, BuscadorDifuso.leer(in, titulos));
+    }
+
+    private static String[] leerDiccionario(ByteBuffer in) {
+        String[] valores = new String[in.getInt()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = leerTexto(in);
+        }
+        return valores;
+    }
+
+    // ========================
+    // UTILIDADES
+    // ========================
+
+    /** Escribe un texto como longitud en bytes + UTF-8 (null se escribe como -1) */
+    static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        if (texto == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Lee un texto escrito con {@link #escribirTexto(DataOutputStream, String)} */
+    static String leerTexto(ByteBuffer in) {
+        int largo = in.getInt();
+        if (largo < 0)
+            return null;
+        byte[] bytes = new byte[largo];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Cuenta los bytes escritos del contenido */
+    private static class ContadorSalida extends FilterOutputStream {
+        long bytes = 0;
+
+        ContadorSalida(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.syncup.app.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h2>Top Frecuentes (Space-Saving)</h2>
+ * Mantiene en memoria acotada los elementos más frecuentes de un flujo
+ * (canciones, artistas o géneros reproducidos).
+ *
+ * <p>
+ * Implementa el algoritmo Space-Saving de Metwally et al.: se guardan como mucho
+ * {@code capacidad} contadores en un min-heap indexado. Si llega un elemento nuevo
+ * con el heap lleno, reemplaza al de menor conteo y hereda ese conteo como error
+ * máximo. Así, cualquier elemento con frecuencia mayor que N / capacidad está
+ * garantizado en el resumen y su conteo nunca se subestima.
+ * </p>
+ *
+ * <h3>Complejidad:</h3>
+ * <ul>
+ *     <li>Agregar: O(log capacidad)</li>
+ *     <li>Top-K: O(capacidad log capacidad) — no depende del largo del historial</li>
+ * </ul>
+ *
+ * <p>
+ * Con capacidad {@link #SIN_LIMITE} no se descarta ningún contador y los conteos
+ * son exactos; es lo recomendable con catálogos pequeños.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class TopFrecuentes {
+
+    /**
+     * Un elemento del top con su conteo estimado.
+     */
+    public static class Entrada {
+        private final String clave;
+        private final long conteo;
+        private final long error;
+
+        Entrada(String clave, long conteo, long error) {
+            this.clave = clave;
+            this.conteo = conteo;
+            this.error = error;
+        }
+
+        /** @return elemento contado */
+        public String getClave() { return clave; }
+
+        /** @return conteo estimado (nunca menor que el real) */
+        public long getConteo() { return conteo; }
+
+        /** @return sobreestimación máxima del conteo; 0 en modo exacto */
+        public long getError() { return error; }
+    }
+
+    /** Capacidad que desactiva el descarte de contadores (modo exacto) */
+    public static final int SIN_LIMITE = Integer.MAX_VALUE;
+
+    private final int capacidad;
+
+    /** Min-heap indexado por conteo */
+    private String[] claves;
+    private long[] conteos;
+    private long[] errores;
+    private int tamaño = 0;
+    private final Map<String, Integer> posicion = new HashMap<>();
+
+    /**
+     * @param capacidad cantidad máxima de contadores, o {@link #SIN_LIMITE}
+     */
+    public TopFrecuentes(int capacidad) {
+        this.capacidad = Math.max(1, capacidad);
+        int inicial = Math.min(this.capacidad, 64);
+        this.claves = new String[inicial];
+        this.conteos = new long[inicial];
+        this.errores = new long[inicial];
+    }
+
+    // ========================
+    // ACTUALIZACIÓN
+    // ========================
+
+    /**
+     * Cuenta una aparición del elemento.
+     *
+     * @param clave elemento (se ignora si es null)
+     */
+    public void agregar(String clave) {
+        if (clave == null)
+            return;
+
+        Integer i = posicion.get(clave);
+        if (i != null) {
+            conteos[i]++;
+            bajar(i);
+            return;
+        }
+
+        if (tamaño < capacidad) {
+            if (tamaño == claves.length) {
+                int nueva = (int) Math.min(capacidad, claves.length * 2L);
+                claves = Arrays.copyOf(claves, nueva);
+                conteos = Arrays.copyOf(conteos, nueva);
+                errores = Arrays.copyOf(errores, nueva);
+            }
+            int pos = tamaño++;
+            claves[pos] = clave;
+            conteos[pos] = 1;
+            errores[pos] = 0;
+            posicion.put(clave, pos);
+            subir(pos);
+            return;
+        }
+
+        // Lleno: el nuevo elemento reemplaza al mínimo y hereda su conteo como error
+        long minimo = conteos[0];
+        posicion.remove(claves[0]);
+        claves[0] = clave;
+        conteos[0] = minimo + 1;
+        errores[0] = minimo;
+        posicion.put(clave, 0);
+        bajar(0);
+    }
+
+    // ========================
+    // CONSULTAS
+    // ========================
+
+    /**
+     * @param k cantidad de elementos
+     * @return los {@code k} elementos con mayor conteo, de mayor a menor
+     */
+    public List<Entrada> top(int k) {
+        List<Entrada> todas = new ArrayList<>(tamaño);
+        for (int i = 0; i < tamaño; i++) {
+            todas.add(new Entrada(claves[i], conteos[i], errores[i]));
+        }
+        return mejores(todas, k);
+    }
+
+    /**
+     * Combina varios resúmenes (por ejemplo, los periodos de una ventana de tiempo)
+     * y devuelve el top-K del conjunto. Los conteos y errores de un mismo elemento
+     * se suman.
+     *
+     * @param resumenes resúmenes a combinar
+     * @param k cantidad de elementos
+     * @return los {@code k} elementos con mayor conteo combinado
+     */
+    public static List<Entrada> top(Collection<TopFrecuentes> resumenes, int k) {
+        Map<String, long[]> suma = new HashMap<>();
+        for (TopFrecuentes r : resumenes) {
+            for (int i = 0; i < r.tamaño; i++) {
+                long[] v = suma.computeIfAbsent(r.claves[i], c -> new long[2]);
+                v[0] += r.conteos[i];
+                v[1] += r.errores[i];
+            }
+        }
+        List<Entrada> todas = new ArrayList<>(suma.size());
+        suma.forEach((clave, v) -> todas.add(new Entrada(clave, v[0], v[1])));
+        return mejores(todas, k);
+    }
+
+    /** @return cantidad de contadores en uso */
+    public int getTamaño() {
+        return tamaño;
+    }
+
+    private static List<Entrada> mejores(List<Entrada> entradas, int k) {
+        entradas.sort((a, b) -> a.conteo != b.conteo
+                ? Long.compare(b.conteo, a.conteo)
+                : a.clave.compareTo(b.clave));
+        return new ArrayList<>(entradas.subList(0, Math.min(Math.max(0, k), entradas.size())));
+    }
+
+    // ========================
+    // HEAP
+    // ========================
+
+    private void subir(int i) {
+        while (i > 0) {
+            int padre = (i - 1) / 2;
+            if (conteos[padre] <= conteos[i]) break;
+            intercambiar(i, padre);
+            i = padre;
+        }
+    }
+
+    private void bajar(int i) {
+        while (true) {
+            int menor = i;
+            int izq = 2 * i + 1, der = izq + 1;
+            if (izq < tamaño && conteos[izq] < conteos[menor]) menor = izq;
+            if (der < tamaño && conteos[der] < conteos[menor]) menor = der;
+            if (menor == i) return;
+            intercambiar(i, menor);
+            i = menor;
+        }
+    }
+
+    private void intercambiar(int a, int b) {
+        String c = claves[a]; claves[a] = claves[b]; claves[b] = c;
+        long n = conteos[a]; conteos[a] = conteos[b]; conteos[b] = n;
+        long e = errores[a]; errores[a] = errores[b]; errores[b] = e;
+        posicion.put(claves[a], a);
+        posicion.put(claves[b], b);
+    }
+}
@@ -0,0 +1,118 @@
+package com.syncup.app.logic;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <h2>Top de Reproducciones</h2>
+ * Canciones, artistas y géneros más reproducidos, globalmente y en una ventana
+ * de tiempo deslizante, calculados a medida que llegan las reproducciones.
+ *
+ * <p>
+ * Cada dimensión tiene un {@link TopFrecuentes} global y uno por periodo (por
+ * ejemplo, una hora). La ventana conserva los últimos {@code periodos} periodos;
+ * al avanzar el tiempo los más viejos se descartan. Consultar los últimos N
+ * periodos combina solo esos resúmenes, así que la memoria y el costo de consulta
+ * quedan acotados por la capacidad elegida y no por el largo del historial.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class TopReproducciones {
+
+    /** Qué se cuenta */
+    public enum Dimension { CANCION, ARTISTA, GENERO }
+
+    private final int capacidad;
+    private final long segundosPorPeriodo;
+    private final int periodos;
+
+    private final Map<Dimension, TopFrecuentes> global = new EnumMap<>(Dimension.class);
+    /** Periodo (segundos / segundosPorPeriodo) → resúmenes de ese periodo */
+    private final TreeMap<Long, Map<Dimension, TopFrecuentes>> ventana = new TreeMap<>();
+
+    /**
+     * @param capacidad contadores por resumen; {@link TopFrecuentes#SIN_LIMITE} para conteos exactos
+     * @param segundosPorPeriodo duración de cada periodo de la ventana
+     * @param periodos cantidad de periodos que se conservan
+     */
+    public TopReproducciones(int capacidad, long segundosPorPeriodo, int periodos) {
+        this.capacidad = capacidad;
+        this.segundosPorPeriodo = Math.max(1, segundosPorPeriodo);
+        this.periodos = Math.max(1, periodos);
+        limpiar();
+    }
+
+    /**
+     * Cuenta una reproducción.
+     *
+     * @param titulo título de la canción
+     * @param artista artista, o null si no se conoce
+     * @param genero género de la canción
+     * @param segundos instante de la reproducción (segundos desde 1970)
+     */
+    public void sumar(String titulo, String artista, String genero, long segundos) {
+        sumar(global, titulo, artista, genero);
+
+        long periodo = Math.floorDiv(segundos, segundosPorPeriodo);
+        if (!ventana.isEmpty() && periodo <= ventana.lastKey() - periodos)
+            return; // demasiado viejo para la ventana
+        sumar(ventana.computeIfAbsent(periodo, p -> nuevosResumenes()), titulo, artista, genero);
+        while (ventana.firstKey() <= ventana.lastKey() - periodos) {
+            ventana.pollFirstEntry();
+        }
+    }
+
+    private static void sumar(Map<Dimension, TopFrecuentes> resumenes, String titulo, String artista, String genero) {
+        resumenes.get(Dimension.CANCION).agregar(titulo);
+        resumenes.get(Dimension.ARTISTA).agregar(artista);
+        resumenes.get(Dimension.GENERO).agregar(genero);
+    }
+
+    /**
+     * Elimina todos los conteos.
+     */
+    public void limpiar() {
+        global.clear();
+        global.putAll(nuevosResumenes());
+        ventana.clear();
+    }
+
+    private Map<Dimension, TopFrecuentes> nuevosResumenes() {
+        Map<Dimension, TopFrecuentes> m = new EnumMap<>(Dimension.class);
+        for (Dimension d : Dimension.values()) {
+            m.put(d, new TopFrecuentes(capacidad));
+        }
+        return m;
+    }
+
+    /**
+     * @param dimension qué se cuenta
+     * @param k cantidad de elementos
+     * @return top-K de todo el historial
+     */
+    public List<TopFrecuentes.Entrada> top(Dimension dimension, int k) {
+        return global.get(dimension).top(k);
+    }
+
+    /**
+     * Top-K de los periodos que empiezan en {@code desdeSegundos} o después (dentro
+     * de lo que conserva la ventana).
+     *
+     * @param dimension qué se cuenta
+     * @param k cantidad de elementos
+     * @param desdeSegundos inicio de la ventana, en segundos desde 1970
+     * @return top-K de la ventana
+     */
+    public List<TopFrecuentes.Entrada> top(Dimension dimension, int k, long desdeSegundos) {
+        List<TopFrecuentes> resumenes = new ArrayList<>();
+        for (Map<Dimension, TopFrecuentes> p : ventana.tailMap(Math.floorDiv(desdeSegundos, segundosPorPeriodo), true).values()) {
+            resumenes.add(p.get(dimension));
+        }
+        return TopFrecuentes.top(resumenes, k);
+    }
+}
@@ -5,111 +5,338 @@ import java.util.*;
 /**
  * <h2>Trie (Árbol de Prefijos)</h2>
  * Estructura de datos especializada para búsquedas rápidas por prefijo.
- * 
+ *
  * <p>
  * Implementa un árbol de prefijos que permite búsqueda y autocompletado eficiente
- * de canciones, artistas y géneros. Cada nodo almacena referencias a los resultados
- * encontrados en su subárbol.
+ * de canciones, artistas y géneros. Está diseñado para ocupar poca memoria:
  * </p>
- * 
+ * <ul>
+ *     <li>Los hijos de cada nodo se guardan en arreglos ordenados de caracteres
+ *         (búsqueda binaria) en lugar de un {@code HashMap<Character, Nodo>}</li>
+ *     <li>Las referencias (títulos) se internan una sola vez y los nodos guardan
+ *         solo su id entero</li>
+ *     <li>Cada nodo conserva únicamente las {@value #TOP_K} mejores referencias de
+ *         su subárbol, no todas</li>
+ * </ul>
+ * <p>
+ * Cada referencia tiene una puntuación (por ejemplo, su número de reproducciones).
+ * Las listas precalculadas se ordenan por puntuación descendente y, a igualdad,
+ * por orden de inserción; {@link #incrementarPuntuacion(String, long)} las
+ * actualiza de forma incremental recorriendo solo los caminos de esa referencia.
+ * </p>
+ * <p>
+ * {@link #eliminar(String)} quita una referencia recorriendo solo sus caminos. Si
+ * la lista de un nodo estaba llena, puede haber en el subárbol otra referencia que
+ * ahora merece entrar: el nodo queda marcado como incompleto y su lista se repara
+ * la próxima vez que se consulta.
+ * </p>
+ *
  * <h3>Uso en el sistema:</h3>
  * <ul>
  *     <li>Autocompletado en búsquedas de canciones</li>
  *     <li>Búsqueda rápida de artistas y géneros</li>
  *     <li>Sugerencias mientras el usuario escribe</li>
  * </ul>
- * 
+ *
  * <h3>Complejidad:</h3>
  * <ul>
- *     <li>Inserción: O(m) donde m es la longitud de la palabra</li>
- *     <li>Búsqueda: O(m) donde m es la longitud del prefijo</li>
+ *     <li>Inserción: O(m · (log σ + k)) donde m es la longitud de la palabra</li>
+ *     <li>Búsqueda acotada: O(m log σ + límite)</li>
+ *     <li>Búsqueda completa: O(m log σ + tamaño del subárbol)</li>
+ *     <li>Incrementar puntuación: O(m · k) por cada palabra asociada a la referencia</li>
+ *     <li>Eliminación: O(m · k) por cada palabra asociada a la referencia</li>
  * </ul>
- * 
+ *
  * <h3>Ejemplo:</h3>
  * <pre>
  *   Trie trie = new Trie();
  *   trie.insertar("Bohemian Rhapsody", "Bohemian Rhapsody");
  *   trie.insertar("Blinding Lights", "Blinding Lights");
- *   
+ *
  *   List&lt;String&gt; sugerencias = trie.buscarPorPrefijo("Boh");
  *   // Retorna: ["Bohemian Rhapsody"]
  * </pre>
- * 
+ *
  * @author Sistema SyncUp
- * @version 1.0
+ * @version 2.0
  */
 public class Trie {
 
+    /** Cantidad de referencias que cada nodo guarda precalculadas */
+    public static final int TOP_K = 10;
+
+    private static final char[] SIN_ETIQUETAS = new char[0];
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
     /**
      * Nodo interno del Trie.
      * Cada nodo representa un carácter en el árbol.
      */
     private static class Nodo {
-        /** Hijos del nodo (mapa carácter → nodo) */
-        Map<Character, Nodo> hijos = new HashMap<>();
-        /** Indica si este nodo es el final de una palabra completa */
-        boolean esFinDePalabra = false;
-        /** Almacena todas las referencias (títulos) que pasan por este nodo */
-        List<String> resultados = new ArrayList<>();
+        /** Caracteres de los hijos, ordenados */
+        char[] etiquetas = SIN_ETIQUETAS;
+        /** Hijos, en la misma posición que su carácter en {@code etiquetas} */
+        Nodo[] hijos = SIN_HIJOS;
+        int numHijos = 0;
+        /** Ids de referencias cuya palabra termina en este nodo (null si ninguna) */
+        int[] terminales;
+        int numTerminales = 0;
+        /** Mejores ids del subárbol, ordenados por prioridad (null si ninguno) */
+        int[] top;
+        int numTop = 0;
+        /** La lista top perdió un elemento estando llena y debe recalcularse */
+        boolean incompleto = false;
+        /** Nodo padre (null en la raíz) */
+        final Nodo padre;
+
+        Nodo(Nodo padre) {
+            this.padre = padre;
+        }
+
+        Nodo hijo(char c) {
+            int i = Arrays.binarySearch(etiquetas, 0, numHijos, c);
+            return i >= 0 ? hijos[i] : null;
+        }
+
+        Nodo obtenerOCrearHijo(char c) {
+            int i = Arrays.binarySearch(etiquetas, 0, numHijos, c);
+            if (i >= 0) return hijos[i];
+
+            int pos = -(i + 1);
+            if (numHijos == etiquetas.length) {
+                int nueva = Math.max(2, numHijos * 2);
+                etiquetas = Arrays.copyOf(etiquetas, nueva);
+                hijos = Arrays.copyOf(hijos, nueva);
+            }
+            System.arraycopy(etiquetas, pos, etiquetas, pos + 1, numHijos - pos);
+            System.arraycopy(hijos, pos, hijos, pos + 1, numHijos - pos);
+            Nodo nuevo = new Nodo(this);
+            etiquetas[pos] = c;
+            hijos[pos] = nuevo;
+            numHijos++;
+            return nuevo;
+        }
+
+        void quitarHijo(Nodo hijo) {
+            for (int i = 0; i < numHijos; i++) {
+                if (hijos[i] == hijo) {
+                    System.arraycopy(etiquetas, i + 1, etiquetas, i, numHijos - i - 1);
+                    System.arraycopy(hijos, i + 1, hijos, i, numHijos - i - 1);
+                    numHijos--;
+                    hijos[numHijos] = null;
+                    return;
+                }
+            }
+        }
+
+        void quitarTerminal(int id) {
+            for (int i = 0; i < numTerminales; i++) {
+                if (terminales[i] == id) {
+                    terminales[i] = terminales[--numTerminales];
+                    return;
+                }
+            }
+        }
+
+        /** Quita un id de la lista top; devuelve true si la lista estaba llena */
+        boolean quitarTop(int id) {
+            for (int i = 0; i < numTop; i++) {
+                if (top[i] == id) {
+                    boolean llena = numTop == TOP_K;
+                    System.arraycopy(top, i + 1, top, i, numTop - i - 1);
+                    numTop--;
+                    return llena;
+                }
+            }
+            return false;
+        }
+
+        void agregarTerminal(int id) {
+            if (terminales == null) {
+                terminales = new int[1];
+            }
+            for (int i = 0; i < numTerminales; i++) {
+                if (terminales[i] == id) return;
+            }
+            if (numTerminales == terminales.length) {
+                terminales = Arrays.copyOf(terminales, numTerminales * 2);
+            }
+            terminales[numTerminales++] = id;
+        }
     }
 
     /** Raíz del Trie (punto de partida para todas las búsquedas) */
-    private Nodo raiz = new Nodo();
+    private Nodo raiz = new Nodo(null);
+
+    /** Referencia → id interno */
+    private final Map<String, Integer> idsReferencia = new HashMap<>();
+    /** Id interno → referencia */
+    private final List<String> referencias = new ArrayList<>();
+    /** Id interno → nodos donde terminan las palabras asociadas */
+    private final List<Nodo[]> finalesPorReferencia = new ArrayList<>();
+    /** Id interno → puntuación (popularidad) */
+    private long[] puntuaciones = new long[16];
 
     /**
      * Inserta una palabra en el Trie asociada con una referencia.
      * La palabra se divide en caracteres y cada carácter crea o reutiliza un nodo.
-     * La referencia se agrega a todos los nodos del camino.
-     * 
+     * La referencia se ofrece a la lista de mejores referencias de cada nodo del camino.
+     *
      * @param palabra palabra a insertar (se convierte a minúsculas)
      * @param referencia identificador asociado (ej: título de canción)
      */
     public void insertar(String palabra, String referencia) {
-        if (palabra == null || palabra.isEmpty())
+        if (palabra == null || palabra.isEmpty() || referencia == null)
             return;
 
         palabra = palabra.toLowerCase();
+        int id = internar(referencia);
         Nodo actual = raiz;
 
-        for (char c : palabra.toCharArray()) {
-            actual = actual.hijos.computeIfAbsent(c, k -> new Nodo());
+        for (int i = 0; i < palabra.length(); i++) {
+            actual = actual.obtenerOCrearHijo(palabra.charAt(i));
+            ofrecerTop(actual, id);
+        }
+
+        actual.agregarTerminal(id);
+        registrarFinal(id, actual);
+    }
+
+    /**
+     * Incrementa la puntuación de una referencia y reordena las listas de mejores
+     * referencias en los caminos de sus palabras.
+     * Si la referencia no está en el Trie no hace nada.
+     *
+     * @param referencia referencia a promocionar (ej: título reproducido)
+     * @param delta cantidad a sumar (debe ser positiva)
+     */
+    public void incrementarPuntuacion(String referencia, long delta) {
+        if (referencia == null || delta <= 0)
+            return;
+        Integer id = idsReferencia.get(referencia);
+        if (id == null)
+            return;
+
+        puntuaciones[id] += delta;
+        for (Nodo fin : finalesPorReferencia.get(id)) {
+            for (Nodo n = fin; n != null && n != raiz; n = n.padre) {
+                ofrecerTop(n, id);
+            }
+        }
+    }
+
+    /**
+     * Elimina una referencia y todas sus palabras del Trie.
+     *
+     * <p>
+     * Solo recorre los caminos de las palabras de la referencia: la quita de los
+     * nodos terminales y de las listas de mejores referencias, y poda los nodos que
+     * quedan sin palabras ni hijos. Si no existe no hace nada.
+     * </p>
+     *
+     * @param referencia referencia a eliminar (ej: título de canción)
+     */
+    public void eliminar(String referencia) {
+        if (referencia == null)
+            return;
+        Integer id = idsReferencia.remove(referencia);
+        if (id == null)
+            return;
 
-            // Se agrega la referencia (título) a todos los nodos del camino
-            if (!actual.resultados.contains(referencia)) {
-                actual.resultados.add(referencia);
+        for (Nodo fin : finalesPorReferencia.get(id)) {
+            fin.quitarTerminal(id);
+            Nodo n = fin;
+            while (n != raiz) {
+                if (n.quitarTop(id)) {
+                    n.incompleto = true;
+                }
+                Nodo padre = n.padre;
+                if (n.numTerminales == 0 && n.numHijos == 0) {
+                    padre.quitarHijo(n);
+                }
+                n = padre;
             }
         }
 
-        actual.esFinDePalabra = true;
+        // El id queda libre: no se reutiliza para no confundir listas antiguas
+        referencias.set(id, null);
+        finalesPorReferencia.set(id, new Nodo[0]);
+        puntuaciones[id] = 0;
+    }
+
+    /**
+     * Obtiene la puntuación actual de una referencia.
+     *
+     * @param referencia referencia a consultar
+     * @return puntuación, 0 si la referencia no existe
+     */
+    public long getPuntuacion(String referencia) {
+        Integer id = referencia != null ? idsReferencia.get(referencia) : null;
+        return id != null ? puntuaciones[id] : 0;
     }
 
     /**
      * Busca todas las palabras que comienzan con un prefijo dado.
-     * 
+     *
      * <p>
-     * Navega por el árbol siguiendo los caracteres del prefijo.
-     * Una vez alcanzado el nodo del prefijo, retorna todos los resultados
-     * almacenados en ese nodo (que incluyen palabras que comienzan con ese prefijo).
+     * Navega por el árbol siguiendo los caracteres del prefijo y luego recorre el
+     * subárbol recogiendo las referencias terminales, sin repetir y en orden de
+     * primera inserción.
      * </p>
-     * 
+     *
      * @param prefijo cadena de búsqueda (se convierte a minúsculas)
      * @return lista de referencias que coinciden con el prefijo, lista vacía si no hay coincidencias
      */
     public List<String> buscarPorPrefijo(String prefijo) {
-        if (prefijo == null || prefijo.isEmpty())
+        Nodo nodo = buscarNodo(prefijo);
+        if (nodo == null)
             return List.of();
 
-        prefijo = prefijo.toLowerCase();
-        Nodo actual = raiz;
+        int[] ids = recolectarIds(nodo);
+        List<String> resultado = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            resultado.add(referencias.get(id));
+        }
+        return resultado;
+    }
 
-        for (char c : prefijo.toCharArray()) {
-            if (!actual.hijos.containsKey(c))
-                return List.of(); // No existe ese prefijo
-            actual = actual.hijos.get(c);
+    /**
+     * Busca como máximo {@code limite} referencias que comienzan con un prefijo.
+     *
+     * <p>
+     * Los resultados se ordenan por puntuación descendente. Si el límite no supera
+     * {@value #TOP_K}, la respuesta sale directamente de la lista precalculada del
+     * nodo sin recorrer el subárbol.
+     * </p>
+     *
+     * @param prefijo cadena de búsqueda (se convierte a minúsculas)
+     * @param limite número máximo de resultados
+     * @return lista de referencias que coinciden con el prefijo
+     */
+    public List<String> buscarPorPrefijo(String prefijo, int limite) {
+        if (limite <= 0)
+            return List.of();
+        Nodo nodo = buscarNodo(prefijo);
+        if (nodo == null)
+            return List.of();
+
+        List<String> resultado = new ArrayList<>(Math.min(limite, TOP_K));
+        if (limite <= TOP_K) {
+            if (nodo.incompleto) {
+                repararTop(nodo);
+            }
+            for (int i = 0; i < nodo.numTop && i < limite; i++) {
+                resultado.add(referencias.get(nodo.top[i]));
+            }
+            return resultado;
         }
 
-        // Las coincidencias ya están prealmacenadas en este nodo
-        return new ArrayList<>(actual.resultados);
+        Integer[] ids = Arrays.stream(recolectarIds(nodo)).boxed().toArray(Integer[]::new);
+        Arrays.sort(ids, (a, b) -> antes(a, b) ? -1 : (antes(b, a) ? 1 : 0));
+        for (int i = 0; i < ids.length && i < limite; i++) {
+            resultado.add(referencias.get(ids[i]));
+        }
+        return resultado;
     }
 
     /**
@@ -117,7 +344,133 @@ public class Trie {
      * Se utiliza cuando es necesario reconstruir el Trie desde cero.
      */
     public void clear() {
-        raiz = new Nodo();
+        raiz = new Nodo(null);
+        idsReferencia.clear();
+        referencias.clear();
+        finalesPorReferencia.clear();
+        puntuaciones = new long[16];
     }
-}
 
+    // ========================
+    // AUXILIARES
+    // ========================
+
+    private int internar(String referencia) {
+        Integer id = idsReferencia.get(referencia);
+        if (id != null) return id;
+        int nuevo = referencias.size();
+        referencias.add(referencia);
+        idsReferencia.put(referencia, nuevo);
+        finalesPorReferencia.add(new Nodo[0]);
+        if (nuevo == puntuaciones.length) {
+            puntuaciones = Arrays.copyOf(puntuaciones, nuevo * 2);
+        }
+        return nuevo;
+    }
+
+    private void registrarFinal(int id, Nodo fin) {
+        Nodo[] finales = finalesPorReferencia.get(id);
+        for (Nodo n : finales) {
+            if (n == fin) return;
+        }
+        Nodo[] nuevos = Arrays.copyOf(finales, finales.length + 1);
+        nuevos[finales.length] = fin;
+        finalesPorReferencia.set(id, nuevos);
+    }
+
+    private Nodo buscarNodo(String prefijo) {
+        if (prefijo == null || prefijo.isEmpty())
+            return null;
+
+        prefijo = prefijo.toLowerCase();
+        Nodo actual = raiz;
+        for (int i = 0; i < prefijo.length() && actual != null; i++) {
+            actual = actual.hijo(prefijo.charAt(i));
+        }
+        return actual;
+    }
+
+    /**
+     * Recorre el subárbol y devuelve los ids terminales sin repetir, en orden de
+     * primera inserción.
+     */
+    private int[] recolectarIds(Nodo nodo) {
+        int[] ids = new int[16];
+        int n = 0;
+        Deque<Nodo> pila = new ArrayDeque<>();
+        pila.push(nodo);
+        while (!pila.isEmpty()) {
+            Nodo actual = pila.pop();
+            for (int i = 0; i < actual.numTerminales; i++) {
+                if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+                ids[n++] = actual.terminales[i];
+            }
+            for (int i = 0; i < actual.numHijos; i++) {
+                pila.push(actual.hijos[i]);
+            }
+        }
+
+        Arrays.sort(ids, 0, n);
+        int unicos = 0;
+        for (int i = 0; i < n; i++) {
+            if (unicos == 0 || ids[unicos - 1] != ids[i]) {
+                ids[unicos++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unicos);
+    }
+
+    /**
+     * Ofrece un id a la lista de mejores referencias de un nodo.
+     * La lista se mantiene ordenada y con a lo sumo {@value #TOP_K} elementos.
+     * Si el id ya estaba en la lista, se reubica según su puntuación actual.
+     */
+    private void ofrecerTop(Nodo nodo, int id) {
+        if (nodo.top == null) {
+            nodo.top = new int[2];
+        }
+        int pos = -1;
+        for (int i = 0; i < nodo.numTop; i++) {
+            if (nodo.top[i] == id) {
+                pos = i;
+                break;
+            }
+        }
+        if (pos < 0) {
+            if (nodo.numTop == TOP_K && !antes(id, nodo.top[TOP_K - 1])) {
+                return;
+            }
+            if (nodo.numTop < TOP_K) {
+                if (nodo.numTop == nodo.top.length) {
+                    nodo.top = Arrays.copyOf(nodo.top, Math.min(TOP_K, nodo.numTop * 2));
+                }
+                nodo.numTop++;
+            }
+            pos = nodo.numTop - 1;
+        }
+        while (pos > 0 && antes(id, nodo.top[pos - 1])) {
+            nodo.top[pos] = nodo.top[pos - 1];
+            pos--;
+        }
+        nodo.top[pos] = id;
+    }
+
+    /**
+     * Recalcula la lista top de un nodo marcado como incompleto recorriendo su subárbol.
+     */
+    private void repararTop(Nodo nodo) {
+        nodo.numTop = 0;
+        for (int id : recolectarIds(nodo)) {
+            ofrecerTop(nodo, id);
+        }
+        nodo.incompleto = false;
+    }
+
+    /** Prioridad entre referencias: mayor puntuación primero; a igualdad, la insertada primero */
+    private boolean antes(int a, int b) {
+        if (puntuaciones[a] != puntuaciones[b]) {
+            return puntuaciones[a] > puntuaciones[b];
+        }
+        return a < b;
+    }
+}
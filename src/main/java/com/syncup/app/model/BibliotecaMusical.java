@@ -2,14 +2,30 @@ package com.syncup.app.model;
 
 import com.syncup.app.logic.Trie;
 import com.syncup.app.model.Cancion;
+import com.syncup.app.model.estructuras.CatalogoColumnar;
 import com.syncup.app.model.estructuras.ListaCanciones;
 import com.syncup.app.logic.ArbolSimilitud;
-import com.syncup.app.logic.BKTree;
+import com.syncup.app.logic.BuscadorDifuso;
+import com.syncup.app.logic.CargadorCatalogo;
+import com.syncup.app.logic.IndiceInvertido;
+import com.syncup.app.logic.RegistroCambiosCatalogo;
+import com.syncup.app.logic.SnapshotCatalogo;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * <h2>BibliotecaMusical</h2>
@@ -20,17 +36,19 @@ import java.util.List;
  * <ul>
  *     <li>Carga y persistencia de canciones desde/hacia CSV</li>
  *     <li>Búsqueda rápida por título</li>
- *     <li>Autocompletado mediante TRIE</li>
+ *     <li>Autocompletado mediante TRIE, ordenado por popularidad</li>
  *     <li>Recomendaciones de canciones similares usando árbol de similitud</li>
- *     <li>Búsqueda fuzzy mediante BK-Tree</li>
+ *     <li>Búsqueda fuzzy por palabras mediante BK-Trees por campo</li>
+ *     <li>Búsqueda de texto completo con BM25, tolerante a errores ({@link #buscar(String, int)})</li>
  * </ul>
  * <p>
  * <b>Estructuras de indexación:</b>
  * </p>
  * <ul>
- *     <li><b>ListaCanciones</b>: almacenamiento principal</li>
+ *     <li><b>ListaCanciones</b>: almacenamiento principal (columnar por defecto)</li>
  *     <li><b>Trie</b>: para autocompletado rápido</li>
- *     <li><b>BKTree</b>: para búsqueda de similares por distancia Levenshtein</li>
+ *     <li><b>IndiceInvertido</b>: búsqueda de texto completo con puntuación BM25</li>
+ *     <li><b>BuscadorDifuso</b>: BK-Trees de palabras por campo (distancia Levenshtein)</li>
  *     <li><b>ArbolSimilitud</b>: para recomendaciones por género/artista</li>
  * </ul>
  * 
@@ -41,69 +59,208 @@ public class BibliotecaMusical {
 
     /** Almacenamiento principal de canciones */
     private final ListaCanciones canciones;
+    /** Carpeta de datos por defecto */
+    private static final Path CARPETA_DATOS = Paths.get("src/main/resources/data");
     /** Ruta del archivo CSV de canciones */
-    private static final String CSV_PATH = "src/main/resources/data/canciones.csv";
+    private final Path csvPath;
+    /** Ruta del snapshot binario del catálogo (se regenera, no se versiona) */
+    private final Path snapshotPath;
+    /** Entradas del registro a partir de las cuales se compacta en el CSV base */
+    private static final int COMPACTAR_CADA = 500;
+    /** Hilo de fondo para compactar; es daemon para no impedir el cierre de la app */
+    private static final ExecutorService COMPACTADOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "compactador-catalogo");
+        t.setDaemon(true);
+        return t;
+    });
     /** Índice de prefijos para autocompletado */
     private final Trie trie = new Trie();
-    /** Árbol BK para búsqueda de similares */
-    private final BKTree bkTree = new BKTree();
+    /** Índice invertido con BM25 para la búsqueda de texto completo */
+    private final IndiceInvertido indiceInvertido = new IndiceInvertido();
+    /** BK-Trees de palabras por campo, para la búsqueda tolerante a errores */
+    private BuscadorDifuso buscadorDifuso = new BuscadorDifuso();
     /** Árbol de similitud por género/artista */
     private final ArbolSimilitud arbolSimilitud = new ArbolSimilitud();
+    /** Reproducciones por título, usadas para ordenar las sugerencias */
+    private final Map<String, Long> popularidad = new HashMap<>();
+    /** Cambios del catálogo aún no incluidos en el CSV base ({@code canciones.log}) */
+    private final RegistroCambiosCatalogo registro;
+    /** Evita programar una compactación mientras otra sigue en curso */
+    private final AtomicBoolean compactando = new AtomicBoolean(false);
+    /** Serializa las reescrituras del CSV base */
+    private final Object escrituraBase = new Object();
 
     /**
      * Constructor por defecto.
-     * Inicializa las estructuras de datos y carga las canciones desde CSV.
+     * Inicializa las estructuras de datos en modo columnar y carga las canciones desde CSV.
      */
     public BibliotecaMusical() {
-        this.canciones = new ListaCanciones();
-        cargarDesdeCSV();
+        this(true);
     }
 
     /**
-     * Carga todas las canciones desde el archivo CSV al iniciar.
-     * También indexa las canciones en los árboles de búsqueda (Trie, BK-Tree, ArbolSimilitud).
+     * Crea la biblioteca eligiendo la representación del catálogo.
+     * <p>
+     * En modo columnar los datos se guardan en un {@link CatalogoColumnar}
+     * (artista y género codificados con diccionario) y los llamadores reciben
+     * copias de Cancion; en modo clásico se guarda cada objeto Cancion.
+     * </p>
+     *
+     * @param columnar {@code true} para usar el catálogo columnar
      */
-    private void cargarDesdeCSV() {
-        File archivo = new File(CSV_PATH);
-        if (!archivo.exists()) {
-            crearArchivoInicial();
+    public BibliotecaMusical(boolean columnar) {
+        this(columnar, CARPETA_DATOS);
+    }
+
+    /**
+     * Crea la biblioteca sobre otra carpeta de datos, con su propio
+     * {@code canciones.csv}, snapshot y registro de cambios.
+     *
+     * @param columnar {@code true} para usar el catálogo columnar
+     * @param carpeta carpeta de los archivos del catálogo (debe existir)
+     */
+    public BibliotecaMusical(boolean columnar, Path carpeta) {
+        this.csvPath = carpeta.resolve("canciones.csv");
+        this.snapshotPath = carpeta.resolve("canciones.snapshot");
+        this.registro = new RegistroCambiosCatalogo(carpeta.resolve("canciones.log"));
+        this.canciones = columnar ? new ListaCanciones(new CatalogoColumnar()) : new ListaCanciones();
+        if (!cargarDesdeSnapshot()) {
+            cargarDesdeCSV();
+            guardarSnapshot(canciones.aLista(), buscadorDifuso);
         }
+        aplicarRegistro();
+    }
+
+    /**
+     * Vuelve a aplicar sobre el catálogo base las altas y bajas del registro de cambios.
+     * <p>
+     * Como {@link #agregarCancion} no registra títulos repetidos, un alta cuyo título
+     * ya existe solo puede venir del CSV base, y la reaplicación es idempotente: esa
+     * alta se ignora y una
+     * baja de un título inexistente no hace nada. Así, si la app se cerró entre la
+     * reescritura del CSV y el recorte del registro, no se duplican canciones.
+     * </p>
+     */
+    private void aplicarRegistro() {
+        List<String[]> entradas = registro.leer();
+        for (String[] e : entradas) {
+            if (RegistroCambiosCatalogo.ALTA.equals(e[0])) {
+                if (!canciones.contieneTitulo(e[1])) {
+                    canciones.agregarAlFinal(new Cancion(e[1], e[2], e[3]));
+                    indexar(ultimaAgregada());
+                }
+            } else {
+                quitar(e[1]);
+            }
+        }
+        if (!entradas.isEmpty()) {
+            System.out.println("🔁 Cambios del registro aplicados: " + entradas.size());
+            compactarSiHaceFalta();
+        }
+    }
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(CSV_PATH), StandardCharsets.UTF_8))) {
+    /**
+     * Restaura el catálogo desde el snapshot binario si sigue vigente para el CSV.
+     * Los BK-Trees se recuperan tal cual; el resto de índices se rellenan en paralelo.
+     *
+     * @return true si se pudo usar el snapshot
+     */
+    private boolean cargarDesdeSnapshot() {
+        long inicio = System.nanoTime();
+        SnapshotCatalogo.Contenido snapshot = SnapshotCatalogo.cargar(snapshotPath, csvPath);
+        if (snapshot == null)
+            return false;
+
+        for (Cancion c : snapshot.getCanciones()) {
+            canciones.agregarAlFinal(c);
+        }
+        buscadorDifuso = snapshot.getBuscadorDifuso();
+        construirIndices(false);
 
-            String linea;
-            reader.readLine(); // Saltar encabezado
+        System.out.printf("⚡ Biblioteca restaurada desde snapshot. Total: %d (%.0f ms)%n",
+                canciones.getTamaño(), (System.nanoTime() - inicio) / 1e6);
+        return true;
+    }
 
-            while ((linea = reader.readLine()) != null) {
-                String[] partes = linea.split(",", -1);
-                if (partes.length >= 3) {
-                    Cancion c = new Cancion(partes[0].trim(), partes[1].trim(), partes[2].trim());
-                    canciones.agregarAlFinal(c);
-                    arbolSimilitud.insertar(c);
+    /**
+     * Escribe el snapshot binario de un catálogo igual al CSV base.
+     * Debe llamarse después de guardar el CSV, cuya fecha y tamaño quedan registrados.
+     *
+     * @param base canciones tal como están en el CSV base
+     * @param buscador buscador difuso construido con esas mismas canciones
+     */
+    private void guardarSnapshot(List<Cancion> base, BuscadorDifuso buscador) {
+        try {
+            SnapshotCatalogo.guardar(snapshotPath, csvPath, base, buscador);
+        } catch (IOException e) {
+            System.out.println("⚠️ No se pudo guardar el snapshot del catálogo: " + e.getMessage());
+        }
+    }
 
-                    // TRIE para autocompletado
-                    trie.insertar(c.getTitulo(), c.getTitulo());
-                    trie.insertar(c.getArtista(), c.getTitulo());
-                    trie.insertar(c.getGenero(), c.getTitulo());
+    /**
+     * Carga todas las canciones desde el archivo CSV al iniciar.
+     * <p>
+     * El archivo se analiza en paralelo con {@link CargadorCatalogo}; luego las
+     * canciones se agregan al catálogo en orden y los índices (Trie, índice
+     * invertido, BK-Trees y ArbolSimilitud) se construyen a la vez, cada uno en
+     * su propia tarea. Como en {@link #agregarCancion}, una canción cuyo título ya
+     * está en el catálogo se ignora (gana la primera).
+     * </p>
+     */
+    private void cargarDesdeCSV() {
+        File archivo = csvPath.toFile();
+        if (!archivo.exists()) {
+            crearArchivoInicial();
+        }
 
-                    // BK-Tree para similitud
-                    bkTree.insertar(construirClave(c), c.getTitulo());
+        try {
+            long inicio = System.nanoTime();
+            int repetidas = 0;
+            for (Cancion c : new CargadorCatalogo().leer(archivo.toPath())) {
+                if (canciones.contieneTitulo(c.getTitulo())) {
+                    repetidas++;
+                    continue;
                 }
+                canciones.agregarAlFinal(c);
+            }
+            if (repetidas > 0) {
+                System.out.println("⚠️ Canciones con título repetido ignoradas: " + repetidas);
             }
+            construirIndices(true);
 
-            System.out.println("✅ Biblioteca cargada correctamente. Total: " + canciones.getTamaño());
+            double segundos = Math.max(1e-9, (System.nanoTime() - inicio) / 1e9);
+            System.out.printf("✅ Biblioteca cargada correctamente. Total: %d (%.0f ms, %.0f filas/s)%n",
+                    canciones.getTamaño(), segundos * 1000, canciones.getTamaño() / segundos);
 
         } catch (IOException e) {
             System.out.println("⚠️ No se pudo cargar el CSV: " + e.getMessage());
         }
     }
 
+    /**
+     * Construye todos los índices a partir del catálogo ya cargado.
+     * Cada índice es independiente de los demás, así que se llena en paralelo en
+     * una tarea propia (cada estructura la escribe un solo hilo).
+     *
+     * @param incluirDifuso false si el buscador difuso ya viene restaurado del snapshot
+     */
+    private void construirIndices(boolean incluirDifuso) {
+        List<Cancion> todas = canciones.aLista();
+        List<CompletableFuture<Void>> tareas = new ArrayList<>();
+        tareas.add(CompletableFuture.runAsync(() -> todas.forEach(this::indexarEnTrie)));
+        tareas.add(CompletableFuture.runAsync(() -> todas.forEach(indiceInvertido::indexar)));
+        tareas.add(CompletableFuture.runAsync(() -> todas.forEach(arbolSimilitud::insertar)));
+        if (incluirDifuso) {
+            tareas.add(CompletableFuture.runAsync(() -> todas.forEach(buscadorDifuso::indexar)));
+        }
+        CompletableFuture.allOf(tareas.toArray(CompletableFuture<?>[]::new)).join();
+    }
+
     /**
      * Si no existe el archivo canciones.csv, crea uno con algunas canciones base.
      */
     private void crearArchivoInicial() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(CSV_PATH))) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(csvPath.toFile()))) {
             writer.write("titulo,artista,genero\n");
             writer.write("Shape of You,Ed Sheeran,Pop\n");
             writer.write("Blinding Lights,The Weeknd,Synthwave\n");
@@ -116,54 +273,148 @@ public class BibliotecaMusical {
         }
     }
 
-    // Clave de similitud para el BK-Tree: título + artista + género
     /**
-     * Construye una clave para indexar en BK-Tree.
-     * La clave es la combinación de título + artista + género en minúsculas.
-     * 
-     * @param c canción
-     * @return clave de similitud
+     * Indexa una canción ya almacenada en todos los árboles de búsqueda.
+     *
+     * @param c canción tal como quedó guardada en la lista
      */
-    private String construirClave(Cancion c) {
-        String t = c.getTitulo() != null ? c.getTitulo() : "";
-        String a = c.getArtista() != null ? c.getArtista() : "";
-        String g = c.getGenero() != null ? c.getGenero() : "";
-        return (t + " " + a + " " + g).toLowerCase();
+    private void indexar(Cancion c) {
+        arbolSimilitud.insertar(c);
+
+        // TRIE para autocompletado
+        indexarEnTrie(c);
+
+        // Índice invertido (BM25) y BK-Trees de palabras para búsqueda fuzzy
+        indiceInvertido.indexar(c);
+        buscadorDifuso.indexar(c);
+    }
+
+    /** Indexa título, artista y género de la canción en el Trie, apuntando al título */
+    private void indexarEnTrie(Cancion c) {
+        trie.insertar(c.getTitulo(), c.getTitulo());
+        trie.insertar(c.getArtista(), c.getTitulo());
+        trie.insertar(c.getGenero(), c.getTitulo());
     }
 
     /**
-     * Guarda todas las canciones actuales en el archivo CSV.
+     * Guarda todas las canciones actuales en el archivo CSV de inmediato.
+     * El CSV pasa a incluir todos los cambios, así que el registro queda vacío.
      */
     public void guardarEnCSV() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(CSV_PATH, false))) {
+        compactar(copiaCatalogo(), registro.getPendientes());
+    }
+
+    /**
+     * Agrega una nueva canción a la biblioteca global.
+     * La canción se indexa automáticamente en todos los árboles de búsqueda y se
+     * anota en el registro de cambios (una línea) en lugar de reescribir el CSV.
+     * <p>
+     * El título identifica a la canción (sin distinguir mayúsculas), así que no se
+     * admite un segundo alta con un título existente: la reaplicación del registro
+     * al arrancar la ignoraría y la canción se perdería al reiniciar.
+     * </p>
+     * 
+     * @param c canción a agregar
+     * @return true si se agregó, false si es null o su título ya existe
+     */
+    public boolean agregarCancion(Cancion c) {
+        if (c == null || canciones.contieneTitulo(c.getTitulo()))
+            return false;
+        canciones.agregarAlFinal(c);
+        Cancion almacenada = ultimaAgregada();
+        indexar(almacenada);
+        registro.registrarAlta(almacenada.getTitulo(), almacenada.getArtista(), almacenada.getGenero());
+        compactarSiHaceFalta();
+        return true;
+    }
+
+    // ===== COMPACTACIÓN DEL REGISTRO =====
+
+    /**
+     * Si el registro acumuló suficientes cambios, programa en segundo plano su
+     * compactación en el CSV base. La copia del catálogo y el corte del registro se
+     * toman aquí, en el hilo que modifica el catálogo, para que sean coherentes.
+     */
+    private void compactarSiHaceFalta() {
+        if (registro.getPendientes() < COMPACTAR_CADA || !compactando.compareAndSet(false, true))
+            return;
+
+        List<Cancion> copia = copiaCatalogo();
+        int corte = registro.getPendientes();
+        COMPACTADOR.execute(() -> {
+            try {
+                compactar(copia, corte);
+            } finally {
+                compactando.set(false);
+            }
+        });
+    }
+
+    /**
+     * Reescribe el CSV base con la copia del catálogo, descarta del registro las
+     * entradas incluidas en ella y regenera el snapshot para el nuevo CSV.
+     *
+     * @param copia canciones del catálogo en el momento del corte
+     * @param corte líneas del registro incluidas en la copia
+     */
+    private void compactar(List<Cancion> copia, int corte) {
+        synchronized (escrituraBase) {
+            if (!escribirCSV(copia))
+                return;
+            registro.descartarPrimeras(corte);
+
+            BuscadorDifuso buscador = new BuscadorDifuso();
+            copia.forEach(buscador::indexar);
+            guardarSnapshot(copia, buscador);
+        }
+    }
+
+    /**
+     * Escribe las canciones en un CSV temporal y lo mueve sobre el CSV base.
+     *
+     * @param lista canciones a escribir
+     * @return true si se pudo escribir
+     */
+    private boolean escribirCSV(List<Cancion> lista) {
+        Path destino = csvPath;
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
             writer.write("titulo,artista,genero\n");
-            for (int i = 0; i < canciones.getTamaño(); i++) {
-                Cancion c = canciones.obtenerPorIndice(i);
+            for (Cancion c : lista) {
                 writer.write(c.getTitulo() + "," + c.getArtista() + "," + c.getGenero() + "\n");
             }
+        } catch (IOException e) {
+            System.out.println("❌ Error al guardar CSV: " + e.getMessage());
+            return false;
+        }
+        try {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
             System.out.println("💾 Biblioteca guardada correctamente en CSV.");
+            return true;
         } catch (IOException e) {
             System.out.println("❌ Error al guardar CSV: " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Agrega una nueva canción a la biblioteca global.
-     * La canción se indexa automáticamente en todos los árboles de búsqueda.
-     * 
-     * @param c canción a agregar
+     * Copia independiente del catálogo, segura para leerla desde otro hilo.
      */
-    public void agregarCancion(Cancion c) {
-        if (c == null)
-            return;
-        canciones.agregarAlFinal(c);
-        trie.insertar(c.getTitulo(), c.getTitulo());
-        trie.insertar(c.getArtista(), c.getTitulo());
-        trie.insertar(c.getGenero(), c.getTitulo());
-        bkTree.insertar(construirClave(c), c.getTitulo());
-        guardarEnCSV();
-        arbolSimilitud.insertar(c);
+    private List<Cancion> copiaCatalogo() {
+        List<Cancion> copia = new ArrayList<>(canciones.getTamaño());
+        for (int i = 0; i < canciones.getTamaño(); i++) {
+            Cancion c = canciones.obtenerPorIndice(i);
+            copia.add(new Cancion(c.getTitulo(), c.getArtista(), c.getGenero()));
+        }
+        return copia;
+    }
 
+    /**
+     * Devuelve la canción recién agregada tal como quedó almacenada
+     * (una copia armada desde las columnas en modo columnar).
+     */
+    private Cancion ultimaAgregada() {
+        return canciones.obtenerPorIndice(canciones.getTamaño() - 1);
     }
 
     /**
@@ -176,6 +427,131 @@ public class BibliotecaMusical {
         return trie.buscarPorPrefijo(prefijo);
     }
 
+    /**
+     * Obtiene las {@code limite} sugerencias más reproducidas para un prefijo.
+     * Con límites pequeños la respuesta sale de las listas precalculadas del Trie,
+     * sin recorrer el catálogo.
+     *
+     * @param prefijo inicio de la búsqueda
+     * @param limite número máximo de sugerencias
+     * @return títulos ordenados por número de reproducciones
+     */
+    public List<String> sugerir(String prefijo, int limite) {
+        return trie.buscarPorPrefijo(prefijo, limite);
+    }
+
+    /**
+     * Búsqueda de texto completo tolerante a errores tipográficos.
+     *
+     * <p>
+     * Combina dos fuentes y devuelve cada canción una sola vez:
+     * </p>
+     * <ol>
+     *     <li>El {@link IndiceInvertido}: palabras exactas (sin tildes) y la última
+     *         palabra como prefijo, con puntuación BM25 ponderada por campo</li>
+     *     <li>El {@link BuscadorDifuso}: palabras parecidas, con la suma de sus
+     *         distancias de Levenshtein</li>
+     * </ol>
+     * <p>
+     * El resultado se ordena por palabras de la consulta sin cubrir, luego por
+     * puntuación BM25, luego por distancia y, a igualdad, por número de
+     * reproducciones. Los títulos se resuelven a canciones con el índice hash de
+     * la lista, sin recorrer el catálogo.
+     * </p>
+     *
+     * @param consulta texto escrito por el usuario
+     * @param limite número máximo de resultados
+     * @return canciones ordenadas por relevancia
+     */
+    public List<Cancion> buscar(String consulta, int limite) {
+        List<Cancion> resultado = new ArrayList<>();
+        if (consulta == null || consulta.isBlank() || limite <= 0)
+            return resultado;
+
+        String q = consulta.trim().toLowerCase();
+        Map<String, Relevancia> relevancias = new HashMap<>();
+        Comparator<String> porPopularidad = Comparator
+                .comparing((String t) -> popularidad.getOrDefault(t, 0L), Comparator.reverseOrder())
+                .thenComparing(Comparator.naturalOrder());
+
+        for (IndiceInvertido.Resultado r : indiceInvertido.buscar(q, limite, porPopularidad)) {
+            relevancias.put(r.getTitulo(), new Relevancia(r.getPalabrasFaltantes(), r.getPuntaje(), 0));
+        }
+        for (BuscadorDifuso.Resultado r : buscadorDifuso.buscar(q, limite, porPopularidad)) {
+            Relevancia nueva = new Relevancia(r.getPalabrasFaltantes(), 0, r.getDistancia());
+            relevancias.merge(r.getTitulo(), nueva, Relevancia::mejor);
+        }
+
+        List<String> titulos = new ArrayList<>(relevancias.keySet());
+        titulos.sort(Comparator
+                .comparing((String t) -> relevancias.get(t))
+                .thenComparing(porPopularidad));
+
+        for (String titulo : titulos) {
+            Cancion c = canciones.buscarPorTitulo(titulo);
+            if (c != null) {
+                resultado.add(c);
+                if (resultado.size() >= limite)
+                    break;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Relevancia de un título en {@link #buscar(String, int)}: menos palabras
+     * faltantes, mayor puntuación BM25 y menor distancia es mejor.
+     */
+    private static class Relevancia implements Comparable<Relevancia> {
+        final int faltantes;
+        final double puntaje;
+        final int distancia;
+
+        Relevancia(int faltantes, double puntaje, int distancia) {
+            this.faltantes = faltantes;
+            this.puntaje = puntaje;
+            this.distancia = distancia;
+        }
+
+        @Override
+        public int compareTo(Relevancia o) {
+            if (faltantes != o.faltantes) return Integer.compare(faltantes, o.faltantes);
+            if (puntaje != o.puntaje) return Double.compare(o.puntaje, puntaje);
+            return Integer.compare(distancia, o.distancia);
+        }
+
+        Relevancia mejor(Relevancia o) {
+            return compareTo(o) <= 0 ? this : o;
+        }
+    }
+
+    /**
+     * Suma reproducciones a un título para el orden de las sugerencias.
+     *
+     * @param titulo título reproducido
+     * @param reproducciones cantidad de reproducciones a sumar
+     */
+    public void registrarReproduccion(String titulo, long reproducciones) {
+        if (titulo == null || reproducciones <= 0)
+            return;
+        Cancion c = canciones.buscarPorTitulo(titulo);
+        if (c == null)
+            return;
+        popularidad.merge(c.getTitulo(), reproducciones, Long::sum);
+        trie.incrementarPuntuacion(c.getTitulo(), reproducciones);
+    }
+
+    /**
+     * Carga de una vez los conteos de reproducción existentes.
+     *
+     * @param conteo mapa título → reproducciones
+     */
+    public void cargarPopularidad(Map<String, Integer> conteo) {
+        if (conteo == null)
+            return;
+        conteo.forEach((titulo, n) -> registrarReproduccion(titulo, n));
+    }
+
     /**
      * Elimina una canción de la biblioteca por su título.
      * 
@@ -184,12 +560,47 @@ public class BibliotecaMusical {
     public void eliminarCancion(String titulo) {
         if (titulo == null || titulo.isEmpty())
             return;
+        Cancion almacenada = canciones.buscarPorTitulo(titulo);
+        if (almacenada == null)
+            return;
+        String tituloAlmacenado = almacenada.getTitulo();
+        quitar(tituloAlmacenado);
+        registro.registrarBaja(tituloAlmacenado);
+        compactarSiHaceFalta();
+    }
+
+    /**
+     * Quita una canción del catálogo y de todos los índices, sin persistir nada.
+     *
+     * @param titulo título de la canción
+     */
+    private void quitar(String titulo) {
+        Cancion almacenada = canciones.buscarPorTitulo(titulo);
+        if (almacenada == null)
+            return;
+        desindexar(almacenada);
         canciones.eliminarPorTitulo(titulo);
-        guardarEnCSV();
     }
 
     /**
-     * Busca una canción específica por su título (búsqueda lineal).
+     * Quita una canción de todos los índices de forma incremental, sin
+     * reconstruirlos: los resultados obsoletos desaparecen de inmediato.
+     * Los índices usan el título como clave; esto es correcto porque el catálogo
+     * nunca guarda dos canciones con el mismo título.
+     *
+     * @param c canción tal como está guardada en la lista (antes de eliminarla)
+     */
+    private void desindexar(Cancion c) {
+        String titulo = c.getTitulo();
+        trie.eliminar(titulo);
+        indiceInvertido.eliminar(titulo);
+        buscadorDifuso.eliminar(c);
+        arbolSimilitud.eliminar(c);
+        popularidad.remove(titulo);
+    }
+
+    /**
+     * Busca una canción específica por su título (índice hash, O(1)).
      * 
      * @param titulo título a buscar
      * @return canción si se encuentra, null en caso contrario
@@ -205,11 +616,27 @@ public class BibliotecaMusical {
      * @return lista de todas las canciones
      */
     public List<Cancion> obtenerTodas() {
-        List<Cancion> lista = new ArrayList<>();
-        for (int i = 0; i < canciones.getTamaño(); i++) {
-            lista.add(canciones.obtenerPorIndice(i));
-        }
-        return lista;
+        return canciones.aLista();
+    }
+
+    /**
+     * Obtiene las canciones de un género (sin distinguir mayúsculas).
+     *
+     * @param genero género buscado
+     * @return lista de canciones del género
+     */
+    public List<Cancion> obtenerPorGenero(String genero) {
+        return canciones.filtrarPorGenero(genero);
+    }
+
+    /**
+     * Obtiene las canciones de un artista (sin distinguir mayúsculas).
+     *
+     * @param artista artista buscado
+     * @return lista de canciones del artista
+     */
+    public List<Cancion> obtenerPorArtista(String artista) {
+        return canciones.filtrarPorArtista(artista);
     }
 
     /**
@@ -220,13 +647,13 @@ public class BibliotecaMusical {
     public void eliminarCancion(Cancion c) {
         if (c == null)
             return;
-        canciones.eliminarPorTitulo(c.getTitulo()); // elimina por el título del objeto
-        guardarEnCSV();
+        eliminarCancion(c.getTitulo()); // elimina por el título del objeto
     }
 
     /**
      * Reconstruye el índice Trie desde cero.
-     * Se usa cuando se han modificado las canciones de forma directa.
+     * Ya no es necesario tras agregar o eliminar canciones (los índices se
+     * mantienen de forma incremental); queda para recuperarse de cambios directos.
      */
     public void reconstruirTrie() {
         // Limpia el trie (asegúrate de tener este método en Trie)
@@ -249,6 +676,9 @@ public class BibliotecaMusical {
                 trie.insertar(c.getGenero(), c.getTitulo());
             }
         }
+
+        // Restaurar la popularidad acumulada
+        popularidad.forEach(trie::incrementarPuntuacion);
     }
 
     /**
@@ -271,7 +701,7 @@ public class BibliotecaMusical {
 
         // Usamos el árbol de similitud (ignora maxDistancia porque ya no lo
         // necesitamos)
-        List<Cancion> sugerencias = arbolSimilitud.recomendar(base, maxResultados);
+        List<Cancion> sugerencias = arbolSimilitud.recomendar(base, maxResultados, canciones::buscarPorTitulo);
 
         // Evitar recomendar la misma canción
         for (Cancion c : sugerencias) {
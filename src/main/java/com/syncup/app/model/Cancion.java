@@ -58,7 +58,7 @@ public class Cancion {
      * @param genero género musical
      */
     public Cancion(String titulo, String artista, String genero) {
-        this.id = titulo.toLowerCase().replace(" ", "_");
+        this.id = idDesdeTitulo(titulo);
         this.titulo = titulo;
         this.artista = artista;
         this.genero = genero;
@@ -85,6 +85,17 @@ public class Cancion {
         this.duracion = duracion;
     }
 
+    /**
+     * Genera el identificador que corresponde a un título:
+     * minúsculas con los espacios reemplazados por guiones bajos.
+     *
+     * @param titulo título de la canción
+     * @return identificador derivado, o null si el título es null
+     */
+    public static String idDesdeTitulo(String titulo) {
+        return titulo != null ? titulo.toLowerCase().replace(" ", "_") : null;
+    }
+
     // ===================== GETTERS Y SETTERS =====================
 
     /**
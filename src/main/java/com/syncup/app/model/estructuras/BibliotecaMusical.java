@@ -4,7 +4,6 @@ import com.syncup.app.model.Cancion;
 import com.syncup.app.model.estructuras.ListaCanciones;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -89,11 +88,7 @@ public class BibliotecaMusical {
      * Retorna todas las canciones como lista (para usar en TableView).
      */
     public List<Cancion> obtenerTodas() {
-        List<Cancion> lista = new ArrayList<>();
-        for (int i = 0; i < canciones.getTamaño(); i++) {
-            lista.add(canciones.obtenerPorIndice(i));
-        }
-        return lista;
+        return canciones.aLista();
     }
 
     /**
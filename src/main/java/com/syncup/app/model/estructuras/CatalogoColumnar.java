@@ -0,0 +1,157 @@
+package com.syncup.app.model.estructuras;
+
+import com.syncup.app.model.Cancion;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <h2>Catálogo Columnar</h2>
+ * Representación en memoria del catálogo organizada por columnas en lugar de un
+ * objeto Cancion por fila.
+ * <p>
+ * Cada atributo se guarda en su propio arreglo primitivo:
+ * </p>
+ * <ul>
+ *     <li><b>titulos</b>: {@code String[]} (los títulos son casi siempre únicos)</li>
+ *     <li><b>artistas / generos</b>: {@code int[]} codificados con {@link DiccionarioCadenas}</li>
+ *     <li><b>anios / duraciones</b>: {@code int[]}</li>
+ *     <li><b>ids</b>: solo se guardan si difieren del id derivado del título</li>
+ * </ul>
+ * <p>
+ * Las filas de las canciones eliminadas quedan sin uso hasta que la
+ * {@link ListaCanciones} llama a {@link #compactar(int[], int)}, que copia solo las
+ * vivas y las renumera. Ningún otro módulo guarda números de fila.
+ * </p>
+ * <p>
+ * A los llamadores se les entregan copias ({@link #cancion(int)}) armadas con las
+ * cadenas ya guardadas en las columnas. Las columnas solo se escriben al agregar
+ * una fila: modificar una copia no altera el catálogo ni sus índices.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class CatalogoColumnar {
+
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    private final DiccionarioCadenas artistas = new DiccionarioCadenas();
+    private final DiccionarioCadenas generos = new DiccionarioCadenas();
+
+    private String[] titulos = new String[CAPACIDAD_INICIAL];
+    /** Id explícito de la fila; null si coincide con el derivado del título */
+    private String[] ids = new String[CAPACIDAD_INICIAL];
+    private int[] codArtista = new int[CAPACIDAD_INICIAL];
+    private int[] codGenero = new int[CAPACIDAD_INICIAL];
+    private int[] anios = new int[CAPACIDAD_INICIAL];
+    private int[] duraciones = new int[CAPACIDAD_INICIAL];
+    private int filas = 0;
+
+    /**
+     * Copia los datos de una canción a una nueva fila.
+     *
+     * @param c canción de origen
+     * @return número de fila asignado
+     */
+    public int agregar(Cancion c) {
+        if (filas == titulos.length) {
+            crecer();
+        }
+        int fila = filas++;
+        titulos[fila] = c.getTitulo();
+        ids[fila] = Objects.equals(Cancion.idDesdeTitulo(c.getTitulo()), c.getId()) ? null : c.getId();
+        codArtista[fila] = artistas.codificar(c.getArtista());
+        codGenero[fila] = generos.codificar(c.getGenero());
+        anios[fila] = c.getAnio();
+        duraciones[fila] = c.getDuracion();
+        return fila;
+    }
+
+    /**
+     * Arma una Cancion con los datos de la fila indicada.
+     * Comparte las cadenas de las columnas (título y entradas de los diccionarios).
+     *
+     * @param fila número de fila
+     * @return copia independiente de la canción
+     */
+    public Cancion cancion(int fila) {
+        return new Cancion(getId(fila), titulos[fila], getArtista(fila), getGenero(fila),
+                anios[fila], duraciones[fila]);
+    }
+
+    /** @return número total de filas almacenadas */
+    public int getFilas() {
+        return filas;
+    }
+
+    // ===================== ACCESO POR COLUMNA =====================
+
+    public String getTitulo(int fila) { return titulos[fila]; }
+
+    public String getId(int fila) {
+        return ids[fila] != null ? ids[fila] : Cancion.idDesdeTitulo(titulos[fila]);
+    }
+
+    public String getArtista(int fila) { return artistas.decodificar(codArtista[fila]); }
+
+    public String getGenero(int fila) { return generos.decodificar(codGenero[fila]); }
+
+    public int getCodigoArtista(int fila) { return codArtista[fila]; }
+
+    public int getCodigoGenero(int fila) { return codGenero[fila]; }
+
+    public int getAnio(int fila) { return anios[fila]; }
+
+    public int getDuracion(int fila) { return duraciones[fila]; }
+
+    /** @return diccionario de artistas */
+    public DiccionarioCadenas getArtistas() { return artistas; }
+
+    /** @return diccionario de géneros */
+    public DiccionarioCadenas getGeneros() { return generos; }
+
+    /**
+     * Se queda solo con las filas indicadas, renumeradas 0..n-1 en ese orden.
+     * Los diccionarios se conservan (crecen con los artistas y géneros distintos,
+     * no con las canciones).
+     *
+     * @param vivas filas a conservar
+     * @param n cantidad de filas válidas en {@code vivas}
+     */
+    public void compactar(int[] vivas, int n) {
+        int capacidad = Math.max(CAPACIDAD_INICIAL, n);
+        String[] t = new String[capacidad];
+        String[] i = new String[capacidad];
+        int[] a = new int[capacidad];
+        int[] g = new int[capacidad];
+        int[] an = new int[capacidad];
+        int[] d = new int[capacidad];
+        for (int nueva = 0; nueva < n; nueva++) {
+            int vieja = vivas[nueva];
+            t[nueva] = titulos[vieja];
+            i[nueva] = ids[vieja];
+            a[nueva] = codArtista[vieja];
+            g[nueva] = codGenero[vieja];
+            an[nueva] = anios[vieja];
+            d[nueva] = duraciones[vieja];
+        }
+        titulos = t;
+        ids = i;
+        codArtista = a;
+        codGenero = g;
+        anios = an;
+        duraciones = d;
+        filas = n;
+    }
+
+    private void crecer() {
+        int nueva = titulos.length * 2;
+        titulos = Arrays.copyOf(titulos, nueva);
+        ids = Arrays.copyOf(ids, nueva);
+        codArtista = Arrays.copyOf(codArtista, nueva);
+        codGenero = Arrays.copyOf(codGenero, nueva);
+        anios = Arrays.copyOf(anios, nueva);
+        duraciones = Arrays.copyOf(duraciones, nueva);
+    }
+}
@@ -0,0 +1,106 @@
+package com.syncup.app.model.estructuras;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>Diccionario de Cadenas</h2>
+ * Codifica cadenas repetidas (artistas, géneros, usuarios...) como enteros densos.
+ * <p>
+ * Cada cadena distinta se almacena una sola vez y recibe un código en el rango
+ * [0, tamaño). Las estructuras que lo usan guardan solo el código en columnas de
+ * tipo {@code int[]}, lo que reduce memoria y permite comparar por entero.
+ * </p>
+ * <p>
+ * Los códigos nunca cambian y las cadenas solo se agregan al final, así que se
+ * puede decodificar desde otros hilos (por ejemplo, al recorrer una instantánea
+ * del historial) mientras un único hilo escritor sigue codificando.
+ * </p>
+ *
+ * <h3>Complejidad:</h3>
+ * <ul>
+ *     <li>Codificar: O(1) esperado</li>
+ *     <li>Decodificar: O(1)</li>
+ * </ul>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class DiccionarioCadenas {
+
+    /** Cadena → código */
+    private final Map<String, Integer> codigos = new ConcurrentHashMap<>();
+    /** Código → cadena; al crecer se copia completo antes de publicarse */
+    private volatile String[] valores = new String[16];
+    /** Cantidad de cadenas registradas */
+    private volatile int tamaño = 0;
+
+    /**
+     * Devuelve el código de una cadena, registrándola si aún no existe.
+     *
+     * @param valor cadena a codificar (null se trata como cadena vacía)
+     * @return código entero de la cadena
+     */
+    public int codificar(String valor) {
+        String v = valor != null ? valor : "";
+        Integer codigo = codigos.get(v);
+        if (codigo != null) return codigo;
+
+        int nuevo = tamaño;
+        if (nuevo == valores.length) {
+            valores = Arrays.copyOf(valores, nuevo * 2);
+        }
+        valores[nuevo] = v;
+        codigos.put(v, nuevo);
+        tamaño = nuevo + 1;
+        return nuevo;
+    }
+
+    /**
+     * Obtiene el código de una cadena sin registrarla.
+     *
+     * @param valor cadena a buscar
+     * @return código o -1 si la cadena no está en el diccionario
+     */
+    public int buscarCodigo(String valor) {
+        Integer codigo = codigos.get(valor != null ? valor : "");
+        return codigo != null ? codigo : -1;
+    }
+
+    /**
+     * Marca los códigos cuyas cadenas coinciden con la dada ignorando mayúsculas.
+     *
+     * @param valor cadena a comparar
+     * @return arreglo indexado por código, {@code true} si coincide
+     */
+    public boolean[] coincidenciasIgnorandoMayusculas(String valor) {
+        int n = tamaño;
+        String[] v = valores;
+        boolean[] marcas = new boolean[n];
+        if (valor == null) return marcas;
+        for (int i = 0; i < n; i++) {
+            marcas[i] = v[i].equalsIgnoreCase(valor);
+        }
+        return marcas;
+    }
+
+    /**
+     * Decodifica un código a su cadena original.
+     *
+     * @param codigo código entero
+     * @return cadena correspondiente
+     */
+    public String decodificar(int codigo) {
+        if (codigo < 0 || codigo >= tamaño)
+            throw new IndexOutOfBoundsException("Código: " + codigo + ", tamaño: " + tamaño);
+        return valores[codigo];
+    }
+
+    /**
+     * @return número de cadenas distintas registradas
+     */
+    public int getTamaño() {
+        return tamaño;
+    }
+}
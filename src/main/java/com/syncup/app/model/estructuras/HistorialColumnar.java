@@ -0,0 +1,445 @@
+package com.syncup.app.model.estructuras;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntPredicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * <h2>Historial Columnar</h2>
+ * Registros de reproducción guardados como columnas de enteros de ancho fijo en
+ * lugar de un {@code String[]} por reproducción.
+ * <p>
+ * Cada reproducción ocupa 20 bytes:
+ * </p>
+ * <ul>
+ *     <li><b>usuarios / canciones / generos / artistas</b>: {@code int[]} codificados con
+ *         {@link DiccionarioCadenas}; el artista se fija al escribir la reproducción
+ *         (-1 si la canción no está en la biblioteca), así las estadísticas por artista
+ *         nunca consultan el catálogo por fila</li>
+ *     <li><b>segundos</b>: {@code int[]} con los segundos desde 1970 (UTC) tratados
+ *         como entero sin signo, válidos hasta el año 2106</li>
+ * </ul>
+ * <p>
+ * Las estadísticas recorren las columnas y cuentan por código, sin volver a
+ * analizar fechas ni calcular hashes de cadenas; 100 millones de reproducciones
+ * ocupan unos 2 GB más los diccionarios.
+ * </p>
+ * <p>
+ * Las columnas se guardan en bloques de tamaño fijo que solo crecen al final:
+ * agregar nunca copia filas existentes, solo el arreglo de referencias a bloques
+ * cuando se abre uno nuevo. Cada escritura publica (en un campo {@code volatile})
+ * una {@link Instantanea} inmutable con los bloques y la cantidad de filas, así que
+ * un lector toma el estado de un momento sin copiar nada y lo recorre, incluso desde
+ * otro hilo, mientras se siguen agregando reproducciones. Eliminar, limpiar o
+ * asignar artistas publican bloques nuevos y no alteran las instantáneas tomadas.
+ * Se admite un único hilo escritor.
+ * </p>
+ * <p>
+ * Para los llamadores que esperan el formato de siempre
+ * {@code {usuario, fecha, titulo, genero}}, {@link #vista()} entrega una lista de
+ * solo lectura sobre la instantánea actual que arma cada {@code String[]} al pedirlo.
+ * </p>
+ *
+ * @author Sistema SyncUp
+ * @version 1.0
+ */
+public class HistorialColumnar {
+
+    /** Filas por bloque: 2^14 = 16 384 (320 KB por bloque con las cinco columnas) */
+    private static final int BITS_BLOQUE = 14;
+    private static final int FILAS_BLOQUE = 1 << BITS_BLOQUE;
+    private static final int MASCARA_BLOQUE = FILAS_BLOQUE - 1;
+
+    /** Formato de fecha del historial */
+    public static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /** Zona en la que se interpretan y muestran las fechas */
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private final DiccionarioCadenas usuarios = new DiccionarioCadenas();
+    private final DiccionarioCadenas canciones = new DiccionarioCadenas();
+    private final DiccionarioCadenas generos = new DiccionarioCadenas();
+    private final DiccionarioCadenas artistas = new DiccionarioCadenas();
+
+    /** Último estado publicado; cada escritura publica uno nuevo */
+    private volatile Instantanea actual = new Instantanea(new Bloques(), 0);
+
+    /**
+     * Columnas divididas en bloques de {@link #FILAS_BLOQUE} filas. Agregar un bloque
+     * copia solo los arreglos de referencias; los bloques existentes se comparten.
+     */
+    private static class Bloques {
+        final int[][] usuarios;
+        final int[][] segundos;
+        final int[][] canciones;
+        final int[][] generos;
+        final int[][] artistas;
+
+        Bloques() {
+            this(new int[0][], new int[0][], new int[0][], new int[0][], new int[0][]);
+        }
+
+        Bloques(int[][] usuarios, int[][] segundos, int[][] canciones, int[][] generos, int[][] artistas) {
+            this.usuarios = usuarios;
+            this.segundos = segundos;
+            this.canciones = canciones;
+            this.generos = generos;
+            this.artistas = artistas;
+        }
+
+        /** @return mismos bloques más uno vacío al final */
+        Bloques conBloqueNuevo() {
+            return new Bloques(agregarBloque(usuarios), agregarBloque(segundos), agregarBloque(canciones),
+                    agregarBloque(generos), agregarBloque(artistas));
+        }
+
+        /** @return mismos bloques salvo la columna de artistas */
+        Bloques conArtistas(int[][] nuevos) {
+            return new Bloques(usuarios, segundos, canciones, generos, nuevos);
+        }
+
+        private static int[][] agregarBloque(int[][] columna) {
+            int[][] nueva = Arrays.copyOf(columna, columna.length + 1);
+            nueva[columna.length] = new int[FILAS_BLOQUE];
+            return nueva;
+        }
+    }
+
+    // ===================== ESCRITURA =====================
+
+    /**
+     * Agrega una reproducción al final, sin artista conocido.
+     *
+     * @param usuario nombre de usuario
+     * @param segundos instante de la reproducción en segundos desde 1970 (UTC)
+     * @param titulo título de la canción
+     * @param genero género de la canción
+     * @return número de fila asignado
+     */
+    public int agregar(String usuario, long segundos, String titulo, String genero) {
+        return agregar(usuario, segundos, titulo, genero, null);
+    }
+
+    /**
+     * Agrega una reproducción al final. Solo escribe posiciones que ninguna
+     * instantánea ve todavía y luego publica el nuevo tamaño.
+     *
+     * @param usuario nombre de usuario
+     * @param segundos instante de la reproducción en segundos desde 1970 (UTC)
+     * @param titulo título de la canción
+     * @param genero género de la canción
+     * @param artista artista de la canción, o null si no se conoce
+     * @return número de fila asignado
+     */
+    public int agregar(String usuario, long segundos, String titulo, String genero, String artista) {
+        Instantanea estado = actual;
+        Bloques b = estado.bloques;
+        int fila = estado.filas;
+        int bloque = fila >>> BITS_BLOQUE;
+        int pos = fila & MASCARA_BLOQUE;
+        if (bloque == b.usuarios.length) {
+            b = b.conBloqueNuevo();
+        }
+        b.usuarios[bloque][pos] = usuarios.codificar(usuario);
+        b.segundos[bloque][pos] = (int) segundos;
+        b.canciones[bloque][pos] = canciones.codificar(titulo);
+        b.generos[bloque][pos] = generos.codificar(genero);
+        b.artistas[bloque][pos] = artista != null ? artistas.codificar(artista) : -1;
+        actual = new Instantanea(b, fila + 1);
+        return fila;
+    }
+
+    /**
+     * Asigna el artista de todas las filas resolviendo una sola vez cada canción
+     * distinta. Se usa al cargar el historial, cuando el catálogo ya está disponible.
+     * La columna de artistas se reemplaza entera, así que las instantáneas anteriores
+     * conservan los artistas que tenían.
+     *
+     * @param resolver título → artista (null si la canción no existe)
+     */
+    public void asignarArtistas(UnaryOperator<String> resolver) {
+        Instantanea estado = actual;
+        int[] artistaPorCancion = new int[canciones.getTamaño()];
+        Arrays.fill(artistaPorCancion, -2); // -2: aún no resuelto
+
+        int[][] nuevos = new int[estado.bloques.artistas.length][FILAS_BLOQUE];
+        for (int i = 0; i < estado.filas; i++) {
+            int c = estado.getCodigoCancion(i);
+            if (artistaPorCancion[c] == -2) {
+                String artista = resolver.apply(canciones.decodificar(c));
+                artistaPorCancion[c] = artista != null ? artistas.codificar(artista) : -1;
+            }
+            nuevos[i >>> BITS_BLOQUE][i & MASCARA_BLOQUE] = artistaPorCancion[c];
+        }
+        actual = new Instantanea(estado.bloques.conArtistas(nuevos), estado.filas);
+    }
+
+    /**
+     * Elimina las filas que cumplen la condición, conservando el orden de las demás.
+     * Las filas restantes se copian a bloques nuevos (las instantáneas anteriores no cambian).
+     *
+     * @param condicion recibe el número de fila y devuelve true si debe eliminarse
+     * @return cantidad de filas eliminadas
+     */
+    public int eliminarSi(IntPredicate condicion) {
+        Instantanea estado = actual;
+        Bloques nuevos = new Bloques();
+        int quedan = 0;
+        for (int i = 0; i < estado.filas; i++) {
+            if (condicion.test(i)) continue;
+            int bloque = quedan >>> BITS_BLOQUE;
+            int pos = quedan & MASCARA_BLOQUE;
+            if (bloque == nuevos.usuarios.length) {
+                nuevos = nuevos.conBloqueNuevo();
+            }
+            nuevos.usuarios[bloque][pos] = estado.getCodigoUsuario(i);
+            nuevos.segundos[bloque][pos] = estado.bloques.segundos[i >>> BITS_BLOQUE][i & MASCARA_BLOQUE];
+            nuevos.canciones[bloque][pos] = estado.getCodigoCancion(i);
+            nuevos.generos[bloque][pos] = estado.getCodigoGenero(i);
+            nuevos.artistas[bloque][pos] = estado.getCodigoArtista(i);
+            quedan++;
+        }
+        actual = new Instantanea(nuevos, quedan);
+        return estado.filas - quedan;
+    }
+
+    /**
+     * Elimina todas las filas. Los diccionarios se conservan.
+     */
+    public void limpiar() {
+        actual = new Instantanea(new Bloques(), 0);
+    }
+
+    // ===================== ACCESO POR COLUMNA =====================
+
+    /** @return número de reproducciones almacenadas */
+    public int getTamaño() {
+        return actual.filas;
+    }
+
+    public int getCodigoUsuario(int fila) { return actual.getCodigoUsuario(fila); }
+
+    public int getCodigoCancion(int fila) { return actual.getCodigoCancion(fila); }
+
+    public int getCodigoGenero(int fila) { return actual.getCodigoGenero(fila); }
+
+    /** @return código del artista, -1 si no se conoce */
+    public int getCodigoArtista(int fila) { return actual.getCodigoArtista(fila); }
+
+    /** @return instante de la fila en segundos desde 1970 (UTC) */
+    public long getSegundos(int fila) { return actual.getSegundos(fila); }
+
+    public String getUsuario(int fila) { return usuarios.decodificar(getCodigoUsuario(fila)); }
+
+    public String getTitulo(int fila) { return canciones.decodificar(getCodigoCancion(fila)); }
+
+    public String getGenero(int fila) { return generos.decodificar(getCodigoGenero(fila)); }
+
+    /** @return artista de la fila, o null si no se conoce */
+    public String getArtista(int fila) {
+        int codigo = getCodigoArtista(fila);
+        return codigo >= 0 ? artistas.decodificar(codigo) : null;
+    }
+
+    /** @return diccionario de usuarios */
+    public DiccionarioCadenas getUsuarios() { return usuarios; }
+
+    /** @return diccionario de títulos de canción */
+    public DiccionarioCadenas getCanciones() { return canciones; }
+
+    /** @return diccionario de géneros */
+    public DiccionarioCadenas getGeneros() { return generos; }
+
+    /** @return diccionario de artistas */
+    public DiccionarioCadenas getArtistas() { return artistas; }
+
+    // ===================== INSTANTÁNEAS =====================
+
+    /**
+     * Estado del historial en un momento dado, sin copiar datos: comparte los
+     * bloques con el historial y solo ve las filas que existían al tomarla. Se
+     * puede recorrer desde cualquier hilo mientras se siguen agregando
+     * reproducciones.
+     *
+     * @return instantánea de las filas actuales
+     */
+    public Instantanea instantanea() {
+        return actual;
+    }
+
+    /**
+     * Vista de solo lectura de un momento del historial. Las filas se leen de los
+     * bloques compartidos; ninguna escritura posterior las modifica.
+     */
+    public final class Instantanea {
+        private final Bloques bloques;
+        private final int filas;
+
+        private Instantanea(Bloques bloques, int filas) {
+            this.bloques = bloques;
+            this.filas = filas;
+        }
+
+        /** @return número de filas visibles */
+        public int getTamaño() { return filas; }
+
+        public int getCodigoUsuario(int fila) { return bloques.usuarios[fila >>> BITS_BLOQUE][fila & MASCARA_BLOQUE]; }
+
+        public int getCodigoCancion(int fila) { return bloques.canciones[fila >>> BITS_BLOQUE][fila & MASCARA_BLOQUE]; }
+
+        public int getCodigoGenero(int fila) { return bloques.generos[fila >>> BITS_BLOQUE][fila & MASCARA_BLOQUE]; }
+
+        /** @return código del artista, -1 si no se conoce */
+        public int getCodigoArtista(int fila) { return bloques.artistas[fila >>> BITS_BLOQUE][fila & MASCARA_BLOQUE]; }
+
+        /** @return instante de la fila en segundos desde 1970 (UTC) */
+        public long getSegundos(int fila) {
+            return Integer.toUnsignedLong(bloques.segundos[fila >>> BITS_BLOQUE][fila & MASCARA_BLOQUE]);
+        }
+
+        /** @return día local de la fila (días desde 1970-01-01) */
+        public long getDia(int fila) {
+            return Math.floorDiv(horaLocal(getSegundos(fila)), 24L);
+        }
+
+        /**
+         * Arma el registro {usuario, fecha, titulo, genero} de una fila.
+         *
+         * @param fila número de fila
+         * @return registro en el formato del CSV
+         */
+        public String[] registro(int fila) {
+            return new String[] {
+                    usuarios.decodificar(getCodigoUsuario(fila)),
+                    formatearFecha(getSegundos(fila)),
+                    canciones.decodificar(getCodigoCancion(fila)),
+                    generos.decodificar(getCodigoGenero(fila))
+            };
+        }
+
+        /** @return lista de solo lectura con todas las filas de la instantánea */
+        public List<String[]> vista() {
+            return new VistaRegistros(this, null, filas);
+        }
+    }
+
+    // ===================== VISTAS =====================
+
+    /**
+     * Arma el registro {usuario, fecha, titulo, genero} de una fila.
+     *
+     * @param fila número de fila
+     * @return registro en el formato del CSV
+     */
+    public String[] registro(int fila) {
+        return actual.registro(fila);
+    }
+
+    /**
+     * @return vista de solo lectura de todas las filas actuales
+     */
+    public List<String[]> vista() {
+        return actual.vista();
+    }
+
+    /**
+     * Vista de solo lectura de un subconjunto de filas.
+     *
+     * @param seleccion números de fila, en el orden en que se quieren ver
+     * @param cantidad cuántas posiciones de {@code seleccion} usar
+     * @return vista de las filas indicadas
+     */
+    public List<String[]> vista(int[] seleccion, int cantidad) {
+        return new VistaRegistros(actual, seleccion, cantidad);
+    }
+
+    /** Lista que construye cada {@code String[]} a partir de una instantánea al pedirlo */
+    private static class VistaRegistros extends AbstractList<String[]> implements RandomAccess {
+
+        private final Instantanea instantanea;
+        private final int[] seleccion;
+        private final int tamaño;
+
+        VistaRegistros(Instantanea instantanea, int[] seleccion, int tamaño) {
+            this.instantanea = instantanea;
+            this.seleccion = seleccion;
+            this.tamaño = tamaño;
+        }
+
+        @Override
+        public String[] get(int indice) {
+            if (indice < 0 || indice >= tamaño)
+                throw new IndexOutOfBoundsException("Índice: " + indice + ", tamaño: " + tamaño);
+            return instantanea.registro(seleccion != null ? seleccion[indice] : indice);
+        }
+
+        @Override
+        public int size() {
+            return tamaño;
+        }
+    }
+
+    // ===================== FECHAS =====================
+
+    /**
+     * Convierte una fecha del historial ("yyyy-MM-dd HH:mm:ss", hora local) a segundos.
+     *
+     * @param fecha fecha formateada
+     * @return segundos desde 1970 (UTC)
+     * @throws java.time.format.DateTimeParseException si la fecha no tiene el formato esperado
+     */
+    public static long segundosDesdeFecha(String fecha) {
+        return segundosDesdeFecha(LocalDateTime.parse(fecha, FORMATO_FECHA));
+    }
+
+    /**
+     * Convierte una fecha en hora local a segundos.
+     *
+     * @param fecha fecha y hora local
+     * @return segundos desde 1970 (UTC)
+     */
+    public static long segundosDesdeFecha(LocalDateTime fecha) {
+        return fecha.atZone(ZONA).toEpochSecond();
+    }
+
+    /**
+     * Convierte segundos desde 1970 a la fecha del historial en hora local.
+     *
+     * @param segundos segundos desde 1970 (UTC)
+     * @return fecha formateada
+     */
+    public static String formatearFecha(long segundos) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(segundos), ZONA).format(FORMATO_FECHA);
+    }
+
+    /**
+     * Día local de una fila, como número de días desde 1970-01-01.
+     *
+     * @param fila número de fila
+     * @return día local de la reproducción
+     */
+    public long getDia(int fila) {
+        return Math.floorDiv(getHora(fila), 24L);
+    }
+
+    /**
+     * Hora local de una fila, como número de horas desde 1970-01-01 00:00 (hora local).
+     *
+     * @param fila número de fila
+     * @return hora local de la reproducción
+     */
+    public long getHora(int fila) {
+        return horaLocal(getSegundos(fila));
+    }
+
+    private static long horaLocal(long segundos) {
+        int desfase = ZONA.getRules().getOffset(Instant.ofEpochSecond(segundos)).getTotalSeconds();
+        return Math.floorDiv(segundos + desfase, 3_600L);
+    }
+}
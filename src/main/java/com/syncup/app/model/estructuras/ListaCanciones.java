@@ -2,15 +2,23 @@ package com.syncup.app.model.estructuras;
 
 import com.syncup.app.model.Cancion;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
- * <h2>Lista Enlazada de Canciones</h2>
- * Estructura de datos que implementa una lista enlazada simple para almacenar objetos Cancion.
+ * <h2>Lista de Canciones</h2>
+ * Motor de almacenamiento del catálogo: un arreglo dinámico de objetos Cancion
+ * con índices hash secundarios por título normalizado y por identificador.
  * <p>
  * Esta estructura proporciona operaciones eficientes para:
  * </p>
  * <ul>
  *     <li>Agregar canciones al final de la lista</li>
- *     <li>Buscar canciones por título</li>
+ *     <li>Buscar canciones por título o por id</li>
  *     <li>Eliminar canciones por título</li>
  *     <li>Acceso por índice con validación</li>
  *     <li>Consulta del tamaño de la lista</li>
@@ -19,47 +27,84 @@ import com.syncup.app.model.Cancion;
  * <b>Complejidad de operaciones:</b>
  * </p>
  * <ul>
- *     <li><b>Agregar al final</b>: O(n) donde n es el tamaño</li>
- *     <li><b>Búsqueda por título</b>: O(n)</li>
- *     <li><b>Eliminación por título</b>: O(n)</li>
- *     <li><b>Acceso por índice</b>: O(n)</li>
+ *     <li><b>Agregar al final</b>: O(1) amortizado (el arreglo duplica su capacidad)</li>
+ *     <li><b>Búsqueda por título / id</b>: O(1) esperado</li>
+ *     <li><b>Eliminación por título</b>: O(n) (desplaza el arreglo y corre una posición
+ *         las entradas de los índices que quedaban detrás; no recalcula claves)</li>
+ *     <li><b>Acceso por índice</b>: O(1)</li>
  * </ul>
  * <p>
- * <b>Nodo interno (Privado):</b>
+ * Una carga masiva de n canciones es por tanto O(n), en lugar del O(n²) que
+ * implicaba recorrer la lista enlazada en cada inserción.
+ * </p>
+ * <p>
+ * Si existen varias canciones con el mismo título, los índices apuntan siempre a
+ * la primera en orden de inserción, igual que la búsqueda secuencial original.
+ * </p>
+ * <p>
+ * <b>Modo columnar:</b> si se construye con un {@link CatalogoColumnar}, la lista
+ * solo guarda números de fila del catálogo y arma una Cancion al entregar cada
+ * resultado. Cuando las filas de canciones eliminadas superan a las vivas, el
+ * catálogo se compacta. Los recorridos por género o artista comparan entonces códigos enteros,
+ * y las consultas que no devuelven canciones ({@link #contieneTitulo(String)},
+ * {@link #imprimirLista()}) leen las columnas sin armar ninguna.
  * </p>
- * <pre>
- *     private class Nodo {
- *         Cancion cancion;
- *         Nodo siguiente;
- *     }
- * </pre>
- * 
+ *
  * @author Sistema SyncUp
- * @version 1.0
+ * @version 2.0
  */
 public class ListaCanciones {
 
-    // Nodo interno de la lista
-    private class Nodo {
-        Cancion cancion;
-        Nodo siguiente;
+    /** Capacidad inicial del arreglo */
+    private static final int CAPACIDAD_INICIAL = 16;
 
-        Nodo(Cancion cancion) {
-            this.cancion = cancion;
-            this.siguiente = null;
-        }
-    }
-
-    private Nodo cabeza;
+    /** Canciones en orden de inserción (posiciones [0, tamaño) válidas); null en modo columnar */
+    private Cancion[] elementos;
+    /** Catálogo que respalda la lista en modo columnar; null en modo clásico */
+    private final CatalogoColumnar columnas;
+    /** Filas del catálogo en orden de inserción (solo modo columnar) */
+    private int[] filas;
     private int tamaño;
+    /** Filas del catálogo de canciones ya eliminadas, pendientes de compactar (solo modo columnar) */
+    private int filasMuertas;
+    /** Mínimo de filas muertas para compactar el catálogo */
+    private static final int MINIMO_COMPACTAR = 1024;
+
+    /** Índice secundario: título en minúsculas → posición */
+    private final Map<String, Integer> indicePorTitulo = new HashMap<>();
+    /**
+     * Índice secundario: id → posición, solo para los ids que no se deducen del
+     * título (explícitos o de títulos con '_'); los demás se buscan por título
+     */
+    private final Map<String, Integer> indicePorId = new HashMap<>();
+    /** Cota de canciones cuyo título / id ya estaba indexado; en 0 no hace falta buscar repetidas */
+    private int titulosRepetidos;
+    private int idsRepetidos;
 
     public ListaCanciones() {
-        cabeza = null;
+        elementos = new Cancion[CAPACIDAD_INICIAL];
+        columnas = null;
         tamaño = 0;
     }
 
+    /**
+     * Crea una lista en modo columnar respaldada por el catálogo dado.
+     *
+     * @param columnas catálogo donde se almacenan los datos de cada canción
+     */
+    public ListaCanciones(CatalogoColumnar columnas) {
+        this.columnas = columnas;
+        this.filas = new int[CAPACIDAD_INICIAL];
+        tamaño = 0;
+    }
+
+    /** @return {@code true} si la lista almacena sus datos en un catálogo columnar */
+    public boolean esColumnar() {
+        return columnas != null;
+    }
+
     public boolean estaVacia() {
-        return cabeza == null;
+        return tamaño == 0;
     }
 
     public int getTamaño() {
@@ -67,59 +112,96 @@ public class ListaCanciones {
     }
 
     public void agregarAlFinal(Cancion cancion) {
-        Nodo nuevo = new Nodo(cancion);
-        if (cabeza == null) {
-            cabeza = nuevo;
+        if (columnas != null) {
+            if (tamaño == filas.length) {
+                filas = Arrays.copyOf(filas, filas.length * 2);
+            }
+            filas[tamaño] = columnas.agregar(cancion);
         } else {
-            Nodo temp = cabeza;
-            while (temp.siguiente != null) {
-                temp = temp.siguiente;
+            if (tamaño == elementos.length) {
+                elementos = Arrays.copyOf(elementos, elementos.length * 2);
             }
-            temp.siguiente = nuevo;
+            elementos[tamaño] = cancion;
         }
+        indexar(cancion.getTitulo(), cancion.getId(), tamaño);
         tamaño++;
     }
 
     public void eliminarPorTitulo(String titulo) {
-        if (cabeza == null) return;
+        if (titulo == null) return;
 
-        if (cabeza.cancion.getTitulo().equalsIgnoreCase(titulo)) {
-            cabeza = cabeza.siguiente;
-            tamaño--;
-            return;
-        }
+        Integer pos = indicePorTitulo.get(normalizar(titulo));
+        if (pos == null) return;
 
-        Nodo actual = cabeza;
-        Nodo anterior = null;
-
-        while (actual != null && !actual.cancion.getTitulo().equalsIgnoreCase(titulo)) {
-            anterior = actual;
-            actual = actual.siguiente;
+        int p = pos;
+        indicePorTitulo.remove(normalizar(titulo));
+        String id = idEn(p);
+        if (id != null) {
+            indicePorId.remove(id, p);
         }
-
-        if (actual != null) {
-            anterior.siguiente = actual.siguiente;
+        if (columnas != null) {
+            System.arraycopy(filas, p + 1, filas, p, tamaño - p - 1);
             tamaño--;
+            filasMuertas++;
+            // Las posiciones no cambian al compactar, así que los índices siguen valiendo
+            if (filasMuertas >= MINIMO_COMPACTAR && filasMuertas > tamaño) {
+                columnas.compactar(filas, tamaño);
+                Arrays.setAll(filas, i -> i);
+                filasMuertas = 0;
+            }
+        } else {
+            System.arraycopy(elementos, p + 1, elementos, p, tamaño - p - 1);
+            elementos[--tamaño] = null;
+        }
+        correrPosiciones(indicePorTitulo, p);
+        correrPosiciones(indicePorId, p);
+        if (titulosRepetidos > 0 || idsRepetidos > 0) {
+            indexarRepetida(titulo, id, p);
         }
     }
 
+    /**
+     * Indica si hay una canción con ese título (sin distinguir mayúsculas),
+     * sin armar la Cancion en modo columnar.
+     *
+     * @param titulo título buscado
+     * @return true si existe
+     */
+    public boolean contieneTitulo(String titulo) {
+        return titulo != null && indicePorTitulo.containsKey(normalizar(titulo));
+    }
+
     public Cancion buscarPorTitulo(String titulo) {
-        Nodo temp = cabeza;
-        while (temp != null) {
-            if (temp.cancion.getTitulo().equalsIgnoreCase(titulo)) {
-                return temp.cancion;
-            }
-            temp = temp.siguiente;
+        if (titulo == null) return null;
+        Integer pos = indicePorTitulo.get(normalizar(titulo));
+        return pos != null ? cancionEn(pos) : null;
+    }
+
+    /**
+     * Busca una canción por su identificador único.
+     *
+     * @param id identificador de la canción
+     * @return la canción o null si no existe
+     */
+    public Cancion buscarPorId(String id) {
+        if (id == null) return null;
+        Integer pos = indicePorId.get(id);
+        if (pos == null) {
+            // Id derivado: minúsculas con '_' en lugar de espacios
+            pos = indicePorTitulo.get(id.replace('_', ' '));
+            if (pos != null && !id.equals(idEn(pos))) pos = null;
         }
-        return null;
+        return pos != null ? cancionEn(pos) : null;
     }
 
     public void imprimirLista() {
-        Nodo temp = cabeza;
         System.out.println("🎵 Lista de canciones:");
-        while (temp != null) {
-            System.out.println(" - " + temp.cancion.getTitulo() + " | " + temp.cancion.getArtista());
-            temp = temp.siguiente;
+        for (int i = 0; i < tamaño; i++) {
+            if (columnas != null) {
+                System.out.println(" - " + columnas.getTitulo(filas[i]) + " | " + columnas.getArtista(filas[i]));
+            } else {
+                System.out.println(" - " + elementos[i].getTitulo() + " | " + elementos[i].getArtista());
+            }
         }
     }
 
@@ -127,12 +209,161 @@ public class ListaCanciones {
         if (indice < 0 || indice >= tamaño) {
             throw new IndexOutOfBoundsException("Índice fuera de rango");
         }
-        Nodo temp = cabeza;
-        int i = 0;
-        while (i < indice) {
-            temp = temp.siguiente;
-            i++;
+        return cancionEn(indice);
+    }
+
+    /**
+     * Copia el contenido de la lista a una lista Java en una sola pasada.
+     *
+     * @return lista nueva con todas las canciones en orden de inserción
+     */
+    public List<Cancion> aLista() {
+        if (columnas == null) {
+            return new ArrayList<>(Arrays.asList(elementos).subList(0, tamaño));
+        }
+        List<Cancion> lista = new ArrayList<>(tamaño);
+        for (int i = 0; i < tamaño; i++) {
+            lista.add(columnas.cancion(filas[i]));
         }
-        return temp.cancion;
+        return lista;
+    }
+
+    // ===================== RECORRIDOS POR COLUMNA =====================
+
+    /**
+     * Devuelve las canciones de un género (sin distinguir mayúsculas).
+     * En modo columnar compara códigos enteros en lugar de cadenas.
+     *
+     * @param genero género buscado
+     * @return canciones del género en orden de inserción
+     */
+    public List<Cancion> filtrarPorGenero(String genero) {
+        List<Cancion> resultado = new ArrayList<>();
+        if (genero == null) return resultado;
+
+        if (columnas != null) {
+            boolean[] coincide = columnas.getGeneros().coincidenciasIgnorandoMayusculas(genero);
+            for (int i = 0; i < tamaño; i++) {
+                if (coincide[columnas.getCodigoGenero(filas[i])]) {
+                    resultado.add(columnas.cancion(filas[i]));
+                }
+            }
+        } else {
+            for (int i = 0; i < tamaño; i++) {
+                if (genero.equalsIgnoreCase(elementos[i].getGenero())) {
+                    resultado.add(elementos[i]);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Devuelve las canciones de un artista (sin distinguir mayúsculas).
+     * En modo columnar compara códigos enteros en lugar de cadenas.
+     *
+     * @param artista artista buscado
+     * @return canciones del artista en orden de inserción
+     */
+    public List<Cancion> filtrarPorArtista(String artista) {
+        List<Cancion> resultado = new ArrayList<>();
+        if (artista == null) return resultado;
+
+        if (columnas != null) {
+            boolean[] coincide = columnas.getArtistas().coincidenciasIgnorandoMayusculas(artista);
+            for (int i = 0; i < tamaño; i++) {
+                if (coincide[columnas.getCodigoArtista(filas[i])]) {
+                    resultado.add(columnas.cancion(filas[i]));
+                }
+            }
+        } else {
+            for (int i = 0; i < tamaño; i++) {
+                if (artista.equalsIgnoreCase(elementos[i].getArtista())) {
+                    resultado.add(elementos[i]);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Cuenta cuántas canciones hay de cada género.
+     *
+     * @return mapa género → cantidad de canciones
+     */
+    public Map<String, Integer> contarPorGenero() {
+        Map<String, Integer> conteo = new LinkedHashMap<>();
+        if (columnas != null) {
+            int[] porCodigo = new int[columnas.getGeneros().getTamaño()];
+            for (int i = 0; i < tamaño; i++) {
+                porCodigo[columnas.getCodigoGenero(filas[i])]++;
+            }
+            for (int cod = 0; cod < porCodigo.length; cod++) {
+                if (porCodigo[cod] > 0) {
+                    conteo.put(columnas.getGeneros().decodificar(cod), porCodigo[cod]);
+                }
+            }
+        } else {
+            for (int i = 0; i < tamaño; i++) {
+                conteo.merge(elementos[i].getGenero(), 1, Integer::sum);
+            }
+        }
+        return conteo;
+    }
+
+    // ===================== ÍNDICES SECUNDARIOS =====================
+
+    private Cancion cancionEn(int pos) {
+        return columnas != null ? columnas.cancion(filas[pos]) : elementos[pos];
+    }
+
+    private void indexar(String titulo, String id, int pos) {
+        if (titulo != null && indicePorTitulo.putIfAbsent(normalizar(titulo), pos) != null) {
+            titulosRepetidos++;
+        }
+        if (id != null && requiereIndiceId(titulo, id) && indicePorId.putIfAbsent(id, pos) != null) {
+            idsRepetidos++;
+        }
+    }
+
+    /**
+     * Tras eliminar la canción indexada de un título o id repetido, indexa la
+     * siguiente que lo comparte (siempre está detrás de la eliminada).
+     */
+    private void indexarRepetida(String titulo, String id, int desde) {
+        boolean buscarTitulo = titulosRepetidos > 0;
+        boolean buscarId = id != null && idsRepetidos > 0 && !indicePorId.containsKey(id)
+                && requiereIndiceId(titulo, id);
+        for (int i = desde; i < tamaño && (buscarTitulo || buscarId); i++) {
+            String t = columnas != null ? columnas.getTitulo(filas[i]) : elementos[i].getTitulo();
+            if (buscarTitulo && titulo.equalsIgnoreCase(t)) {
+                indicePorTitulo.put(normalizar(titulo), i);
+                titulosRepetidos--;
+                buscarTitulo = false;
+            }
+            if (buscarId && id.equals(idEn(i))) {
+                indicePorId.put(id, i);
+                idsRepetidos--;
+                buscarId = false;
+            }
+        }
+    }
+
+    /** @return true si el id no se puede encontrar a partir del título */
+    private static boolean requiereIndiceId(String titulo, String id) {
+        return titulo == null || titulo.indexOf('_') >= 0 || !id.equals(Cancion.idDesdeTitulo(titulo));
+    }
+
+    private String idEn(int pos) {
+        return columnas != null ? columnas.getId(filas[pos]) : elementos[pos].getId();
+    }
+
+    /** Corre una posición hacia atrás las entradas que apuntaban detrás de la eliminada */
+    private static void correrPosiciones(Map<String, Integer> indice, int eliminada) {
+        indice.replaceAll((clave, pos) -> pos > eliminada ? pos - 1 : pos);
+    }
+
+    private static String normalizar(String titulo) {
+        return titulo.toLowerCase();
     }
 }
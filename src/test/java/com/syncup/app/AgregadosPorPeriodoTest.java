@@ -0,0 +1,147 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.AgregadosPorPeriodo;
+import com.syncup.app.model.estructuras.HistorialColumnar;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AgregadosPorPeriodoTest {
+
+    HistorialColumnar historial;
+    HistorialDePrueba prueba;
+    AgregadosPorPeriodo agregados;
+
+    @BeforeEach
+    void setup() {
+        agregados = new AgregadosPorPeriodo();
+        prueba = new HistorialDePrueba(agregados::sumar);
+        historial = prueba.getHistorial();
+        prueba.reproducir("ana", "2025-11-10 23:30:00", "Skyfall", "Pop", "Adele");
+        prueba.reproducir("ana", "2025-11-11 08:00:00", "Skyfall", "Pop", "Adele");
+        prueba.reproducir("luis", "2025-11-11 09:15:00", "Te para 3", "Rock");
+        prueba.reproducir("luis", "2025-11-12 10:00:00", "Te para 3", "Rock");
+        prueba.reproducir("ana", "2025-11-13 00:10:00", "Te para 3", "Rock");
+    }
+
+    @Test
+    void testFiltroPorDiasUsuarioYGenero() {
+        AgregadosPorPeriodo.Resumen todo = agregados.resumir(historial, null, null,
+                (LocalDate) null, null);
+        assertEquals(5, todo.getTotal());
+        assertEquals(Map.of("Adele", 2), todo.getPorArtista());
+
+        AgregadosPorPeriodo.Resumen rango = agregados.resumir(historial, null, null,
+                LocalDate.of(2025, 11, 11), LocalDate.of(2025, 11, 12));
+        assertEquals(Map.of("Pop", 1, "Rock", 2), rango.getPorGenero());
+
+        AgregadosPorPeriodo.Resumen ana = agregados.resumir(historial, "ana", "Rock",
+                (LocalDate) null, null);
+        assertEquals(Map.of("Te para 3", 1), ana.getPorCancion());
+
+        assertEquals(0, agregados.resumir(historial, "nadie", null, (LocalDate) null, null).getTotal());
+    }
+
+    @Test
+    void testRangoPorHorasCombinaDiasYHoras() {
+        // 10/11 23:00 → 13/11 00:00: una hora suelta, dos días completos y otra hora suelta
+        AgregadosPorPeriodo.Resumen r = agregados.resumir(historial, null, null,
+                LocalDateTime.of(2025, 11, 10, 23, 0), LocalDateTime.of(2025, 11, 13, 0, 0));
+        assertEquals(5, r.getTotal());
+
+        AgregadosPorPeriodo.Resumen parcial = agregados.resumir(historial, null, null,
+                LocalDateTime.of(2025, 11, 11, 8, 30), LocalDateTime.of(2025, 11, 11, 9, 0));
+        assertEquals(2, parcial.getTotal());
+
+        AgregadosPorPeriodo.Resumen hastaFinDeDia = agregados.resumir(historial, null, null,
+                null, LocalDateTime.of(2025, 11, 11, 23, 0));
+        assertEquals(3, hastaFinDeDia.getTotal());
+    }
+
+    @Test
+    void testHorasViejasSeRespondenConElDiaCompleto() {
+        agregados = new AgregadosPorPeriodo(2);
+        agregados.reconstruir(historial);
+        // Días 10 a 13: solo el 12 y el 13 conservan sus horas
+        assertTrue(agregados.getHorasGuardadas() <= 2 * 24);
+
+        // 11/11 de 08:30 a 09:00 cae fuera de la ventana: cuenta todo el 11/11
+        AgregadosPorPeriodo.Resumen viejo = agregados.resumir(historial, null, null,
+                LocalDateTime.of(2025, 11, 11, 8, 30), LocalDateTime.of(2025, 11, 11, 8, 59));
+        assertEquals(2, viejo.getTotal());
+
+        // 12/11 está en la ventana: la precisión sigue siendo de una hora
+        AgregadosPorPeriodo.Resumen reciente = agregados.resumir(historial, null, null,
+                LocalDateTime.of(2025, 11, 12, 11, 0), LocalDateTime.of(2025, 11, 13, 0, 30));
+        assertEquals(1, reciente.getTotal());
+
+        // Los días completos no cambian
+        assertEquals(5, agregados.resumir(historial, null, null, (LocalDate) null, null).getTotal());
+    }
+
+    @Test
+    void testAvanzarElHistorialDescartaHoras() {
+        agregados = new AgregadosPorPeriodo(1);
+        agregados.reconstruir(historial);
+        int antes = agregados.getHorasGuardadas();
+
+        // prueba suma en el agregado de setup; este se actualiza a mano
+        agregados.sumar(historial, prueba.reproducir("ana", "2025-12-01 10:00:00", "Skyfall", "Pop", "Adele"));
+
+        assertEquals(1, antes);
+        assertEquals(1, agregados.getHorasGuardadas());
+        assertEquals(1, agregados.resumir(historial, null, null,
+                LocalDateTime.of(2025, 12, 1, 10, 0), LocalDateTime.of(2025, 12, 1, 10, 0)).getTotal());
+    }
+
+    @Test
+    void testRangosLargosCoincidenConRecorrerElHistorial() {
+        // Un año de reproducciones: los rangos cruzan meses completos y días sueltos
+        Random azar = new Random(17);
+        String[] usuarios = {"ana", "luis", "eva"};
+        String[] generos = {"Pop", "Rock"};
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime fecha = inicio.plusMinutes(azar.nextInt(366 * 24 * 60));
+            int c = azar.nextInt(20);
+            prueba.reproducir(usuarios[azar.nextInt(3)], fecha.toString().replace('T', ' ') + ":00",
+                    "Cancion " + c, generos[c % 2], "Artista " + c % 5);
+        }
+
+        LocalDate[][] rangos = {
+                {LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)},
+                {LocalDate.of(2024, 2, 15), LocalDate.of(2024, 9, 3)},
+                {LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31)},
+                {LocalDate.of(2024, 4, 10), LocalDate.of(2024, 4, 20)},
+                {null, LocalDate.of(2024, 6, 30)},
+                {LocalDate.of(2024, 7, 2), null}};
+        for (LocalDate[] rango : rangos) {
+            for (String usuario : new String[]{null, "eva"}) {
+                for (String genero : new String[]{null, "Rock"}) {
+                    assertEquals(contar(usuario, genero, rango[0], rango[1]),
+                            agregados.resumir(historial, usuario, genero, rango[0], rango[1]).getTotal(),
+                            usuario + " " + genero + " " + rango[0] + " " + rango[1]);
+                }
+            }
+        }
+    }
+
+    /** Cuenta recorriendo el historial fila a fila */
+    private int contar(String usuario, String genero, LocalDate desde, LocalDate hasta) {
+        int total = 0;
+        for (int fila = 0; fila < historial.getTamaño(); fila++) {
+            LocalDate dia = LocalDate.ofEpochDay(Math.floorDiv(historial.getHora(fila), 24L));
+            if (usuario != null && !usuario.equals(historial.getUsuario(fila))) continue;
+            if (genero != null && !genero.equals(historial.getGenero(fila))) continue;
+            if (desde != null && dia.isBefore(desde)) continue;
+            if (hasta != null && dia.isAfter(hasta)) continue;
+            total++;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,106 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.AnaliticaHistorial;
+import com.syncup.app.logic.AnaliticaHistorial.Campo;
+import com.syncup.app.logic.AnaliticaHistorial.Consulta;
+import com.syncup.app.logic.IndiceUsuariosHistorial;
+import com.syncup.app.model.estructuras.HistorialColumnar;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnaliticaHistorialTest {
+
+    HistorialColumnar historial;
+    HistorialDePrueba prueba;
+    AnaliticaHistorial analitica;
+
+    @BeforeEach
+    void setup() {
+        analitica = new AnaliticaHistorial();
+        prueba = new HistorialDePrueba(analitica::sumar);
+        historial = prueba.getHistorial();
+        prueba.reproducir("ana", "2025-11-10 10:00:00", "Skyfall", "Pop", "Adele");
+        prueba.reproducir("Ana", "2025-11-10 11:00:00", "Hello", "Pop", "Adele");
+        prueba.reproducir("luis", "2025-11-11 09:00:00", "Skyfall", "Pop", "Adele");
+        prueba.reproducir("ana", "2025-11-12 20:00:00", "Te para 3", "Rock", null);
+        prueba.reproducir("eva", "2025-11-12 21:00:00", "Te para 3", "Rock", null);
+    }
+
+    private static Map.Entry<String, Integer> par(String clave, int conteo) {
+        return Map.entry(clave, conteo);
+    }
+
+    @Test
+    void testAgruparConFiltrosYLimite() {
+        assertEquals(List.of(par("Skyfall", 2), par("Te para 3", 2), par("Hello", 1)),
+                analitica.ejecutar(historial, Consulta.agruparPor(Campo.CANCION)));
+        assertEquals(List.of(par("Adele", 3), par("Desconocido", 2)),
+                analitica.ejecutar(historial, Consulta.agruparPor(Campo.ARTISTA)));
+        assertEquals(List.of(par("Pop", 2)),
+                analitica.ejecutar(historial, Consulta.agruparPor(Campo.GENERO).usuario("ANA").limite(1)));
+        assertEquals(List.of(par("Te para 3", 1)),
+                analitica.ejecutar(historial, Consulta.agruparPor(Campo.CANCION).usuario("ana").genero("Rock")));
+        assertTrue(analitica.ejecutar(historial, Consulta.agruparPor(Campo.CANCION).genero("Jazz")).isEmpty());
+        assertTrue(analitica.ejecutar(historial, Consulta.agruparPor(Campo.CANCION).usuario("nadie")).isEmpty());
+    }
+
+    @Test
+    void testRangoDeFechasYPorDia() {
+        assertEquals(List.of(par("2025-11-10", 2), par("2025-11-12", 2), par("2025-11-11", 1)),
+                analitica.ejecutar(historial, Consulta.agruparPor(Campo.DIA)));
+        assertEquals(List.of(par("Skyfall", 1), par("Te para 3", 1)),
+                analitica.ejecutar(historial, Consulta.agruparPor(Campo.CANCION)
+                        .rango(LocalDateTime.of(2025, 11, 11, 0, 0), LocalDateTime.of(2025, 11, 12, 20, 30))));
+    }
+
+    @Test
+    void testParaleloCoincideConSecuencial() {
+        for (int i = 0; i < 100_000; i++) {
+            prueba.reproducir("u" + (i % 37), "2025-10-" + String.format("%02d", 1 + i % 28) + " 12:00:00",
+                    "Cancion " + (i % 101), i % 2 == 0 ? "Pop" : "Rock", null);
+        }
+        AnaliticaHistorial secuencial = new AnaliticaHistorial(new ForkJoinPool(1));
+        secuencial.reconstruir(historial);
+
+        Consulta consulta = Consulta.agruparPor(Campo.CANCION).genero("Pop").limite(10);
+        List<Map.Entry<String, Integer>> esperado = secuencial.ejecutar(historial, consulta);
+        assertEquals(10, esperado.size());
+        assertEquals(esperado, analitica.ejecutar(historial, consulta));
+        assertEquals(secuencial.ejecutar(historial, Consulta.agruparPor(Campo.USUARIO)),
+                analitica.ejecutar(historial, Consulta.agruparPor(Campo.USUARIO)));
+    }
+
+    @Test
+    void testConsultaPorUsuarioUsaElIndice() {
+        IndiceUsuariosHistorial indice = new IndiceUsuariosHistorial();
+        indice.reconstruir(historial);
+        AnaliticaHistorial conIndice = new AnaliticaHistorial(ForkJoinPool.commonPool(), indice);
+        conIndice.reconstruir(historial);
+
+        for (Campo campo : Campo.values()) {
+            Consulta consulta = Consulta.agruparPor(campo).usuario("ANA");
+            assertEquals(analitica.ejecutar(historial, consulta), conIndice.ejecutar(historial, consulta));
+        }
+        assertEquals(List.of(par("Te para 3", 1)), conIndice.ejecutar(historial, Consulta.agruparPor(Campo.CANCION)
+                .usuario("ana").rango(LocalDateTime.of(2025, 11, 12, 0, 0), null)));
+        assertTrue(conIndice.ejecutar(historial, Consulta.agruparPor(Campo.CANCION).usuario("nadie")).isEmpty());
+    }
+
+    @Test
+    void testConteoDispersoConCatalogoGrande() {
+        for (int i = 0; i < 5_000; i++) {
+            prueba.reproducir("otro", "2025-11-01 12:00:00", "Relleno " + i, "Pop");
+        }
+        // 3 filas de "ana" contra más de 5000 canciones posibles
+        assertEquals(List.of(par("Hello", 1), par("Skyfall", 1)),
+                analitica.ejecutar(historial, Consulta.agruparPor(Campo.CANCION).usuario("ana").genero("Pop")));
+        assertEquals(List.of(par("Pop", 2), par("Rock", 1)),
+                analitica.ejecutar(historial, Consulta.agruparPor(Campo.GENERO).usuario("ana")));
+    }
+}
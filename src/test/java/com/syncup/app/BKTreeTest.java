@@ -4,6 +4,7 @@ import com.syncup.app.logic.BKTree;
 import org.junit.jupiter.api.*;
 
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -82,4 +83,85 @@ public class BKTreeTest {
         assertEquals(0, resultados.size());
     }
 
+    @Test
+    void testDistanciaAcotadaCoincideConExacta() {
+        Random rnd = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String a = cadenaAleatoria(rnd, rnd.nextInt(12));
+            String b = cadenaAleatoria(rnd, rnd.nextInt(12));
+            int exacta = matrizCompleta(a, b);
+
+            assertEquals(exacta, BKTree.distanciaLevenshtein(a, b));
+            for (int limite = 0; limite <= 6; limite++) {
+                int esperada = exacta <= limite ? exacta : limite + 1;
+                assertEquals(esperada, BKTree.distanciaAcotada(a, b, limite), a + " / " + b + " k=" + limite);
+            }
+        }
+    }
+
+    @Test
+    void testBusquedaIgualAFuerzaBruta() {
+        Random rnd = new Random(7);
+        BKTree grande = new BKTree();
+        List<String> claves = new java.util.ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String clave = cadenaAleatoria(rnd, 3 + rnd.nextInt(8));
+            claves.add(clave);
+            grande.insertar(clave, clave);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            String consulta = cadenaAleatoria(rnd, 3 + rnd.nextInt(8));
+            int maxDist = rnd.nextInt(4);
+            java.util.Set<String> esperadas = new java.util.HashSet<>();
+            for (String c : claves) {
+                if (matrizCompleta(consulta, c) <= maxDist) esperadas.add(c);
+            }
+            assertEquals(esperadas, new java.util.HashSet<>(grande.buscarSimilares(consulta, maxDist)));
+        }
+    }
+
+    private static String cadenaAleatoria(Random rnd, int largo) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < largo; i++) {
+            sb.append((char) ('a' + rnd.nextInt(4)));
+        }
+        return sb.toString();
+    }
+
+    /** Implementación de referencia con la matriz completa */
+    private static int matrizCompleta(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) dp[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) dp[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + costo);
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+
+    @Test
+    void testEliminarReferencia() {
+        assertTrue(tree.eliminar("lover taylor swift pop", "Lover"));
+        assertFalse(tree.eliminar("lover taylor swift pop", "Lover"));
+
+        assertTrue(tree.buscarSimilares("lover taylor swift pop", 2).isEmpty());
+        // Los nodos que cuelgan de la lápida siguen siendo alcanzables
+        assertEquals(List.of("Love Story"), tree.buscarSimilares("love story taylor swift pop", 0));
+        assertEquals(List.of("Low Motion"), tree.buscarSimilares("low motion dillon francis edm", 0));
+    }
+
+    @Test
+    void testCompactarTrasEliminarMayoria() {
+        tree.eliminar("love story taylor swift pop", "Love Story");
+        tree.eliminar("lover taylor swift pop", "Lover");
+        tree.eliminar("loveless the weekend rnb", "Loveless");
+
+        assertEquals(List.of("Low Motion"), tree.buscarSimilares("low motion dillon francis edm", 1));
+        tree.insertar("lover taylor swift pop", "Lover");
+        assertEquals(List.of("Lover"), tree.buscarSimilares("lover taylor swift pop", 0));
+    }
 }
@@ -0,0 +1,145 @@
+package com.syncup.app;
+
+import com.syncup.app.model.BibliotecaMusical;
+import com.syncup.app.model.Cancion;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BibliotecaMusicalTest {
+
+    BibliotecaMusical biblioteca;
+
+    @BeforeEach
+    void setup() {
+        // Usa el catálogo real de canciones.csv (solo lectura)
+        biblioteca = new BibliotecaMusical();
+    }
+
+    @Test
+    void testBuscarToleraErroresTipograficos() {
+        List<Cancion> resultados = biblioteca.buscar("corazon delatr", 10);
+
+        assertFalse(resultados.isEmpty());
+        assertEquals("Corazon Delator", resultados.get(0).getTitulo());
+    }
+
+    @Test
+    void testBuscarPorPrefijoDeArtista() {
+        List<Cancion> resultados = biblioteca.buscar("soda", 50);
+
+        assertFalse(resultados.isEmpty());
+        assertTrue(resultados.stream().allMatch(c -> c.getArtista().equals("Soda Stereo")));
+    }
+
+    @Test
+    void testBuscarOrdenaPorPopularidad() {
+        biblioteca.registrarReproduccion("Te para 3", 5);
+        biblioteca.registrarReproduccion("Disco Eterno", 2);
+
+        List<Cancion> resultados = biblioteca.buscar("soda", 3);
+
+        assertEquals("Te para 3", resultados.get(0).getTitulo());
+        assertEquals("Disco Eterno", resultados.get(1).getTitulo());
+    }
+
+    @Test
+    void testBuscarSinCoincidencias() {
+        assertTrue(biblioteca.buscar("zzzzzzzzzzzzzzzz", 10).isEmpty());
+        assertTrue(biblioteca.buscar("", 10).isEmpty());
+    }
+
+    @Test
+    void testTituloRepetidoNoSePierdeAlReiniciar() {
+        String titulo = "Prueba Titulo Repetido";
+        try {
+            assertTrue(biblioteca.agregarCancion(new Cancion(titulo, "Artista A", "Rock")));
+            assertFalse(biblioteca.agregarCancion(new Cancion(titulo.toUpperCase(), "Artista B", "Pop")));
+
+            BibliotecaMusical reiniciada = new BibliotecaMusical();
+
+            assertEquals(biblioteca.obtenerTodas().size(), reiniciada.obtenerTodas().size());
+            assertEquals("Artista A", reiniciada.buscarPorTitulo(titulo).getArtista());
+            assertEquals(1, reiniciada.buscar(titulo, 50).stream()
+                    .filter(c -> c.getTitulo().equalsIgnoreCase(titulo)).count());
+        } finally {
+            biblioteca.eliminarCancion(titulo);
+        }
+    }
+
+    @Test
+    void testTituloExistenteSigueSiendoBuscable() {
+        assertFalse(biblioteca.agregarCancion(new Cancion("corazon delator", "Otro Artista", "Pop")));
+
+        List<Cancion> resultados = biblioteca.buscar("corazon delator", 10);
+        assertEquals("Corazon Delator", resultados.get(0).getTitulo());
+        assertNotEquals("Otro Artista", biblioteca.buscarPorTitulo("Corazon Delator").getArtista());
+    }
+
+    /** Canciones del catálogo sintético; la medición a 500.000 necesita más memoria que la de las pruebas */
+    private static final int CANCIONES_CATALOGO_GRANDE = 50_000;
+
+    @Test
+    void testBuscarEnCatalogoGrande(@TempDir Path dir) throws Exception {
+        // Canciones sintéticas: títulos de 2 a 4 palabras de un vocabulario de 20.000 y un número
+        Random azar = new Random(6);
+        String[] vocabulario = new String[20_000];
+        for (int i = 0; i < vocabulario.length; i++) {
+            vocabulario[i] = palabra(azar, 4 + azar.nextInt(6));
+        }
+        try (BufferedWriter w = Files.newBufferedWriter(dir.resolve("canciones.csv"), StandardCharsets.UTF_8)) {
+            w.write("titulo,artista,genero\n");
+            for (int i = 0; i < CANCIONES_CATALOGO_GRANDE; i++) {
+                StringBuilder titulo = new StringBuilder();
+                for (int p = 2 + azar.nextInt(3); p > 0; p--) {
+                    titulo.append(vocabulario[azar.nextInt(vocabulario.length)]).append(' ');
+                }
+                titulo.append(i);
+                w.write(titulo + ",Artista " + vocabulario[i % 5_000] + ",Genero" + i % 30 + "\n");
+            }
+        }
+        BibliotecaMusical grande = new BibliotecaMusical(true, dir);
+        assertEquals(CANCIONES_CATALOGO_GRANDE, grande.obtenerTodas().size());
+
+        // Consultas de dos palabras con un error tipográfico en la segunda
+        String[] consultas = new String[200];
+        for (int i = 0; i < consultas.length; i++) {
+            char[] segunda = vocabulario[azar.nextInt(vocabulario.length)].toCharArray();
+            segunda[azar.nextInt(segunda.length)] = 'z';
+            consultas[i] = vocabulario[azar.nextInt(vocabulario.length)] + " " + new String(segunda);
+        }
+        for (String q : consultas) {
+            grande.buscar(q, 10); // calentamiento
+        }
+        long[] tiempos = new long[consultas.length];
+        for (int i = 0; i < consultas.length; i++) {
+            long inicio = System.nanoTime();
+            assertFalse(grande.buscar(consultas[i], 10).isEmpty());
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tiempos);
+        double mediana = tiempos[tiempos.length / 2] / 1e6;
+        double p95 = tiempos[tiempos.length * 95 / 100] / 1e6;
+        System.out.printf("⏱️ buscar con %d canciones: mediana %.2f ms, p95 %.2f ms%n",
+                CANCIONES_CATALOGO_GRANDE, mediana, p95);
+        // Cota holgada para máquinas de integración lentas
+        assertTrue(mediana < 100, "mediana " + mediana + " ms");
+    }
+
+    private static String palabra(Random azar, int largo) {
+        char[] letras = new char[largo];
+        for (int i = 0; i < largo; i++) {
+            letras[i] = (char) ('a' + azar.nextInt(26));
+        }
+        return new String(letras);
+    }
+}
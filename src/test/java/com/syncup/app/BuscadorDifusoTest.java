@@ -0,0 +1,68 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.BuscadorDifuso;
+import com.syncup.app.model.Cancion;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuscadorDifusoTest {
+
+    BuscadorDifuso buscador;
+
+    @BeforeEach
+    void setup() {
+        buscador = new BuscadorDifuso();
+        buscador.indexar(new Cancion("Shape of You", "Ed Sheeran", "Pop"));
+        buscador.indexar(new Cancion("Perfect", "Ed Sheeran", "Pop"));
+        buscador.indexar(new Cancion("Bohemian Rhapsody", "Queen", "Rock"));
+        buscador.indexar(new Cancion("Someone Like You", "Adele", "Soul"));
+    }
+
+    @Test
+    void testErrorEnArtistaCorto() {
+        // "queem" está a distancia 1 de "queen" aunque el título sea largo
+        List<BuscadorDifuso.Resultado> r = buscador.buscar("queem", 10);
+
+        assertEquals(1, r.size());
+        assertEquals("Bohemian Rhapsody", r.get(0).getTitulo());
+        assertEquals(1, r.get(0).getDistancia());
+    }
+
+    @Test
+    void testInterseccionDePalabras() {
+        // "you" aparece en dos títulos, pero solo uno es de Ed Sheeran
+        List<BuscadorDifuso.Resultado> r = buscador.buscar("you sheeran", 10);
+
+        assertEquals("Shape of You", r.get(0).getTitulo());
+        assertEquals(0, r.get(0).getPalabrasFaltantes());
+        assertTrue(r.stream().skip(1).allMatch(x -> x.getPalabrasFaltantes() > 0));
+    }
+
+    @Test
+    void testToleranciaSegunLongitud() {
+        assertEquals(0, BuscadorDifuso.tolerancia(3));
+        assertEquals(1, BuscadorDifuso.tolerancia(6));
+        assertEquals(2, BuscadorDifuso.tolerancia(9));
+
+        // Palabras cortas exigen coincidencia exacta
+        assertTrue(buscador.buscar("yuo", 10).isEmpty());
+    }
+
+    @Test
+    void testLimiteDevuelveLosMejores() {
+        // Títulos a distancia 0, 1 y 2 de "rhapsody", mezclados
+        String[] variantes = {"rhapsody", "rhapsodi", "rapsodi"};
+        for (int i = 0; i < 90; i++) {
+            buscador.indexar(new Cancion(variantes[i % 3] + " " + i, "Varios", "Pop"));
+        }
+
+        List<BuscadorDifuso.Resultado> todos = buscador.buscar("rhapsody", 1_000);
+        List<BuscadorDifuso.Resultado> primeros = buscador.buscar("rhapsody", 5);
+        assertEquals(todos.subList(0, 5).stream().map(BuscadorDifuso.Resultado::getTitulo).toList(),
+                primeros.stream().map(BuscadorDifuso.Resultado::getTitulo).toList());
+        assertTrue(primeros.stream().allMatch(r -> r.getDistancia() == 0));
+    }
+}
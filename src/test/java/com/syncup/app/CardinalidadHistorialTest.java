@@ -0,0 +1,51 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.CardinalidadHistorial;
+import com.syncup.app.model.estructuras.HistorialColumnar;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CardinalidadHistorialTest {
+
+    HistorialColumnar historial;
+    HistorialDePrueba prueba;
+    CardinalidadHistorial cardinalidad;
+
+    @BeforeEach
+    void setup() {
+        cardinalidad = new CardinalidadHistorial();
+        prueba = new HistorialDePrueba(cardinalidad::sumar);
+        historial = prueba.getHistorial();
+        prueba.reproducir("ana", "2025-11-10 10:00:00", "Skyfall", "Pop");
+        prueba.reproducir("Ana", "2025-11-10 11:00:00", "Hello", "Pop");
+        prueba.reproducir("luis", "2025-11-11 09:00:00", "Skyfall", "Pop");
+        prueba.reproducir("eva", "2025-11-12 20:00:00", "Te para 3", "Rock");
+    }
+
+    @Test
+    void testDistintosGlobalesYPorUsuario() {
+        assertEquals(3, cardinalidad.getCancionesDistintas());
+        assertEquals(2, cardinalidad.getGenerosDistintos());
+        assertEquals(3, cardinalidad.getOyentesDistintos()); // "ana" y "Ana" son el mismo oyente
+        assertEquals(2, cardinalidad.getCancionesDistintasUsuario("ANA"));
+        assertEquals(0, cardinalidad.getCancionesDistintasUsuario("nadie"));
+    }
+
+    @Test
+    void testRangoCombinaDias() {
+        LocalDate d10 = LocalDate.of(2025, 11, 10);
+        LocalDate d11 = LocalDate.of(2025, 11, 11);
+
+        assertEquals(2, cardinalidad.getCancionesDistintas(d10, d11));
+        assertEquals(2, cardinalidad.getOyentesDistintos(d10, d11));
+        assertEquals(2, cardinalidad.getOyentesDistintos(d11, null));
+        assertEquals(0, cardinalidad.getOyentesDistintos(d11, d10));
+
+        historial.eliminarSi(fila -> historial.getTitulo(fila).equals("Skyfall"));
+        cardinalidad.reconstruir(historial);
+        assertEquals(1, cardinalidad.getCancionesDistintas(d10, d11));
+    }
+}
@@ -0,0 +1,67 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.CargadorCatalogo;
+import com.syncup.app.model.Cancion;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CargadorCatalogoTest {
+
+    @TempDir
+    Path dir;
+
+    CargadorCatalogo cargador;
+
+    @BeforeEach
+    void setup() {
+        cargador = new CargadorCatalogo();
+    }
+
+    @Test
+    void testLeeCamposComoElCargadorSecuencial() throws Exception {
+        Path csv = dir.resolve("canciones.csv");
+        Files.writeString(csv, "titulo,artista,genero\r\n"
+                + " Canción Animal , Soda Stereo ,Rock\r\n"
+                + "incompleta,sin genero\n"
+                + "\n"
+                + "Innerbloom,RÜFÜS DU SOL,Electronica,extra\n"
+                + "Sin salto,Artista,Pop", StandardCharsets.UTF_8);
+
+        List<Cancion> canciones = cargador.leer(csv);
+
+        assertEquals(3, canciones.size());
+        assertEquals("Canción Animal", canciones.get(0).getTitulo());
+        assertEquals("Soda Stereo", canciones.get(0).getArtista());
+        assertEquals("Rock", canciones.get(0).getGenero());
+        assertEquals("RÜFÜS DU SOL", canciones.get(1).getArtista());
+        assertEquals("Electronica", canciones.get(1).getGenero());
+        assertEquals("Sin salto", canciones.get(2).getTitulo());
+    }
+
+    @Test
+    void testArchivoGrandeConservaElOrden() throws Exception {
+        int n = 200_000;
+        StringBuilder sb = new StringBuilder("titulo,artista,genero\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("Cancion ").append(i).append(",Artista ").append(i % 700).append(",Género\n");
+        }
+        Path csv = dir.resolve("grande.csv");
+        Files.writeString(csv, sb, StandardCharsets.UTF_8);
+
+        List<Cancion> canciones = cargador.leer(csv);
+
+        assertEquals(n, canciones.size());
+        for (int i = 0; i < n; i += 997) {
+            assertEquals("Cancion " + i, canciones.get(i).getTitulo());
+        }
+        assertEquals("Cancion " + (n - 1), canciones.get(n - 1).getTitulo());
+        assertEquals("Género", canciones.get(n - 1).getGenero());
+    }
+}
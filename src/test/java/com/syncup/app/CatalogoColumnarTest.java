@@ -0,0 +1,136 @@
+package com.syncup.app;
+
+import com.syncup.app.model.Cancion;
+import com.syncup.app.model.estructuras.CatalogoColumnar;
+import com.syncup.app.model.estructuras.ListaCanciones;
+import org.junit.jupiter.api.*;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogoColumnarTest {
+
+    CatalogoColumnar catalogo;
+    ListaCanciones lista;
+
+    @BeforeEach
+    void setup() {
+        catalogo = new CatalogoColumnar();
+        lista = new ListaCanciones(catalogo);
+        lista.agregarAlFinal(new Cancion("Love Story", "Taylor Swift", "Pop"));
+        lista.agregarAlFinal(new Cancion("Lover", "Taylor Swift", "Pop"));
+        lista.agregarAlFinal(new Cancion("Bohemian Rhapsody", "Queen", "Rock"));
+        lista.agregarAlFinal(new Cancion("id_propio", "Time", "Pink Floyd", "Rock", 1973, 413));
+    }
+
+    @Test
+    void testCopiasLeenLasColumnas() {
+        Cancion c = lista.obtenerPorIndice(3);
+
+        assertEquals("Time", c.getTitulo());
+        assertEquals("Pink Floyd", c.getArtista());
+        assertEquals("id_propio", c.getId());
+        assertEquals(1973, c.getAnio());
+        assertEquals(413, c.getDuracion());
+        assertEquals("love_story", lista.obtenerPorIndice(0).getId());
+    }
+
+    @Test
+    void testDiccionariosComparten() {
+        assertEquals(3, catalogo.getArtistas().getTamaño());
+        assertEquals(2, catalogo.getGeneros().getTamaño());
+        assertEquals(catalogo.getCodigoArtista(0), catalogo.getCodigoArtista(1));
+    }
+
+    @Test
+    void testIgualdadConCancionNormal() {
+        Cancion vista = lista.buscarPorTitulo("lover");
+        Cancion normal = new Cancion("Lover", "Taylor Swift", "Pop");
+
+        assertEquals(normal, vista);
+        assertEquals(vista, normal);
+        assertEquals(normal.hashCode(), vista.hashCode());
+    }
+
+    @Test
+    void testFiltrosPorCodigo() {
+        assertEquals(2, lista.filtrarPorGenero("rock").size());
+        assertEquals(2, lista.filtrarPorArtista("TAYLOR SWIFT").size());
+        assertEquals(2, lista.contarPorGenero().get("Pop"));
+    }
+
+    @Test
+    void testCopiaSigueValidaTrasEliminar() {
+        Cancion copia = lista.buscarPorTitulo("Love Story");
+        lista.eliminarPorTitulo("Love Story");
+
+        assertEquals(3, lista.getTamaño());
+        assertEquals("Love Story", copia.getTitulo());
+        assertEquals("Lover", lista.obtenerPorIndice(0).getTitulo());
+    }
+
+    @Test
+    void testModificarUnaCopiaNoAlteraElCatalogo() {
+        Cancion copia = lista.buscarPorTitulo("Lover");
+        copia.setTitulo("Otro");
+        copia.setArtista("Otro Artista");
+
+        assertTrue(lista.contieneTitulo("lover"));
+        assertFalse(lista.contieneTitulo("Otro"));
+        assertEquals("Taylor Swift", lista.buscarPorTitulo("Lover").getArtista());
+        assertEquals(2, lista.filtrarPorArtista("Taylor Swift").size());
+    }
+
+    @Test
+    void testEliminarCompactaLasFilasMuertas() {
+        for (int i = 0; i < 3000; i++) {
+            lista.agregarAlFinal(new Cancion("Relleno " + i, "Artista " + (i % 7), "Pop"));
+        }
+        for (int i = 0; i < 3000; i++) {
+            lista.eliminarPorTitulo("Relleno " + i);
+        }
+
+        assertTrue(catalogo.getFilas() < 3000);
+        assertEquals(4, lista.getTamaño());
+        assertEquals("Pink Floyd", lista.buscarPorTitulo("time").getArtista());
+        assertEquals(1973, lista.buscarPorId("id_propio").getAnio());
+        assertEquals("Bohemian Rhapsody", lista.obtenerPorIndice(2).getTitulo());
+    }
+
+    @Test
+    void testMemoriaPorCancion() {
+        int n = 200_000;
+        // Como al leer el CSV: cada fila trae sus propias cadenas
+        long columnar = bytesPorCancion(n, c -> new CatalogoColumnar(), CatalogoColumnar::agregar);
+        long objetos = bytesPorCancion(n, c -> new ArrayList<Cancion>(), List::add);
+        System.out.printf("📏 Memoria por canción: columnar %d B, objetos Cancion %d B%n", columnar, objetos);
+
+        // El título es lo único propio de cada fila; artista, género e id se comparten o se deducen
+        assertTrue(columnar * 2 < objetos, columnar + " B contra " + objetos + " B");
+    }
+
+    /** Memoria retenida por un almacén con n canciones, dividida por n */
+    private static <T> long bytesPorCancion(int n, IntFunction<T> crear, BiConsumer<T, Cancion> agregar) {
+        long antes = memoriaUsada();
+        T destino = crear.apply(n);
+        for (int i = 0; i < n; i++) {
+            agregar.accept(destino, new Cancion("Cancion " + i, "Artista " + (i % 500), "Genero " + (i % 20)));
+        }
+        long despues = memoriaUsada();
+        Reference.reachabilityFence(destino); // mantiene vivo el almacén hasta después de medir
+        return (despues - antes) / n;
+    }
+
+    private static long memoriaUsada() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,54 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.ContadoresHistorial;
+import com.syncup.app.model.estructuras.HistorialColumnar;
+import org.junit.jupiter.api.*;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContadoresHistorialTest {
+
+    HistorialColumnar historial;
+    HistorialDePrueba prueba;
+    ContadoresHistorial contadores;
+
+    @BeforeEach
+    void setup() {
+        contadores = new ContadoresHistorial();
+        prueba = new HistorialDePrueba(contadores::sumar);
+        historial = prueba.getHistorial();
+    }
+
+    @Test
+    void testSumarActualizaConteosYMaximos() {
+        prueba.reproducir("ana", "2025-11-11 10:00:00", "Skyfall", "Pop", "Adele");
+        prueba.reproducir("luis", "2025-11-11 11:00:00", "Te para 3", "Rock");
+        prueba.reproducir("luis", "2025-11-12 11:00:00", "Te para 3", "Rock");
+
+        int teParaTres = historial.getCanciones().buscarCodigo("Te para 3");
+        assertEquals(teParaTres, contadores.getTopCancion());
+        assertEquals(2, contadores.getPorCancion(teParaTres));
+        assertEquals("Rock", historial.getGeneros().decodificar(contadores.getTopGenero()));
+        assertEquals(2, contadores.getPorUsuario(historial.getUsuarios().buscarCodigo("luis")));
+        assertEquals(2, contadores.getDiasConReproducciones());
+        assertEquals(Map.of("Adele", 1, "Desconocido", 2), contadores.getPorArtista(historial));
+    }
+
+    @Test
+    void testReconstruirTrasEliminar() {
+        prueba.reproducir("ana", "2025-11-11 10:00:00", "Skyfall", "Pop", "Adele");
+        prueba.reproducir("ana", "2025-11-11 10:05:00", "Skyfall", "Pop", "Adele");
+        prueba.reproducir("luis", "2025-11-12 11:00:00", "Te para 3", "Rock");
+
+        int ana = historial.getUsuarios().buscarCodigo("ana");
+        historial.eliminarSi(fila -> historial.getCodigoUsuario(fila) == ana);
+        contadores.reconstruir(historial);
+
+        assertEquals("Te para 3", historial.getCanciones().decodificar(contadores.getTopCancion()));
+        assertEquals(0, contadores.getPorUsuario(ana));
+        assertEquals(1, contadores.getDiasConReproducciones());
+        assertEquals(Map.of("Desconocido", 1), contadores.getPorArtista(historial));
+    }
+}
@@ -0,0 +1,88 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.EscritorHistorial;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EscritorHistorialTest {
+
+    @TempDir
+    Path dir;
+
+    private Path activo;
+
+    @BeforeEach
+    void setup() {
+        activo = dir.resolve("historial.csv");
+    }
+
+    @Test
+    void testVaciarEscribeLasLineasEncoladas() throws Exception {
+        EscritorHistorial escritor = new EscritorHistorial(activo, "usuario,fecha,titulo,genero",
+                EscritorHistorial.Durabilidad.BUFFER_SO, 1000, 60_000);
+        escritor.escribir("ana,2024-01-01 10:00:00,Tema,Rock");
+        escritor.escribir("luis,2024-01-01 10:01:00,Otro,Pop");
+        escritor.vaciar();
+
+        List<String> lineas = Files.readAllLines(activo, StandardCharsets.UTF_8);
+        assertEquals(List.of("usuario,fecha,titulo,genero",
+                "ana,2024-01-01 10:00:00,Tema,Rock",
+                "luis,2024-01-01 10:01:00,Otro,Pop"), lineas);
+        escritor.cerrar();
+    }
+
+    @Test
+    void testHiloDeFondoEscribeSinVaciar() throws Exception {
+        EscritorHistorial escritor = new EscritorHistorial(activo, "h",
+                EscritorHistorial.Durabilidad.BUFFER_SO, 2, 20);
+        escritor.escribir("x");
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < limite
+                && (!Files.exists(activo) || Files.readAllLines(activo).size() < 2)) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("h", "x"), Files.readAllLines(activo));
+        escritor.cerrar();
+    }
+
+    @Test
+    void testLoteFallidoSeReintentaEnOrden() throws Exception {
+        Path bloqueo = dir.resolve("sub");
+        Files.writeString(bloqueo, "no es una carpeta");
+        Path destino = bloqueo.resolve("historial.csv");
+        EscritorHistorial escritor = new EscritorHistorial(destino, "h",
+                EscritorHistorial.Durabilidad.BUFFER_SO, 1000, 60_000);
+        escritor.escribir("a");
+        escritor.escribir("b");
+        assertFalse(escritor.vaciar());
+
+        Files.delete(bloqueo);
+        escritor.escribir("c");
+        assertTrue(escritor.vaciar());
+        assertEquals(List.of("h", "a", "b", "c"), Files.readAllLines(destino));
+        escritor.cerrar();
+    }
+
+    @Test
+    void testRedirigirCambiaDeArchivoSinPerderLineas() throws Exception {
+        Path otro = dir.resolve("otro.csv");
+        EscritorHistorial escritor = new EscritorHistorial(activo, "h",
+                EscritorHistorial.Durabilidad.BUFFER_SO, 1000, 60_000);
+        escritor.escribir("a");
+        assertTrue(escritor.redirigir(otro));
+        escritor.escribir("b");
+        escritor.vaciar();
+
+        assertEquals(List.of("h", "a"), Files.readAllLines(activo));
+        assertEquals(List.of("h", "b"), Files.readAllLines(otro));
+        escritor.cerrar();
+    }
+}
@@ -0,0 +1,147 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.ExportadorHistorial;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportadorHistorialTest {
+
+    private static final String ENCABEZADO = "usuario,fecha,titulo,genero";
+
+    @TempDir
+    Path dir;
+
+    ExportadorHistorial exportador;
+
+    @BeforeEach
+    void setup() {
+        exportador = new ExportadorHistorial(dir, ENCABEZADO).hilos(3);
+    }
+
+    private static String[] registro(String usuario, int i) {
+        return new String[] { usuario, String.format("2025-01-01 10:%02d:%02d", i / 60 % 60, i % 60), "T" + i, "Pop" };
+    }
+
+    @Test
+    void testUnArchivoPorUsuarioEnOrden() throws Exception {
+        long exportados = exportador.exportar(destino -> {
+            for (int i = 0; i < 10; i++) {
+                destino.accept(registro(i % 2 == 0 ? "ana" : "luis", i));
+            }
+        });
+
+        assertEquals(10, exportados);
+        assertEquals(List.of(ENCABEZADO,
+                "ana,2025-01-01 10:00:00,T0,Pop",
+                "ana,2025-01-01 10:00:02,T2,Pop",
+                "ana,2025-01-01 10:00:04,T4,Pop",
+                "ana,2025-01-01 10:00:06,T6,Pop",
+                "ana,2025-01-01 10:00:08,T8,Pop"),
+                Files.readAllLines(dir.resolve("historial_ana.csv"), StandardCharsets.UTF_8));
+        assertEquals(6, Files.readAllLines(dir.resolve("historial_luis.csv"), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    void testMuchosUsuariosReabrenSinPerderFilas() throws Exception {
+        // Más usuarios que archivos abiertos por trabajador, intercalados
+        exportador.hilos(1).exportar(destino -> {
+            for (int vuelta = 0; vuelta < 3; vuelta++) {
+                for (int u = 0; u < 100; u++) {
+                    destino.accept(registro("u" + u, vuelta));
+                }
+            }
+        });
+
+        for (int u = 0; u < 100; u++) {
+            List<String> lineas = Files.readAllLines(dir.resolve("historial_u" + u + ".csv"), StandardCharsets.UTF_8);
+            assertEquals(4, lineas.size());
+            assertEquals(ENCABEZADO, lineas.get(0));
+            assertTrue(lineas.get(3).endsWith(",T2,Pop"));
+        }
+    }
+
+    @Test
+    void testComprimidoConReaperturas() throws Exception {
+        exportador.hilos(1).comprimir(true).exportar(destino -> {
+            for (int vuelta = 0; vuelta < 2; vuelta++) {
+                for (int u = 0; u < 40; u++) {
+                    destino.accept(registro("u" + u, vuelta));
+                }
+            }
+        });
+
+        List<String> lineas = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(dir.resolve("historial_u0.csv.gz"))), StandardCharsets.UTF_8))) {
+            reader.lines().forEach(lineas::add);
+        }
+        assertEquals(List.of(ENCABEZADO, "u0,2025-01-01 10:00:00,T0,Pop", "u0,2025-01-01 10:00:01,T1,Pop"), lineas);
+    }
+
+    @Test
+    void testProgresoTerminaConElTotal() throws Exception {
+        List<Long> avisos = new ArrayList<>();
+        exportador.progreso(avisos::add).exportar(destino -> {
+            for (int i = 0; i < 70_000; i++) {
+                destino.accept(registro("u" + (i % 7), i));
+            }
+        });
+
+        assertEquals(List.of(65_536L, 70_000L), avisos);
+    }
+
+    @Test
+    void testErrorDeLaFuenteSePropaga() {
+        IOException e = assertThrows(IOException.class, () -> exportador.exportar(destino -> {
+            destino.accept(registro("ana", 0));
+            throw new UncheckedIOException(new IOException("fallo"));
+        }));
+        assertEquals("fallo", e.getMessage());
+    }
+
+    @Test
+    void testNombresDeUsuarioNoSalenDeLaCarpeta() throws Exception {
+        String[] usuarios = {"a/b", "a_b", "../fuera", "c:d", "año"};
+        exportador.exportar(destino -> {
+            for (String u : usuarios) {
+                destino.accept(registro(u, 0));
+            }
+        });
+
+        try (var archivos = Files.list(dir)) {
+            assertEquals(usuarios.length, archivos.count());
+        }
+        assertEquals("historial_a%2fb.csv", ExportadorHistorial.nombreArchivo("a/b"));
+        assertEquals("historial_a%c3%b1o.csv", ExportadorHistorial.nombreArchivo("año"));
+        assertTrue(Files.exists(dir.resolve(ExportadorHistorial.nombreArchivo("../fuera"))));
+        assertFalse(Files.exists(dir.resolveSibling("fuera.csv")));
+    }
+
+    @Test
+    void testFalloNoDeEntradaSalidaNoBloquea() {
+        // Sin encabezado el trabajador falla con NullPointerException al abrir el
+        // primer archivo; el recorrido debe terminar aunque llene varias colas
+        ExportadorHistorial sinEncabezado = new ExportadorHistorial(dir, null).hilos(2);
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(30), () ->
+                assertThrows(IOException.class, () -> sinEncabezado.exportar(destino -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        destino.accept(registro("u" + (i % 5), i));
+                    }
+                })));
+        assertInstanceOf(NullPointerException.class, e.getCause());
+    }
+}
@@ -0,0 +1,60 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.FiltroBloom;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FiltroBloomTest {
+
+    FiltroBloom filtro;
+
+    @BeforeEach
+    void setup() {
+        filtro = new FiltroBloom(1000, 0.01);
+    }
+
+    @Test
+    void testSinFalsosNegativos() {
+        for (int i = 0; i < 1000; i++) {
+            filtro.agregar("usuario" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filtro.puedeContener("usuario" + i));
+        }
+    }
+
+    @Test
+    void testTasaDeFalsosPositivosCercanaALaPedida() {
+        for (int i = 0; i < 1000; i++) {
+            filtro.agregar("usuario" + i);
+        }
+        int falsos = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filtro.puedeContener("otro" + i)) falsos++;
+        }
+        assertTrue(falsos < 300, "falsos positivos: " + falsos);
+    }
+
+    @Test
+    void testIgnoraMayusculas() {
+        filtro.agregar("Juan");
+        assertTrue(filtro.puedeContener("JUAN"));
+        assertFalse(filtro.puedeContener(null));
+    }
+
+    @Test
+    void testEscribirYLeer() throws IOException {
+        filtro.agregar("ana");
+        filtro.agregar("luis");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        filtro.escribir(new DataOutputStream(bytes));
+
+        FiltroBloom leido = FiltroBloom.leer(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertTrue(leido.puedeContener("ana"));
+        assertTrue(leido.puedeContener("luis"));
+        assertFalse(leido.puedeContener("eva"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.syncup.app;
+
+import com.syncup.app.model.estructuras.HistorialColumnar;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistorialColumnarTest {
+
+    HistorialColumnar historial;
+
+    @BeforeEach
+    void setup() {
+        historial = new HistorialColumnar();
+        historial.agregar("ana", HistorialColumnar.segundosDesdeFecha("2025-11-11 17:18:24"), "Skyfall", "Pop");
+        historial.agregar("luis", HistorialColumnar.segundosDesdeFecha("2025-11-12 09:00:00"), "Te para 3", "Rock");
+        historial.agregar("ana", HistorialColumnar.segundosDesdeFecha("2025-11-12 23:59:59"), "Skyfall", "Pop");
+    }
+
+    @Test
+    void testVistaDevuelveFormatoOriginal() {
+        List<String[]> vista = historial.vista();
+
+        assertEquals(3, vista.size());
+        assertArrayEquals(new String[] { "ana", "2025-11-11 17:18:24", "Skyfall", "Pop" }, vista.get(0));
+        assertArrayEquals(new String[] { "luis", "2025-11-12 09:00:00", "Te para 3", "Rock" }, vista.get(1));
+    }
+
+    @Test
+    void testCodigosCompartidos() {
+        assertEquals(2, historial.getUsuarios().getTamaño());
+        assertEquals(historial.getCodigoCancion(0), historial.getCodigoCancion(2));
+        assertEquals(historial.getDia(1), historial.getDia(2));
+        assertNotEquals(historial.getDia(0), historial.getDia(1));
+    }
+
+    @Test
+    void testVistaEsInstantanea() {
+        List<String[]> antes = historial.vista();
+
+        historial.agregar("eva", HistorialColumnar.segundosDesdeFecha("2025-11-13 10:00:00"), "Lover", "Pop");
+        assertEquals(2, historial.eliminarSi(fila -> historial.getUsuario(fila).equals("ana")));
+
+        assertEquals(3, antes.size());
+        assertEquals("ana", antes.get(2)[0]);
+        assertEquals(2, historial.getTamaño());
+        assertEquals("luis", historial.vista().get(0)[0]);
+        assertEquals("eva", historial.vista().get(1)[0]);
+    }
+
+    @Test
+    void testVistaDeSeleccion() {
+        List<String[]> vista = historial.vista(new int[] { 2, 0 }, 2);
+
+        assertEquals("2025-11-12 23:59:59", vista.get(0)[1]);
+        assertEquals("2025-11-11 17:18:24", vista.get(1)[1]);
+        assertThrows(IndexOutOfBoundsException.class, () -> vista.get(2));
+    }
+
+    @Test
+    void testAsignarArtistasUnaVezPorCancion() {
+        List<String> consultas = new ArrayList<>();
+        historial.asignarArtistas(titulo -> {
+            consultas.add(titulo);
+            return titulo.equals("Skyfall") ? "Adele" : null;
+        });
+
+        assertEquals(List.of("Skyfall", "Te para 3"), consultas);
+        assertEquals("Adele", historial.getArtista(0));
+        assertNull(historial.getArtista(1));
+        assertEquals(historial.getCodigoArtista(0), historial.getCodigoArtista(2));
+        assertEquals(1, historial.getArtistas().getTamaño());
+    }
+
+    @Test
+    void testInstantaneaNoCambiaAlCrecerEntreBloques() {
+        HistorialColumnar.Instantanea antes = historial.instantanea();
+        long base = HistorialColumnar.segundosDesdeFecha("2025-11-13 00:00:00");
+        for (int i = 0; i < 40_000; i++) {
+            historial.agregar("u" + (i % 10), base + i, "Cancion " + i, "Pop");
+        }
+        historial.asignarArtistas(titulo -> "Alguien");
+
+        assertEquals(3, antes.getTamaño());
+        assertEquals(-1, antes.getCodigoArtista(0));
+        assertEquals("luis", antes.vista().get(1)[0]);
+        assertEquals(40_003, historial.getTamaño());
+        assertEquals("Cancion 39999", historial.getTitulo(40_002));
+        assertEquals(base + 20_000, historial.getSegundos(20_003));
+        assertEquals("Alguien", historial.getArtista(40_002));
+    }
+
+    @Test
+    void testLecturaConcurrenteMientrasSeAgrega() throws Exception {
+        long base = HistorialColumnar.segundosDesdeFecha("2025-11-13 00:00:00");
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread lector = new Thread(() -> {
+            try {
+                for (int vuelta = 0; vuelta < 200; vuelta++) {
+                    HistorialColumnar.Instantanea foto = historial.instantanea();
+                    for (String[] r : foto.vista()) {
+                        assertNotNull(r[2]);
+                    }
+                }
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        });
+        lector.start();
+        for (int i = 0; i < 50_000; i++) {
+            historial.agregar("u" + (i % 10), base + i, "Cancion " + (i % 500), "Pop");
+        }
+        lector.join();
+        assertNull(error.get());
+        assertEquals(50_003, historial.instantanea().getTamaño());
+    }
+}
@@ -0,0 +1,43 @@
+package com.syncup.app;
+
+import com.syncup.app.model.estructuras.HistorialColumnar;
+
+/**
+ * Historial en memoria para las pruebas de las estructuras derivadas: cada
+ * reproducción se agrega al historial y se suma a las estructuras indicadas.
+ */
+class HistorialDePrueba {
+
+    /** Estructura que se actualiza con cada fila nueva (p. ej. {@code contadores::sumar}) */
+    interface Derivado {
+        void sumar(HistorialColumnar historial, int fila);
+    }
+
+    private final HistorialColumnar historial = new HistorialColumnar();
+    private final Derivado[] derivados;
+
+    HistorialDePrueba(Derivado... derivados) {
+        this.derivados = derivados;
+    }
+
+    HistorialColumnar getHistorial() {
+        return historial;
+    }
+
+    /** Reproducción de una canción sin artista conocido */
+    int reproducir(String usuario, String fecha, String titulo, String genero) {
+        return reproducir(usuario, fecha, titulo, genero, null);
+    }
+
+    /**
+     * @param fecha fecha en formato {@code yyyy-MM-dd HH:mm:ss}
+     * @return fila agregada
+     */
+    int reproducir(String usuario, String fecha, String titulo, String genero, String artista) {
+        int fila = historial.agregar(usuario, HistorialColumnar.segundosDesdeFecha(fecha), titulo, genero, artista);
+        for (Derivado d : derivados) {
+            d.sumar(historial, fila);
+        }
+        return fila;
+    }
+}
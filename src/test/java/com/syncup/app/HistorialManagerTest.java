@@ -0,0 +1,85 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.DataStore;
+import com.syncup.app.logic.HistorialManager;
+import com.syncup.app.logic.TopFrecuentes;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistorialManagerTest {
+
+    private static final String USUARIO_A = "testhistorial_a";
+    private static final String USUARIO_B = "testhistorial_b";
+
+    DataStore ds;
+    HistorialManager historial;
+    String usuarioPrevio;
+
+    @BeforeEach
+    void setup() {
+        // Usa el DataStore real, como el resto de las pruebas de los managers
+        ds = DataStore.getInstance();
+        historial = ds.getHistorial();
+        usuarioPrevio = ds.getUsuarioActivo();
+    }
+
+    @AfterEach
+    void limpiar() {
+        historial.eliminarHistorialUsuario(USUARIO_A);
+        historial.eliminarHistorialUsuario(USUARIO_B);
+        historial.guardarHistorialCSV();
+        ds.setUsuarioActivo(usuarioPrevio);
+    }
+
+    private void reproducir(String usuario, String titulo, String genero) {
+        ds.setUsuarioActivo(usuario);
+        historial.registrarReproduccion(titulo, genero);
+    }
+
+    /** Todo lo que exponen las estructuras derivadas, en una forma comparable */
+    private List<Object> estadisticas() {
+        List<Object> e = new ArrayList<>();
+        e.add(historial.obtenerTotalReproducciones());
+        e.add(historial.getReproduccionesPorUsuario());
+        e.add(historial.getReproduccionesPorCancion());
+        e.add(historial.getReproduccionesPorGenero());
+        e.add(historial.getReproduccionesPorArtista());
+        e.add(historial.obtenerTotalReproduccionesUsuario(USUARIO_B));
+        e.add(historial.obtenerHistorialUsuario(USUARIO_B).size());
+        e.add(historial.obtenerCancionesDistintas());
+        e.add(historial.obtenerOyentesDistintos());
+        e.add(historial.obtenerCancionesDistintasUsuario(USUARIO_B));
+        e.add(historial.resumirReproducciones(null, null, (LocalDate) null, null).getPorCancion());
+        e.add(historial.resumirReproducciones(USUARIO_B, null, (LocalDate) null, null).getTotal());
+        for (TopFrecuentes.Entrada t : historial.obtenerTopCanciones(5)) {
+            e.add(t.getClave() + "=" + t.getConteo());
+        }
+        return e;
+    }
+
+    @Test
+    void testSumarTrasEliminarCoincideConReconstruir() {
+        reproducir(USUARIO_A, "Skyfall", "Pop");
+        reproducir(USUARIO_A, "Te para 3", "Rock");
+        reproducir(USUARIO_B, "Skyfall", "Pop");
+        historial.eliminarHistorialUsuario(USUARIO_A);
+
+        // Después del borrado, las estructuras se actualizan fila a fila con sumar
+        reproducir(USUARIO_B, "Te para 3", "Rock");
+        reproducir(USUARIO_B, "Te para 3", "Rock");
+        List<Object> incremental = estadisticas();
+
+        // Recarga desde disco: todas las estructuras se reconstruyen de cero
+        historial.guardarHistorialCSV();
+        historial.cargarHistorialCSV();
+
+        assertEquals(incremental, estadisticas());
+        assertEquals(3, historial.obtenerTotalReproduccionesUsuario(USUARIO_B));
+        assertEquals(0, historial.obtenerTotalReproduccionesUsuario(USUARIO_A));
+    }
+}
@@ -0,0 +1,47 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.HyperLogLog;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HyperLogLogTest {
+
+    HyperLogLog hll;
+
+    @BeforeEach
+    void setup() {
+        hll = new HyperLogLog(12);
+    }
+
+    @Test
+    void testConteoPequeñoEsCasiExacto() {
+        for (int i = 0; i < 100; i++) {
+            hll.agregar(i);
+            hll.agregar(i); // repetidos no cuentan
+        }
+        assertEquals(100, hll.estimar(), 2);
+    }
+
+    @Test
+    void testConteoGrandeDentroDelError() {
+        for (int i = 0; i < 200_000; i++) {
+            hll.agregar(i);
+        }
+        assertEquals(200_000, hll.estimar(), 200_000 * 0.05);
+    }
+
+    @Test
+    void testCombinarEsLaUnion() {
+        HyperLogLog otro = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; i++) hll.agregar(i);
+        for (int i = 20_000; i < 50_000; i++) otro.agregar(i);
+
+        HyperLogLog union = hll.copia();
+        union.combinar(otro);
+
+        assertEquals(50_000, union.estimar(), 50_000 * 0.05);
+        assertEquals(30_000, hll.estimar(), 30_000 * 0.05);
+        assertThrows(IllegalArgumentException.class, () -> hll.combinar(new HyperLogLog(10)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.IndiceInvertido;
+import com.syncup.app.model.Cancion;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceInvertidoTest {
+
+    IndiceInvertido indice;
+
+    @BeforeEach
+    void setup() {
+        indice = new IndiceInvertido();
+        indice.indexar(new Cancion("Canción Animal", "Soda Stereo", "Rock"));
+        indice.indexar(new Cancion("De Música Ligera", "Soda Stereo", "Rock"));
+        indice.indexar(new Cancion("Rock and Roll", "Led Zeppelin", "Rock"));
+        indice.indexar(new Cancion("La Bamba", "Ritchie Valens", "Rock and Roll"));
+    }
+
+    @Test
+    void testIgnoraTildes() {
+        List<IndiceInvertido.Resultado> r = indice.buscar("cancion", 10);
+
+        assertEquals(1, r.size());
+        assertEquals("Canción Animal", r.get(0).getTitulo());
+        assertEquals("Canción Animal", indice.buscar("MÚSICA animal", 10).get(0).getTitulo());
+    }
+
+    @Test
+    void testTituloPesaMasQueGenero() {
+        // "roll" está en el título de una canción y en el género de otra
+        List<IndiceInvertido.Resultado> r = indice.buscar("roll", 10);
+
+        assertEquals(2, r.size());
+        assertEquals("Rock and Roll", r.get(0).getTitulo());
+        assertTrue(r.get(0).getPuntaje() > r.get(1).getPuntaje());
+    }
+
+    @Test
+    void testUltimaPalabraComoPrefijo() {
+        List<IndiceInvertido.Resultado> r = indice.buscar("soda ste", 10);
+
+        assertEquals(2, r.size());
+        assertTrue(r.stream().allMatch(x -> x.getPalabrasFaltantes() == 0));
+    }
+
+    @Test
+    void testEliminarYCompactar() {
+        indice.eliminar("canción animal");
+
+        assertEquals(3, indice.getTamaño());
+        assertTrue(indice.buscar("animal", 10).isEmpty());
+        assertEquals(1, indice.buscar("soda", 10).size());
+
+        indice.compactar();
+        assertEquals(3, indice.getDocumentosGuardados());
+        assertEquals("De Música Ligera", indice.buscar("soda", 10).get(0).getTitulo());
+
+        // Reindexar el mismo título vuelve a encontrarlo
+        indice.indexar(new Cancion("Canción Animal", "Soda Stereo", "Rock"));
+        assertEquals(2, indice.buscar("soda", 10).size());
+    }
+
+    @Test
+    void testLimiteDevuelveLosMejores() {
+        for (int i = 0; i < 200; i++) {
+            // Títulos más cortos puntúan más alto con BM25
+            indice.indexar(new Cancion("Eco" + " x".repeat(i % 20) + " " + i, "Varios", "Pop"));
+        }
+
+        List<IndiceInvertido.Resultado> todos = indice.buscar("eco", 1_000);
+        List<IndiceInvertido.Resultado> primeros = indice.buscar("eco", 7);
+        assertEquals(200, todos.size());
+        assertEquals(todos.subList(0, 7).stream().map(IndiceInvertido.Resultado::getTitulo).toList(),
+                primeros.stream().map(IndiceInvertido.Resultado::getTitulo).toList());
+    }
+}
@@ -0,0 +1,48 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.IndiceUsuariosHistorial;
+import com.syncup.app.model.estructuras.HistorialColumnar;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceUsuariosHistorialTest {
+
+    HistorialColumnar historial;
+    HistorialDePrueba prueba;
+    IndiceUsuariosHistorial indice;
+
+    @BeforeEach
+    void setup() {
+        indice = new IndiceUsuariosHistorial();
+        prueba = new HistorialDePrueba(indice::agregar);
+        historial = prueba.getHistorial();
+        prueba.reproducir("Ana", "2025-11-11 10:00:00", "Skyfall", "Pop");
+        prueba.reproducir("luis", "2025-11-11 11:00:00", "Skyfall", "Pop");
+        prueba.reproducir("ana", "2025-11-12 10:00:00", "Skyfall", "Pop");
+        prueba.reproducir("ana", "2025-11-13 10:00:00", "Skyfall", "Pop");
+    }
+
+    @Test
+    void testFilasIgnoranMayusculas() {
+        assertArrayEquals(new int[] { 0, 2, 3 }, indice.filas("ANA"));
+        assertEquals(1, indice.cantidad("Luis"));
+        assertEquals(0, indice.filas("nadie").length);
+    }
+
+    @Test
+    void testRangoDeFechas() {
+        long desde = HistorialColumnar.segundosDesdeFecha("2025-11-12 00:00:00");
+        long hasta = HistorialColumnar.segundosDesdeFecha("2025-11-13 10:00:00");
+
+        assertArrayEquals(new int[] { 2, 3 }, indice.filas(historial, "ana", desde, hasta));
+        assertArrayEquals(new int[] { 2 }, indice.filas(historial, "ana", desde, hasta - 1));
+    }
+
+    @Test
+    void testFueraDeOrdenSeInsertaEnSuLugar() {
+        prueba.reproducir("ana", "2025-11-12 12:00:00", "Skyfall", "Pop");
+
+        assertArrayEquals(new int[] { 0, 2, 4, 3 }, indice.filas("ana"));
+    }
+}
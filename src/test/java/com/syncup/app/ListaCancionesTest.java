@@ -0,0 +1,82 @@
+package com.syncup.app;
+
+import com.syncup.app.model.Cancion;
+import com.syncup.app.model.estructuras.ListaCanciones;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListaCancionesTest {
+
+    ListaCanciones lista;
+
+    @BeforeEach
+    void setup() {
+        lista = new ListaCanciones();
+        lista.agregarAlFinal(new Cancion("Love Story", "Taylor Swift", "Pop"));
+        lista.agregarAlFinal(new Cancion("Lover", "Taylor Swift", "Pop"));
+        lista.agregarAlFinal(new Cancion("Low Motion", "Dillon Francis", "EDM"));
+    }
+
+    @Test
+    void testAccesoPorIndiceYBusqueda() {
+        assertEquals(3, lista.getTamaño());
+        assertEquals("Lover", lista.obtenerPorIndice(1).getTitulo());
+        assertEquals("Low Motion", lista.buscarPorTitulo("low MOTION").getTitulo());
+        assertEquals("Love Story", lista.buscarPorId("love_story").getTitulo());
+        assertNull(lista.buscarPorTitulo("No existe"));
+        assertThrows(IndexOutOfBoundsException.class, () -> lista.obtenerPorIndice(3));
+    }
+
+    @Test
+    void testEliminarMantieneIndices() {
+        lista.eliminarPorTitulo("love story");
+
+        assertEquals(2, lista.getTamaño());
+        assertNull(lista.buscarPorTitulo("Love Story"));
+        assertEquals("Lover", lista.obtenerPorIndice(0).getTitulo());
+        assertEquals("Low Motion", lista.buscarPorTitulo("Low Motion").getTitulo());
+        assertEquals("Low Motion", lista.buscarPorId("low_motion").getTitulo());
+    }
+
+    @Test
+    void testEliminarEnMedioCorreLasPosiciones() {
+        lista.agregarAlFinal(new Cancion("id_propio", "Time", "Pink Floyd", "Rock", 1973, 413));
+        lista.eliminarPorTitulo("Lover");
+
+        assertEquals("Low Motion", lista.obtenerPorIndice(1).getTitulo());
+        assertEquals("Low Motion", lista.buscarPorTitulo("low motion").getTitulo());
+        assertEquals("Time", lista.buscarPorId("id_propio").getTitulo());
+        assertEquals("Love Story", lista.buscarPorId("love_story").getTitulo());
+        assertNull(lista.buscarPorId("lover"));
+    }
+
+    @Test
+    void testTitulosDuplicadosDevuelvenElPrimero() {
+        lista.agregarAlFinal(new Cancion("lover", "Otro", "Rock"));
+        assertEquals("Taylor Swift", lista.buscarPorTitulo("Lover").getArtista());
+
+        lista.eliminarPorTitulo("Lover");
+        assertEquals("Otro", lista.buscarPorTitulo("Lover").getArtista());
+    }
+
+    @Test
+    void testCargaMasivaLineal() {
+        // Con la lista enlazada original esta carga era O(n²) y tardaba minutos
+        int n = 300_000;
+        assertTimeout(Duration.ofSeconds(5), () -> {
+            ListaCanciones grande = new ListaCanciones();
+            for (int i = 0; i < n; i++) {
+                grande.agregarAlFinal(new Cancion("Cancion " + i, "Artista " + (i % 500), "Pop"));
+            }
+            int recorridas = 0;
+            for (int i = 0; i < grande.getTamaño(); i++) {
+                if (grande.obtenerPorIndice(i) != null) recorridas++;
+            }
+            assertEquals(n, recorridas);
+            assertNotNull(grande.buscarPorTitulo("Cancion " + (n - 1)));
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.RegistroCambiosCatalogo;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegistroCambiosCatalogoTest {
+
+    @TempDir
+    Path dir;
+
+    RegistroCambiosCatalogo registro;
+
+    @BeforeEach
+    void setup() {
+        registro = new RegistroCambiosCatalogo(dir.resolve("canciones.log"));
+    }
+
+    @Test
+    void testAnexaYLeeEnOrden() {
+        registro.registrarAlta("Lover", "Taylor Swift", "Pop");
+        registro.registrarBaja("Cancion animal");
+
+        List<String[]> entradas = registro.leer();
+        assertEquals(2, entradas.size());
+        assertArrayEquals(new String[] { "+", "Lover", "Taylor Swift", "Pop" }, entradas.get(0));
+        assertArrayEquals(new String[] { "-", "Cancion animal" }, entradas.get(1));
+
+        // Un registro reabierto cuenta las líneas existentes
+        assertEquals(2, new RegistroCambiosCatalogo(dir.resolve("canciones.log")).getPendientes());
+    }
+
+    @Test
+    void testDescartarConservaLoAnexadoDespues() {
+        registro.registrarAlta("A", "X", "Pop");
+        registro.registrarAlta("B", "X", "Pop");
+        int corte = registro.getPendientes();
+        registro.registrarBaja("A");
+
+        registro.descartarPrimeras(corte);
+
+        List<String[]> entradas = registro.leer();
+        assertEquals(1, registro.getPendientes());
+        assertEquals(1, entradas.size());
+        assertArrayEquals(new String[] { "-", "A" }, entradas.get(0));
+    }
+}
@@ -0,0 +1,246 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.EscritorHistorial;
+import com.syncup.app.logic.SegmentosHistorial;
+import com.syncup.app.model.estructuras.HistorialColumnar;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentosHistorialTest {
+
+    private static final String ENCABEZADO = "usuario,fecha,titulo,genero";
+
+    @TempDir
+    Path dir;
+
+    SegmentosHistorial segmentos;
+
+    @BeforeEach
+    void setup() {
+        segmentos = abrir();
+    }
+
+    @AfterEach
+    void cerrar() {
+        segmentos.compactar(); // espera a la compactación de fondo antes de borrar la carpeta
+        segmentos.vaciar();
+    }
+
+    private SegmentosHistorial abrir() {
+        SegmentosHistorial s = new SegmentosHistorial(dir.resolve("historial"), ENCABEZADO,
+                SegmentosHistorial.Granularidad.MENSUAL, EscritorHistorial.Durabilidad.BUFFER_SO, 1000, 60_000);
+        s.abrir(dir.resolve("historial.csv"));
+        return s;
+    }
+
+    private void escribir(String usuario, String fecha, String titulo) {
+        segmentos.escribir(new String[] { usuario, fecha, titulo, "Pop" }, HistorialColumnar.segundosDesdeFecha(fecha));
+    }
+
+    private List<String> leer(String desde, String hasta, String usuario) {
+        List<String> titulos = new ArrayList<>();
+        segmentos.leer(desde != null ? HistorialColumnar.segundosDesdeFecha(desde) : Long.MIN_VALUE,
+                hasta != null ? HistorialColumnar.segundosDesdeFecha(hasta) : Long.MAX_VALUE,
+                usuario, (r, segundos) -> titulos.add(r[2]));
+        return titulos;
+    }
+
+    @Test
+    void testUnArchivoPorMes() {
+        escribir("ana", "2025-01-10 10:00:00", "A");
+        escribir("luis", "2025-01-20 10:00:00", "B");
+        escribir("ana", "2025-02-01 09:00:00", "C");
+        segmentos.vaciar();
+
+        assertEquals(2, segmentos.getCantidadSegmentos());
+        assertTrue(Files.exists(dir.resolve("historial/historial-2025-01.csv")));
+        assertTrue(Files.exists(dir.resolve("historial/historial-2025-02.csv")));
+        assertEquals(List.of("A", "B", "C"), leer(null, null, null));
+    }
+
+    @Test
+    void testCambiarDeMesReutilizaElEscritor() {
+        long antes = hilosEscritor();
+        for (int mes = 1; mes <= 12; mes++) {
+            escribir("ana", String.format("2025-%02d-10 10:00:00", mes), "T" + mes);
+        }
+        segmentos.vaciar();
+
+        assertEquals(12, segmentos.getCantidadSegmentos());
+        assertTrue(hilosEscritor() - antes <= 1);
+        assertEquals(12, leer(null, null, "ana").size());
+    }
+
+    private static long hilosEscritor() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("escritor-historial"))
+                .count();
+    }
+
+    @Test
+    void testLeerPorRangoYUsuario() {
+        escribir("ana", "2025-01-10 10:00:00", "A");
+        escribir("luis", "2025-01-20 10:00:00", "B");
+        escribir("ana", "2025-02-01 09:00:00", "C");
+
+        assertEquals(List.of("B", "C"), leer("2025-01-15 00:00:00", null, null));
+        assertEquals(List.of("A", "C"), leer(null, null, "ANA"));
+        assertEquals(List.of(), leer(null, null, "eva"));
+    }
+
+    @Test
+    void testLectorPuedeCortarEntreSegmentos() {
+        escribir("ana", "2025-01-10 10:00:00", "A");
+        escribir("ana", "2025-01-05 10:00:00", "B");
+        escribir("ana", "2025-02-01 09:00:00", "C");
+        escribir("ana", "2025-03-01 09:00:00", "D");
+
+        List<String> titulos = new ArrayList<>();
+        int[] segmentosLeidos = { 0 };
+        segmentos.leer(Long.MIN_VALUE, Long.MAX_VALUE, "ana", new SegmentosHistorial.Lector() {
+            @Override
+            public void aceptar(String[] registro, long segundos) {
+                titulos.add(registro[2]);
+            }
+
+            @Override
+            public boolean finSegmento() {
+                return ++segmentosLeidos[0] < 2;
+            }
+        });
+
+        // Cada segmento llega completo y en orden de llegada; el tercero no se abre
+        assertEquals(List.of("A", "B", "C"), titulos);
+        assertEquals(2, segmentosLeidos[0]);
+    }
+
+    @Test
+    void testLeerPorCancionSaltaSegmentos() {
+        escribir("ana", "2025-01-10 10:00:00", "A");
+        escribir("luis", "2025-02-20 10:00:00", "B");
+        escribir("eva", "2025-03-05 10:00:00", "B");
+
+        List<String> titulos = new ArrayList<>();
+        segmentos.leer(Long.MIN_VALUE, Long.MAX_VALUE, null, "b", (r, segundos) -> titulos.add(r[0]));
+        assertEquals(List.of("luis", "eva"), titulos);
+
+        SegmentosHistorial.MetricasFiltro metricas = segmentos.getMetricas(SegmentosHistorial.Filtro.CANCION);
+        assertEquals(3, metricas.getConsultados());
+        assertEquals(1 - metricas.getFalsosPositivos(), metricas.getSaltados());
+    }
+
+    @Test
+    void testMetricasDeUsuarioCuentanSaltosYFalsosPositivos() {
+        for (int mes = 1; mes <= 9; mes++) {
+            escribir("usuario" + mes, "2025-0" + mes + "-01 10:00:00", "T");
+        }
+        for (int i = 0; i < 50; i++) {
+            leer(null, null, "ausente" + i);
+        }
+
+        SegmentosHistorial.MetricasFiltro metricas = segmentos.getMetricas(SegmentosHistorial.Filtro.USUARIO);
+        assertEquals(450, metricas.getConsultados());
+        assertEquals(450, metricas.getSaltados() + metricas.getFalsosPositivos());
+        assertTrue(metricas.getTasaSalto() > 0.9);
+        assertTrue(metricas.getTasaFalsosPositivos() < 0.1);
+    }
+
+    @Test
+    void testFiltrosSeDimensionanConLasCancionesDelSegmento() {
+        // Muchas más canciones que las previstas para un mes: al sellarlo el filtro se rehace
+        for (int i = 0; i < 100_000; i++) {
+            escribir("u" + i % 50, "2025-01-10 10:00:00", "T" + i);
+        }
+        escribir("ana", "2025-02-01 10:00:00", "X");
+        for (int i = 0; i < 200; i++) {
+            segmentos.leer(Long.MIN_VALUE, HistorialColumnar.segundosDesdeFecha("2025-01-31 23:59:59"),
+                    null, "ausente" + i, (r, segundos) -> { });
+        }
+
+        SegmentosHistorial.MetricasFiltro metricas = segmentos.getMetricas(SegmentosHistorial.Filtro.CANCION);
+        assertEquals(200, metricas.getConsultados());
+        assertTrue(metricas.getTasaFalsosPositivos() < 0.05, "falsos positivos: " + metricas.getFalsosPositivos());
+
+        // Los metadatos guardados conservan el tamaño nuevo
+        segmentos.vaciar();
+        segmentos = abrir();
+        assertEquals(100_000, leer(null, "2025-01-31 23:59:59", null).size());
+    }
+
+    @Test
+    void testMetadatosSobrevivenAlReabrir() {
+        escribir("ana", "2025-01-10 10:00:00", "A");
+        escribir("luis", "2025-02-20 10:00:00", "B");
+        segmentos.vaciar();
+
+        segmentos = abrir();
+        assertEquals(2, segmentos.getCantidadSegmentos());
+        assertEquals(List.of("B"), leer(null, null, "luis"));
+        assertEquals(List.of("A"), leer(null, "2025-01-31 23:59:59", null));
+    }
+
+    @Test
+    void testBorrarUsuarioYCompactar() throws Exception {
+        escribir("ana", "2025-01-10 10:00:00", "A");
+        escribir("luis", "2025-01-20 10:00:00", "B");
+        escribir("ana", "2025-02-01 09:00:00", "C");
+        segmentos.vaciar();
+
+        segmentos.borrarUsuario("Ana");
+        assertEquals(List.of("B"), leer(null, null, null));
+
+        segmentos.compactar();
+        assertEquals(List.of(ENCABEZADO, "luis,2025-01-20 10:00:00,B,Pop"),
+                Files.readAllLines(dir.resolve("historial/historial-2025-01.csv"), StandardCharsets.UTF_8));
+        assertEquals(List.of("B"), leer(null, null, null));
+    }
+
+    @Test
+    void testReproduccionesPosterioresAlBorradoSeConservan() {
+        escribir("ana", "2025-01-10 10:00:00", "A");
+        segmentos.borrarUsuario("ana");
+        escribir("ana", "2025-01-11 10:00:00", "B");
+
+        assertEquals(List.of("B"), leer(null, null, "ana"));
+        segmentos.compactar();
+        assertEquals(List.of("B"), leer(null, null, "ana"));
+    }
+
+    @Test
+    void testRetencionEliminaSegmentosViejos() {
+        String viejo = LocalDate.now().minusYears(2) + " 10:00:00";
+        String reciente = LocalDate.now() + " 00:00:01";
+        escribir("ana", viejo, "Viejo");
+        escribir("ana", reciente, "Reciente");
+        segmentos.vaciar();
+
+        segmentos.setRetencion(Period.ofYears(1));
+        assertEquals(1, segmentos.getCantidadSegmentos());
+        assertEquals(List.of("Reciente"), leer(null, null, null));
+    }
+
+    @Test
+    void testMigraElHistorialAnterior() throws Exception {
+        Files.write(dir.resolve("historial.000001.csv"), List.of(ENCABEZADO,
+                "ana,2024-12-31 23:00:00,A,Pop"), StandardCharsets.UTF_8);
+        Files.write(dir.resolve("historial.csv"), List.of(ENCABEZADO,
+                "luis,2025-01-01 01:00:00,B,Rock",
+                "roto"), StandardCharsets.UTF_8);
+
+        segmentos = abrir();
+        assertEquals(2, segmentos.getCantidadSegmentos());
+        assertEquals(List.of("A", "B"), leer(null, null, null));
+        assertFalse(Files.exists(dir.resolve("historial.csv")));
+        assertFalse(Files.exists(dir.resolve("historial.000001.csv")));
+    }
+}
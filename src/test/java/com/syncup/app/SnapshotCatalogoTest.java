@@ -0,0 +1,76 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.BuscadorDifuso;
+import com.syncup.app.logic.SnapshotCatalogo;
+import com.syncup.app.model.Cancion;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotCatalogoTest {
+
+    @TempDir
+    Path dir;
+
+    Path csv;
+    Path snapshot;
+    List<Cancion> canciones;
+    BuscadorDifuso buscador;
+
+    @BeforeEach
+    void setup() throws Exception {
+        csv = dir.resolve("canciones.csv");
+        snapshot = dir.resolve("canciones.snapshot");
+        Files.writeString(csv, "titulo,artista,genero\nCanción Animal,Soda Stereo,Rock\n");
+
+        canciones = List.of(
+                new Cancion("Canción Animal", "Soda Stereo", "Rock"),
+                new Cancion("Bohemian Rhapsody", "Queen", "Rock"),
+                new Cancion("Innerbloom", "RÜFÜS DU SOL", "Electronica"));
+        buscador = new BuscadorDifuso();
+        canciones.forEach(buscador::indexar);
+        SnapshotCatalogo.guardar(snapshot, csv, canciones, buscador);
+    }
+
+    @Test
+    void testRestauraCatalogoYBuscador() {
+        SnapshotCatalogo.Contenido contenido = SnapshotCatalogo.cargar(snapshot, csv);
+
+        assertNotNull(contenido);
+        assertEquals(canciones.size(), contenido.getCanciones().size());
+        for (int i = 0; i < canciones.size(); i++) {
+            Cancion esperada = canciones.get(i);
+            Cancion leida = contenido.getCanciones().get(i);
+            assertEquals(esperada.getTitulo(), leida.getTitulo());
+            assertEquals(esperada.getArtista(), leida.getArtista());
+            assertEquals(esperada.getGenero(), leida.getGenero());
+        }
+
+        List<BuscadorDifuso.Resultado> r = contenido.getBuscadorDifuso().buscar("queem rapsody", 5);
+        assertEquals("Bohemian Rhapsody", r.get(0).getTitulo());
+        assertEquals(0, r.get(0).getPalabrasFaltantes());
+    }
+
+    @Test
+    void testDescartaSnapshotDesactualizado() throws Exception {
+        Files.writeString(csv, "Otra,Artista,Pop\n", StandardOpenOption.APPEND);
+
+        assertNull(SnapshotCatalogo.cargar(snapshot, csv));
+    }
+
+    @Test
+    void testDescartaSnapshotDañado() throws Exception {
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 3] ^= 0x5A;
+        Files.write(snapshot, bytes);
+
+        assertNull(SnapshotCatalogo.cargar(snapshot, csv));
+        assertNull(SnapshotCatalogo.cargar(dir.resolve("no-existe"), csv));
+    }
+}
@@ -0,0 +1,58 @@
+package com.syncup.app;
+
+import com.syncup.app.logic.TopFrecuentes;
+import com.syncup.app.logic.TopReproducciones;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopFrecuentesTest {
+
+    @Test
+    void testExactoConCapacidadSuficiente() {
+        TopFrecuentes top = new TopFrecuentes(TopFrecuentes.SIN_LIMITE);
+        for (String s : new String[] { "a", "b", "a", "c", "a", "b" }) {
+            top.agregar(s);
+        }
+
+        List<TopFrecuentes.Entrada> r = top.top(2);
+        assertEquals("a", r.get(0).getClave());
+        assertEquals(3, r.get(0).getConteo());
+        assertEquals("b", r.get(1).getClave());
+        assertEquals(0, r.get(1).getError());
+    }
+
+    @Test
+    void testFrecuentesSobrevivenConCapacidadChica() {
+        TopFrecuentes top = new TopFrecuentes(3);
+        for (int i = 0; i < 200; i++) {
+            top.agregar("hit");
+            top.agregar("raro-" + i);
+            if (i % 2 == 0) top.agregar("medio");
+        }
+
+        List<TopFrecuentes.Entrada> r = top.top(2);
+        assertEquals(3, top.getTamaño());
+        assertEquals("hit", r.get(0).getClave());
+        assertTrue(r.get(0).getConteo() >= 200);
+        assertTrue(r.get(0).getConteo() - r.get(0).getError() <= 200);
+    }
+
+    @Test
+    void testVentanaSoloCuentaPeriodosRecientes() {
+        TopReproducciones top = new TopReproducciones(TopFrecuentes.SIN_LIMITE, 3600, 2);
+        top.sumar("Vieja", "A", "Rock", 0);
+        top.sumar("Vieja", "A", "Rock", 10);
+        top.sumar("Vieja", "A", "Rock", 20);
+        top.sumar("Nueva", "B", "Pop", 3 * 3600);
+        top.sumar("Nueva", "B", "Pop", 3 * 3600 + 5);
+
+        assertEquals("Vieja", top.top(TopReproducciones.Dimension.CANCION, 1).get(0).getClave());
+        List<TopFrecuentes.Entrada> reciente = top.top(TopReproducciones.Dimension.CANCION, 5, 0);
+        assertEquals(1, reciente.size());
+        assertEquals("Nueva", reciente.get(0).getClave());
+        assertEquals(2, reciente.get(0).getConteo());
+    }
+}
@@ -3,6 +3,8 @@ package com.syncup.app;
 import com.syncup.app.logic.Trie;
 import org.junit.jupiter.api.*;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TrieTest {
@@ -39,5 +41,86 @@ public class TrieTest {
         var resultados = trie.buscarPorPrefijo("lo");
         assertEquals(0, resultados.size());
     }
-}
 
+    @Test
+    void testBusquedaAcotada() {
+        var resultados = trie.buscarPorPrefijo("lo", 2);
+
+        assertEquals(2, resultados.size());
+        assertEquals("Love Story", resultados.get(0));
+        assertEquals("Lover", resultados.get(1));
+    }
+
+    @Test
+    void testReferenciaRepetidaNoSeDuplica() {
+        trie.insertar("taylor swift", "Lover");
+        trie.insertar("taylor", "Lover");
+
+        assertEquals(1, trie.buscarPorPrefijo("tay").size());
+        assertEquals(3, trie.buscarPorPrefijo("l").size());
+    }
+
+    @Test
+    void testPrefijoPopularConservaSoloTopK() {
+        for (int i = 0; i < 50; i++) {
+            trie.insertar("the song " + i, "The Song " + i);
+        }
+
+        assertEquals(50, trie.buscarPorPrefijo("the", 100).size());
+        assertEquals(Trie.TOP_K, trie.buscarPorPrefijo("the", Trie.TOP_K).size());
+        assertEquals("The Song 0", trie.buscarPorPrefijo("the", 1).get(0));
+        assertEquals(50, trie.buscarPorPrefijo("the").size());
+    }
+
+    @Test
+    void testSugerenciasOrdenadasPorPuntuacion() {
+        trie.incrementarPuntuacion("Low Motion", 5);
+        trie.incrementarPuntuacion("Lover", 2);
+
+        assertEquals(List.of("Low Motion", "Lover"), trie.buscarPorPrefijo("lo", 2));
+
+        trie.incrementarPuntuacion("Love Story", 10);
+        assertEquals("Love Story", trie.buscarPorPrefijo("lo", 1).get(0));
+        assertEquals(List.of("Love Story", "Lover"), trie.buscarPorPrefijo("love", 5));
+        assertEquals(10, trie.getPuntuacion("Love Story"));
+    }
+
+    @Test
+    void testPuntuacionEntraEnTopKLleno() {
+        for (int i = 0; i < 30; i++) {
+            trie.insertar("the song " + i, "The Song " + i);
+        }
+        trie.incrementarPuntuacion("The Song 29", 1);
+
+        assertEquals("The Song 29", trie.buscarPorPrefijo("the", 3).get(0));
+        assertEquals("The Song 29", trie.buscarPorPrefijo("the", 50).get(0));
+    }
+
+    @Test
+    void testEliminarReferencia() {
+        trie.insertar("pop", "Lover");
+        trie.eliminar("Lover");
+
+        assertEquals(List.of("Love Story", "Low Motion"), trie.buscarPorPrefijo("lo"));
+        assertTrue(trie.buscarPorPrefijo("lover").isEmpty());
+        assertTrue(trie.buscarPorPrefijo("pop", 5).isEmpty());
+        assertEquals(0, trie.getPuntuacion("Lover"));
+    }
+
+    @Test
+    void testEliminarReparaTopKLleno() {
+        for (int i = 0; i < 30; i++) {
+            trie.insertar("the song " + i, "The Song " + i);
+            trie.incrementarPuntuacion("The Song " + i, i + 1);
+        }
+        // Elimina las 5 más populares: las siguientes deben entrar en el top
+        for (int i = 25; i < 30; i++) {
+            trie.eliminar("The Song " + i);
+        }
+
+        List<String> top = trie.buscarPorPrefijo("the", Trie.TOP_K);
+        assertEquals(Trie.TOP_K, top.size());
+        assertEquals("The Song 24", top.get(0));
+        assertEquals("The Song 15", top.get(Trie.TOP_K - 1));
+    }
+}